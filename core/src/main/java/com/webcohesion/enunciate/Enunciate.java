@@ -15,37 +15,52 @@
  */
 package com.webcohesion.enunciate;
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import com.sun.tools.javac.api.JavacTool;
 import com.webcohesion.enunciate.api.AggregatedApiRegistry;
 import com.webcohesion.enunciate.api.ApiRegistry;
 import com.webcohesion.enunciate.artifacts.Artifact;
 import com.webcohesion.enunciate.io.InvokeEnunciateModule;
-import com.webcohesion.enunciate.module.ApiRegistryAwareModule;
-import com.webcohesion.enunciate.module.DependencySpec;
-import com.webcohesion.enunciate.module.DependingModuleAwareModule;
-import com.webcohesion.enunciate.module.EnunciateModule;
+import com.webcohesion.enunciate.module.*;
+import com.webcohesion.enunciate.util.ClassPathFileManager;
+import com.webcohesion.enunciate.util.ClassPathIndex;
+import com.webcohesion.enunciate.util.OpenJarFiles;
+import com.webcohesion.enunciate.util.SourcePathFileManager;
+import com.webcohesion.enunciate.util.SourcePathIndex;
+import com.webcohesion.enunciate.util.ZipArchiveWriter;
+import com.webcohesion.enunciate.util.freemarker.FreemarkerTemplateEngine;
+import com.webcohesion.enunciate.util.freemarker.TemplateRenderBatch;
+import freemarker.template.ObjectWrapper;
 import org.apache.commons.configuration.ConfigurationException;
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.alg.CycleDetector;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.traverse.TopologicalOrderIterator;
-import org.reflections.Reflections;
+import org.reflections.ReflectionsException;
 import org.reflections.util.ConfigurationBuilder;
+import org.reflections.vfs.Vfs;
+import org.reflections.vfs.ZipDir;
 import rx.Observable;
-import rx.Scheduler;
-import rx.schedulers.Schedulers;
 
 import javax.tools.*;
 import java.io.*;
 import java.net.*;
 import java.nio.channels.FileChannel;
+import java.security.CodeSource;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 
 /**
@@ -54,6 +69,7 @@ import java.util.zip.ZipOutputStream;
 public class Enunciate implements Runnable {
 
   private static final String DUPLICATE_CLASS_ERROR_MESSAGE_ENGLISH = "file does not contain class";
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
 
   private Set<File> sourceFiles = new TreeSet<File>();
   private List<EnunciateModule> modules;
@@ -62,14 +78,25 @@ public class Enunciate implements Runnable {
   private List<File> classpath = null;
   private List<File> sourcepath = null;
   // so sad that we can't multi-thread the modules; the Javac implementation is not thread safe. You get errors like "java.lang.AssertionError: Filling jar"...
-  private ExecutorService executorService = null; // Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+  // the executor service is only used for I/O (e.g. scanning the classpath, compressing archives).
+  private ExecutorService executorService = null;
+  private int threadCount = 0;
+  private int extraThreadCount = 0;
   private EnunciateLogger logger = new EnunciateConsoleLogger();
   private final EnunciateConfiguration configuration = new EnunciateConfiguration();
   private File buildDir;
+  private File scanCacheDir;
+  private EnunciateSession session;
   private final List<String> compilerArgs = new ArrayList<String>();
   private final Set<Artifact> artifacts = new TreeSet<Artifact>();
   private final Map<String, File> exports = new HashMap<String, File>();
-  private final ApiRegistry apiRegistry = new AggregatedApiRegistry(this);
+  private final AggregatedApiRegistry apiRegistry = new AggregatedApiRegistry(this);
+  private FreemarkerTemplateEngine templateEngine;
+  private EnunciateBuildState buildState;
+  private SortedMap<String, String> buildInputFingerprints;
+  private EnunciateMetrics metrics;
+  private final Map<String, ClassPathIndex> classPathIndexes = new HashMap<String, ClassPathIndex>();
+  private volatile OpenJarFiles openJars;
 
   public List<EnunciateModule> getModules() {
     return modules;
@@ -127,11 +154,33 @@ public class Enunciate implements Runnable {
     return this;
   }
 
+  public ExecutorService getExecutorService() {
+    return executorService;
+  }
+
   public Enunciate setExecutorService(ExecutorService executorService) {
     this.executorService = executorService;
+    this.threadCount = threadCountOf(executorService);
     return this;
   }
 
+  /**
+   * The number of threads of an executor service: the maximum pool size of a thread pool (but no more than the number of
+   * processors for an unbounded pool), or a single thread if the executor doesn't say.
+   */
+  private static int threadCountOf(ExecutorService executorService) {
+    if (executorService == null) {
+      return 0;
+    }
+    else if (executorService instanceof ThreadPoolExecutor) {
+      int maximumPoolSize = ((ThreadPoolExecutor) executorService).getMaximumPoolSize();
+      return maximumPoolSize == Integer.MAX_VALUE ? Runtime.getRuntime().availableProcessors() : maximumPoolSize;
+    }
+    else {
+      return 1;
+    }
+  }
+
   public Set<String> getIncludePatterns() {
     TreeSet<String> includeClasses = new TreeSet<String>(this.includePatterns);
     includeClasses.addAll(this.configuration.getApiIncludeClasses());
@@ -172,15 +221,47 @@ public class Enunciate implements Runnable {
     return this;
   }
 
+  /**
+   * Set the number of extra threads to use for I/O during a run (e.g. scanning the classpath, compressing archives). The
+   * threads are started when the run starts and stopped when it ends. Ignored if an executor service has been set.
+   *
+   * @param extraThreadCount The number of extra threads.
+   * @return this
+   */
   public Enunciate setExtraThreadCount(int extraThreadCount) {
-    if (extraThreadCount < 1) {
-      this.executorService = null;
-    }
-    else {
-      this.executorService = Executors.newFixedThreadPool(extraThreadCount);
+    this.extraThreadCount = Math.max(0, extraThreadCount);
+    return this;
+  }
+
+  /**
+   * Start the extra threads for a run, if any were requested and no executor service was set.
+   *
+   * @return The executor service that was started, to be shut down at the end of the run, or null if none.
+   */
+  private ExecutorService startExtraThreads() {
+    if (this.executorService != null || this.extraThreadCount < 1) {
+      return null;
     }
 
-    return this;
+    ExecutorService extraThreads = Executors.newFixedThreadPool(this.extraThreadCount, new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "enunciate-" + this.count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    setExecutorService(extraThreads);
+    return extraThreads;
+  }
+
+  private void stopExtraThreads(ExecutorService extraThreads) {
+    if (extraThreads != null) {
+      setExecutorService(null);
+      extraThreads.shutdown();
+    }
   }
 
   public EnunciateLogger getLogger() {
@@ -248,6 +329,37 @@ public class Enunciate implements Runnable {
     return this;
   }
 
+  public File getScanCacheDir() {
+    return scanCacheDir;
+  }
+
+  /**
+   * Set the directory in which to cache what's found by scanning the jars on the classpath, or null to scan every jar on
+   * every build.
+   *
+   * @param scanCacheDir The scan cache directory.
+   * @return this
+   */
+  public Enunciate setScanCacheDir(File scanCacheDir) {
+    this.scanCacheDir = scanCacheDir;
+    return this;
+  }
+
+  public EnunciateSession getSession() {
+    return session;
+  }
+
+  /**
+   * Set the session in which to run, keeping state warm for the next run in the same JVM, or null to start cold.
+   *
+   * @param session The session.
+   * @return this
+   */
+  public Enunciate setSession(EnunciateSession session) {
+    this.session = session;
+    return this;
+  }
+
   public List<String> getCompilerArgs() {
     return compilerArgs;
   }
@@ -307,6 +419,127 @@ public class Enunciate implements Runnable {
     return apiRegistry;
   }
 
+  /**
+   * The template engine shared by the generating modules.
+   *
+   * @return The template engine shared by the generating modules.
+   */
+  public synchronized FreemarkerTemplateEngine getTemplateEngine() {
+    if (this.templateEngine == null) {
+      this.templateEngine = this.session == null ? new FreemarkerTemplateEngine() : this.session.newTemplateEngine();
+    }
+    return templateEngine;
+  }
+
+  public synchronized Enunciate setTemplateEngine(FreemarkerTemplateEngine templateEngine) {
+    this.templateEngine = templateEngine;
+    return this;
+  }
+
+  /**
+   * The state of the previous build, loaded from the build directory.
+   *
+   * @return The build state.
+   */
+  public synchronized EnunciateBuildState getBuildState() {
+    if (this.buildState == null) {
+      this.buildState = new EnunciateBuildState(this.buildDir);
+    }
+    return buildState;
+  }
+
+  /**
+   * Fingerprints of the inputs to the build other than the API sources: the effective configuration, the compiler
+   * arguments and type patterns, the files named by the configuration (e.g. custom templates), the classpath, and the
+   * code (and built-in templates) of Enunciate and its modules. They're computed once per run.
+   *
+   * @return The fingerprints of the build inputs, by input.
+   */
+  public synchronized SortedMap<String, String> getBuildInputFingerprints() throws IOException {
+    if (this.buildInputFingerprints == null) {
+      EnunciateBuildState buildState = getBuildState();
+      TreeMap<String, String> fingerprints = new TreeMap<String, String>();
+      SortedMap<String, List<String>> settings = this.configuration.getEffectiveSettings();
+      fingerprints.put("settings", EnunciateBuildState.hash(settings.toString()));
+      fingerprints.put("compilerArgs", EnunciateBuildState.hash(getCompilerArgs().toString()));
+      fingerprints.put("patterns", EnunciateBuildState.hash(getIncludePatterns() + " " + getExcludePatterns()));
+
+      for (List<String> values : settings.values()) {
+        for (String value : values) {
+          //any setting may be the path to a file (e.g. a custom template or stylesheet).
+          File file = value == null || value.isEmpty() || value.indexOf('\n') >= 0 ? null : this.configuration.resolveFile(value);
+          if (file != null && file.isFile() && !isInBuildDir(file)) {
+            fingerprints.put("configured:" + file.getAbsolutePath(), buildState.getFileFingerprint(file));
+          }
+        }
+      }
+
+      if (this.classpath != null) {
+        for (File entry : this.classpath) {
+          fingerprints.put("classpath:" + entry.getAbsolutePath(), buildState.getFileFingerprint(entry));
+        }
+      }
+
+      Set<Class<?>> codeClasses = new HashSet<Class<?>>();
+      codeClasses.add(Enunciate.class);
+      if (this.modules != null) {
+        for (EnunciateModule module : this.modules) {
+          codeClasses.add(module.getClass());
+        }
+      }
+      for (Class<?> codeClass : codeClasses) {
+        File code = findCodeSource(codeClass);
+        if (code != null) {
+          fingerprints.put("code:" + code.getAbsolutePath(), buildState.getFileFingerprint(code));
+        }
+      }
+
+      buildState.setFingerprint("inputs", EnunciateBuildState.hash(fingerprints.toString()));
+      this.buildInputFingerprints = Collections.unmodifiableSortedMap(fingerprints);
+    }
+    return this.buildInputFingerprints;
+  }
+
+  private boolean isInBuildDir(File file) {
+    return this.buildDir != null && file.getAbsolutePath().startsWith(this.buildDir.getAbsolutePath() + File.separator);
+  }
+
+  private static File findCodeSource(Class<?> clazz) {
+    try {
+      CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+      URL location = codeSource == null ? null : codeSource.getLocation();
+      return location == null || !"file".equals(location.getProtocol()) ? null : new File(location.toURI());
+    }
+    catch (SecurityException e) {
+      return null;
+    }
+    catch (URISyntaxException e) {
+      return null;
+    }
+  }
+
+  /**
+   * The instrumentation of the current (or most recent) run.
+   *
+   * @return The instrumentation of the run.
+   */
+  public synchronized EnunciateMetrics getMetrics() {
+    if (this.metrics == null) {
+      this.metrics = new EnunciateMetrics();
+    }
+    return metrics;
+  }
+
+  /**
+   * Create a new batch of template renders.
+   *
+   * @param wrapper The object wrapper to use for the renders, or null for the default object wrapper.
+   * @return The batch.
+   */
+  public TemplateRenderBatch createTemplateRenderBatch(ObjectWrapper wrapper) {
+    return new TemplateRenderBatch(getTemplateEngine(), wrapper);
+  }
+
   /**
    * Creates a temporary directory.
    *
@@ -402,17 +635,35 @@ public class Enunciate implements Runnable {
    * @param to   The destination file.
    */
   public void copyFile(File from, File to) throws IOException {
-    FileChannel srcChannel = new FileInputStream(from).getChannel();
     to = to.getAbsoluteFile();
     if ((!to.exists()) && (to.getParentFile() != null)) {
       to.getParentFile().mkdirs();
     }
 
     getLogger().debug("Copying %s to %s ", from, to);
-    FileChannel dstChannel = new FileOutputStream(to, false).getChannel();
-    dstChannel.transferFrom(srcChannel, 0, srcChannel.size());
-    srcChannel.close();
-    dstChannel.close();
+    FileChannel srcChannel = new FileInputStream(from).getChannel();
+    try {
+      FileChannel dstChannel = new FileOutputStream(to, false).getChannel();
+      try {
+        //transferFrom may transfer fewer bytes than asked for.
+        long size = srcChannel.size();
+        long bytes = 0;
+        while (bytes < size) {
+          long transferred = dstChannel.transferFrom(srcChannel, bytes, size - bytes);
+          if (transferred <= 0) {
+            break;
+          }
+          bytes += transferred;
+        }
+        EnunciateMetrics.recordFileWritten(bytes);
+      }
+      finally {
+        dstChannel.close();
+      }
+    }
+    finally {
+      srcChannel.close();
+    }
   }
 
   /**
@@ -422,15 +673,35 @@ public class Enunciate implements Runnable {
    * @param dirs   The directories to zip up.
    */
   public boolean zip(File toFile, File... dirs) throws IOException {
+    return zip(toFile, null, dirs);
+  }
+
+  /**
+   * zip up directories and in-memory files (e.g. class files that were compiled in memory) to a specified zip file.
+   *
+   * @param toFile  The file to zip to.
+   * @param entries The in-memory files to add after the contents of the directories, by entry name. May be null.
+   * @param dirs    The directories to zip up.
+   */
+  public boolean zip(File toFile, SortedMap<String, byte[]> entries, File... dirs) throws IOException {
     if (!toFile.getParentFile().exists()) {
       getLogger().debug("Creating directory %s...", toFile.getParentFile());
       toFile.getParentFile().mkdirs();
     }
 
+    EnunciateMetrics.Phase phase = getMetrics().start("zip " + toFile.getName());
+    try {
+      return zipDirs(toFile, entries, dirs);
+    }
+    finally {
+      phase.stop();
+    }
+  }
+
+  private boolean zipDirs(File toFile, SortedMap<String, byte[]> entries, File... dirs) throws IOException {
     boolean anyFiles = false;
 
-    byte[] buffer = new byte[2 * 1024]; //buffer of 2K should be fine.
-    ZipOutputStream zipout = new ZipOutputStream(new FileOutputStream(toFile));
+    ZipArchiveWriter zip = new ZipArchiveWriter(this.executorService, this.threadCount);
     for (File dir : dirs) {
 
       URI baseURI = dir.toURI();
@@ -438,46 +709,46 @@ public class Enunciate implements Runnable {
       ArrayList<File> files = new ArrayList<File>();
       buildFileList(files, dir);
       for (File file : files) {
-        ZipEntry entry = new ZipEntry(baseURI.relativize(file.toURI()).getPath());
-        getLogger().debug("Adding entry %s...", entry.getName());
-        zipout.putNextEntry(entry);
-
-        if (!file.isDirectory()) {
-          anyFiles = true;
-          FileInputStream in = new FileInputStream(file);
-          int len;
-          while ((len = in.read(buffer)) > 0) {
-            zipout.write(buffer, 0, len);
-          }
-          in.close();
-        }
+        String entry = baseURI.relativize(file.toURI()).getPath();
+        getLogger().debug("Adding entry %s...", entry);
+        zip.add(entry, file);
+        anyFiles = true;
+      }
+    }
 
-        // Complete the entry
-        zipout.closeEntry();
+    if (entries != null) {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        getLogger().debug("Adding entry %s...", entry.getKey());
+        zip.add(entry.getKey(), entry.getValue());
+        anyFiles = true;
       }
     }
 
     if (!anyFiles) {
-      ZipEntry entry = new ZipEntry("README.txt");
-      zipout.putNextEntry(entry);
-      zipout.write("Empty zip file".getBytes());
-      zipout.closeEntry();
+      zip.add("README.txt", "Empty zip file".getBytes());
     }
 
-    zipout.close();
+    EnunciateMetrics.recordFileWritten(zip.write(toFile));
 
     return anyFiles;
   }
 
   /**
-   * Adds all files in specified directories to a list.
+   * Adds all files in specified directories to a list. The files of each directory are added in name order so that the
+   * list (and anything built from it) doesn't depend on the order in which the file system happens to list them.
    *
    * @param list The list.
    * @param dirs The directories.
    */
   protected void buildFileList(List<File> list, File... dirs) {
     for (File dir : dirs) {
-      for (File file : dir.listFiles()) {
+      File[] files = dir.listFiles();
+      if (files == null) {
+        continue;
+      }
+
+      Arrays.sort(files);
+      for (File file : files) {
         if (file.isDirectory()) {
           buildFileList(list, file);
         }
@@ -495,7 +766,8 @@ public class Enunciate implements Runnable {
    * @param toDir  The directory to extract to.
    */
   public void unzip(InputStream stream, File toDir) throws IOException {
-    ZipInputStream in = new ZipInputStream(stream);
+    ZipInputStream in = new ZipInputStream(new BufferedInputStream(stream, COPY_BUFFER_SIZE));
+    byte[] buffer = new byte[COPY_BUFFER_SIZE];
     ZipEntry entry = in.getNextEntry();
     while (entry != null) {
       File file = new File(toDir, entry.getName());
@@ -504,13 +776,19 @@ public class Enunciate implements Runnable {
         file.mkdirs();
       }
       else {
-        FileOutputStream out = new FileOutputStream(file);
-        byte[] buffer = new byte[1024 * 2]; //2 kb buffer should suffice.
-        int len;
-        while ((len = in.read(buffer)) > 0) {
-          out.write(buffer, 0, len);
+        if (file.getParentFile() != null && !file.getParentFile().exists()) {
+          file.getParentFile().mkdirs();
         }
-        out.close();
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file), COPY_BUFFER_SIZE);
+        long bytes;
+        try {
+          bytes = copy(in, out, buffer);
+        }
+        finally {
+          out.close();
+        }
+        EnunciateMetrics.recordFileWritten(bytes);
       }
 
       in.closeEntry();
@@ -526,44 +804,71 @@ public class Enunciate implements Runnable {
    */
   public void copyResource(URL url, File to) throws IOException {
     InputStream stream = url.openStream();
+    try {
+      getLogger().debug("Copying resource %s to %s...", url, to);
+      FileOutputStream out = new FileOutputStream(to);
+      long bytes;
+      try {
+        bytes = copy(stream, out, new byte[COPY_BUFFER_SIZE]);
+      }
+      finally {
+        out.close();
+      }
+      EnunciateMetrics.recordFileWritten(bytes);
+    }
+    finally {
+      stream.close();
+    }
+  }
 
-    getLogger().debug("Copying resource %s to %s...", url, to);
-    FileOutputStream out = new FileOutputStream(to);
-    byte[] buffer = new byte[1024 * 2]; //2 kb buffer should suffice.
+  private static long copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+    long bytes = 0;
     int len;
-    while ((len = stream.read(buffer)) > 0) {
+    while ((len = in.read(buffer)) >= 0) {
       out.write(buffer, 0, len);
+      bytes += len;
     }
+    return bytes;
   }
 
   @Override
   public void run() {
+    ExecutorService extraThreads = startExtraThreads();
+    synchronized (this.classPathIndexes) {
+      this.openJars = new OpenJarFiles();
+    }
+    try {
+      runModules();
+    }
+    finally {
+      stopExtraThreads(extraThreads);
+      closeClassPath();
+      //the aggregated apis wrap this run's model.
+      this.apiRegistry.clear();
+    }
+  }
+
+  private void runModules() {
     if (this.modules != null && !this.modules.isEmpty()) {
+      synchronized (this) {
+        this.metrics = new EnunciateMetrics();
+        //the state of the previous build is (re)loaded for each run.
+        this.buildState = null;
+        this.buildInputFingerprints = null;
+      }
+      EnunciateMetrics.setActivePhases(Collections.<EnunciateMetrics.Phase>emptyList());
+      if (this.session != null) {
+        getLogger().debug("Run %s of the warm session.", this.session.startRun());
+      }
+
       //scan for any included types.
       List<File> classpath = this.classpath == null ? new ArrayList<File>() : this.classpath;
       List<File> sourcepath = this.sourcepath == null ? new ArrayList<File>() : this.sourcepath;
 
-      List<URL> scanpath = new ArrayList<URL>(classpath.size() + sourcepath.size());
-      for (File entry : classpath) {
-        try {
-          scanpath.add(entry.toURI().toURL());
-        }
-        catch (MalformedURLException e) {
-          throw new EnunciateException(e);
-        }
-      }
-
-      for (File entry : sourcepath) {
-        try {
-          scanpath.add(entry.toURI().toURL());
-        }
-        catch (MalformedURLException e) {
-          throw new EnunciateException(e);
-        }
-      }
-
-      Reflections reflections = loadApiReflections(scanpath);
-      Set<String> scannedEntries = reflections.getStore().get(EnunciateReflectionsScanner.class.getSimpleName()).keySet();
+      EnunciateMetrics.Phase phase = this.metrics.start("scan");
+      List<File> scanFiles = new ArrayList<File>(classpath);
+      scanFiles.addAll(sourcepath);
+      Set<String> scannedEntries = scanApiEntries(scanFiles);
       Set<String> includedTypes = new HashSet<String>();
       Set<String> scannedSourceFiles = new HashSet<String>();
       for (String entry : scannedEntries) {
@@ -597,42 +902,43 @@ public class Enunciate implements Runnable {
         }
       }
 
+      phase.stop();
       getLogger().debug("Detected API Types: %s", new EnunciateLogger.ListWriter(includedTypes));
 
+      phase = this.metrics.start("javac setup");
+
+      //index the java source files on the classpath and the source path.
+      String encoding = findEncoding(getCompilerArgs());
+      SourcePathIndex sourcePathIndex;
+      try {
+        sourcePathIndex = new SourcePathIndex(classpath, sourcepath, encoding, this.openJars);
+      }
+      catch (IOException e) {
+        throw new EnunciateException(e);
+      }
+
       //gather all the java source files.
       List<URL> sourceFiles = getSourceFileURLs();
-      URLClassLoader apiClassLoader = new URLClassLoader(scanpath.toArray(new URL[scanpath.size()]));
+      List<JavaFileObject> scannedSources = new ArrayList<JavaFileObject>(scannedSourceFiles.size());
       for (String javaFile : scannedSourceFiles) {
-
-        Enumeration<URL> resources;
-        try {
-          resources = apiClassLoader.findResources(javaFile);
-        }
-        catch (IOException e) {
-          getLogger().debug("Unable to load java source file %s: %s", javaFile, e.getMessage());
-          continue;
-        }
-
-        if (!resources.hasMoreElements()) {
+        List<SourcePathIndex.Source> found = sourcePathIndex.find(javaFile);
+        if (found.isEmpty()) {
           getLogger().debug("Unable to find java source file %s on the classpath.", javaFile);
         }
+        else if (found.size() == 1) {
+          scannedSources.add(found.get(0));
+        }
         else {
-          URL resource = resources.nextElement();
-          if (!resources.hasMoreElements()) {
-            sourceFiles.add(resource);
-          }
-          else {
-            StringBuilder locations = new StringBuilder("[").append(resource.toString());
-            while (resources.hasMoreElements()) {
-              resource = resources.nextElement();
-              locations.append(", ").append(resource);
-            }
-            getLogger().warn("Java source file %s will not be included on the classpath because it is found in multiple locations: %s", javaFile, locations);
+          StringBuilder locations = new StringBuilder("[");
+          for (SourcePathIndex.Source source : found) {
+            locations.append(locations.length() > 1 ? ", " : "").append(source.toUri());
           }
+          locations.append("]");
+          getLogger().warn("Java source file %s will not be included on the classpath because it is found in multiple locations: %s", javaFile, locations);
         }
       }
 
-      if (sourceFiles.isEmpty()) {
+      if (sourceFiles.isEmpty() && scannedSources.isEmpty()) {
         //Java compiler needs _something_ to compile, so we'll provide an dummy class.
         sourceFiles.add(Enunciate.class.getResource("/com/webcohesion/enunciate/Nothing.java"));
       }
@@ -650,28 +956,44 @@ public class Enunciate implements Runnable {
       getLogger().debug("Compiler classpath: %s", new EnunciateLogger.ListWriter(classpath));
       options.addAll(Arrays.asList("-classpath", cp));
 
-      String sp = writeClasspath(sourcepath);
+      //the source path is served from the index.
       getLogger().debug("Compiler sourcepath: %s", new EnunciateLogger.ListWriter(sourcepath));
-      options.addAll(Arrays.asList("-sourcepath", sp));
 
       List<String> compilerArgs = getCompilerArgs();
       getLogger().debug("Compiler args: %s", compilerArgs);
       options.addAll(compilerArgs);
 
-      getLogger().debug("Compiler sources: %s", new EnunciateLogger.ListWriter(sourceFiles));
-      List<JavaFileObject> sources = new ArrayList<JavaFileObject>(sourceFiles.size());
-      String encoding = findEncoding(compilerArgs);
+      List<JavaFileObject> sources = new ArrayList<JavaFileObject>(sourceFiles.size() + scannedSources.size());
       for (URL sourceFile : sourceFiles) {
         sources.add(new URLFileObject(sourceFile, encoding));
       }
+      sources.addAll(scannedSources);
+      getLogger().debug("Compiler sources: %s", new EnunciateLogger.ListWriter(sources));
 
       JavaCompiler compiler = JavacTool.create();
       StringWriter compilerOutput = new StringWriter();
       DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
-      JavaCompiler.CompilationTask task = compiler.getTask(compilerOutput, null, diagnostics, options, null, sources);
+      JavaFileManager fileManager = new SourcePathFileManager(compiler.getStandardFileManager(diagnostics, null, null), sourcePathIndex);
+      JavaCompiler.CompilationTask task = compiler.getTask(compilerOutput, fileManager, diagnostics, options, null, sources);
       EnunciateAnnotationProcessor processor = new EnunciateAnnotationProcessor(this, includedTypes);
       task.setProcessors(Collections.singletonList(processor));
-      Boolean javacSuccess = task.call();
+      phase.stop();
+
+      phase = this.metrics.start("annotation processing");
+      Boolean javacSuccess;
+      try {
+        javacSuccess = task.call();
+      }
+      finally {
+        phase.stop();
+        try {
+          sourcePathIndex.close();
+        }
+        catch (IOException e) {
+          getLogger().debug("Unable to close the source path index: %s", e.getMessage());
+        }
+      }
+
       if (!javacSuccess || !processor.processed) {
         String outputText = compilerOutput.toString();
         try {
@@ -731,6 +1053,7 @@ public class Enunciate implements Runnable {
         getLogger().debug("[javac] [%s] %s:%s:%s %s", diagnostic.getKind(), diagnostic.getSource(), diagnostic.getLineNumber(), diagnostic.getColumnNumber(), diagnostic);
       }
 
+      phase = this.metrics.start("export");
       HashSet<String> exportedArtifacts = new HashSet<String>();
       for (Artifact artifact : artifacts) {
         String artifactId = artifact.getId();
@@ -759,6 +1082,32 @@ public class Enunciate implements Runnable {
           getLogger().warn("Unknown artifact '%s'.  Artifact will not be exported.", export);
         }
       }
+      phase.stop();
+
+      if (this.templateEngine != null) {
+        getLogger().debug("Template render statistics: %s", new EnunciateLogger.ListWriter(this.templateEngine.getRenderStatistics().entrySet()));
+      }
+
+      if (this.buildState != null) {
+        try {
+          this.buildState.save();
+        }
+        catch (IOException e) {
+          getLogger().warn("Unable to save the build state: %s", e.getMessage());
+        }
+      }
+
+      getLogger().info(this.metrics.getSummary(InvokeEnunciateModule.PHASE_PREFIX));
+      if (this.buildDir != null) {
+        File report = new File(this.buildDir, EnunciateMetrics.FILENAME);
+        try {
+          this.metrics.writeReport(report, this.templateEngine == null ? null : this.templateEngine.getRenderStatistics());
+          getLogger().debug("Wrote metrics report to %s.", report);
+        }
+        catch (IOException e) {
+          getLogger().warn("Unable to write the metrics report: %s", e.getMessage());
+        }
+      }
     }
     else {
       this.logger.warn("No Enunciate modules have been loaded. No work was done.");
@@ -789,6 +1138,95 @@ public class Enunciate implements Runnable {
     return builder.toString();
   }
 
+  /**
+   * Compile Java sources against the classpath, keeping the class files in memory. The classpath is served from an index
+   * that's built on the first compile of the run and shared by the rest of them (and closed when the run finishes), so
+   * the classpath jars aren't reopened and searched for every compile. A compile outside of a run uses an index of its own.
+   *
+   * @param sources The sources.
+   * @param options The compiler options, not including the classpath or an output directory.
+   * @return The class files (and any other class output), by path (e.g. "com/acme/Widget.class"), or null if the compile failed.
+   */
+  public SortedMap<String, byte[]> compile(List<? extends JavaFileObject> sources, List<String> options) throws IOException {
+    List<File> classpath = this.classpath == null ? Collections.<File>emptyList() : this.classpath;
+    List<String> compileOptions = new ArrayList<String>(options);
+    if (!classpath.isEmpty()) {
+      //the underlying file manager still needs the classpath for loading annotation processors.
+      compileOptions.addAll(Arrays.asList("-cp", writeClasspath(classpath)));
+    }
+
+    JavaCompiler compiler = JavacTool.create();
+    String encoding = findEncoding(options);
+    ClassPathIndex runIndex = getClassPathIndex(classpath, encoding);
+    ClassPathIndex index = runIndex != null ? runIndex : new ClassPathIndex(classpath, encoding);
+    ClassPathFileManager fileManager = new ClassPathFileManager(compiler.getStandardFileManager(null, null, null), index);
+    try {
+      if (!compiler.getTask(null, fileManager, null, compileOptions, null, sources).call()) {
+        return null;
+      }
+    }
+    finally {
+      fileManager.close();
+      if (runIndex == null) {
+        index.close();
+      }
+    }
+    return fileManager.getOutput();
+  }
+
+  /**
+   * The classpath index of the run for the specified encoding.
+   *
+   * @return The index, or null if there's no run in progress.
+   */
+  private ClassPathIndex getClassPathIndex(List<File> classpath, String encoding) throws IOException {
+    synchronized (this.classPathIndexes) {
+      if (this.openJars == null) {
+        return null;
+      }
+
+      ClassPathIndex index = this.classPathIndexes.get(encoding);
+      if (index == null) {
+        EnunciateMetrics.Phase phase = getMetrics().start("classpath index");
+        try {
+          index = new ClassPathIndex(classpath, encoding, this.openJars);
+        }
+        finally {
+          phase.stop();
+        }
+        this.classPathIndexes.put(encoding, index);
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Close the classpath indexes and the jars of the run.
+   */
+  private void closeClassPath() {
+    OpenJarFiles jars;
+    synchronized (this.classPathIndexes) {
+      jars = this.openJars;
+      this.openJars = null;
+      for (ClassPathIndex index : this.classPathIndexes.values()) {
+        try {
+          index.close();
+        }
+        catch (IOException e) {
+          getLogger().debug("Unable to close the classpath index: %s", e.getMessage());
+        }
+      }
+      this.classPathIndexes.clear();
+    }
+
+    try {
+      jars.close();
+    }
+    catch (IOException e) {
+      getLogger().debug("Unable to close the jars on the classpath: %s", e.getMessage());
+    }
+  }
+
   protected List<URL> getSourceFileURLs() {
     List<URL> sourceFiles = new ArrayList<URL>(this.sourceFiles.size());
     for (File sourceFile : this.sourceFiles  ) {
@@ -802,16 +1240,144 @@ public class Enunciate implements Runnable {
     return sourceFiles;
   }
 
-  protected Reflections loadApiReflections(List<URL> classpath) {
-    ConfigurationBuilder reflectionSpec = new ConfigurationBuilder()
-      .setUrls(classpath)
-      .setScanners(new EnunciateReflectionsScanner(this, getModules()));
-
+  /**
+   * Scan the specified classpath entries. The entries are spread across the executor service, if any, largest first. If
+   * there's a scan cache, jars that were scanned by a previous build and haven't changed since are replayed from the cache
+   * instead of being scanned again.
+   *
+   * @param scanFiles The entries to scan.
+   * @return The scanned entries (the included types and the source files).
+   */
+  protected Set<String> scanApiEntries(List<File> scanFiles) {
+    final EnunciateScanCache cache = this.session != null ? this.session.newScanCache(this.scanCacheDir) : this.scanCacheDir != null ? new EnunciateScanCache(this.scanCacheDir) : null;
+    final EnunciateReflectionsScanner scanner = new EnunciateReflectionsScanner(this, getModules());
+    scanner.setConfiguration(new ConfigurationBuilder().setScanners(scanner));
+    Multimap<String, String> store = Multimaps.synchronizedSetMultimap(HashMultimap.<String, String>create());
+    scanner.setStore(store);
+
+    final AtomicInteger cached = new AtomicInteger();
+    List<File> ordered = new ArrayList<File>(scanFiles);
     if (this.executorService != null) {
-      reflectionSpec = reflectionSpec.setExecutorService(this.executorService);
+      //the biggest jars take the longest; start them first so they don't hold up the end of the scan.
+      Collections.sort(ordered, new Comparator<File>() {
+        @Override
+        public int compare(File f1, File f2) {
+          long l1 = f1.isFile() ? f1.length() : 0;
+          long l2 = f2.isFile() ? f2.length() : 0;
+          return l1 > l2 ? -1 : l1 < l2 ? 1 : 0;
+        }
+      });
+    }
+
+    List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(ordered.size());
+    for (final File scanFile : ordered) {
+      tasks.add(new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          if (scanApiEntry(scanFile, cache, scanner)) {
+            cached.incrementAndGet();
+          }
+          return null;
+        }
+      });
+    }
+
+    try {
+      if (this.executorService != null) {
+        for (Future<Object> future : this.executorService.invokeAll(tasks)) {
+          future.get();
+        }
+      }
+      else {
+        for (Callable<Object> task : tasks) {
+          task.call();
+        }
+      }
+    }
+    catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new EnunciateException(e.getCause());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EnunciateException(e);
+    }
+    catch (RuntimeException e) {
+      throw e;
+    }
+    catch (Exception e) {
+      throw new EnunciateException(e);
+    }
+
+    if (cache != null) {
+      getLogger().debug("Scanned %s classpath entries (%s replayed from the scan cache%s).", scanFiles.size(), cached.get(), this.scanCacheDir == null ? "" : " at " + this.scanCacheDir);
+    }
+    synchronized (store) {
+      return new HashSet<String>(store.keySet());
+    }
+  }
+
+  /**
+   * Scan a single classpath entry, using the scan cache (if any) if the entry is a jar.
+   *
+   * @return Whether the entry was replayed from the cache.
+   */
+  private boolean scanApiEntry(File scanFile, EnunciateScanCache cache, EnunciateReflectionsScanner scanner) throws IOException {
+    boolean cacheable = cache != null && scanFile.isFile();
+    if (cacheable) {
+      EnunciateScanCache.Entry entry = cache.load(scanFile, scanner.getAnnotationFilterKey());
+      if (entry != null) {
+        if (scanner.replay(entry)) {
+          return true;
+        }
+        getLogger().debug("Unable to replay %s from the scan cache; scanning it again.", scanFile);
+      }
+    }
+
+    EnunciateScanCache.Entry entry = cacheable ? cache.newEntry(scanFile, scanner.getAnnotationFilterKey()) : null;
+    scanner.startRecording(entry);
+    try {
+      //the jars opened by the scan are kept open for the indexes of the classpath and the source path.
+      OpenJarFiles jars = this.openJars;
+      boolean sharedJar = jars != null && scanFile.isFile();
+      Vfs.Dir dir;
+      try {
+        dir = sharedJar ? new ZipDir(jars.open(scanFile)) : Vfs.fromURL(scanFile.toURI().toURL());
+      }
+      catch (IOException e) {
+        getLogger().debug("Unable to scan %s: %s", scanFile, e.getMessage());
+        return false;
+      }
+      catch (ReflectionsException e) {
+        getLogger().debug("Unable to scan %s: %s", scanFile, e.getMessage());
+        return false;
+      }
+
+      try {
+        for (Vfs.File file : dir.getFiles()) {
+          if (scanner.acceptsInput(file.getRelativePath())) {
+            try {
+              scanner.scan(file, null);
+            }
+            catch (ReflectionsException e) {
+              getLogger().debug("Unable to scan %s in %s: %s", file.getRelativePath(), scanFile, e.getMessage());
+            }
+          }
+        }
+      }
+      finally {
+        if (!sharedJar) {
+          dir.close();
+        }
+      }
+    }
+    finally {
+      scanner.stopRecording();
     }
 
-    return new Reflections(reflectionSpec);
+    if (entry != null) {
+      cache.store(entry);
+    }
+    return false;
   }
 
   public void visitFiles(File dir, FileFilter filter, FileVisitor visitor) {
@@ -898,8 +1464,9 @@ public class Enunciate implements Runnable {
   }
 
   protected Observable<EnunciateContext> composeEngine(EnunciateContext context, Map<String, ? extends EnunciateModule> modules, DirectedGraph<String, DefaultEdge> graph) {
-    Scheduler scheduler = this.executorService == null ? Schedulers.immediate() : Schedulers.from(this.executorService);
-    Observable<EnunciateContext> source = Observable.just(context).subscribeOn(scheduler);
+    //the modules all run on the calling thread (the javac thread): they share the javac processing environment and the
+    //elements decorated from it, and javac isn't thread safe. Extra threads are only used for I/O.
+    Observable<EnunciateContext> source = Observable.just(context);
 
     Map<String, Observable<EnunciateContext>> moduleWorkset = new TreeMap<String, Observable<EnunciateContext>>();
     TopologicalOrderIterator<String, DefaultEdge> graphIt = new TopologicalOrderIterator<String, DefaultEdge>(graph);
@@ -911,7 +1478,7 @@ public class Enunciate implements Runnable {
       Set<DefaultEdge> dependencies = graph.incomingEdgesOf(module);
       if (dependencies == null || dependencies.isEmpty()) {
         //no dependencies on this module; plug in directly to the source.
-        moduleWork = source.doOnEach(new InvokeEnunciateModule(modules.get(module))).cache();
+        moduleWork = source.doOnEach(new InvokeEnunciateModule(modules.get(module), getMetrics())).cache();
       }
       else {
         Observable<EnunciateContext> dependencyWork = source;
@@ -925,7 +1492,7 @@ public class Enunciate implements Runnable {
         }
 
         //zip up all the dependencies.
-        moduleWork = dependencyWork.last().doOnEach(new InvokeEnunciateModule(modules.get(module))).cache();
+        moduleWork = dependencyWork.last().doOnEach(new InvokeEnunciateModule(modules.get(module), getMetrics())).cache();
       }
 
       moduleWorkset.put(module, moduleWork);
@@ -1002,15 +1569,12 @@ public class Enunciate implements Runnable {
 
     @Override
     public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
-      StringBuilder content = new StringBuilder();
+      //decode the content all at once; decoding it in chunks would break any multi-byte character that spans two chunks.
+      ByteArrayOutputStream content = new ByteArrayOutputStream();
       InputStream in = openInputStream();
       try {
-        byte[] bytes = new byte[2 * 1024];
-        int len;
-        while ((len = in.read(bytes)) >= 0) {
-          content.append(new String(bytes, 0, len, this.encoding));
-        }
-        return content;
+        copy(in, content, new byte[8 * 1024]);
+        return content.toString(this.encoding);
       }
       finally {
         try {
@@ -77,6 +77,9 @@ public class EnunciateAnnotationProcessor extends AbstractProcessor {
         annotationMirrorDecorations.addAll(contextModifier.getAnnotationMirrorDecorations());
       }
     }
+
+    //anything decorated while the modules were initializing is missing the decorations the modules contributed.
+    processingEnvironment.clearDecorationCache();
   }
 
   @Override
@@ -121,6 +124,10 @@ public class EnunciateAnnotationProcessor extends AbstractProcessor {
       //fire off (and block on) the engine.
       engine.toList().toBlocking().single();
 
+      DecoratedProcessingEnvironment processingEnvironment = this.context.getProcessingEnvironment();
+      this.enunciate.getLogger().debug("Element decoration cache: %d hits, %d misses.", processingEnvironment.getDecorationCacheHits(), processingEnvironment.getDecorationCacheMisses());
+      this.enunciate.getLogger().debug("Type relationship cache: %d hits, %d misses.", processingEnvironment.getTypeRelationships().getHits(), processingEnvironment.getTypeRelationships().getMisses());
+
       this.processed = true;
     }
 
@@ -0,0 +1,339 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate;
+
+import javax.tools.FileObject;
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The state of the previous build, persisted in the build directory. The state holds the content fingerprints of the
+ * inputs to each generated output so that an output can be considered up-to-date when its inputs haven't changed,
+ * regardless of their timestamps. It also holds a fingerprint of each output as it was when the build completed, so that
+ * an output that was changed or deleted since isn't mistaken for an up-to-date one.
+ * <p>
+ * The state is removed from the build directory when it's loaded and is only written back when the build completes
+ * successfully, so an output that was left half-generated by a failed build is never considered up-to-date.
+ *
+ * @author Ryan Heaton
+ */
+public class EnunciateBuildState {
+
+  public static final String FILENAME = ".enunciate-build-state.properties";
+
+  private final File file;
+  private final Properties previous = new Properties();
+  private final Properties current = new Properties();
+  private final ConcurrentMap<String, String> contentHashes = new ConcurrentHashMap<String, String>();
+  private final ConcurrentMap<String, File> outputs = new ConcurrentHashMap<String, File>();
+
+  /**
+   * @param buildDir The build directory, or null if the state isn't to be persisted.
+   */
+  public EnunciateBuildState(File buildDir) {
+    this.file = buildDir == null ? null : new File(buildDir, FILENAME);
+    if (this.file != null && this.file.exists()) {
+      try {
+        InputStream in = new FileInputStream(this.file);
+        try {
+          this.previous.load(in);
+        }
+        finally {
+          in.close();
+        }
+      }
+      catch (IOException e) {
+        //corrupt state; treat it as no state at all.
+        this.previous.clear();
+      }
+
+      this.file.delete();
+    }
+  }
+
+  /**
+   * The fingerprint recorded for the specified key by the previous build.
+   *
+   * @param key The key.
+   * @return The fingerprint, or null if none was recorded.
+   */
+  public String getPreviousFingerprint(String key) {
+    return this.previous.getProperty(key);
+  }
+
+  /**
+   * Record the fingerprint for the specified key for this build.
+   *
+   * @param key         The key.
+   * @param fingerprint The fingerprint.
+   */
+  public void setFingerprint(String key, String fingerprint) {
+    this.current.setProperty(key, fingerprint);
+  }
+
+  /**
+   * The hash of the content of the specified file object. Hashes are cached for the life of the build.
+   *
+   * @param fileObject The file object.
+   * @return The hash of its content.
+   */
+  public String getContentHash(FileObject fileObject) throws IOException {
+    String uri = String.valueOf(fileObject.toUri());
+    String hash = this.contentHashes.get(uri);
+    if (hash == null) {
+      try {
+        hash = hash(fileObject.openInputStream());
+      }
+      catch (UnsupportedOperationException e) {
+        //e.g. an in-memory source.
+        hash = hash(fileObject.getCharContent(true).toString());
+      }
+      String existing = this.contentHashes.putIfAbsent(uri, hash);
+      hash = existing == null ? hash : existing;
+    }
+    return hash;
+  }
+
+  /**
+   * The hash of the content of the specified file. Hashes are cached for the life of the build.
+   *
+   * @param file The file.
+   * @return The hash of its content.
+   */
+  public String getContentHash(File file) throws IOException {
+    String uri = String.valueOf(file.toURI());
+    String hash = this.contentHashes.get(uri);
+    if (hash == null) {
+      hash = hash(new FileInputStream(file));
+      String existing = this.contentHashes.putIfAbsent(uri, hash);
+      hash = existing == null ? hash : existing;
+    }
+    return hash;
+  }
+
+  /**
+   * A fingerprint of the content of the specified file or directory. The content is only hashed again if the names, sizes
+   * or modification times of the files changed since the previous build.
+   *
+   * @param file The file or directory.
+   * @return The fingerprint.
+   */
+  public String getFileFingerprint(File file) throws IOException {
+    if (!file.exists()) {
+      return "missing";
+    }
+
+    String key = "file:" + file.getAbsolutePath();
+    String listing = hash(describeFiles(file));
+    String previous = this.previous.getProperty(key);
+    String hash = previous != null && previous.startsWith(listing + " ") ? previous.substring(listing.length() + 1) : hashFiles(file);
+    this.current.setProperty(key, listing + " " + hash);
+    return hash;
+  }
+
+  /**
+   * Record a generated output, to be fingerprinted when the build completes.
+   *
+   * @param key    The key of the output.
+   * @param output The output file or directory.
+   */
+  public void recordOutput(String key, File output) {
+    if (output != null) {
+      this.outputs.put(key, output);
+    }
+  }
+
+  /**
+   * Whether the specified output is still the way the previous build left it. An output that wasn't fingerprinted by the
+   * previous build is assumed to be unchanged.
+   *
+   * @param key    The key of the output.
+   * @param output The output file or directory.
+   * @return Whether the output is unchanged.
+   */
+  public boolean isOutputUnchanged(String key, File output) throws IOException {
+    String recorded = this.previous.getProperty("output:" + key);
+    if (recorded == null) {
+      return true;
+    }
+
+    int separator = recorded.indexOf(' ');
+    String listing = hash(describeFiles(output));
+    if (separator < 0 || recorded.substring(0, separator).equals(listing)) {
+      return true;
+    }
+
+    //the files were touched; they're unchanged if their content is.
+    return recorded.substring(separator + 1).equals(hashFiles(output));
+  }
+
+  /**
+   * Write the state of this build to the build directory. Fingerprints recorded by the previous build that weren't
+   * recorded again by this build (e.g. for a module that didn't run) are retained, except for those of the files that
+   * weren't fingerprinted by this build.
+   */
+  public void save() throws IOException {
+    if (this.file == null) {
+      return;
+    }
+
+    for (Map.Entry<String, File> output : this.outputs.entrySet()) {
+      String key = "output:" + output.getKey();
+      String listing = hash(describeFiles(output.getValue()));
+      String recorded = this.previous.getProperty(key);
+      String content = recorded != null && recorded.startsWith(listing + " ") ? recorded.substring(listing.length() + 1) : hashFiles(output.getValue());
+      this.current.setProperty(key, listing + " " + content);
+    }
+
+    Properties state = new Properties();
+    for (String key : this.previous.stringPropertyNames()) {
+      if (!key.startsWith("file:")) {
+        state.setProperty(key, this.previous.getProperty(key));
+      }
+    }
+    state.putAll(this.current);
+
+    this.file.getParentFile().mkdirs();
+    OutputStream out = new FileOutputStream(this.file);
+    try {
+      state.store(out, "Enunciate build state");
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Describe the names, sizes and modification times of the files in the specified file or directory.
+   */
+  private static String describeFiles(File output) {
+    StringBuilder description = new StringBuilder();
+    for (Map.Entry<String, File> entry : listFiles(output).entrySet()) {
+      File file = entry.getValue();
+      description.append(entry.getKey()).append(':').append(file.length()).append(':').append(file.lastModified()).append('\n');
+    }
+    return description.toString();
+  }
+
+  /**
+   * Hash the names and the content of the files in the specified file or directory.
+   */
+  private String hashFiles(File output) throws IOException {
+    StringBuilder description = new StringBuilder();
+    for (Map.Entry<String, File> entry : listFiles(output).entrySet()) {
+      description.append(entry.getKey()).append(':').append(hash(new FileInputStream(entry.getValue()))).append('\n');
+    }
+    return hash(description.toString());
+  }
+
+  /**
+   * The files in the specified file or directory, by their path relative to it.
+   */
+  private static SortedMap<String, File> listFiles(File output) {
+    TreeMap<String, File> files = new TreeMap<String, File>();
+    if (output.isFile()) {
+      files.put("", output);
+    }
+    else if (output.isDirectory()) {
+      LinkedList<String> dirs = new LinkedList<String>();
+      dirs.add("");
+      while (!dirs.isEmpty()) {
+        String path = dirs.removeFirst();
+        File[] children = new File(output, path).listFiles();
+        if (children != null) {
+          for (File child : children) {
+            String childPath = path + child.getName();
+            if (child.isDirectory()) {
+              dirs.add(childPath + "/");
+            }
+            else {
+              files.put(childPath, child);
+            }
+          }
+        }
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Hash the specified string (encoded as UTF-8).
+   *
+   * @param value The value to hash.
+   * @return The hash.
+   */
+  public static String hash(String value) {
+    try {
+      return hash(value.getBytes("utf-8"));
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Hash the specified bytes.
+   *
+   * @param bytes The bytes.
+   * @return The hash.
+   */
+  public static String hash(byte[] bytes) {
+    return toHex(newDigest().digest(bytes));
+  }
+
+  /**
+   * Hash the content of the specified stream, reading it through a fixed-size buffer (so that e.g. a large jar isn't
+   * loaded into memory). The stream is closed.
+   *
+   * @param in The stream.
+   * @return The hash.
+   */
+  public static String hash(InputStream in) throws IOException {
+    DigestInputStream digestIn = new DigestInputStream(in, newDigest());
+    try {
+      byte[] buffer = new byte[8192];
+      while (digestIn.read(buffer) >= 0) {
+        //just digesting...
+      }
+    }
+    finally {
+      digestIn.close();
+    }
+    return toHex(digestIn.getMessageDigest().digest());
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] hash) {
+    StringBuilder hex = new StringBuilder(hash.length * 2);
+    for (byte b : hash) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
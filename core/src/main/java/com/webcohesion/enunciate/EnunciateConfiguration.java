@@ -78,6 +78,39 @@ public class EnunciateConfiguration {
     return source;
   }
 
+  /**
+   * The effective settings of this configuration: each configured value (as interpolated), plus the defaults that were
+   * supplied by the build (e.g. the title and version of the project).
+   *
+   * @return The effective settings, by key.
+   */
+  public SortedMap<String, List<String>> getEffectiveSettings() {
+    TreeMap<String, List<String>> settings = new TreeMap<String, List<String>>();
+    Iterator keys = this.source.getKeys();
+    while (keys.hasNext()) {
+      String key = String.valueOf(keys.next());
+      List<String> values = new ArrayList<String>();
+      for (Object value : this.source.getList(key)) {
+        values.add(String.valueOf(value));
+      }
+      settings.put(key, values);
+    }
+
+    settings.put("default.slug", Arrays.asList(this.defaultSlug));
+    settings.put("default.version", Arrays.asList(this.defaultVersion));
+    settings.put("default.title", Arrays.asList(this.defaultTitle));
+    settings.put("default.description", Arrays.asList(this.defaultDescription));
+    settings.put("default.copyright", Arrays.asList(this.defaultCopyright));
+    if (this.defaultApiLicense != null) {
+      settings.put("default.license", Arrays.asList(this.defaultApiLicense.getName(), this.defaultApiLicense.getUrl(), this.defaultApiLicense.getFile(), this.defaultApiLicense.getText()));
+    }
+    for (int i = 0; i < this.defaultContacts.size(); i++) {
+      Contact contact = this.defaultContacts.get(i);
+      settings.put("default.contact." + i, Arrays.asList(contact.getName(), contact.getUrl(), contact.getEmail()));
+    }
+    return settings;
+  }
+
   public String getSlug() {
     return this.source.getString("[@slug]", this.defaultSlug);
   }
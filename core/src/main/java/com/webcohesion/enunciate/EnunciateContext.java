@@ -18,16 +18,14 @@ package com.webcohesion.enunciate;
 import com.webcohesion.enunciate.api.ApiRegistry;
 import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
 import com.webcohesion.enunciate.javac.decorations.DecoratedRoundEnvironment;
-import com.webcohesion.enunciate.util.AntPatternInclude;
-import com.webcohesion.enunciate.util.AntPatternMatcher;
-import com.webcohesion.enunciate.util.StringEqualsInclude;
-import org.reflections.util.FilterBuilder;
+import com.webcohesion.enunciate.util.AntPatternSet;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Encapsulation of the output of the Enunciate engine.
@@ -44,17 +42,18 @@ public class EnunciateContext {
   private Set<Element> apiElements;
   private Set<Element> localApiElements;
   private DecoratedRoundEnvironment roundEnvironment;
-  private final FilterBuilder includeFilter;
-  private final FilterBuilder excludeFilter;
-  private final Map<String, List<FilterBuilder>> facetFilter;
+  private final AntPatternSet includeFilter;
+  private final AntPatternSet excludeFilter;
+  private final Map<String, AntPatternSet> facetFilter;
+  private final ConcurrentMap<String, Set<String>> configuredFacets = new ConcurrentHashMap<String, Set<String>>();
 
   public EnunciateContext(DecoratedProcessingEnvironment processingEnvironment, EnunciateLogger logger, ApiRegistry registry, EnunciateConfiguration configuration, Set<String> includes, Set<String> excludes) {
     this.processingEnvironment = processingEnvironment;
     this.logger = logger;
     this.apiRegistry = registry;
     this.configuration = configuration;
-    this.includeFilter = buildFilter(includes);
-    this.excludeFilter = buildFilter(excludes);
+    this.includeFilter = new AntPatternSet(includes);
+    this.excludeFilter = new AntPatternSet(excludes);
     this.facetFilter = buildFacetFilter(configuration == null ? null : configuration.getFacetPatterns());
   }
 
@@ -111,7 +110,7 @@ public class EnunciateContext {
   }
 
   public boolean hasExplicitIncludes() {
-    return this.includeFilter != null;
+    return !this.includeFilter.isEmpty();
   }
 
   public boolean isExplicitlyIncluded(Element next) {
@@ -130,7 +129,7 @@ public class EnunciateContext {
       }
     }
 
-    return this.includeFilter.apply(className);
+    return this.includeFilter.matches(className);
   }
 
   public boolean isExcluded(Element next) {
@@ -149,51 +148,49 @@ public class EnunciateContext {
       return true;
     }
 
-    boolean filteredIn = this.includeFilter != null && this.includeFilter.apply(className);
-    boolean filteredOut = this.excludeFilter != null && this.excludeFilter.apply(className);
+    boolean filteredIn = this.includeFilter.matches(className);
+    boolean filteredOut = this.excludeFilter.matches(className);
     return !filteredIn && filteredOut;
   }
 
   public Set<String> getConfiguredFacets(String fqn) {
-    TreeSet<String> facets = new TreeSet<String>();
-    for (Map.Entry<String, List<FilterBuilder>> facetPatterns : this.facetFilter.entrySet()) {
-      for (FilterBuilder filterBuilder : facetPatterns.getValue()) {
-        if (filterBuilder.apply(fqn)) {
-          facets.add(facetPatterns.getKey());
-        }
-      }
+    if (this.facetFilter.isEmpty()) {
+      return Collections.emptySet();
     }
-    return facets;
-  }
 
-  private FilterBuilder buildFilter(Set<String> includes) {
-    FilterBuilder includeFilter = null;
-    if (includes != null && !includes.isEmpty()) {
-      includeFilter = new FilterBuilder();
-      for (String include : includes) {
-        if (AntPatternMatcher.isValidPattern(include)) {
-          includeFilter = includeFilter.add(new AntPatternInclude(include));
-        }
-        else {
-          includeFilter = includeFilter.add(new StringEqualsInclude(include));
+    //facets are gathered for every element of every type, so remember the facets of each type.
+    Set<String> facets = this.configuredFacets.get(fqn);
+    if (facets == null) {
+      TreeSet<String> matched = new TreeSet<String>();
+      for (Map.Entry<String, AntPatternSet> facetPatterns : this.facetFilter.entrySet()) {
+        if (facetPatterns.getValue().matches(fqn)) {
+          matched.add(facetPatterns.getKey());
         }
       }
+      facets = Collections.unmodifiableSet(matched);
+      this.configuredFacets.put(fqn, facets);
     }
-    return includeFilter;
+    return facets;
   }
 
-  protected HashMap<String, List<FilterBuilder>> buildFacetFilter(Map<String, String> facetPatterns) {
-    HashMap<String, List<FilterBuilder>> filters = new HashMap<String, List<FilterBuilder>>();
+  protected Map<String, AntPatternSet> buildFacetFilter(Map<String, String> facetPatterns) {
+    HashMap<String, Set<String>> patternsByFacet = new HashMap<String, Set<String>>();
     if (facetPatterns != null) {
       for (Map.Entry<String, String> facetPattern : facetPatterns.entrySet()) {
-        List<FilterBuilder> patternMatchers = filters.get(facetPattern.getValue());
-        if (patternMatchers == null) {
-          patternMatchers = new ArrayList<FilterBuilder>();
-          filters.put(facetPattern.getValue(), patternMatchers);
+        Set<String> patterns = patternsByFacet.get(facetPattern.getValue());
+        if (patterns == null) {
+          patterns = new TreeSet<String>();
+          patternsByFacet.put(facetPattern.getValue(), patterns);
         }
-        patternMatchers.add(buildFilter(Collections.singleton(facetPattern.getKey())));
+        patterns.add(facetPattern.getKey());
       }
     }
+
+    HashMap<String, AntPatternSet> filters = new HashMap<String, AntPatternSet>();
+    for (Map.Entry<String, Set<String>> patterns : patternsByFacet.entrySet()) {
+      //the facets are remembered per type, so the individual pattern sets needn't be.
+      filters.put(patterns.getKey(), new AntPatternSet(patterns.getValue(), false));
+    }
     return filters;
   }
 
@@ -0,0 +1,402 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate;
+
+import com.webcohesion.enunciate.util.freemarker.FreemarkerTemplateEngine;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Instrumentation of an Enunciate run. The run is broken up into (possibly nested) phases, e.g. the classpath scan, the
+ * annotation processing and the invocation of each module. Each phase records its wall time, the CPU time and the bytes
+ * allocated by the thread that ran it (where the JVM supports it), and the files written while it was active.
+ *
+ * @author Ryan Heaton
+ */
+public class EnunciateMetrics {
+
+  public static final String FILENAME = "enunciate-metrics.json";
+
+  private static final ThreadLocal<LinkedList<Phase>> ACTIVE_PHASES = new ThreadLocal<LinkedList<Phase>>() {
+    @Override
+    protected LinkedList<Phase> initialValue() {
+      return new LinkedList<Phase>();
+    }
+  };
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final Method THREAD_ALLOCATED_BYTES = findThreadAllocatedBytesMethod();
+
+  private final long startNanos = System.nanoTime();
+  private final List<Phase> phases = new ArrayList<Phase>();
+  private final AtomicLong filesWritten = new AtomicLong();
+  private final AtomicLong bytesWritten = new AtomicLong();
+
+  /**
+   * Start a phase on the current thread. The phase must be stopped on the same thread.
+   *
+   * @param name The name of the phase.
+   * @return The phase.
+   */
+  public Phase start(String name) {
+    Phase phase = new Phase(this, name);
+    synchronized (this.phases) {
+      this.phases.add(phase);
+    }
+    ACTIVE_PHASES.get().addLast(phase);
+    return phase;
+  }
+
+  /**
+   * The phases of the run, in the order they were started.
+   *
+   * @return The phases of the run.
+   */
+  public List<Phase> getPhases() {
+    synchronized (this.phases) {
+      return new ArrayList<Phase>(this.phases);
+    }
+  }
+
+  /**
+   * The total number of files written during the run.
+   *
+   * @return The total number of files written during the run.
+   */
+  public long getFilesWritten() {
+    return filesWritten.get();
+  }
+
+  /**
+   * The total number of bytes written to files during the run.
+   *
+   * @return The total number of bytes written to files during the run.
+   */
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  /**
+   * Record that a file has been written on the current thread. The write is attributed to each of the active phases of
+   * the current thread.
+   *
+   * @param bytes The number of bytes written.
+   */
+  public static void recordFileWritten(long bytes) {
+    LinkedList<Phase> active = ACTIVE_PHASES.get();
+    if (!active.isEmpty()) {
+      EnunciateMetrics metrics = active.getFirst().metrics;
+      metrics.filesWritten.incrementAndGet();
+      metrics.bytesWritten.addAndGet(bytes);
+      for (Phase phase : active) {
+        phase.filesWritten.incrementAndGet();
+        phase.bytesWritten.addAndGet(bytes);
+      }
+    }
+  }
+
+  /**
+   * The phases that are active on the current thread, e.g. to hand off to other threads that work on behalf of the
+   * current thread.
+   *
+   * @return The phases that are active on the current thread.
+   */
+  public static List<Phase> getActivePhases() {
+    return new ArrayList<Phase>(ACTIVE_PHASES.get());
+  }
+
+  /**
+   * Set the phases that are active on the current thread, e.g. when working on behalf of another thread.
+   *
+   * @param phases The phases.
+   * @return The phases that were previously active on the current thread.
+   */
+  public static List<Phase> setActivePhases(List<Phase> phases) {
+    LinkedList<Phase> active = ACTIVE_PHASES.get();
+    List<Phase> previous = new ArrayList<Phase>(active);
+    active.clear();
+    active.addAll(phases);
+    return previous;
+  }
+
+  /**
+   * A one-line summary of the run: the top-level phases, the slowest modules and the files written.
+   *
+   * @param modulePrefix The prefix of the names of the phases of the modules.
+   * @return The summary.
+   */
+  public String getSummary(String modulePrefix) {
+    List<Phase> phases = getPhases();
+    StringBuilder summary = new StringBuilder();
+    summary.append(String.format("Enunciate completed in %dms", toMillis(System.nanoTime() - this.startNanos)));
+
+    StringBuilder topLevel = new StringBuilder();
+    List<Phase> modules = new ArrayList<Phase>();
+    for (Phase phase : phases) {
+      if (phase.getName().startsWith(modulePrefix)) {
+        modules.add(phase);
+      }
+      else if (phase.getParent() == null) {
+        topLevel.append(topLevel.length() == 0 ? "" : ", ").append(phase.getName()).append(' ').append(toMillis(phase.getWallNanos())).append("ms");
+      }
+    }
+
+    if (topLevel.length() > 0) {
+      summary.append(" (").append(topLevel).append(')');
+    }
+
+    if (!modules.isEmpty()) {
+      Collections.sort(modules, new Comparator<Phase>() {
+        @Override
+        public int compare(Phase p1, Phase p2) {
+          long w1 = p1.getWallNanos();
+          long w2 = p2.getWallNanos();
+          return w1 < w2 ? 1 : w1 == w2 ? 0 : -1;
+        }
+      });
+
+      summary.append("; slowest modules: ");
+      for (int i = 0; i < modules.size() && i < 5; i++) {
+        Phase module = modules.get(i);
+        summary.append(i == 0 ? "" : ", ").append(module.getName().substring(modulePrefix.length())).append(' ').append(toMillis(module.getWallNanos())).append("ms");
+      }
+    }
+
+    summary.append(String.format("; %d files (%d bytes) written.", getFilesWritten(), getBytesWritten()));
+    return summary.toString();
+  }
+
+  /**
+   * Write the metrics of the run as a JSON document.
+   *
+   * @param file             The file to write to.
+   * @param renderStatistics The template render statistics, or null if no templates were rendered.
+   */
+  public void writeReport(File file, Map<String, FreemarkerTemplateEngine.RenderStatistics> renderStatistics) throws IOException {
+    file.getParentFile().mkdirs();
+    PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "utf-8"));
+    try {
+      out.println("{");
+      out.printf("  \"wallMillis\" : %d,%n", toMillis(System.nanoTime() - this.startNanos));
+      out.printf("  \"filesWritten\" : %d,%n", getFilesWritten());
+      out.printf("  \"bytesWritten\" : %d,%n", getBytesWritten());
+      out.println("  \"phases\" : [");
+      Iterator<Phase> phaseIt = getPhases().iterator();
+      while (phaseIt.hasNext()) {
+        Phase phase = phaseIt.next();
+        out.printf("    { \"name\" : %s, \"parent\" : %s, \"thread\" : %s, \"failed\" : %s, \"startMillis\" : %d, \"wallMillis\" : %d, \"cpuMillis\" : %s, \"allocatedBytes\" : %s, \"filesWritten\" : %d, \"bytesWritten\" : %d }%s%n",
+                   quote(phase.getName()),
+                   phase.getParent() == null ? "null" : quote(phase.getParent().getName()),
+                   quote(phase.getThreadName()),
+                   phase.isFailed(),
+                   toMillis(phase.startNanos - this.startNanos),
+                   toMillis(phase.getWallNanos()),
+                   phase.getCpuNanos() < 0 ? "null" : String.valueOf(toMillis(phase.getCpuNanos())),
+                   phase.getAllocatedBytes() < 0 ? "null" : String.valueOf(phase.getAllocatedBytes()),
+                   phase.getFilesWritten(),
+                   phase.getBytesWritten(),
+                   phaseIt.hasNext() ? "," : "");
+      }
+      out.println("  ],");
+      out.println("  \"templates\" : [");
+      if (renderStatistics != null) {
+        Iterator<Map.Entry<String, FreemarkerTemplateEngine.RenderStatistics>> templateIt = renderStatistics.entrySet().iterator();
+        while (templateIt.hasNext()) {
+          Map.Entry<String, FreemarkerTemplateEngine.RenderStatistics> template = templateIt.next();
+          out.printf("    { \"template\" : %s, \"renderCount\" : %d, \"renderMillis\" : %d }%s%n",
+                     quote(template.getKey()),
+                     template.getValue().getRenderCount(),
+                     toMillis(template.getValue().getRenderNanos()),
+                     templateIt.hasNext() ? "," : "");
+        }
+      }
+      out.println("  ]");
+      out.println("}");
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private static long toMillis(long nanos) {
+    return nanos / 1000000;
+  }
+
+  private static String quote(String value) {
+    StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        quoted.append('\\').append(ch);
+      }
+      else if (ch < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) ch));
+      }
+      else {
+        quoted.append(ch);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  private static long currentThreadCpuNanos() {
+    try {
+      return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+    catch (UnsupportedOperationException e) {
+      return -1;
+    }
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    if (THREAD_ALLOCATED_BYTES != null) {
+      try {
+        return ((Number) THREAD_ALLOCATED_BYTES.invoke(THREADS, Thread.currentThread().getId())).longValue();
+      }
+      catch (Exception e) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private static Method findThreadAllocatedBytesMethod() {
+    //allocation tracking isn't part of the standard management API, so we only use it if the JVM provides it.
+    try {
+      Class<?> extendedThreadBean = Class.forName("com.sun.management.ThreadMXBean");
+      if (extendedThreadBean.isInstance(THREADS)) {
+        return extendedThreadBean.getMethod("getThreadAllocatedBytes", long.class);
+      }
+    }
+    catch (Exception e) {
+      //fall through...
+    }
+    return null;
+  }
+
+  /**
+   * A phase of the run.
+   */
+  public static class Phase {
+
+    private final EnunciateMetrics metrics;
+    private final String name;
+    private final Phase parent;
+    private final Thread thread;
+    private final long startNanos;
+    private final long startCpuNanos;
+    private final long startAllocatedBytes;
+    private final AtomicLong filesWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile long wallNanos = -1;
+    private volatile long cpuNanos = -1;
+    private volatile long allocatedBytes = -1;
+    private volatile boolean failed = false;
+
+    private Phase(EnunciateMetrics metrics, String name) {
+      LinkedList<Phase> active = ACTIVE_PHASES.get();
+      this.metrics = metrics;
+      this.name = name;
+      this.parent = active.isEmpty() ? null : active.getLast();
+      this.thread = Thread.currentThread();
+      this.startCpuNanos = currentThreadCpuNanos();
+      this.startAllocatedBytes = currentThreadAllocatedBytes();
+      this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stop the phase.
+     */
+    public void stop() {
+      if (this.wallNanos >= 0) {
+        return;
+      }
+
+      this.wallNanos = System.nanoTime() - this.startNanos;
+      if (this.thread == Thread.currentThread()) {
+        long cpu = currentThreadCpuNanos();
+        this.cpuNanos = cpu < 0 || this.startCpuNanos < 0 ? -1 : cpu - this.startCpuNanos;
+        long allocated = currentThreadAllocatedBytes();
+        this.allocatedBytes = allocated < 0 || this.startAllocatedBytes < 0 ? -1 : allocated - this.startAllocatedBytes;
+      }
+      ACTIVE_PHASES.get().remove(this);
+    }
+
+    /**
+     * Stop the phase, marking it as failed.
+     */
+    public void fail() {
+      this.failed = true;
+      stop();
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Phase getParent() {
+      return parent;
+    }
+
+    public String getThreadName() {
+      return thread.getName();
+    }
+
+    public boolean isFailed() {
+      return failed;
+    }
+
+    /**
+     * @return The wall time of the phase, in nanoseconds (or the time elapsed so far if the phase hasn't been stopped).
+     */
+    public long getWallNanos() {
+      long wall = this.wallNanos;
+      return wall < 0 ? System.nanoTime() - this.startNanos : wall;
+    }
+
+    /**
+     * @return The CPU time of the thread that ran the phase, in nanoseconds, or -1 if not available.
+     */
+    public long getCpuNanos() {
+      return cpuNanos;
+    }
+
+    /**
+     * @return The bytes allocated by the thread that ran the phase, or -1 if not available.
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    public long getFilesWritten() {
+      return filesWritten.get();
+    }
+
+    public long getBytesWritten() {
+      return bytesWritten.get();
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %dms", this.name, toMillis(getWallNanos()));
+    }
+  }
+}
@@ -15,17 +15,23 @@
  */
 package com.webcohesion.enunciate;
 
+import com.webcohesion.enunciate.module.AnnotationDetectingModule;
 import com.webcohesion.enunciate.module.EnunciateModule;
 import com.webcohesion.enunciate.module.TypeDetectingModule;
 import com.webcohesion.enunciate.util.*;
+import javassist.bytecode.ClassFile;
+import org.reflections.ReflectionsException;
+import org.reflections.adapters.JavassistAdapter;
 import org.reflections.adapters.MetadataAdapter;
 import org.reflections.scanners.AbstractScanner;
-import org.reflections.util.FilterBuilder;
 import org.reflections.vfs.Vfs;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
 
 /**
  * @author Ryan Heaton
@@ -33,9 +39,12 @@ import java.util.Set;
 @SuppressWarnings ( "unchecked" )
 public class EnunciateReflectionsScanner extends AbstractScanner {
 
-  private final FilterBuilder includeFilter;
-  private final FilterBuilder excludeFilter;
+  private final AntPatternSet includeFilter;
+  private final AntPatternSet excludeFilter;
   private final List<TypeDetectingModule> detectingModules;
+  private final ConstantPoolScanner annotationFilter;
+  private final String annotationFilterKey;
+  private final ThreadLocal<EnunciateScanCache.Entry> recording = new ThreadLocal<EnunciateScanCache.Entry>();
 
   public EnunciateReflectionsScanner(Enunciate enunciate, List<EnunciateModule> modules) {
     this.detectingModules = new ArrayList<TypeDetectingModule>();
@@ -45,36 +54,45 @@ public class EnunciateReflectionsScanner extends AbstractScanner {
       }
     }
 
-    FilterBuilder includeFilter = null;
-    Set<String> includes = enunciate.getIncludePatterns();
-    if (includes != null && !includes.isEmpty()) {
-      includeFilter = new FilterBuilder();
-      for (String include : includes) {
-        if (AntPatternMatcher.isValidPattern(include)) {
-          includeFilter = includeFilter.add(new AntPatternInclude(include));
-        }
-        else {
-          includeFilter = includeFilter.add(new StringEqualsInclude(include));
-        }
+    //each class is only scanned once, so there's no point in remembering the matches.
+    this.includeFilter = new AntPatternSet(enunciate.getIncludePatterns(), false);
+    this.excludeFilter = new AntPatternSet(enunciate.getExcludePatterns(), false);
+
+    //if every module only detects types by their annotations, classes that don't refer to any of the annotations needn't be parsed.
+    Set<String> annotationPrefixes = new TreeSet<String>();
+    for (TypeDetectingModule detectingModule : this.detectingModules) {
+      if (!(detectingModule instanceof AnnotationDetectingModule)) {
+        annotationPrefixes = null;
+        break;
+      }
+
+      for (String annotation : ((AnnotationDetectingModule) detectingModule).getDetectedAnnotations()) {
+        annotationPrefixes.add(ConstantPoolScanner.descriptorPrefix(annotation));
       }
     }
 
-    FilterBuilder excludeFilter = null;
-    Set<String> excludes = enunciate.getExcludePatterns();
-    if (excludes != null && !excludes.isEmpty()) {
-      excludeFilter = new FilterBuilder();
-      for (String exclude : excludes) {
-        if (AntPatternMatcher.isValidPattern(exclude)) {
-          excludeFilter = excludeFilter.add(new AntPatternInclude(exclude));
-        }
-        else {
-          excludeFilter = excludeFilter.add(new StringEqualsInclude(exclude));
+    if (annotationPrefixes != null && !this.detectingModules.isEmpty()) {
+      this.annotationFilter = new ConstantPoolScanner(annotationPrefixes);
+      StringBuilder key = new StringBuilder();
+      for (String prefix : annotationPrefixes) {
+        if (key.length() > 0) {
+          key.append(',');
         }
+        key.append(prefix);
       }
+      this.annotationFilterKey = key.toString();
+    }
+    else {
+      this.annotationFilter = null;
+      this.annotationFilterKey = "";
     }
+  }
 
-    this.includeFilter = includeFilter;
-    this.excludeFilter = excludeFilter;
+  /**
+   * @return A key identifying the annotation filter applied by this scanner, or the empty string if every class is fully scanned.
+   */
+  public String getAnnotationFilterKey() {
+    return annotationFilterKey;
   }
 
   public boolean acceptsInput(String file) {
@@ -85,17 +103,126 @@ public class EnunciateReflectionsScanner extends AbstractScanner {
   public Object scan(Vfs.File file, Object classObject) {
     if (file.getName().endsWith(".java")) {
       getStore().put(file.getRelativePath(), file.getRelativePath());
+      EnunciateScanCache.Entry entry = this.recording.get();
+      if (entry != null) {
+        entry.addSourceFile(file.getRelativePath());
+      }
       return classObject;
     }
-    else {
-      return super.scan(file, classObject);
+    else if (this.annotationFilter != null && classObject == null) {
+      byte[] bytes;
+      try {
+        bytes = readFully(file);
+      }
+      catch (IOException e) {
+        throw new ReflectionsException("could not read class file " + file.getRelativePath(), e);
+      }
+
+      if (!this.annotationFilter.matches(bytes)) {
+        //doesn't refer to any of the annotations of interest; only its name is needed.
+        EnunciateScanCache.CachedClass skipped = new EnunciateScanCache.CachedClass(toClassName(file.getRelativePath()));
+        EnunciateScanCache.CachedMetadataAdapter skippedMetadata = new EnunciateScanCache.CachedMetadataAdapter();
+        detect(skipped, skippedMetadata);
+        if (!skippedMetadata.isIncomplete()) {
+          EnunciateScanCache.Entry entry = this.recording.get();
+          if (entry != null) {
+            entry.addClass(skipped);
+          }
+          return null;
+        }
+        //a module needed more than the name of the class; parse it after all.
+      }
+
+      if (getMetadataAdapter() instanceof JavassistAdapter) {
+        //don't read the class file again.
+        try {
+          classObject = new ClassFile(new DataInputStream(new ByteArrayInputStream(bytes)));
+        }
+        catch (IOException e) {
+          throw new ReflectionsException("could not create class file from " + file.getRelativePath(), e);
+        }
+      }
     }
+
+    return super.scan(file, classObject);
   }
 
-  public void scan(Object type) {
-    boolean detected = false;
+  private static String toClassName(String relativePath) {
+    String path = relativePath;
+    if (path.startsWith("META-INF/versions/")) {
+      //multi-release jar.
+      int packageStart = path.indexOf('/', "META-INF/versions/".length());
+      path = packageStart > 0 ? path.substring(packageStart + 1) : path;
+    }
+    return path.substring(0, path.length() - ".class".length()).replace('/', '.');
+  }
+
+  private static byte[] readFully(Vfs.File file) throws IOException {
+    InputStream in = file.openInputStream();
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+      byte[] buffer = new byte[8 * 1024];
+      int len;
+      while ((len = in.read(buffer)) > 0) {
+        out.write(buffer, 0, len);
+      }
+      return out.toByteArray();
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Start recording what's scanned on the current thread into the specified scan cache entry.
+   *
+   * @param entry The entry to record into.
+   */
+  public void startRecording(EnunciateScanCache.Entry entry) {
+    this.recording.set(entry);
+  }
 
+  /**
+   * Stop recording what's scanned on the current thread.
+   */
+  public void stopRecording() {
+    this.recording.remove();
+  }
+
+  /**
+   * Replay what was scanned from a scan cache entry.
+   *
+   * @param entry The entry.
+   * @return Whether the entry was replayed. If a type detecting module needed metadata that isn't cached, the entry
+   * couldn't be replayed and its source needs to be scanned again.
+   */
+  public boolean replay(EnunciateScanCache.Entry entry) {
+    for (String sourceFile : entry.getSourceFiles()) {
+      getStore().put(sourceFile, sourceFile);
+    }
+
+    EnunciateScanCache.CachedMetadataAdapter metadata = new EnunciateScanCache.CachedMetadataAdapter();
+    for (EnunciateScanCache.CachedClass clazz : entry.getClasses()) {
+      detect(clazz, metadata);
+      if (metadata.isIncomplete()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public void scan(Object type) {
     MetadataAdapter metadata = getMetadataAdapter();
+    EnunciateScanCache.Entry entry = this.recording.get();
+    if (entry != null) {
+      entry.addClass(new EnunciateScanCache.CachedClass(metadata.getClassName(type), metadata.getSuperclassName(type), metadata.isPublic(type), metadata.getInterfacesNames(type), metadata.getClassAnnotationNames(type)));
+    }
+
+    detect(type, metadata);
+  }
+
+  protected void detect(Object type, MetadataAdapter metadata) {
+    boolean detected = false;
 
     for (TypeDetectingModule detectingModule : this.detectingModules) {
       if (detectingModule.typeDetected(type, metadata)) {
@@ -106,13 +233,13 @@ public class EnunciateReflectionsScanner extends AbstractScanner {
 
     String className = metadata.getClassName(type);
 
-    boolean filteredIn = this.includeFilter != null && this.includeFilter.apply(className);
+    boolean filteredIn = this.includeFilter.matches(className);
     if (filteredIn) {
       //if it's explicitly included, add it.
       getStore().put(className, className);
     }
     else {
-      boolean filteredOut = this.excludeFilter != null && this.excludeFilter.apply(className);
+      boolean filteredOut = this.excludeFilter.matches(className);
       if (detected && !filteredOut) {
         //else if it's detected and not explicitly excluded, add it.
         getStore().put(className, className);
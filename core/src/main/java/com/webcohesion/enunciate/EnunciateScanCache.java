@@ -0,0 +1,448 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate;
+
+import org.reflections.adapters.MetadataAdapter;
+import org.reflections.vfs.Vfs;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache of what was found by scanning the jars on the classpath, kept on disk with one file per jar. An entry is valid
+ * as long as its jar has the same path, size and modification time, so only new or changed jars need to be scanned
+ * again. Directories (e.g. the project's own output directory) are never cached.
+ * <p>
+ * The facts that are cached are the ones the type detecting modules look at (the names, supertypes and annotations of
+ * the classes) rather than the decisions the modules made, so that a change to the configuration of a module doesn't
+ * invalidate the cache. The exception is a jar that was scanned with an annotation filter (see
+ * {@link com.webcohesion.enunciate.module.AnnotationDetectingModule}): the classes that were skipped are only known by name,
+ * so the entry is only valid for a scan with the same filter. The same cache directory can safely be shared by (concurrent)
+ * builds.
+ * <p>
+ * The entries can also be kept in memory (see {@link EnunciateSession}), with or without a cache directory.
+ *
+ * @author Ryan Heaton
+ */
+public class EnunciateScanCache {
+
+  private static final String HEADER = "#enunciate-scan-cache 2";
+
+  private final File directory;
+  private final ConcurrentMap<String, Entry> memory;
+
+  public EnunciateScanCache(File directory) {
+    this(directory, null);
+  }
+
+  /**
+   * @param directory The directory of the cache, or null to only keep the entries in memory.
+   * @param memory    The entries kept in memory, by jar path, or null to only keep the entries in the directory.
+   */
+  public EnunciateScanCache(File directory, ConcurrentMap<String, Entry> memory) {
+    this.directory = directory;
+    this.memory = memory;
+  }
+
+  /**
+   * @return The directory of the cache, or null if the entries are only kept in memory.
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Create a new (empty) entry for the specified jar.
+   *
+   * @param jar    The jar.
+   * @param filter The annotation filter of the scan, or the empty string if every class is fully scanned.
+   * @return The entry.
+   */
+  public Entry newEntry(File jar, String filter) {
+    return new Entry(jar.getAbsolutePath(), jar.length(), jar.lastModified(), filter);
+  }
+
+  /**
+   * Load the cached entry for the specified jar.
+   *
+   * @param jar    The jar.
+   * @param filter The annotation filter of the scan, or the empty string if every class is to be fully scanned.
+   * @return The entry, or null if there's no (applicable) entry or the jar has changed since the entry was stored.
+   */
+  public Entry load(File jar, String filter) {
+    if (this.memory != null) {
+      Entry entry = this.memory.get(jar.getAbsolutePath());
+      if (entry != null && entry.size == jar.length() && entry.modified == jar.lastModified() && (entry.filter.isEmpty() || entry.filter.equals(filter))) {
+        return entry;
+      }
+    }
+
+    Entry entry = this.directory == null ? null : loadFromDirectory(jar, filter);
+    if (entry != null && this.memory != null) {
+      this.memory.put(entry.path, entry);
+    }
+    return entry;
+  }
+
+  private Entry loadFromDirectory(File jar, String filter) {
+    File file = fileOf(jar);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    try {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "utf-8"));
+      try {
+        if (!HEADER.equals(reader.readLine())) {
+          return null;
+        }
+
+        String path = reader.readLine();
+        long size = Long.parseLong(reader.readLine());
+        long modified = Long.parseLong(reader.readLine());
+        String entryFilter = reader.readLine();
+        if (!jar.getAbsolutePath().equals(path) || jar.length() != size || jar.lastModified() != modified) {
+          return null;
+        }
+
+        if (!entryFilter.isEmpty() && !entryFilter.equals(filter)) {
+          //some classes were skipped by a different filter.
+          return null;
+        }
+
+        Entry entry = new Entry(path, size, modified, entryFilter);
+        String line = reader.readLine();
+        while (line != null) {
+          if (line.startsWith("C\t")) {
+            String[] fields = line.split("\t", -1);
+            if ("?".equals(fields[3])) {
+              entry.classes.add(new CachedClass(fields[1]));
+            }
+            else {
+              entry.classes.add(new CachedClass(fields[1], fields[2].isEmpty() ? null : fields[2], "1".equals(fields[3]), split(fields[4]), split(fields[5])));
+            }
+          }
+          else if (line.startsWith("S\t")) {
+            entry.sourceFiles.add(line.substring(2));
+          }
+          line = reader.readLine();
+        }
+        return entry;
+      }
+      finally {
+        reader.close();
+      }
+    }
+    catch (RuntimeException e) {
+      //corrupt entry; treat it as no entry at all.
+      return null;
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Store an entry. The entry is written to a temporary file first so that a reader never sees a partial entry.
+   *
+   * @param entry The entry.
+   */
+  public void store(Entry entry) throws IOException {
+    if (this.memory != null) {
+      this.memory.put(entry.path, entry);
+    }
+
+    if (this.directory != null) {
+      storeInDirectory(entry);
+    }
+  }
+
+  private void storeInDirectory(Entry entry) throws IOException {
+    this.directory.mkdirs();
+    File file = fileOf(new File(entry.path));
+    File tmp = File.createTempFile(file.getName(), ".tmp", this.directory);
+    try {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), "utf-8"));
+      try {
+        writer.write(HEADER);
+        writer.write('\n');
+        writer.write(entry.path);
+        writer.write('\n');
+        writer.write(String.valueOf(entry.size));
+        writer.write('\n');
+        writer.write(String.valueOf(entry.modified));
+        writer.write('\n');
+        writer.write(entry.filter);
+        writer.write('\n');
+        for (CachedClass clazz : entry.getClasses()) {
+          writer.write("C\t");
+          writer.write(clazz.name);
+          writer.write('\t');
+          writer.write(clazz.superclassName == null ? "" : clazz.superclassName);
+          writer.write('\t');
+          writer.write(!clazz.complete ? "?" : clazz.isPublic ? "1" : "0");
+          writer.write('\t');
+          writer.write(join(clazz.interfaceNames));
+          writer.write('\t');
+          writer.write(join(clazz.annotationNames));
+          writer.write('\n');
+        }
+        for (String sourceFile : entry.getSourceFiles()) {
+          writer.write("S\t");
+          writer.write(sourceFile);
+          writer.write('\n');
+        }
+      }
+      finally {
+        writer.close();
+      }
+
+      if (!tmp.renameTo(file)) {
+        //e.g. on a platform that won't rename over an existing file.
+        file.delete();
+        if (!tmp.renameTo(file)) {
+          throw new IOException("Unable to write " + file);
+        }
+      }
+    }
+    finally {
+      tmp.delete();
+    }
+  }
+
+  private File fileOf(File jar) {
+    return new File(this.directory, EnunciateBuildState.hash(jar.getAbsolutePath()) + ".scan");
+  }
+
+  private static List<String> split(String value) {
+    if (value.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(value.split(","));
+  }
+
+  private static String join(List<String> values) {
+    StringBuilder builder = new StringBuilder();
+    for (String value : values) {
+      if (builder.length() > 0) {
+        builder.append(',');
+      }
+      builder.append(value);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * What was found in a jar.
+   */
+  public static class Entry {
+    private final String path;
+    private final long size;
+    private final long modified;
+    private final String filter;
+    private final List<CachedClass> classes = new ArrayList<CachedClass>();
+    private final List<String> sourceFiles = new ArrayList<String>();
+
+    private Entry(String path, long size, long modified, String filter) {
+      this.path = path;
+      this.size = size;
+      this.modified = modified;
+      this.filter = filter == null ? "" : filter;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public synchronized List<CachedClass> getClasses() {
+      return new ArrayList<CachedClass>(classes);
+    }
+
+    public synchronized void addClass(CachedClass clazz) {
+      this.classes.add(clazz);
+    }
+
+    public synchronized List<String> getSourceFiles() {
+      return new ArrayList<String>(sourceFiles);
+    }
+
+    public synchronized void addSourceFile(String sourceFile) {
+      this.sourceFiles.add(sourceFile);
+    }
+  }
+
+  /**
+   * The cached facts about a class.
+   */
+  public static class CachedClass {
+    private final String name;
+    private final String superclassName;
+    private final boolean isPublic;
+    private final List<String> interfaceNames;
+    private final List<String> annotationNames;
+    private final boolean complete;
+
+    /**
+     * A class that was skipped by an annotation filter, of which only the name is known.
+     *
+     * @param name The name of the class.
+     */
+    public CachedClass(String name) {
+      this.name = name;
+      this.superclassName = null;
+      this.isPublic = false;
+      this.interfaceNames = Collections.emptyList();
+      this.annotationNames = Collections.emptyList();
+      this.complete = false;
+    }
+
+    public CachedClass(String name, String superclassName, boolean isPublic, List<String> interfaceNames, List<String> annotationNames) {
+      this.name = name;
+      this.superclassName = superclassName;
+      this.isPublic = isPublic;
+      this.interfaceNames = interfaceNames == null ? Collections.<String>emptyList() : interfaceNames;
+      this.annotationNames = annotationNames == null ? Collections.<String>emptyList() : annotationNames;
+      this.complete = true;
+    }
+  }
+
+  /**
+   * Serves the metadata of cached classes. Only the cached facts are available (for a class that was skipped by an
+   * annotation filter, its name and an empty list of annotations). Anything else (e.g. the methods of a class) is served
+   * as <code>null</code> or an empty list and marks the adapter {@link #isIncomplete() incomplete}, in which case the
+   * classes need to be scanned again.
+   */
+  public static class CachedMetadataAdapter implements MetadataAdapter<CachedClass, Object, Object> {
+
+    private boolean incomplete = false;
+
+    /**
+     * @return Whether metadata that isn't cached was asked for.
+     */
+    public boolean isIncomplete() {
+      return incomplete;
+    }
+
+    private <T> T uncached(T value) {
+      this.incomplete = true;
+      return value;
+    }
+    @Override
+    public String getClassName(CachedClass cls) {
+      return cls.name;
+    }
+
+    @Override
+    public String getSuperclassName(CachedClass cls) {
+      if (!cls.complete) {
+        return uncached(null);
+      }
+      return cls.superclassName == null ? "" : cls.superclassName;
+    }
+
+    @Override
+    public List<String> getInterfacesNames(CachedClass cls) {
+      if (!cls.complete) {
+        return uncached(Collections.<String>emptyList());
+      }
+      return cls.interfaceNames;
+    }
+
+    @Override
+    public List<String> getClassAnnotationNames(CachedClass cls) {
+      return cls.annotationNames;
+    }
+
+    @Override
+    public boolean isPublic(Object o) {
+      if (o instanceof CachedClass && ((CachedClass) o).complete) {
+        return ((CachedClass) o).isPublic;
+      }
+      return uncached(Boolean.FALSE);
+    }
+
+    @Override
+    public List<Object> getFields(CachedClass cls) {
+      return uncached(Collections.<Object>emptyList());
+    }
+
+    @Override
+    public List<Object> getMethods(CachedClass cls) {
+      return uncached(Collections.<Object>emptyList());
+    }
+
+    @Override
+    public String getMethodName(Object method) {
+      return uncached(null);
+    }
+
+    @Override
+    public List<String> getParameterNames(Object method) {
+      return uncached(Collections.<String>emptyList());
+    }
+
+    @Override
+    public List<String> getFieldAnnotationNames(Object field) {
+      return uncached(Collections.<String>emptyList());
+    }
+
+    @Override
+    public List<String> getMethodAnnotationNames(Object method) {
+      return uncached(Collections.<String>emptyList());
+    }
+
+    @Override
+    public List<String> getParameterAnnotationNames(Object method, int parameterIndex) {
+      return uncached(Collections.<String>emptyList());
+    }
+
+    @Override
+    public String getReturnTypeName(Object method) {
+      return uncached(null);
+    }
+
+    @Override
+    public String getFieldName(Object field) {
+      return uncached(null);
+    }
+
+    @Override
+    public CachedClass getOfCreateClassObject(Vfs.File file) {
+      return uncached(null);
+    }
+
+    @Override
+    public String getMethodModifier(Object method) {
+      return uncached(null);
+    }
+
+    @Override
+    public String getMethodKey(CachedClass cls, Object method) {
+      return uncached(null);
+    }
+
+    @Override
+    public String getMethodFullKey(CachedClass cls, Object method) {
+      return uncached(null);
+    }
+
+    @Override
+    public boolean acceptsInput(String file) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate;
+
+import com.webcohesion.enunciate.util.freemarker.FreemarkerTemplateEngine;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State that's kept warm across the Enunciate runs of a long-lived JVM, such as a Maven daemon or an IDE that runs the
+ * Ant task over and over again. A session keeps the results of scanning the jars on the classpath (in memory, in addition
+ * to the scan cache directory, if any), and the templates parsed with the default object wrapper of the template engine.
+ * A jar is scanned again when it changes. Each run checks (once) whether the templates it uses have changed, be they
+ * files or in a jar, and parses a changed template again. The templates parsed with any other object wrapper are only
+ * kept for the run.
+ *
+ * @author Ryan Heaton
+ */
+public class EnunciateSession {
+
+  private static final EnunciateSession SHARED = new EnunciateSession();
+
+  private volatile FreemarkerTemplateEngine templateEngine = new FreemarkerTemplateEngine();
+  private final ConcurrentMap<String, EnunciateScanCache.Entry> scanEntries = new ConcurrentHashMap<String, EnunciateScanCache.Entry>();
+  private final AtomicInteger runCount = new AtomicInteger();
+
+  /**
+   * The session shared by the runs in this JVM (or rather, in the class loader that loaded Enunciate).
+   *
+   * @return The shared session.
+   */
+  public static EnunciateSession getShared() {
+    return SHARED;
+  }
+
+  /**
+   * Start a run in this session.
+   *
+   * @return The number of the run in this session, starting at 1.
+   */
+  public int startRun() {
+    return this.runCount.incrementAndGet();
+  }
+
+  /**
+   * A template engine for a run, sharing the templates of the session that were parsed with the default object wrapper.
+   *
+   * @return A template engine for a run.
+   */
+  public FreemarkerTemplateEngine newTemplateEngine() {
+    return this.templateEngine.fork();
+  }
+
+  /**
+   * A scan cache for a run, sharing the scanned jars of the session.
+   *
+   * @param directory The scan cache directory of the run, or null if none.
+   * @return The scan cache.
+   */
+  public EnunciateScanCache newScanCache(File directory) {
+    return new EnunciateScanCache(directory, this.scanEntries);
+  }
+
+  /**
+   * Forget everything that's been kept warm.
+   */
+  public void clear() {
+    this.templateEngine = new FreemarkerTemplateEngine();
+    this.scanEntries.clear();
+  }
+}
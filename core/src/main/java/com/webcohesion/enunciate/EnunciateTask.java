@@ -44,6 +44,9 @@ public class EnunciateTask extends MatchingTask {
   private Path classpath;
   private Path sourcepath;
   private File buildDir;
+  private int threads = 0;
+  private File scanCacheDir;
+  private boolean warmSession = false;
   private String javacSourceVersion = null;
   private String javacTargetVersion = null;
   private final ArrayList<Export> exports = new ArrayList<Export>();
@@ -72,6 +75,17 @@ public class EnunciateTask extends MatchingTask {
       this.buildDir.mkdirs();
       enunciate.setBuildDir(this.buildDir);
 
+      //set the number of threads.
+      enunciate.setExtraThreadCount(this.threads);
+
+      //set the scan cache.
+      enunciate.setScanCacheDir(this.scanCacheDir);
+
+      //keep warm, if requested.
+      if (this.warmSession) {
+        enunciate.setSession(EnunciateSession.getShared());
+      }
+
       //add the source files.
       DirectoryScanner scanner = getDirectoryScanner(basedir);
       scanner.scan();
@@ -192,6 +206,34 @@ public class EnunciateTask extends MatchingTask {
     this.buildDir = buildDir;
   }
 
+  /**
+   * The number of extra threads to use for I/O such as scanning the classpath and compressing archives (default: 0, i.e.
+   * everything is done on the calling thread). The modules themselves always run on the calling thread.
+   *
+   * @param threads The number of extra threads.
+   */
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * The directory in which to cache what's found by scanning the jars on the classpath (default: none).
+   *
+   * @param scanCacheDir The scan cache directory.
+   */
+  public void setScanCacheDir(File scanCacheDir) {
+    this.scanCacheDir = scanCacheDir;
+  }
+
+  /**
+   * Whether to keep Enunciate warm for the next run in the same JVM (default: false).
+   *
+   * @param warmSession Whether to keep Enunciate warm for the next run in the same JVM.
+   */
+  public void setWarmSession(boolean warmSession) {
+    this.warmSession = warmSession;
+  }
+
   /**
    * The enunciate config file.
    *
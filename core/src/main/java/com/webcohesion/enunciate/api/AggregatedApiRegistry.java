@@ -7,17 +7,20 @@ import com.webcohesion.enunciate.api.services.ServiceApi;
 import com.webcohesion.enunciate.module.ApiRegistryProviderModule;
 import com.webcohesion.enunciate.module.EnunciateModule;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.*;
 
 /**
+ * The registry that aggregates the APIs of all the enabled provider modules. The aggregated APIs are collected once per
+ * run for each kind (class) of registration context and shared by everybody asking for them with that kind of context:
+ * registration contexts differ in how they handle javadoc tags, and contexts of the same class handle them the same way.
+ * (The modules that ask for them all depend on the provider modules, so the providers are done by the time they ask.)
+ *
  * @author Ryan Heaton
  */
 public class AggregatedApiRegistry implements ApiRegistry {
 
   private final Enunciate enunciate;
+  private final Map<Class<?>, Snapshot> snapshots = new HashMap<Class<?>, Snapshot>();
 
   public AggregatedApiRegistry(Enunciate enunciate) {
     this.enunciate = enunciate;
@@ -25,52 +28,100 @@ public class AggregatedApiRegistry implements ApiRegistry {
 
   @Override
   public List<ServiceApi> getServiceApis(ApiRegistrationContext context) {
-    ArrayList<ServiceApi> serviceApis = new ArrayList<ServiceApi>();
-    List<EnunciateModule> modules = enunciate.getModules();
-    for (EnunciateModule module : modules) {
-      if (module.isEnabled() && module instanceof ApiRegistryProviderModule) {
-        serviceApis.addAll(((ApiRegistryProviderModule) module).getApiRegistry().getServiceApis(context));
+    Snapshot snapshot = getSnapshot(context);
+    List<ServiceApi> serviceApis = snapshot.serviceApis;
+    if (serviceApis == null) {
+      ArrayList<ServiceApi> apis = new ArrayList<ServiceApi>();
+      for (ApiRegistry registry : getProviderRegistries()) {
+        apis.addAll(registry.getServiceApis(context));
       }
+      serviceApis = Collections.unmodifiableList(apis);
+      snapshot.serviceApis = serviceApis;
     }
     return serviceApis;
   }
 
   @Override
   public List<ResourceApi> getResourceApis(ApiRegistrationContext context) {
-    ArrayList<ResourceApi> resourceApis = new ArrayList<ResourceApi>();
-    List<EnunciateModule> modules = enunciate.getModules();
-    for (EnunciateModule module : modules) {
-      if (module.isEnabled() && module instanceof ApiRegistryProviderModule) {
-        resourceApis.addAll(((ApiRegistryProviderModule) module).getApiRegistry().getResourceApis(context));
+    Snapshot snapshot = getSnapshot(context);
+    List<ResourceApi> resourceApis = snapshot.resourceApis;
+    if (resourceApis == null) {
+      ArrayList<ResourceApi> apis = new ArrayList<ResourceApi>();
+      for (ApiRegistry registry : getProviderRegistries()) {
+        apis.addAll(registry.getResourceApis(context));
       }
+      resourceApis = Collections.unmodifiableList(apis);
+      snapshot.resourceApis = resourceApis;
     }
     return resourceApis;
   }
 
   @Override
   public Set<Syntax> getSyntaxes(ApiRegistrationContext context) {
-    Set<Syntax> syntaxes = new TreeSet<Syntax>();
-    List<EnunciateModule> modules = enunciate.getModules();
-    for (EnunciateModule module : modules) {
-      if (module.isEnabled() && module instanceof ApiRegistryProviderModule) {
-        syntaxes.addAll(((ApiRegistryProviderModule) module).getApiRegistry().getSyntaxes(context));
+    Snapshot snapshot = getSnapshot(context);
+    Set<Syntax> syntaxes = snapshot.syntaxes;
+    if (syntaxes == null) {
+      Set<Syntax> all = new TreeSet<Syntax>();
+      for (ApiRegistry registry : getProviderRegistries()) {
+        all.addAll(registry.getSyntaxes(context));
       }
+      syntaxes = Collections.unmodifiableSet(all);
+      snapshot.syntaxes = syntaxes;
     }
     return syntaxes;
   }
 
   @Override
   public InterfaceDescriptionFile getSwaggerUI(ApiRegistrationContext context) {
+    //not cached: the swagger module provides the swagger UI from the aggregated resource APIs.
+    for (ApiRegistry registry : getProviderRegistries()) {
+      InterfaceDescriptionFile swaggerUI = registry.getSwaggerUI(context);
+      if (swaggerUI != null) {
+        return swaggerUI;
+      }
+    }
+    return null;
+  }
+
+  private List<ApiRegistry> getProviderRegistries() {
+    ArrayList<ApiRegistry> registries = new ArrayList<ApiRegistry>();
     List<EnunciateModule> modules = enunciate.getModules();
     for (EnunciateModule module : modules) {
       if (module.isEnabled() && module instanceof ApiRegistryProviderModule) {
-        InterfaceDescriptionFile swaggerUI = ((ApiRegistryProviderModule) module).getApiRegistry().getSwaggerUI(context);
-        if (swaggerUI != null) {
-          return swaggerUI;
-        }
+        registries.add(((ApiRegistryProviderModule) module).getApiRegistry());
       }
     }
-    return null;
+    return registries;
+  }
+
+  private Snapshot getSnapshot(ApiRegistrationContext context) {
+    synchronized (this.snapshots) {
+      Snapshot snapshot = this.snapshots.get(context.getClass());
+      if (snapshot == null) {
+        snapshot = new Snapshot();
+        this.snapshots.put(context.getClass(), snapshot);
+      }
+      return snapshot;
+    }
+  }
+
+  /**
+   * Forget the APIs aggregated for the run, e.g. when it's done.
+   */
+  public void clear() {
+    synchronized (this.snapshots) {
+      this.snapshots.clear();
+    }
+  }
+
+  /**
+   * The APIs aggregated for a kind of registration context. Each is collected the first time it's asked for. Two threads asking
+   * at the same time may both collect it; the APIs are equivalent, so it doesn't matter whose are kept.
+   */
+  private static class Snapshot {
+    volatile List<ServiceApi> serviceApis;
+    volatile List<ResourceApi> resourceApis;
+    volatile Set<Syntax> syntaxes;
   }
 
 }
@@ -16,6 +16,7 @@
 package com.webcohesion.enunciate.io;
 
 import com.webcohesion.enunciate.EnunciateContext;
+import com.webcohesion.enunciate.EnunciateMetrics;
 import com.webcohesion.enunciate.module.EnunciateModule;
 import rx.Observer;
 
@@ -24,10 +25,21 @@ import rx.Observer;
  */
 public class InvokeEnunciateModule implements Observer<EnunciateContext> {
 
+  /**
+   * The prefix of the name of the phase of each module invocation.
+   */
+  public static final String PHASE_PREFIX = "module ";
+
   private final EnunciateModule module;
+  private final EnunciateMetrics metrics;
 
   public InvokeEnunciateModule(EnunciateModule module) {
+    this(module, null);
+  }
+
+  public InvokeEnunciateModule(EnunciateModule module, EnunciateMetrics metrics) {
     this.module = module;
+    this.metrics = metrics;
   }
 
 
@@ -38,11 +50,29 @@ public class InvokeEnunciateModule implements Observer<EnunciateContext> {
 
   @Override
   public void onError(Throwable throwable) {
-
+    //a module this module depends on has failed; the error is propagated to the engine, and this module isn't invoked.
   }
 
   @Override
   public void onNext(EnunciateContext enunciateContext) {
-    this.module.call(enunciateContext);
+    if (this.metrics == null) {
+      this.module.call(enunciateContext);
+      return;
+    }
+
+    EnunciateMetrics.Phase phase = this.metrics.start(PHASE_PREFIX + this.module.getName());
+    boolean success = false;
+    try {
+      this.module.call(enunciateContext);
+      success = true;
+    }
+    finally {
+      if (success) {
+        phase.stop();
+      }
+      else {
+        phase.fail();
+      }
+    }
   }
 }
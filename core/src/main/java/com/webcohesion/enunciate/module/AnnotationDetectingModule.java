@@ -0,0 +1,36 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.module;
+
+import java.util.Set;
+
+/**
+ * A type detecting module that only detects types by their class annotations. This allows a class that doesn't refer to
+ * any of the annotations to be skipped without being parsed. {@link #typeDetected(Object, org.reflections.adapters.MetadataAdapter)}
+ * is still invoked for a skipped class, but only its name is available and its list of class annotations is empty.
+ *
+ * @author Ryan Heaton
+ */
+public interface AnnotationDetectingModule extends TypeDetectingModule {
+
+  /**
+   * The annotations by which types are detected.
+   *
+   * @return The fully-qualified names of the annotations, or the names of packages ending with '.' for any annotation in the package.
+   */
+  Set<String> getDetectedAnnotations();
+
+}
@@ -15,29 +15,73 @@
  */
 package com.webcohesion.enunciate.module;
 
+import com.webcohesion.enunciate.EnunciateBuildState;
+import com.webcohesion.enunciate.EnunciateContext;
 import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
 import com.webcohesion.enunciate.javac.decorations.SourcePosition;
 
 import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * @author Ryan Heaton
  */
 public abstract class BasicGeneratingModule extends BasicEnunicateModule {
 
+  private String sourcesFingerprint;
+  private String inputsFingerprint;
+  private final Set<String> changedSources = new TreeSet<String>();
+
+  @Override
+  public void init(EnunciateContext context) {
+    super.init(context);
+    //the sources are fingerprinted again for each run.
+    this.sourcesFingerprint = null;
+    this.inputsFingerprint = null;
+    this.changedSources.clear();
+  }
+
   /**
-   * Whether all files in the specified directory are newer than all the source files.
+   * Whether the specified destination is up-to-date with the API sources. If the content of the sources that the output
+   * is generated from (see {@link #getSourceElements()}) and of the other inputs to the build (the configuration, the files it names, the classpath, the code of Enunciate and its modules)
+   * hasn't changed since the destination was last built, and the destination is still the way that build left it, the
+   * destination is up-to-date. Otherwise, if there's no record of the previous build, all files in the destination must be
+   * newer than all the source files.
    *
    * @param destDir The directory.
    * @return Whether the destination directory is up-to-date.
    */
   public boolean isUpToDateWithSources(File destDir) {
+    EnunciateBuildState buildState = this.enunciate.getBuildState();
+    String fingerprint = findSourcesFingerprint();
+    String key = getName() + ":" + getBuildStateKey(destDir);
+    String previousFingerprint = buildState.getPreviousFingerprint(key);
+    buildState.setFingerprint(key, fingerprint);
+    buildState.recordOutput(key, destDir);
+
+    if (previousFingerprint != null) {
+      if (!previousFingerprint.equals(fingerprint)) {
+        debug("%s is NOT up-to-date because its inputs have changed: %s", destDir, this.changedSources);
+        return false;
+      }
+      else if (destDir == null || !destDir.exists() || (destDir.isDirectory() && isEmpty(destDir))) {
+        debug("%s is NOT up-to-date because it doesn't exist.", destDir);
+        return false;
+      }
+      else if (!isOutputUnchanged(key, destDir)) {
+        debug("%s is NOT up-to-date because it was changed after it was generated.", destDir);
+        return false;
+      }
+      else {
+        debug("%s is up-to-date because its inputs haven't changed.", destDir);
+        return true;
+      }
+    }
+
     Set<Element> apiElements = this.context.getApiElements();
     DecoratedProcessingEnvironment env = this.context.getProcessingEnvironment();
     long newestSourceTimestamp = 0;
@@ -54,6 +98,148 @@ public abstract class BasicGeneratingModule extends BasicEnunicateModule {
     return isUpToDate(newestSourceTimestamp, destDir);
   }
 
+  /**
+   * Whether all files in the specified destination are newer than all the specified source files (e.g. whether compiled
+   * classes are newer than the generated sources they were compiled from). Generated files are only rewritten if their
+   * content changes, so this is true when regenerating didn't actually change anything. It's never true if the inputs to
+   * the build other than the API sources changed (e.g. the compiler options), or if the destination was changed after it
+   * was built.
+   *
+   * @param destFile    The destination.
+   * @param sourceFiles The source files or directories.
+   * @return Whether the destination is up-to-date.
+   */
+  public boolean isUpToDateWithFiles(File destFile, File... sourceFiles) {
+    EnunciateBuildState buildState = this.enunciate.getBuildState();
+    findSourcesFingerprint();
+    String previousInputs = buildState.getPreviousFingerprint("inputs");
+    if (previousInputs != null && !previousInputs.equals(this.inputsFingerprint)) {
+      debug("%s is NOT up-to-date because the build settings have changed.", destFile);
+      return false;
+    }
+
+    String key = getName() + ":" + getBuildStateKey(destFile);
+    buildState.recordOutput(key, destFile);
+    if (destFile != null && destFile.exists() && !isOutputUnchanged(key, destFile)) {
+      debug("%s is NOT up-to-date because it was changed after it was built.", destFile);
+      return false;
+    }
+
+    List<File> sources = new ArrayList<File>();
+    for (File sourceFile : sourceFiles) {
+      if (sourceFile != null && sourceFile.isDirectory()) {
+        buildFileList(sources, sourceFile);
+      }
+      else if (sourceFile != null && sourceFile.exists()) {
+        sources.add(sourceFile);
+      }
+    }
+
+    File youngest = getYoungest(sources);
+    return isUpToDate(youngest == null ? 0 : youngest.lastModified(), destFile);
+  }
+
+  /**
+   * A fingerprint of the content of the API sources, the configuration file and the other inputs to the build.
+   *
+   * @return The fingerprint.
+   */
+  protected synchronized String findSourcesFingerprint() {
+    if (this.sourcesFingerprint == null) {
+      EnunciateBuildState buildState = this.enunciate.getBuildState();
+      DecoratedProcessingEnvironment env = this.context.getProcessingEnvironment();
+      TreeMap<String, String> hashes = new TreeMap<String, String>();
+
+      File configFile = this.context.getConfiguration().getConfigFile();
+      try {
+        if (configFile != null && configFile.exists()) {
+          hashes.put("config", buildState.getContentHash(configFile));
+        }
+
+        SortedMap<String, String> inputs = this.enunciate.getBuildInputFingerprints();
+        hashes.putAll(inputs);
+        this.inputsFingerprint = EnunciateBuildState.hash(inputs.toString());
+
+        Collection<String> generatedTypes = getGeneratedTypeNames();
+        if (!generatedTypes.isEmpty()) {
+          hashes.put("types", EnunciateBuildState.hash(new TreeSet<String>(generatedTypes).toString()));
+        }
+
+        for (Element apiElement : getSourceElements()) {
+          SourcePosition sp = env.findSourcePosition(apiElement);
+          JavaFileObject sourceFile = sp == null ? null : sp.getPath() == null ? null : sp.getPath().getCompilationUnit() == null ? null : sp.getPath().getCompilationUnit().getSourceFile();
+          hashes.put(apiElement.getKind() + ":" + apiElement, sourceFile == null ? "" : buildState.getContentHash(sourceFile));
+        }
+      }
+      catch (IOException e) {
+        //unable to read a source; make sure nothing is considered up-to-date by its fingerprint.
+        debug("Unable to fingerprint the API sources: %s", e.getMessage());
+        hashes.put("unreadable", String.valueOf(System.nanoTime()));
+      }
+
+      for (Map.Entry<String, String> hash : hashes.entrySet()) {
+        String key = "source:" + hash.getKey();
+        String previousHash = buildState.getPreviousFingerprint(key);
+        if (previousHash != null && !previousHash.equals(hash.getValue())) {
+          this.changedSources.add(hash.getKey());
+        }
+        buildState.setFingerprint(key, hash.getValue());
+      }
+
+      this.sourcesFingerprint = EnunciateBuildState.hash(hashes.toString());
+    }
+
+    return this.sourcesFingerprint;
+  }
+
+  /**
+   * The API elements that the output of this module is generated from. A change to the source of any other API element
+   * (e.g. of a resource, for a module that only generates the data types) doesn't make the output out-of-date. By
+   * default, all of the API elements.
+   *
+   * @return The API elements that the output of this module is generated from.
+   */
+  protected Collection<? extends Element> getSourceElements() {
+    return this.context.getApiElements();
+  }
+
+  /**
+   * The names of the types that the output of this module is generated from, for a module whose types can change without
+   * any of its source elements changing (e.g. a data type that's only included because a resource references it). By
+   * default, none.
+   *
+   * @return The names of the types that the output of this module is generated from.
+   */
+  protected Collection<String> getGeneratedTypeNames() {
+    return Collections.emptyList();
+  }
+
+  protected String getBuildStateKey(File destFile) {
+    File buildDir = this.enunciate.getBuildDir();
+    if (buildDir != null && destFile != null) {
+      String relative = buildDir.toURI().relativize(destFile.toURI()).getPath();
+      if (!relative.startsWith("/")) {
+        return relative;
+      }
+    }
+    return String.valueOf(destFile);
+  }
+
+  private boolean isOutputUnchanged(String key, File output) {
+    try {
+      return this.enunciate.getBuildState().isOutputUnchanged(key, output);
+    }
+    catch (IOException e) {
+      debug("Unable to fingerprint %s: %s", output, e.getMessage());
+      return false;
+    }
+  }
+
+  private boolean isEmpty(File dir) {
+    String[] children = dir.list();
+    return children == null || children.length == 0;
+  }
+
   public long findSourceTimestamp(DecoratedProcessingEnvironment env, Element apiElement) {
     SourcePosition sp = env.findSourcePosition(apiElement);
     URI uri = sp == null ? null : sp.getPath() == null ? null : sp.getPath().getCompilationUnit() == null ? null : sp.getPath().getCompilationUnit().getSourceFile() == null ? null : sp.getPath().getCompilationUnit().getSourceFile().toUri();
@@ -79,11 +79,41 @@ public class AntPatternMatcher {
       return false;
     }
 
+    return doMatch(pattern, tokenize(pattern), path, tokenize(path), fullMatch);
+  }
+
+  /**
+   * Split the given pattern or path into its segments.
+   *
+   * @param path The pattern or path.
+   * @return The segments.
+   */
+  public String[] tokenize(String path) {
     String pathSeparatorSplitPattern = ".".equals(this.pathSeparator) ? "\\." : this.pathSeparator; //escape the special '.' for regexp splitting.
     pathSeparatorSplitPattern = "\\".equals(pathSeparatorSplitPattern) ? "\\\\" : pathSeparatorSplitPattern; //escape the special '\' for regexp splitting.
-    String[] pattDirs = pattern.split(pathSeparatorSplitPattern);
-    String[] pathDirs = path.split(pathSeparatorSplitPattern);
+    return path.split(pathSeparatorSplitPattern);
+  }
+
+  /**
+   * Match the given tokenized <code>path</code> against the given tokenized <code>pattern</code>, so that a pattern
+   * that's matched against many paths (or a path that's matched against many patterns) is only split once.
+   *
+   * @param pattern the pattern to match against
+   * @param pattDirs the segments of the pattern, as returned by {@link #tokenize(String)}
+   * @param path the path String to test
+   * @param pathDirs the segments of the path, as returned by {@link #tokenize(String)}
+   * @return <code>true</code> if the supplied <code>path</code> matched,
+   * <code>false</code> if it didn't
+   */
+  public boolean match(String pattern, String[] pattDirs, String path, String[] pathDirs) {
+    if (path.startsWith(this.pathSeparator) != pattern.startsWith(this.pathSeparator)) {
+      return false;
+    }
+
+    return doMatch(pattern, pattDirs, path, pathDirs, true);
+  }
 
+  private boolean doMatch(String pattern, String[] pattDirs, String path, String[] pathDirs, boolean fullMatch) {
     int pattIdxStart = 0;
     int pattIdxEnd = pattDirs.length - 1;
     int pathIdxStart = 0;
@@ -0,0 +1,118 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A set of include/exclude patterns, compiled once for matching against many FQNs. A pattern that isn't an Ant-style
+ * pattern (see {@link AntPatternMatcher#isValidPattern(String)}) must equal the FQN; the others are split into their
+ * segments up front and the FQN is split only once for all of them. The result for each FQN can be remembered, for
+ * sets that are asked about the same FQNs over and over (e.g. for each element of each type).
+ *
+ * @author Ryan Heaton
+ */
+public class AntPatternSet {
+
+  private final AntPatternMatcher matcher;
+  private final Set<String> literals = new HashSet<String>();
+  private final List<String> patterns = new ArrayList<String>();
+  private final List<String[]> patternSegments = new ArrayList<String[]>();
+  private final ConcurrentMap<String, Boolean> matches;
+
+  /**
+   * @param patterns The patterns, or null for an empty set.
+   */
+  public AntPatternSet(Collection<String> patterns) {
+    this(patterns, true);
+  }
+
+  /**
+   * @param patterns The patterns, or null for an empty set.
+   * @param memoize  Whether to remember the result for each FQN.
+   */
+  public AntPatternSet(Collection<String> patterns, boolean memoize) {
+    this.matcher = AntPatternMatcher.INSTANCE;
+    if (patterns != null) {
+      for (String pattern : patterns) {
+        if (AntPatternMatcher.isValidPattern(pattern)) {
+          this.patterns.add(pattern);
+          this.patternSegments.add(this.matcher.tokenize(pattern));
+        }
+        else {
+          this.literals.add(pattern);
+        }
+      }
+    }
+    this.matches = memoize && !isEmpty() ? new ConcurrentHashMap<String, Boolean>() : null;
+  }
+
+  /**
+   * @return Whether this set contains no patterns.
+   */
+  public boolean isEmpty() {
+    return this.literals.isEmpty() && this.patterns.isEmpty();
+  }
+
+  /**
+   * Whether the specified FQN matches any of the patterns in this set.
+   *
+   * @param fqn The FQN.
+   * @return Whether the FQN matches.
+   */
+  public boolean matches(String fqn) {
+    if (fqn == null || isEmpty()) {
+      return false;
+    }
+
+    if (this.matches == null) {
+      return doMatch(fqn);
+    }
+
+    Boolean match = this.matches.get(fqn);
+    if (match == null) {
+      match = doMatch(fqn);
+      this.matches.put(fqn, match);
+    }
+    return match;
+  }
+
+  private boolean doMatch(String fqn) {
+    if (this.literals.contains(fqn)) {
+      return true;
+    }
+
+    if (!this.patterns.isEmpty()) {
+      String[] fqnSegments = this.matcher.tokenize(fqn);
+      for (int i = 0; i < this.patterns.size(); i++) {
+        if (this.matcher.match(this.patterns.get(i), this.patternSegments.get(i), fqn, fqnSegments)) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    TreeSet<String> all = new TreeSet<String>(this.literals);
+    all.addAll(this.patterns);
+    return all.toString();
+  }
+}
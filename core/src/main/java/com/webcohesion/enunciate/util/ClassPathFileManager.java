@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.*;
+
+/**
+ * A file manager that serves the classpath from a {@link ClassPathIndex} and keeps the class output in memory, so a
+ * compile neither searches (and reopens) the classpath jars nor writes its class files to an output directory. Everything
+ * else is handled by the underlying file manager.
+ *
+ * @author Ryan Heaton
+ */
+public class ClassPathFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+  private final ClassPathIndex index;
+  private final SortedMap<String, byte[]> output = new TreeMap<String, byte[]>();
+
+  public ClassPathFileManager(JavaFileManager fileManager, ClassPathIndex index) {
+    super(fileManager);
+    this.index = index;
+  }
+
+  /**
+   * @return The files written to the class output, by path (e.g. "com/acme/Widget.class").
+   */
+  public SortedMap<String, byte[]> getOutput() {
+    return output;
+  }
+
+  @Override
+  public boolean hasLocation(Location location) {
+    return location == StandardLocation.CLASS_OUTPUT || super.hasLocation(location);
+  }
+
+  @Override
+  public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+    if (location == StandardLocation.CLASS_PATH) {
+      return Collections.unmodifiableList(this.index.list(packageName, kinds, recurse));
+    }
+    return super.list(location, packageName, kinds, recurse);
+  }
+
+  @Override
+  public String inferBinaryName(Location location, JavaFileObject file) {
+    if (file instanceof ClassPathIndex.Entry) {
+      return ((ClassPathIndex.Entry) file).getBinaryName();
+    }
+    return super.inferBinaryName(location, file);
+  }
+
+  @Override
+  public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+    if (location == StandardLocation.CLASS_OUTPUT) {
+      return new Output(className.replace('.', '/') + kind.extension, kind);
+    }
+    return super.getJavaFileForOutput(location, className, kind, sibling);
+  }
+
+  @Override
+  public FileObject getFileForOutput(Location location, String packageName, String relativeName, FileObject sibling) throws IOException {
+    if (location == StandardLocation.CLASS_OUTPUT) {
+      return new Output(packageName.isEmpty() ? relativeName : packageName.replace('.', '/') + "/" + relativeName, JavaFileObject.Kind.OTHER);
+    }
+    return super.getFileForOutput(location, packageName, relativeName, sibling);
+  }
+
+  @Override
+  public boolean isSameFile(FileObject a, FileObject b) {
+    if (a instanceof SimpleJavaFileObject || b instanceof SimpleJavaFileObject) {
+      return a.toUri().equals(b.toUri());
+    }
+    return super.isSameFile(a, b);
+  }
+
+  /**
+   * A file written to the class output.
+   */
+  private class Output extends SimpleJavaFileObject {
+
+    private final String path;
+
+    private Output(String path, Kind kind) {
+      super(URI.create("mem:///" + path), kind);
+      this.path = path;
+    }
+
+    @Override
+    public OutputStream openOutputStream() throws IOException {
+      return new ByteArrayOutputStream() {
+        @Override
+        public void close() throws IOException {
+          super.close();
+          output.put(path, toByteArray());
+        }
+      };
+    }
+  }
+}
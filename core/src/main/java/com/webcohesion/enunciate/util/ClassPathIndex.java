@@ -0,0 +1,260 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of the class files and Java sources in a set of jars and directories, by package. Each jar is opened and its
+ * central directory read only once, when the index is built, so the index can be shared by any number of compiles
+ * (including concurrent ones) against the same classpath. The index must be closed to release the jars.
+ *
+ * @author Ryan Heaton
+ */
+public class ClassPathIndex implements Closeable {
+
+  private final String encoding;
+  private final OpenJarFiles jars;
+  private final List<ZipFile> zipFiles = new ArrayList<ZipFile>();
+  private final Map<String, List<Entry>> entriesByPackage = new HashMap<String, List<Entry>>();
+
+  /**
+   * @param classpath The classpath entries to index.
+   * @param encoding  The encoding of the sources on the classpath.
+   */
+  public ClassPathIndex(List<File> classpath, String encoding) throws IOException {
+    this(classpath, encoding, null);
+  }
+
+  /**
+   * @param classpath The classpath entries to index.
+   * @param encoding  The encoding of the sources on the classpath.
+   * @param jars      The jars that are already open, which are left open when the index is closed (or null to open the jars here).
+   */
+  public ClassPathIndex(List<File> classpath, String encoding, OpenJarFiles jars) throws IOException {
+    this.encoding = encoding;
+    this.jars = jars;
+    try {
+      for (File entry : classpath) {
+        index(entry);
+      }
+    }
+    catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  private void index(File root) throws IOException {
+    if (root.isDirectory()) {
+      indexDirectory(root, "");
+    }
+    else if (root.isFile()) {
+      ZipFile zipFile;
+      try {
+        zipFile = this.jars != null ? this.jars.open(root) : new ZipFile(root);
+      }
+      catch (IOException e) {
+        //not a jar; nothing to index.
+        return;
+      }
+
+      if (this.jars == null) {
+        this.zipFiles.add(zipFile);
+      }
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        JavaFileObject.Kind kind = kindOf(entry.getName());
+        //the versioned entries of a multi-release jar aren't in the package of their path; the compiler only sees the base entries.
+        if (!entry.isDirectory() && kind != null && !entry.getName().startsWith("META-INF/versions/")) {
+          add(new Entry(root, zipFile, entry, kind, this.encoding));
+        }
+      }
+    }
+  }
+
+  private void indexDirectory(File dir, String path) {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    for (File file : files) {
+      JavaFileObject.Kind kind;
+      if (file.isDirectory()) {
+        indexDirectory(file, path + file.getName() + "/");
+      }
+      else if ((kind = kindOf(file.getName())) != null) {
+        add(new Entry(file, path + file.getName(), kind, this.encoding));
+      }
+    }
+  }
+
+  private static JavaFileObject.Kind kindOf(String name) {
+    if (name.endsWith(JavaFileObject.Kind.CLASS.extension)) {
+      return JavaFileObject.Kind.CLASS;
+    }
+    else if (name.endsWith(JavaFileObject.Kind.SOURCE.extension)) {
+      return JavaFileObject.Kind.SOURCE;
+    }
+    return null;
+  }
+
+  private void add(Entry entry) {
+    int separator = entry.path.lastIndexOf('/');
+    String packageName = separator < 0 ? "" : entry.path.substring(0, separator).replace('/', '.');
+    List<Entry> entries = this.entriesByPackage.get(packageName);
+    if (entries == null) {
+      entries = new ArrayList<Entry>();
+      this.entriesByPackage.put(packageName, entries);
+    }
+    entries.add(entry);
+  }
+
+  /**
+   * List the entries of the specified kinds in the specified package, in the order of the classpath entries in which they
+   * were found.
+   *
+   * @param packageName The package.
+   * @param kinds       The kinds of entries.
+   * @param recurse     Whether to include the entries in the subpackages.
+   * @return The entries.
+   */
+  public List<JavaFileObject> list(String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) {
+    List<JavaFileObject> list = new ArrayList<JavaFileObject>();
+    if (!recurse) {
+      addEntries(list, this.entriesByPackage.get(packageName), kinds);
+    }
+    else {
+      String prefix = packageName.isEmpty() ? "" : packageName + ".";
+      for (Map.Entry<String, List<Entry>> entries : this.entriesByPackage.entrySet()) {
+        if (entries.getKey().equals(packageName) || entries.getKey().startsWith(prefix)) {
+          addEntries(list, entries.getValue(), kinds);
+        }
+      }
+    }
+    return list;
+  }
+
+  private static void addEntries(List<JavaFileObject> list, List<Entry> entries, Set<JavaFileObject.Kind> kinds) {
+    if (entries != null) {
+      for (Entry entry : entries) {
+        if (kinds.contains(entry.getKind())) {
+          list.add(entry);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (ZipFile zipFile : this.zipFiles) {
+      try {
+        zipFile.close();
+      }
+      catch (IOException e) {
+        failure = e;
+      }
+    }
+    this.zipFiles.clear();
+
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * An entry in the index.
+   */
+  public static class Entry extends SimpleJavaFileObject {
+
+    private final File file;
+    private final ZipFile zipFile;
+    private final ZipEntry zipEntry;
+    private final String path;
+    private final String encoding;
+
+    private Entry(File jar, ZipFile zipFile, ZipEntry zipEntry, Kind kind, String encoding) {
+      super(toURI(jar, zipEntry.getName()), kind);
+      this.file = jar;
+      this.zipFile = zipFile;
+      this.zipEntry = zipEntry;
+      this.path = zipEntry.getName();
+      this.encoding = encoding;
+    }
+
+    private Entry(File file, String path, Kind kind, String encoding) {
+      super(file.toURI(), kind);
+      this.file = file;
+      this.zipFile = null;
+      this.zipEntry = null;
+      this.path = path;
+      this.encoding = encoding;
+    }
+
+    private static URI toURI(File jar, String path) {
+      try {
+        return new URI("file", null, jar.toURI().getPath() + "!/" + path, null);
+      }
+      catch (URISyntaxException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    /**
+     * @return The binary name of the type of the entry.
+     */
+    public String getBinaryName() {
+      return this.path.substring(0, this.path.length() - getKind().extension.length()).replace('/', '.');
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+      return this.zipFile == null ? new FileInputStream(this.file) : this.zipFile.getInputStream(this.zipEntry);
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      InputStream in = openInputStream();
+      try {
+        byte[] buffer = new byte[8 * 1024];
+        int len;
+        while ((len = in.read(buffer)) >= 0) {
+          bytes.write(buffer, 0, len);
+        }
+      }
+      finally {
+        in.close();
+      }
+      return bytes.toString(this.encoding);
+    }
+
+    @Override
+    public long getLastModified() {
+      return this.zipEntry == null ? this.file.lastModified() : this.zipEntry.getTime();
+    }
+  }
+}
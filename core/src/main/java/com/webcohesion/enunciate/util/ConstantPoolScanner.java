@@ -0,0 +1,160 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Collection;
+
+/**
+ * Looks for strings in the constant pool of a class file without parsing the class file. Every class, field, method and
+ * annotation type that a class refers to appears in its constant pool, so (e.g.) a class whose constant pool doesn't
+ * contain the descriptor of an annotation can't be annotated with it.
+ *
+ * @author Ryan Heaton
+ */
+public class ConstantPoolScanner {
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELDREF = 9;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_INTERFACE_METHODREF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+  private static final int CONSTANT_MODULE = 19;
+  private static final int CONSTANT_PACKAGE = 20;
+
+  private final byte[][] prefixes;
+
+  /**
+   * @param prefixes The prefixes of the (UTF8) constants to look for.
+   */
+  public ConstantPoolScanner(Collection<String> prefixes) {
+    this.prefixes = new byte[prefixes.size()][];
+    int i = 0;
+    for (String prefix : prefixes) {
+      try {
+        this.prefixes[i++] = prefix.getBytes("utf-8");
+      }
+      catch (UnsupportedEncodingException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * The prefix of the constants that refer to an annotation (or any other type): its type descriptor. A name ending in
+   * '.' (i.e. a package) yields the prefix of the descriptors of all the types in the package.
+   *
+   * @param name The fully-qualified name of the annotation, or the name of a package ending with '.'.
+   * @return The prefix.
+   */
+  public static String descriptorPrefix(String name) {
+    String descriptor = "L" + name.replace('.', '/');
+    return name.endsWith(".") ? descriptor : descriptor + ";";
+  }
+
+  /**
+   * Whether the constant pool of the specified class file contains a UTF8 constant that starts with one of the prefixes.
+   * A class file that can't be read is assumed to contain one, so that it's left to the full parse to handle it.
+   *
+   * @param classFile The bytes of the class file.
+   * @return Whether a constant was found.
+   */
+  public boolean matches(byte[] classFile) {
+    try {
+      int count = readUnsignedShort(classFile, 8);
+      int offset = 10;
+      for (int i = 1; i < count; i++) {
+        int tag = classFile[offset++] & 0xFF;
+        switch (tag) {
+          case CONSTANT_UTF8:
+            int length = readUnsignedShort(classFile, offset);
+            offset += 2;
+            if (startsWithPrefix(classFile, offset, length)) {
+              return true;
+            }
+            offset += length;
+            break;
+          case CONSTANT_CLASS:
+          case CONSTANT_STRING:
+          case CONSTANT_METHOD_TYPE:
+          case CONSTANT_MODULE:
+          case CONSTANT_PACKAGE:
+            offset += 2;
+            break;
+          case CONSTANT_METHOD_HANDLE:
+            offset += 3;
+            break;
+          case CONSTANT_INTEGER:
+          case CONSTANT_FLOAT:
+          case CONSTANT_FIELDREF:
+          case CONSTANT_METHODREF:
+          case CONSTANT_INTERFACE_METHODREF:
+          case CONSTANT_NAME_AND_TYPE:
+          case CONSTANT_DYNAMIC:
+          case CONSTANT_INVOKE_DYNAMIC:
+            offset += 4;
+            break;
+          case CONSTANT_LONG:
+          case CONSTANT_DOUBLE:
+            //longs and doubles take up two entries.
+            offset += 8;
+            i++;
+            break;
+          default:
+            //unknown constant; can't tell.
+            return true;
+        }
+      }
+      return false;
+    }
+    catch (ArrayIndexOutOfBoundsException e) {
+      //truncated class file; can't tell.
+      return true;
+    }
+  }
+
+  private boolean startsWithPrefix(byte[] bytes, int offset, int length) {
+    for (byte[] prefix : this.prefixes) {
+      if (prefix.length <= length && regionMatches(bytes, offset, prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean regionMatches(byte[] bytes, int offset, byte[] prefix) {
+    for (int i = 0; i < prefix.length; i++) {
+      if (bytes[offset + i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int readUnsignedShort(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import com.webcohesion.enunciate.EnunciateMetrics;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * @author Ryan Heaton
+ */
+public class FileUtils {
+
+  private FileUtils() {}
+
+  /**
+   * Write the specified content to a file, unless the file already has exactly that content. Leaving an unchanged file
+   * alone preserves its timestamp so that the steps that consume it (compiling, packaging) can be skipped.
+   *
+   * @param file    The file.
+   * @param content The content.
+   * @return Whether the file was written.
+   */
+  public static boolean writeIfChanged(File file, byte[] content) throws IOException {
+    if (file.isFile() && file.length() == content.length && Arrays.equals(content, readFully(file))) {
+      return false;
+    }
+
+    File parent = file.getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content);
+    }
+    finally {
+      out.close();
+    }
+    EnunciateMetrics.recordFileWritten(content.length);
+    return true;
+  }
+
+  /**
+   * Read the full contents of a file.
+   *
+   * @param file The file.
+   * @return The contents.
+   */
+  public static byte[] readFully(File file) throws IOException {
+    byte[] bytes = new byte[(int) file.length()];
+    DataInputStream in = new DataInputStream(new FileInputStream(file));
+    try {
+      in.readFully(bytes);
+    }
+    finally {
+      in.close();
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.io.File;
+
+/**
+ * A Java source file whose content was generated in this run and is still in memory, so it can be compiled without
+ * reading it back from disk.
+ *
+ * @author Ryan Heaton
+ */
+public class GeneratedSource extends SimpleJavaFileObject {
+
+  private final String content;
+
+  /**
+   * @param file    The file to which the source was written.
+   * @param content The content of the source.
+   */
+  public GeneratedSource(File file, String content) {
+    super(file.toURI(), JavaFileObject.Kind.SOURCE);
+    this.content = content;
+  }
+
+  @Override
+  public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+    return this.content;
+  }
+}
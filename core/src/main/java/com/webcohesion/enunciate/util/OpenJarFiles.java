@@ -0,0 +1,69 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarFile;
+
+/**
+ * The jars that are open for the duration of a build, so that the classpath scan and the indexes of the classpath and
+ * the source path open (and read the central directory of) each jar only once. The jars are closed when this is closed.
+ *
+ * @author Ryan Heaton
+ */
+public class OpenJarFiles implements Closeable {
+
+  private final Map<File, JarFile> jars = new HashMap<File, JarFile>();
+
+  /**
+   * Open the specified jar, or get it if it's already open.
+   *
+   * @param file The jar.
+   * @return The open jar.
+   * @throws IOException If the file isn't a jar.
+   */
+  public synchronized JarFile open(File file) throws IOException {
+    File key = file.getAbsoluteFile();
+    JarFile jar = this.jars.get(key);
+    if (jar == null) {
+      jar = new JarFile(key);
+      this.jars.put(key, jar);
+    }
+    return jar;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    IOException failure = null;
+    for (JarFile jar : this.jars.values()) {
+      try {
+        jar.close();
+      }
+      catch (IOException e) {
+        failure = e;
+      }
+    }
+    this.jars.clear();
+
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A file manager that serves the source path from a {@link SourcePathIndex}, so javac looks up the types on the source path
+ * in the index instead of searching (and reopening) the source jars. Everything else is handled by the underlying file
+ * manager. The source path must therefore not be passed to javac as an option.
+ *
+ * @author Ryan Heaton
+ */
+public class SourcePathFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+  private final SourcePathIndex index;
+
+  public SourcePathFileManager(JavaFileManager fileManager, SourcePathIndex index) {
+    super(fileManager);
+    this.index = index;
+  }
+
+  @Override
+  public boolean hasLocation(Location location) {
+    if (location == StandardLocation.SOURCE_PATH) {
+      return this.index.hasSourcePath();
+    }
+    return super.hasLocation(location);
+  }
+
+  @Override
+  public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+    if (location == StandardLocation.SOURCE_PATH) {
+      if (!kinds.contains(JavaFileObject.Kind.SOURCE)) {
+        return Collections.emptyList();
+      }
+      return Collections.<JavaFileObject>unmodifiableList(this.index.list(packageName, recurse));
+    }
+    return super.list(location, packageName, kinds, recurse);
+  }
+
+  @Override
+  public String inferBinaryName(Location location, JavaFileObject file) {
+    if (file instanceof SourcePathIndex.Source) {
+      return ((SourcePathIndex.Source) file).getBinaryName();
+    }
+    return super.inferBinaryName(location, file);
+  }
+
+  @Override
+  public JavaFileObject getJavaFileForInput(Location location, String className, JavaFileObject.Kind kind) throws IOException {
+    if (location == StandardLocation.SOURCE_PATH) {
+      return kind == JavaFileObject.Kind.SOURCE ? this.index.findOnSourcePath(className.replace('.', '/') + kind.extension) : null;
+    }
+    return super.getJavaFileForInput(location, className, kind);
+  }
+
+  @Override
+  public boolean isSameFile(FileObject a, FileObject b) {
+    if (a instanceof SourcePathIndex.Source || b instanceof SourcePathIndex.Source) {
+      return a.toUri().equals(b.toUri());
+    }
+    return super.isSameFile(a, b);
+  }
+}
@@ -0,0 +1,296 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of the Java source files in a set of jars and directories. Each jar is opened and its central directory read
+ * only once, when the index is built; the sources themselves are read on demand. The index must be closed to release the
+ * jars.
+ *
+ * @author Ryan Heaton
+ */
+public class SourcePathIndex implements Closeable {
+
+  private final String encoding;
+  private final OpenJarFiles jars;
+  private final List<ZipFile> zipFiles = new ArrayList<ZipFile>();
+  private final Map<String, List<Source>> sourcesByPath = new HashMap<String, List<Source>>();
+  private final Map<String, List<Source>> sourcePathByPackage = new HashMap<String, List<Source>>();
+
+  /**
+   * @param classpath  The classpath entries to index, of which the sources can only be looked up by path.
+   * @param sourcepath The source path entries to index, of which the sources can also be listed by package.
+   * @param encoding   The encoding of the sources.
+   */
+  public SourcePathIndex(List<File> classpath, List<File> sourcepath, String encoding) throws IOException {
+    this(classpath, sourcepath, encoding, null);
+  }
+
+  /**
+   * @param classpath  The classpath entries to index, of which the sources can only be looked up by path.
+   * @param sourcepath The source path entries to index, of which the sources can also be listed by package.
+   * @param encoding   The encoding of the sources.
+   * @param jars       The jars that are already open, which are left open when the index is closed (or null to open the jars here).
+   */
+  public SourcePathIndex(List<File> classpath, List<File> sourcepath, String encoding, OpenJarFiles jars) throws IOException {
+    this.encoding = encoding;
+    this.jars = jars;
+    try {
+      for (File entry : classpath) {
+        index(entry, false);
+      }
+      for (File entry : sourcepath) {
+        index(entry, true);
+      }
+    }
+    catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  private void index(File root, boolean onSourcePath) throws IOException {
+    if (root.isDirectory()) {
+      indexDirectory(root, root, "", onSourcePath);
+    }
+    else if (root.isFile()) {
+      ZipFile zipFile;
+      try {
+        zipFile = this.jars != null ? this.jars.open(root) : new ZipFile(root);
+      }
+      catch (IOException e) {
+        //not a jar; nothing to index.
+        return;
+      }
+
+      if (this.jars == null) {
+        this.zipFiles.add(zipFile);
+      }
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (!entry.isDirectory() && entry.getName().endsWith(".java")) {
+          add(new Source(root, zipFile, entry, this.encoding), onSourcePath);
+        }
+      }
+    }
+  }
+
+  private void indexDirectory(File root, File dir, String path, boolean onSourcePath) {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    for (File file : files) {
+      if (file.isDirectory()) {
+        indexDirectory(root, file, path + file.getName() + "/", onSourcePath);
+      }
+      else if (file.getName().endsWith(".java")) {
+        add(new Source(file, path + file.getName(), this.encoding), onSourcePath);
+      }
+    }
+  }
+
+  private void add(Source source, boolean onSourcePath) {
+    List<Source> sources = this.sourcesByPath.get(source.path);
+    if (sources == null) {
+      sources = new ArrayList<Source>(1);
+      this.sourcesByPath.put(source.path, sources);
+    }
+    sources.add(source);
+
+    if (onSourcePath) {
+      int separator = source.path.lastIndexOf('/');
+      String packageName = separator < 0 ? "" : source.path.substring(0, separator).replace('/', '.');
+      List<Source> packageSources = this.sourcePathByPackage.get(packageName);
+      if (packageSources == null) {
+        packageSources = new ArrayList<Source>();
+        this.sourcePathByPackage.put(packageName, packageSources);
+      }
+      packageSources.add(source);
+    }
+  }
+
+  /**
+   * Find the sources at the specified path, in the order of the entries in which they were found.
+   *
+   * @param path The path (e.g. "com/acme/Widget.java").
+   * @return The sources.
+   */
+  public List<Source> find(String path) {
+    List<Source> sources = this.sourcesByPath.get(path);
+    return sources == null ? Collections.<Source>emptyList() : sources;
+  }
+
+  /**
+   * Find the first source on the source path at the specified path.
+   *
+   * @param path The path.
+   * @return The source, or null if none.
+   */
+  public Source findOnSourcePath(String path) {
+    int separator = path.lastIndexOf('/');
+    List<Source> packageSources = this.sourcePathByPackage.get(separator < 0 ? "" : path.substring(0, separator).replace('/', '.'));
+    if (packageSources != null) {
+      for (Source source : packageSources) {
+        if (source.path.equals(path)) {
+          return source;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return Whether there are any sources on the source path.
+   */
+  public boolean hasSourcePath() {
+    return !this.sourcePathByPackage.isEmpty();
+  }
+
+  /**
+   * List the sources on the source path in the specified package.
+   *
+   * @param packageName The package.
+   * @param recurse     Whether to include the sources in the subpackages.
+   * @return The sources.
+   */
+  public List<Source> list(String packageName, boolean recurse) {
+    if (!recurse) {
+      List<Source> sources = this.sourcePathByPackage.get(packageName);
+      return sources == null ? Collections.<Source>emptyList() : sources;
+    }
+
+    List<Source> sources = new ArrayList<Source>();
+    String prefix = packageName.isEmpty() ? "" : packageName + ".";
+    for (Map.Entry<String, List<Source>> entry : this.sourcePathByPackage.entrySet()) {
+      if (entry.getKey().equals(packageName) || entry.getKey().startsWith(prefix)) {
+        sources.addAll(entry.getValue());
+      }
+    }
+    return sources;
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (ZipFile zipFile : this.zipFiles) {
+      try {
+        zipFile.close();
+      }
+      catch (IOException e) {
+        failure = e;
+      }
+    }
+    this.zipFiles.clear();
+
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * A source in the index.
+   */
+  public static class Source extends SimpleJavaFileObject {
+
+    private final File file;
+    private final ZipFile zipFile;
+    private final ZipEntry zipEntry;
+    private final String path;
+    private final String encoding;
+
+    private Source(File jar, ZipFile zipFile, ZipEntry zipEntry, String encoding) {
+      super(toURI(jar, zipEntry.getName()), JavaFileObject.Kind.SOURCE);
+      this.file = jar;
+      this.zipFile = zipFile;
+      this.zipEntry = zipEntry;
+      this.path = zipEntry.getName();
+      this.encoding = encoding;
+    }
+
+    private Source(File file, String path, String encoding) {
+      super(file.toURI(), JavaFileObject.Kind.SOURCE);
+      this.file = file;
+      this.zipFile = null;
+      this.zipEntry = null;
+      this.path = path;
+      this.encoding = encoding;
+    }
+
+    private static URI toURI(File jar, String path) {
+      try {
+        //same form as the uri of a source in a jar that's compiled directly (see Enunciate.URLFileObject).
+        return new URI("file", null, jar.toURI().getPath() + "!/" + path, null);
+      }
+      catch (URISyntaxException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    /**
+     * @return The path of the source relative to the root of its jar or directory.
+     */
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * @return The binary name of the (top-level) type of the source.
+     */
+    public String getBinaryName() {
+      return this.path.substring(0, this.path.length() - ".java".length()).replace('/', '.');
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+      return this.zipFile == null ? new FileInputStream(this.file) : this.zipFile.getInputStream(this.zipEntry);
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+      long size = this.zipFile == null ? this.file.length() : this.zipEntry.getSize();
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(size > 0 && size < Integer.MAX_VALUE ? (int) size : 8 * 1024);
+      InputStream in = openInputStream();
+      try {
+        byte[] buffer = new byte[8 * 1024];
+        int len;
+        while ((len = in.read(buffer)) >= 0) {
+          bytes.write(buffer, 0, len);
+        }
+      }
+      finally {
+        in.close();
+      }
+      return bytes.toString(this.encoding);
+    }
+
+    @Override
+    public long getLastModified() {
+      return this.zipEntry == null ? this.file.lastModified() : this.zipEntry.getTime();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import com.webcohesion.enunciate.javac.decorations.type.DecoratedDeclaredType;
+import com.webcohesion.enunciate.javac.decorations.type.DecoratedTypeMirror;
+
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The "synthetic" types (e.g. parameterized types that capture their type arguments) that a module creates for the
+ * types it references, interned by signature so that each one is built (and its members decorated) only once.
+ *
+ * @author Ryan Heaton
+ */
+public abstract class SyntheticTypes {
+
+  private final ConcurrentMap<String, DecoratedTypeMirror> syntheticTypes = new ConcurrentHashMap<String, DecoratedTypeMirror>();
+  private final Set<String> nonSyntheticTypes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  /**
+   * Resolve the synthetic type for the specified type.
+   *
+   * @param type The type.
+   * @return The synthetic type, or the type itself if it doesn't need one.
+   */
+  public DecoratedTypeMirror resolve(DecoratedTypeMirror type) {
+    String key = isInternable(type) ? type.toString() : null;
+    if (key != null) {
+      DecoratedTypeMirror synthetic = this.syntheticTypes.get(key);
+      if (synthetic != null) {
+        return synthetic;
+      }
+      else if (this.nonSyntheticTypes.contains(key)) {
+        return type;
+      }
+    }
+
+    DecoratedTypeMirror resolved = createSyntheticType(type);
+
+    if (key != null) {
+      if (resolved == type) {
+        this.nonSyntheticTypes.add(key);
+      }
+      else {
+        DecoratedTypeMirror existing = this.syntheticTypes.putIfAbsent(key, resolved);
+        resolved = existing == null ? resolved : existing;
+      }
+    }
+
+    return resolved;
+  }
+
+  /**
+   * Create the synthetic type for the specified type.
+   *
+   * @param type The type.
+   * @return The synthetic type, or the type itself if it doesn't need one.
+   */
+  protected abstract DecoratedTypeMirror createSyntheticType(DecoratedTypeMirror type);
+
+  /**
+   * Whether the resolution of the specified type can be shared by every reference to a type with the same signature:
+   * plain declared types whose type arguments are all concrete (a type variable's name doesn't identify it).
+   *
+   * @param type The type.
+   * @return Whether the resolution of the type can be shared.
+   */
+  public static boolean isInternable(DecoratedTypeMirror type) {
+    return type.getClass() == DecoratedDeclaredType.class && isConcrete(type);
+  }
+
+  private static boolean isConcrete(TypeMirror type) {
+    switch (type.getKind()) {
+      case DECLARED:
+        for (TypeMirror typeArg : ((DeclaredType) type).getTypeArguments()) {
+          if (!isConcrete(typeArg)) {
+            return false;
+          }
+        }
+        TypeMirror enclosingType = ((DeclaredType) type).getEnclosingType();
+        return enclosingType.getKind() != TypeKind.DECLARED || isConcrete(enclosingType);
+      case ARRAY:
+        return isConcrete(((ArrayType) type).getComponentType());
+      default:
+        return type.getKind().isPrimitive();
+    }
+  }
+}
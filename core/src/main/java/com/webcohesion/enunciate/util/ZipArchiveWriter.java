@@ -0,0 +1,341 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import com.webcohesion.enunciate.EnunciateException;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a zip archive whose entries are compressed in parallel. Each entry is deflated independently (on the executor
+ * service, if there is one, and on the calling thread) and the compressed entries are streamed into the archive in the
+ * order they were added.
+ * <p>
+ * The archive is reproducible: every entry gets the same fixed timestamp and no platform-specific attributes are
+ * written, so the same entries always produce the same bytes. Entries that are already compressed (images, archives,
+ * fonts) or that don't get any smaller are stored rather than deflated.
+ * <p>
+ * Zip64 isn't supported, so an archive is limited to 65535 entries and 4GB.
+ *
+ * @author Ryan Heaton
+ */
+public class ZipArchiveWriter {
+
+  /**
+   * The MS-DOS date of every entry: 1980-02-01 (the earliest date that's safe for all zip tools).
+   */
+  static final int DOS_DATE = (2 << 5) | 1;
+  static final int DOS_TIME = 0;
+
+  private static final int METHOD_STORED = 0;
+  private static final int METHOD_DEFLATED = 8;
+  private static final int FLAG_UTF8 = 0x800;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<String>(Arrays.asList(
+    "zip", "jar", "war", "ear", "gz", "tgz", "bz2", "xz", "7z",
+    "png", "gif", "jpg", "jpeg", "webp", "ico",
+    "woff", "woff2", "eot", "mp3", "mp4", "pdf"
+  ));
+
+  private final ExecutorService executor;
+  private final int parallelism;
+  private final List<Entry> entries = new ArrayList<Entry>();
+
+  /**
+   * @param executor    The executor service on which to compress, or null to compress on the calling thread.
+   * @param parallelism The number of entries to compress ahead of the one being written.
+   */
+  public ZipArchiveWriter(ExecutorService executor, int parallelism) {
+    this.executor = executor;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Add a file to the archive.
+   *
+   * @param name The entry name.
+   * @param file The file.
+   * @return this
+   */
+  public ZipArchiveWriter add(String name, File file) {
+    this.entries.add(new Entry(name, file, null));
+    return this;
+  }
+
+  /**
+   * Add some content to the archive.
+   *
+   * @param name    The entry name.
+   * @param content The content.
+   * @return this
+   */
+  public ZipArchiveWriter add(String name, byte[] content) {
+    this.entries.add(new Entry(name, null, content));
+    return this;
+  }
+
+  /**
+   * Write the archive.
+   *
+   * @param toFile The file to write to.
+   * @return The number of bytes written.
+   */
+  public long write(File toFile) throws IOException {
+    if (this.entries.size() > 0xFFFF) {
+      throw new EnunciateException(String.format("Unable to write %s: too many entries (%d).", toFile, this.entries.size()));
+    }
+
+    Set<String> names = new HashSet<String>(this.entries.size() * 2);
+    List<FutureTask<CompressedEntry>> tasks = new ArrayList<FutureTask<CompressedEntry>>(this.entries.size());
+    for (final Entry entry : this.entries) {
+      if (!names.add(entry.name)) {
+        throw new ZipException("duplicate entry: " + entry.name);
+      }
+
+      tasks.add(new FutureTask<CompressedEntry>(new Callable<CompressedEntry>() {
+        @Override
+        public CompressedEntry call() throws Exception {
+          return entry.compress();
+        }
+      }));
+    }
+
+    CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(toFile), BUFFER_SIZE));
+    try {
+      List<CompressedEntry> written = new ArrayList<CompressedEntry>(tasks.size());
+      int submitted = 0;
+      for (int i = 0; i < tasks.size(); i++) {
+        //keep the executor a window ahead of the entry being written.
+        while (this.executor != null && submitted < tasks.size() && submitted <= i + this.parallelism) {
+          try {
+            this.executor.execute(tasks.get(submitted));
+          }
+          catch (RejectedExecutionException e) {
+            //the calling thread will pick it up.
+          }
+          submitted++;
+        }
+
+        //run the task on this thread if no executor thread has claimed it yet (a no-op if one has).
+        FutureTask<CompressedEntry> task = tasks.get(i);
+        task.run();
+        CompressedEntry entry = get(task);
+        entry.offset = out.count;
+        writeLocalHeader(out, entry);
+        out.write(entry.data);
+        entry.data = null;
+        written.add(entry);
+      }
+
+      long centralDirectoryOffset = out.count;
+      for (CompressedEntry entry : written) {
+        writeCentralHeader(out, entry);
+      }
+      long centralDirectorySize = out.count - centralDirectoryOffset;
+      if (centralDirectoryOffset + centralDirectorySize > 0xFFFFFFFFL) {
+        throw new EnunciateException(String.format("Unable to write %s: archive too large.", toFile));
+      }
+
+      writeInt(out, 0x06054b50);
+      writeShort(out, 0);
+      writeShort(out, 0);
+      writeShort(out, written.size());
+      writeShort(out, written.size());
+      writeInt(out, centralDirectorySize);
+      writeInt(out, centralDirectoryOffset);
+      writeShort(out, 0);
+      return out.count;
+    }
+    finally {
+      for (FutureTask<CompressedEntry> task : tasks) {
+        task.cancel(false);
+      }
+      out.close();
+    }
+  }
+
+  private static CompressedEntry get(FutureTask<CompressedEntry> task) throws IOException {
+    try {
+      return task.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EnunciateException(e);
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new EnunciateException(cause);
+    }
+  }
+
+  private static void writeLocalHeader(CountingOutputStream out, CompressedEntry entry) throws IOException {
+    if (entry.offset > 0xFFFFFFFFL) {
+      throw new EnunciateException(String.format("Unable to add %s: archive too large.", entry.name));
+    }
+
+    writeInt(out, 0x04034b50);
+    writeShort(out, entry.method == METHOD_DEFLATED ? 20 : 10);
+    writeShort(out, FLAG_UTF8);
+    writeShort(out, entry.method);
+    writeShort(out, DOS_TIME);
+    writeShort(out, DOS_DATE);
+    writeInt(out, entry.crc);
+    writeInt(out, entry.data.length);
+    writeInt(out, entry.size);
+    writeShort(out, entry.name.length);
+    writeShort(out, 0);
+    out.write(entry.name);
+    entry.compressedSize = entry.data.length;
+  }
+
+  private static void writeCentralHeader(CountingOutputStream out, CompressedEntry entry) throws IOException {
+    writeInt(out, 0x02014b50);
+    writeShort(out, 20);
+    writeShort(out, entry.method == METHOD_DEFLATED ? 20 : 10);
+    writeShort(out, FLAG_UTF8);
+    writeShort(out, entry.method);
+    writeShort(out, DOS_TIME);
+    writeShort(out, DOS_DATE);
+    writeInt(out, entry.crc);
+    writeInt(out, entry.compressedSize);
+    writeInt(out, entry.size);
+    writeShort(out, entry.name.length);
+    writeShort(out, 0);
+    writeShort(out, 0);
+    writeShort(out, 0);
+    writeShort(out, 0);
+    writeInt(out, 0);
+    writeInt(out, entry.offset);
+    out.write(entry.name);
+  }
+
+  private static void writeShort(OutputStream out, int value) throws IOException {
+    out.write(value & 0xFF);
+    out.write((value >>> 8) & 0xFF);
+  }
+
+  private static void writeInt(OutputStream out, long value) throws IOException {
+    writeShort(out, (int) (value & 0xFFFF));
+    writeShort(out, (int) ((value >>> 16) & 0xFFFF));
+  }
+
+  static boolean isCompressed(String name) {
+    int dot = name.lastIndexOf('.');
+    return dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase());
+  }
+
+  private static class Entry {
+    private final String name;
+    private final File file;
+    private final byte[] content;
+
+    private Entry(String name, File file, byte[] content) {
+      this.name = name;
+      this.file = file;
+      this.content = content;
+    }
+
+    CompressedEntry compress() throws IOException {
+      byte[] content = this.content != null ? this.content : FileUtils.readFully(this.file);
+
+      CompressedEntry entry = new CompressedEntry();
+      entry.name = this.name.getBytes("utf-8");
+      if (entry.name.length > 0xFFFF) {
+        throw new EnunciateException(String.format("Unable to add %s: name too long.", this.name));
+      }
+
+      CRC32 crc = new CRC32();
+      crc.update(content);
+      entry.crc = crc.getValue();
+      entry.size = content.length;
+      entry.method = METHOD_STORED;
+      entry.data = content;
+
+      if (content.length > 0 && !isCompressed(this.name)) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+          deflater.setInput(content);
+          deflater.finish();
+          ByteArrayOutputStream deflated = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+          byte[] buffer = new byte[Math.min(BUFFER_SIZE, content.length + 64)];
+          while (!deflater.finished()) {
+            int len = deflater.deflate(buffer);
+            deflated.write(buffer, 0, len);
+            if (deflated.size() >= content.length) {
+              //not worth it; store it instead.
+              break;
+            }
+          }
+
+          if (deflater.finished() && deflated.size() < content.length) {
+            entry.method = METHOD_DEFLATED;
+            entry.data = deflated.toByteArray();
+          }
+        }
+        finally {
+          deflater.end();
+        }
+      }
+
+      return entry;
+    }
+  }
+
+  private static class CompressedEntry {
+    private byte[] name;
+    private int method;
+    private long crc;
+    private long size;
+    private long compressedSize;
+    private byte[] data;
+    private long offset;
+  }
+
+  private static class CountingOutputStream extends FilterOutputStream {
+    private long count = 0;
+
+    private CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      this.out.write(b);
+      this.count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      this.out.write(b, off, len);
+      this.count += len;
+    }
+  }
+}
@@ -16,13 +16,14 @@
 package com.webcohesion.enunciate.util.freemarker;
 
 import com.webcohesion.enunciate.EnunciateLogger;
+import com.webcohesion.enunciate.util.FileUtils;
 import freemarker.core.Environment;
 import freemarker.template.*;
 import freemarker.template.utility.DeepUnwrap;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.Map;
 
 /**
@@ -32,10 +33,21 @@ public class FileDirective implements TemplateDirectiveModel {
 
   private final File outputDir;
   private final EnunciateLogger logger;
+  private final Map<File, String> written;
 
   public FileDirective(File outputDir, EnunciateLogger logger) {
+    this(outputDir, logger, null);
+  }
+
+  /**
+   * @param outputDir The output directory.
+   * @param logger    The logger.
+   * @param written   The map in which to keep the content of each file that's rendered (e.g. for compiling it without reading it back), or null. Must be safe for concurrent use.
+   */
+  public FileDirective(File outputDir, EnunciateLogger logger, Map<File, String> written) {
     this.outputDir = outputDir;
     this.logger = logger;
+    this.written = written;
 
     if (!outputDir.exists()) {
       outputDir.mkdirs();
@@ -73,9 +85,19 @@ public class FileDirective implements TemplateDirectiveModel {
       output.getParentFile().mkdirs();
     }
 
-    PrintWriter writer = new PrintWriter(output, charset);
-    this.logger.debug("Writing %s...", output);
+    StringWriter writer = new StringWriter();
     body.render(writer);
     writer.close();
+    String content = writer.toString();
+    if (this.written != null) {
+      this.written.put(output, content);
+    }
+
+    if (FileUtils.writeIfChanged(output, content.getBytes(charset))) {
+      this.logger.debug("Wrote %s.", output);
+    }
+    else {
+      this.logger.debug("%s is unchanged.", output);
+    }
   }
 }
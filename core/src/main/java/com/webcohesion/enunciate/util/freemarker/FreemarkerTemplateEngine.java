@@ -0,0 +1,253 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util.freemarker;
+
+import freemarker.cache.URLTemplateLoader;
+import freemarker.core.Environment;
+import freemarker.template.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The template engine shared by the generating modules. One (thread-safe) FreeMarker configuration is kept for each
+ * object wrapper, parsed templates are cached by URL, and the time spent rendering each template is tracked. Object
+ * wrappers may carry state (e.g. the namespace prefixes of an IDL file), so a configuration is only ever shared by the
+ * renders that use the very same wrapper instance. The parsed templates are cached for the life of the engine, i.e.
+ * for one run.
+ *
+ * @author Ryan Heaton
+ */
+public class FreemarkerTemplateEngine {
+
+  private final Map<ObjectWrapper, Flavor> flavors;
+  private final ConcurrentMap<String, RenderStatistics> statistics = new ConcurrentHashMap<String, RenderStatistics>();
+
+  public FreemarkerTemplateEngine() {
+    this(new IdentityHashMap<ObjectWrapper, Flavor>());
+  }
+
+  protected FreemarkerTemplateEngine(Map<ObjectWrapper, Flavor> flavors) {
+    this.flavors = flavors;
+  }
+
+  /**
+   * Create a new engine (e.g. for the next run) that shares the configuration of the default object wrapper with this
+   * engine, but not its render statistics or the configurations of any other object wrappers, which belong to the run
+   * that created them. The new engine loads each template through the shared configuration the first time it's used,
+   * so a template that changed since it was parsed (be it a file or in a jar) is parsed again.
+   *
+   * @return The new engine.
+   */
+  public FreemarkerTemplateEngine fork() {
+    Map<ObjectWrapper, Flavor> flavors = new IdentityHashMap<ObjectWrapper, Flavor>();
+    flavors.put(null, new Flavor(getFlavor(null).configuration));
+    return new FreemarkerTemplateEngine(flavors);
+  }
+
+  /**
+   * Processes the specified template with the given model.
+   *
+   * @param templateURL The template URL.
+   * @param model       The root model.
+   * @param wrapper     The object wrapper to use, or null to use the default object wrapper.
+   * @return The output of the template that wasn't redirected elsewhere (e.g. with a file directive).
+   */
+  public String processTemplate(URL templateURL, Object model, ObjectWrapper wrapper) throws IOException, TemplateException {
+    StringWriter unhandledOutput = new StringWriter();
+    processTemplate(templateURL, model, wrapper, unhandledOutput);
+    unhandledOutput.close();
+    return unhandledOutput.toString();
+  }
+
+  /**
+   * Processes the specified template with the given model.
+   *
+   * @param templateURL The template URL.
+   * @param model       The root model.
+   * @param wrapper     The object wrapper to use, or null to use the default object wrapper.
+   * @param out         The writer to which to write the output.
+   */
+  public void processTemplate(URL templateURL, Object model, ObjectWrapper wrapper, Writer out) throws IOException, TemplateException {
+    Template template = getTemplate(templateURL, wrapper);
+    long start = System.nanoTime();
+    try {
+      if (wrapper == null) {
+        template.process(model, out);
+      }
+      else {
+        template.process(model, out, wrapper);
+      }
+    }
+    finally {
+      getRenderStatistics(templateURL.toString()).record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Get the (cached) template at the specified URL.
+   *
+   * @param templateURL The template URL.
+   * @param wrapper     The object wrapper for which the template is to be used, or null for the default object wrapper.
+   * @return The template.
+   */
+  public Template getTemplate(URL templateURL, ObjectWrapper wrapper) throws IOException {
+    Flavor flavor = getFlavor(wrapper);
+    String name = templateURL.toString();
+    Template template = flavor.templates.get(name);
+    if (template == null) {
+      //the configuration checks whether the template has changed since it was parsed, replacing it in its cache if so.
+      template = flavor.configuration.getTemplate(name);
+      Template existing = flavor.templates.putIfAbsent(name, template);
+      template = existing == null ? template : existing;
+    }
+    return template;
+  }
+
+  /**
+   * Get the configuration used for the specified object wrapper.
+   *
+   * @param wrapper The object wrapper, or null for the default object wrapper.
+   * @return The configuration.
+   */
+  public Configuration getConfiguration(ObjectWrapper wrapper) {
+    return getFlavor(wrapper).configuration;
+  }
+
+  /**
+   * The render statistics, by template URL.
+   *
+   * @return The render statistics, by template URL.
+   */
+  public Map<String, RenderStatistics> getRenderStatistics() {
+    return Collections.unmodifiableMap(new TreeMap<String, RenderStatistics>(this.statistics));
+  }
+
+  protected RenderStatistics getRenderStatistics(String templateName) {
+    RenderStatistics stats = this.statistics.get(templateName);
+    if (stats == null) {
+      stats = new RenderStatistics();
+      RenderStatistics existing = this.statistics.putIfAbsent(templateName, stats);
+      stats = existing == null ? stats : existing;
+    }
+    return stats;
+  }
+
+  protected Flavor getFlavor(ObjectWrapper wrapper) {
+    //keyed by identity: a wrapper is never mistaken for another (stateful) wrapper that happens to be equal to it.
+    synchronized (this.flavors) {
+      Flavor flavor = this.flavors.get(wrapper);
+      if (flavor == null) {
+        flavor = new Flavor(createConfiguration(wrapper));
+        this.flavors.put(wrapper, flavor);
+      }
+      return flavor;
+    }
+  }
+
+  protected Configuration createConfiguration(ObjectWrapper wrapper) {
+    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
+
+    URLTemplateLoader templateLoader = new URLTemplateLoader() {
+      protected URL getURL(String name) {
+        try {
+          return new URL(name);
+        }
+        catch (MalformedURLException e) {
+          return null;
+        }
+      }
+    };
+    //a cached connection to a jar would keep serving the jar as it was when it was first opened.
+    templateLoader.setURLConnectionUsesCaches(false);
+    configuration.setTemplateLoader(templateLoader);
+
+    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
+      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
+        throw templateException;
+      }
+    });
+
+    configuration.setLocalizedLookup(false);
+    configuration.setTemplateUpdateDelay(0);
+    configuration.setDefaultEncoding("UTF-8");
+    configuration.setURLEscapingCharset("UTF-8");
+    if (wrapper != null) {
+      configuration.setObjectWrapper(wrapper);
+    }
+    return configuration;
+  }
+
+  /**
+   * The configuration for an object wrapper and the templates parsed by this engine.
+   */
+  protected static class Flavor {
+
+    private final Configuration configuration;
+    private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<String, Template>();
+
+    Flavor(Configuration configuration) {
+      this.configuration = configuration;
+    }
+  }
+
+  /**
+   * Timing statistics for the rendering of a template.
+   */
+  public static class RenderStatistics {
+
+    private final AtomicLong renderCount = new AtomicLong();
+    private final AtomicLong renderNanos = new AtomicLong();
+
+    void record(long nanos) {
+      this.renderCount.incrementAndGet();
+      this.renderNanos.addAndGet(nanos);
+    }
+
+    /**
+     * The number of times the template has been rendered.
+     *
+     * @return The number of times the template has been rendered.
+     */
+    public long getRenderCount() {
+      return renderCount.get();
+    }
+
+    /**
+     * The total time spent rendering the template, in nanoseconds.
+     *
+     * @return The total time spent rendering the template, in nanoseconds.
+     */
+    public long getRenderNanos() {
+      return renderNanos.get();
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d renders in %dms", getRenderCount(), getRenderNanos() / 1000000);
+    }
+  }
+}
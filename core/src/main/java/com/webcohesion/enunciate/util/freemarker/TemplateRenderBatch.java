@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util.freemarker;
+
+import freemarker.template.ObjectWrapper;
+import freemarker.template.TemplateException;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * A batch of independent template renders (e.g. one per type of a generated client library). Each render gets its own
+ * snapshot of the model. The renders are processed one at a time on the calling thread (the models wrap javac elements,
+ * which can complete symbols while they're being rendered, and javac isn't thread safe), and the outputs are returned
+ * in the order the renders were added.
+ *
+ * @author Ryan Heaton
+ */
+public class TemplateRenderBatch {
+
+  private final FreemarkerTemplateEngine engine;
+  private final ObjectWrapper wrapper;
+  private final List<Render> renders = new ArrayList<Render>();
+
+  /**
+   * @param engine  The template engine.
+   * @param wrapper The object wrapper, or null for the default object wrapper.
+   */
+  public TemplateRenderBatch(FreemarkerTemplateEngine engine, ObjectWrapper wrapper) {
+    this.engine = engine;
+    this.wrapper = wrapper;
+  }
+
+  /**
+   * Add a render to the batch. The current state of the model is copied, so the caller is free to keep modifying it.
+   *
+   * @param templateURL The template URL.
+   * @param model       The model.
+   * @return this
+   */
+  public TemplateRenderBatch add(URL templateURL, Map<String, Object> model) {
+    this.renders.add(new Render(templateURL, Collections.unmodifiableMap(new HashMap<String, Object>(model))));
+    return this;
+  }
+
+  /**
+   * @return The number of renders in the batch.
+   */
+  public int size() {
+    return this.renders.size();
+  }
+
+  /**
+   * Process all the renders in the batch.
+   *
+   * @return The unhandled output of each render, in the order the renders were added.
+   */
+  public List<String> process() throws IOException, TemplateException {
+    List<String> outputs = new ArrayList<String>(this.renders.size());
+    for (Render render : this.renders) {
+      outputs.add(this.engine.processTemplate(render.templateURL, render.model, this.wrapper));
+    }
+    return outputs;
+  }
+
+  private static class Render {
+    private final URL templateURL;
+    private final Map<String, Object> model;
+
+    private Render(URL templateURL, Map<String, Object> model) {
+      this.templateURL = templateURL;
+      this.model = model;
+    }
+  }
+}
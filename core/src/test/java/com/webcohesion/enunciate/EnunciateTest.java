@@ -15,22 +15,35 @@
  */
 package com.webcohesion.enunciate;
 
+import com.webcohesion.enunciate.module.AnnotationDetectingModule;
 import com.webcohesion.enunciate.module.DependencySpec;
 import com.webcohesion.enunciate.module.DependingModuleAwareModule;
 import com.webcohesion.enunciate.module.EnunciateModule;
 import com.webcohesion.enunciate.module.TypeDetectingModule;
+import com.webcohesion.enunciate.util.AntPatternMatcher;
+import com.webcohesion.enunciate.util.AntPatternSet;
+import com.webcohesion.enunciate.util.OpenJarFiles;
+import com.webcohesion.enunciate.util.SourcePathFileManager;
+import com.webcohesion.enunciate.util.SourcePathIndex;
+import com.webcohesion.enunciate.util.freemarker.FreemarkerTemplateEngine;
+import freemarker.template.Configuration;
+import freemarker.template.DefaultObjectWrapper;
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.junit.Test;
-import org.reflections.Reflections;
 import org.reflections.adapters.MetadataAdapter;
 
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardLocation;
 import javax.tools.ToolProvider;
 import java.io.*;
 import java.net.URI;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
@@ -75,6 +88,94 @@ public class EnunciateTest {
     }
   }
 
+  @Test
+  public void testZip() throws Exception {
+    File dir = createTempDir();
+    File sub = new File(dir, "sub");
+    sub.mkdirs();
+    writeFile(new File(dir, "b.txt"), "bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb");
+    writeFile(new File(sub, "a.txt"), "a");
+    writeFile(new File(sub, "image.png"), "not really a png, but stored as-is anyway.");
+
+    Enunciate enunciate = new Enunciate();
+    File zip1 = new File(createTempDir(), "one.zip");
+    assertTrue(enunciate.zip(zip1, dir));
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    File zip2 = new File(createTempDir(), "two.zip");
+    try {
+      enunciate.setExecutorService(executor);
+      assertTrue(enunciate.zip(zip2, dir));
+    }
+    finally {
+      enunciate.setExecutorService(null);
+      executor.shutdown();
+    }
+    assertArrayEquals("zips of the same content should be identical", readBytes(zip1), readBytes(zip2));
+
+    java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(zip1);
+    try {
+      List<String> names = new ArrayList<String>();
+      for (Enumeration<? extends java.util.zip.ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+        names.add(entries.nextElement().getName());
+      }
+      assertEquals(Arrays.asList("b.txt", "sub/a.txt", "sub/image.png"), names);
+      assertEquals(java.util.zip.ZipEntry.DEFLATED, zipFile.getEntry("b.txt").getMethod());
+      assertEquals(java.util.zip.ZipEntry.STORED, zipFile.getEntry("sub/image.png").getMethod());
+    }
+    finally {
+      zipFile.close();
+    }
+
+    File unzipped = createTempDir();
+    enunciate.unzip(new FileInputStream(zip1), unzipped);
+    assertEquals("a", new String(readBytes(new File(unzipped, "sub/a.txt")), "utf-8"));
+    assertEquals(66, new File(unzipped, "b.txt").length());
+  }
+
+  @Test
+  public void testBuildStateFingerprintsOutputs() throws Exception {
+    File buildDir = createTempDir();
+    File output = new File(buildDir, "out");
+    output.mkdirs();
+    File generated = new File(output, "Generated.java");
+    writeFile(generated, "class Generated {}");
+    File input = new File(createTempDir(), "template.fmt");
+    writeFile(input, "${hello}");
+
+    EnunciateBuildState state = new EnunciateBuildState(buildDir);
+    String inputFingerprint = state.getFileFingerprint(input);
+    state.recordOutput("test:out", output);
+    state.save();
+
+    state = new EnunciateBuildState(buildDir);
+    assertEquals(inputFingerprint, state.getFileFingerprint(input));
+    assertTrue(state.isOutputUnchanged("test:out", output));
+    assertTrue("touched, but not changed", generated.setLastModified(generated.lastModified() - 10000));
+    assertTrue(state.isOutputUnchanged("test:out", output));
+    writeFile(generated, "class Generated { /* edited by hand */ }");
+    assertFalse(state.isOutputUnchanged("test:out", output));
+    assertTrue(generated.delete());
+    assertFalse(state.isOutputUnchanged("test:out", output));
+
+    writeFile(input, "${goodbye}");
+    assertFalse(inputFingerprint.equals(state.getFileFingerprint(input)));
+
+    //content is hashed as it's streamed, the same as if it were read fully.
+    byte[] large = new byte[100000];
+    new Random(3).nextBytes(large);
+    assertEquals(EnunciateBuildState.hash(large), EnunciateBuildState.hash(new ByteArrayInputStream(large)));
+  }
+
+  private static void writeFile(File file, String content) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(content.getBytes("utf-8"));
+    out.close();
+  }
+
+  private static byte[] readBytes(File file) throws IOException {
+    return com.webcohesion.enunciate.util.FileUtils.readFully(file);
+  }
+
   @Test
   public void testCallOrder() throws Exception {
     final Map<String, TestModule> myModules = new HashMap<String, TestModule>();
@@ -101,8 +202,11 @@ public class EnunciateTest {
   public void testClasspathScanning() throws Exception {
     Enunciate enunciate = new Enunciate();
     enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
-    Reflections reflections = enunciate.loadApiReflections(buildTestClasspath());
-    Set<String> scannedEntries = reflections.getStore().get(EnunciateReflectionsScanner.class.getSimpleName()).keySet();
+    List<File> classpath = new ArrayList<File>();
+    for (URL url : buildTestClasspath()) {
+      classpath.add(new File(url.toURI()));
+    }
+    Set<String> scannedEntries = enunciate.scanApiEntries(classpath);
     assertTrue(scannedEntries.contains("enunciate.Class1"));
     assertTrue(scannedEntries.contains("enunciate.Class2"));
     assertTrue(scannedEntries.contains("enunciate.Class3"));
@@ -111,6 +215,257 @@ public class EnunciateTest {
     assertFalse(scannedEntries.isEmpty());
   }
 
+  @Test
+  public void testClasspathScanningWithScanCache() throws Exception {
+    List<File> classpath = new ArrayList<File>();
+    for (URL url : buildTestClasspath()) {
+      classpath.add(new File(url.toURI()));
+    }
+
+    File cacheDir = createTempDir();
+    Enunciate enunciate = new Enunciate();
+    enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
+    enunciate.setScanCacheDir(cacheDir);
+    Set<String> scannedEntries = enunciate.scanApiEntries(classpath);
+    assertEquals(new HashSet<String>(Arrays.asList("enunciate.Class1", "enunciate.Class2", "enunciate.Class3", "enunciate/Class1.java")), scannedEntries);
+    assertEquals("only the jars should be cached", 2, cacheDir.listFiles().length);
+
+    EnunciateScanCache cache = new EnunciateScanCache(cacheDir);
+    EnunciateScanCache.Entry entry = cache.load(classpath.get(0), "");
+    assertNotNull(entry);
+    assertEquals(Arrays.asList("enunciate/Class1.java"), entry.getSourceFiles());
+    assertEquals(1, entry.getClasses().size());
+
+    //the second scan is replayed from the cache.
+    assertEquals(scannedEntries, enunciate.scanApiEntries(classpath));
+
+    //a changed jar is no longer served from the cache.
+    assertTrue(classpath.get(0).setLastModified(classpath.get(0).lastModified() - 10000));
+    assertNull(cache.load(classpath.get(0), ""));
+  }
+
+  @Test
+  public void testScanCacheIsRescannedForUncachedMetadata() throws Exception {
+    List<File> classpath = new ArrayList<File>();
+    for (URL url : buildTestClasspath()) {
+      classpath.add(new File(url.toURI()));
+    }
+
+    File cacheDir = createTempDir();
+    Enunciate enunciate = new Enunciate();
+    enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
+    enunciate.setScanCacheDir(cacheDir);
+    Set<String> scannedEntries = enunciate.scanApiEntries(classpath);
+
+    //a module that looks at the methods of a class can't be served from the cache.
+    final Set<String> parsed = Collections.synchronizedSet(new HashSet<String>());
+    Enunciate next = new Enunciate();
+    next.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>()) {
+      @Override
+      public boolean typeDetected(Object type, MetadataAdapter metadata) {
+        metadata.getMethods(type);
+        if (!(metadata instanceof EnunciateScanCache.CachedMetadataAdapter)) {
+          parsed.add(metadata.getClassName(type));
+        }
+        return true;
+      }
+    }));
+    next.setScanCacheDir(cacheDir);
+    assertEquals(scannedEntries, next.scanApiEntries(classpath));
+    assertEquals(new HashSet<String>(Arrays.asList("enunciate.Class1", "enunciate.Class2", "enunciate.Class3")), parsed);
+  }
+
+  @Test
+  public void testClasspathScanningInWarmSession() throws Exception {
+    List<File> classpath = new ArrayList<File>();
+    for (URL url : buildTestClasspath()) {
+      classpath.add(new File(url.toURI()));
+    }
+
+    EnunciateSession session = new EnunciateSession();
+    Enunciate enunciate = new Enunciate();
+    enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
+    enunciate.setSession(session);
+    Set<String> scannedEntries = enunciate.scanApiEntries(classpath);
+    assertNotNull("the jar should be kept in memory", session.newScanCache(null).load(classpath.get(0), ""));
+    assertNull("directories aren't cached", session.newScanCache(null).load(classpath.get(2), ""));
+
+    Enunciate next = new Enunciate();
+    next.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
+    next.setSession(session);
+    assertEquals(scannedEntries, next.scanApiEntries(classpath));
+    assertNotSame("each run gets its own template engine", enunciate.getTemplateEngine(), next.getTemplateEngine());
+
+    session.clear();
+    assertNull(session.newScanCache(null).load(classpath.get(0), ""));
+  }
+
+  @Test
+  public void testTemplateEngineKeepsAConfigurationPerWrapper() throws Exception {
+    FreemarkerTemplateEngine engine = new FreemarkerTemplateEngine();
+    DefaultObjectWrapper wrapper1 = new DefaultObjectWrapper(Configuration.VERSION_2_3_22);
+    DefaultObjectWrapper wrapper2 = new DefaultObjectWrapper(Configuration.VERSION_2_3_22);
+    assertSame(engine.getConfiguration(wrapper1), engine.getConfiguration(wrapper1));
+    assertNotSame("wrappers of the same class can carry different state", engine.getConfiguration(wrapper1), engine.getConfiguration(wrapper2));
+    assertSame(wrapper2, engine.getConfiguration(wrapper2).getObjectWrapper());
+    assertSame(engine.getConfiguration(null), engine.getConfiguration(null));
+  }
+
+  @Test
+  public void testForkedTemplateEngine() throws Exception {
+    FreemarkerTemplateEngine session = new FreemarkerTemplateEngine();
+    FreemarkerTemplateEngine run1 = session.fork();
+    FreemarkerTemplateEngine run2 = session.fork();
+    DefaultObjectWrapper wrapper = new DefaultObjectWrapper(Configuration.VERSION_2_3_22);
+    assertSame("the default configuration is shared", run1.getConfiguration(null), run2.getConfiguration(null));
+    assertNotSame("the configuration of a wrapper belongs to the run", run1.getConfiguration(wrapper), run2.getConfiguration(wrapper));
+    assertNotSame(session.getConfiguration(wrapper), run1.getConfiguration(wrapper));
+
+    File jar = new File(createTempDir(), "templates.jar");
+    writeTemplateJar(jar, "version 1");
+    URL templateURL = new URL("jar:" + jar.toURI() + "!/template.fmt");
+    assertEquals("version 1", run1.processTemplate(templateURL, null, null));
+
+    writeTemplateJar(jar, "version 2");
+    assertTrue(jar.setLastModified(jar.lastModified() + 10000));
+    assertEquals("a template is parsed once per run", "version 1", run1.processTemplate(templateURL, null, null));
+    assertEquals("a changed template in a jar is parsed again by the next run", "version 2", session.fork().processTemplate(templateURL, null, null));
+  }
+
+  private static void writeTemplateJar(File jar, String template) throws IOException {
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    try {
+      JarEntry entry = new JarEntry("template.fmt");
+      entry.setTime(System.currentTimeMillis());
+      out.putNextEntry(entry);
+      out.write(template.getBytes("utf-8"));
+      out.closeEntry();
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  @Test
+  public void testClasspathScanningWithAnnotationFilter() throws Exception {
+    List<File> classpath = new ArrayList<File>();
+    for (URL url : buildTestClasspath()) {
+      classpath.add(new File(url.toURI()));
+    }
+
+    final List<String> seen = Collections.synchronizedList(new ArrayList<String>());
+    TestModule module = new AnnotationTestModule(seen, "java.lang.Deprecated");
+    Enunciate enunciate = new Enunciate();
+    enunciate.setModules(Arrays.asList((EnunciateModule) module));
+    assertEquals(new HashSet<String>(Arrays.asList("enunciate/Class1.java")), enunciate.scanApiEntries(classpath));
+    assertEquals("every class should still be seen by name", new HashSet<String>(Arrays.asList("enunciate.Class1", "enunciate.Class2", "enunciate.Class3")), new HashSet<String>(seen));
+
+  }
+
+  @Test
+  public void testSourcePathIndex() throws Exception {
+    List<URL> urls = buildTestClasspath();
+    List<File> classpath = Arrays.asList(new File(urls.get(0).toURI()), new File(urls.get(2).toURI()));
+    List<File> sourcepath = Arrays.asList(new File(urls.get(0).toURI()));
+    SourcePathIndex index = new SourcePathIndex(classpath, sourcepath, "utf-8");
+    try {
+      assertEquals("found in the jar twice (on the classpath and the source path)", 2, index.find("enunciate/Class1.java").size());
+      assertTrue(index.find("enunciate/Class3.java").isEmpty());
+      SourcePathIndex.Source source = index.findOnSourcePath("enunciate/Class1.java");
+      assertNotNull(source);
+      assertEquals("enunciate.Class1", source.getBinaryName());
+      assertTrue(source.getCharContent(true).toString().contains("public class Class1"));
+      assertEquals(Arrays.asList(source), index.list("enunciate", false));
+      assertEquals(Arrays.asList(source), index.list("", true));
+      assertTrue(index.list("", false).isEmpty());
+      assertTrue(index.hasSourcePath());
+    }
+    finally {
+      index.close();
+    }
+
+    OpenJarFiles jars = new OpenJarFiles();
+    try {
+      index = new SourcePathIndex(classpath, Collections.<File>emptyList(), "utf-8", jars);
+      assertFalse(index.hasSourcePath());
+      assertFalse(new SourcePathFileManager(ToolProvider.getSystemJavaCompiler().getStandardFileManager(null, null, null), index).hasLocation(StandardLocation.SOURCE_PATH));
+      index.close();
+      assertTrue("the open jars should be left open", index.find("enunciate/Class1.java").get(0).getCharContent(true).toString().contains("public class Class1"));
+    }
+    finally {
+      jars.close();
+    }
+  }
+
+  @Test
+  public void testCompileOutsideOfARun() throws Exception {
+    List<File> classpath = new ArrayList<File>();
+    for (URL url : buildTestClasspath()) {
+      classpath.add(new File(url.toURI()));
+    }
+
+    Enunciate enunciate = new Enunciate();
+    enunciate.setClasspath(classpath);
+    List<JavaFileObject> sources = Arrays.<JavaFileObject>asList(new StringSource("acme/Widget.java", "package acme; public class Widget extends enunciate.Class1 { enunciate.Class3 other; }"));
+    SortedMap<String, byte[]> output = enunciate.compile(sources, Arrays.asList("-proc:none"));
+    assertNotNull(output);
+    assertEquals(Collections.singleton("acme/Widget.class"), output.keySet());
+
+    //a compile outside of a run doesn't keep its classpath index, so it doesn't see the jar as it was.
+    jar(classpath.get(0), createTempDir());
+    assertNull(enunciate.compile(sources, Arrays.asList("-proc:none")));
+  }
+
+  private static class StringSource extends SimpleJavaFileObject {
+    private final String source;
+
+    private StringSource(String path, String source) {
+      super(URI.create("string:///" + path), Kind.SOURCE);
+      this.source = source;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return this.source;
+    }
+  }
+
+  @Test
+  public void testURLFileObjectDecodesMultiByteCharacters() throws Exception {
+    StringBuilder content = new StringBuilder("/* ");
+    for (int i = 0; i < 5000; i++) {
+      content.append(i % 2 == 0 ? '\u00e9' : '\u20ac');
+    }
+    content.append(" */");
+    File file = new File(createTempDir(), "Multibyte.java");
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "utf-8");
+    writer.write(content.toString());
+    writer.close();
+
+    assertEquals(content.toString(), new Enunciate.URLFileObject(file.toURI().toURL(), "utf-8").getCharContent(true).toString());
+  }
+
+  @Test
+  public void testAntPatternSetMatchesLikeAntPatternMatcher() throws Exception {
+    String[] patterns = {"com.acme.Widget", "com.acme.*", "com.acme.**", "com.**.api.*", "**.Widget", "com.acme.W?dget", "com.*.", "**", "*.*Impl", "com.acme.**.**.*Dto"};
+    String[] fqns = {"com.acme.Widget", "com.acme.Wadget", "com.acme", "com.acme.", "com.acme.api.Widget", "com.other.api.Thing", "com.a.b.api.Thing", "org.Widget", "Widget", "com.acme.impl.FooImpl", "x.FooImpl", "com.acme.x.y.FooDto", ".com.acme.Widget", ""};
+    for (String pattern : patterns) {
+      AntPatternSet set = new AntPatternSet(Collections.singleton(pattern));
+      for (String fqn : fqns) {
+        boolean expected = AntPatternMatcher.isValidPattern(pattern) ? AntPatternMatcher.INSTANCE.match(pattern, fqn) : pattern.equals(fqn);
+        assertEquals(pattern + " vs. " + fqn, expected, set.matches(fqn));
+        assertEquals(pattern + " vs. " + fqn + " (remembered)", expected, set.matches(fqn));
+      }
+    }
+
+    AntPatternSet set = new AntPatternSet(Arrays.asList("org.Widget", "com.acme.*"), false);
+    assertTrue(set.matches("org.Widget"));
+    assertTrue(set.matches("com.acme.Widget"));
+    assertFalse(set.matches("com.acme.api.Widget"));
+    assertFalse(set.matches(null));
+    assertFalse(new AntPatternSet(null).matches("com.acme.Widget"));
+  }
+
   private List<URL> buildTestClasspath() throws Exception {
     JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
 
@@ -267,4 +622,28 @@ public class EnunciateTest {
       return true;
     }
   }
+
+  private class AnnotationTestModule extends TestModule implements AnnotationDetectingModule {
+
+    private final List<String> seen;
+    private final String annotation;
+
+    private AnnotationTestModule(List<String> seen, String annotation) {
+      super("test", new ArrayList<String>());
+      this.seen = seen;
+      this.annotation = annotation;
+    }
+
+    @Override
+    public Set<String> getDetectedAnnotations() {
+      return Collections.singleton(this.annotation);
+    }
+
+    @Override
+    public boolean typeDetected(Object type, MetadataAdapter metadata) {
+      //a class is detected if it was parsed, i.e. if it refers to the annotation.
+      this.seen.add(metadata.getClassName(type));
+      return !(metadata instanceof EnunciateScanCache.CachedMetadataAdapter);
+    }
+  }
 }
@@ -0,0 +1,238 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.api;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.EnunciateContext;
+import com.webcohesion.enunciate.api.datatype.Syntax;
+import com.webcohesion.enunciate.api.resources.ResourceApi;
+import com.webcohesion.enunciate.api.services.ServiceApi;
+import com.webcohesion.enunciate.module.ApiRegistryProviderModule;
+import com.webcohesion.enunciate.module.DependencySpec;
+import com.webcohesion.enunciate.module.EnunciateModule;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class AggregatedApiRegistryTest {
+
+  @Test
+  public void testSameApisAsTheProviders() throws Exception {
+    ProviderModule jaxrs = new ProviderModule("jaxrs", true, "xml", "json");
+    ProviderModule jaxws = new ProviderModule("jaxws", true, "json", "avro");
+    ProviderModule disabled = new ProviderModule("disabled", false, "csv");
+    Enunciate enunciate = new Enunciate();
+    enunciate.setModules(Arrays.<EnunciateModule>asList(jaxrs, jaxws, disabled));
+    List<ProviderModule> providers = Arrays.asList(jaxrs, jaxws, disabled);
+
+    AggregatedApiRegistry registry = new AggregatedApiRegistry(enunciate);
+    ApiRegistrationContext context1 = new DefaultRegistrationContext();
+    ApiRegistrationContext context2 = new DefaultRegistrationContext();
+    for (ApiRegistrationContext context : Arrays.asList(context1, context2)) {
+      assertEquals(collectServiceApis(providers), registry.getServiceApis(context));
+      assertEquals(collectResourceApis(providers), registry.getResourceApis(context));
+      assertEquals(new ArrayList<Syntax>(collectSyntaxes(providers)), new ArrayList<Syntax>(registry.getSyntaxes(context)));
+    }
+    assertEquals(Arrays.asList("avro", "json", "json", "xml"), ids(registry.getSyntaxes(context1)));
+
+    //each kind of api is collected from the providers once per kind of context.
+    int calls = jaxrs.registry.calls;
+    for (int i = 0; i < 3; i++) {
+      assertSame(registry.getServiceApis(context1), registry.getServiceApis(context2));
+      assertSame(registry.getResourceApis(context2), registry.getResourceApis(context1));
+      assertSame(registry.getSyntaxes(context1), registry.getSyntaxes(context2));
+    }
+    assertEquals(calls, jaxrs.registry.calls);
+    assertEquals("the disabled module isn't asked", 0, disabled.registry.calls);
+
+    //another kind of context handles the javadoc tags differently, so it gets its own apis.
+    ApiRegistrationContext otherKind = new DefaultRegistrationContext() {};
+    assertNotSame(registry.getServiceApis(context1), registry.getServiceApis(otherKind));
+    assertEquals(calls + 1, jaxrs.registry.calls);
+
+    //the apis are collected again once they're cleared (e.g. for the next run).
+    List<ServiceApi> serviceApis = registry.getServiceApis(context1);
+    registry.clear();
+    assertNotSame(serviceApis, registry.getServiceApis(context1));
+    assertEquals(calls + 2, jaxrs.registry.calls);
+    calls = jaxrs.registry.calls;
+
+    //the swagger ui isn't cached.
+    assertNull(registry.getSwaggerUI(context1));
+    assertNull(registry.getSwaggerUI(context1));
+    assertEquals(calls + 2, jaxrs.registry.calls);
+
+    try {
+      registry.getServiceApis(context1).clear();
+      fail("the shared apis should be unmodifiable");
+    }
+    catch (UnsupportedOperationException e) {
+      //fall through
+    }
+  }
+
+  private static List<ServiceApi> collectServiceApis(List<ProviderModule> providers) {
+    List<ServiceApi> apis = new ArrayList<ServiceApi>();
+    for (ProviderModule provider : providers) {
+      if (provider.isEnabled()) {
+        apis.addAll(provider.registry.serviceApis);
+      }
+    }
+    return apis;
+  }
+
+  private static List<ResourceApi> collectResourceApis(List<ProviderModule> providers) {
+    List<ResourceApi> apis = new ArrayList<ResourceApi>();
+    for (ProviderModule provider : providers) {
+      if (provider.isEnabled()) {
+        apis.addAll(provider.registry.resourceApis);
+      }
+    }
+    return apis;
+  }
+
+  private static Set<Syntax> collectSyntaxes(List<ProviderModule> providers) {
+    Set<Syntax> syntaxes = new TreeSet<Syntax>();
+    for (ProviderModule provider : providers) {
+      if (provider.isEnabled()) {
+        syntaxes.addAll(provider.registry.syntaxes);
+      }
+    }
+    return syntaxes;
+  }
+
+  private static List<String> ids(Set<Syntax> syntaxes) {
+    List<String> ids = new ArrayList<String>();
+    for (Syntax syntax : syntaxes) {
+      ids.add(syntax.getId());
+    }
+    return ids;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T stub(Class<T> type, final String id) {
+    return (T) Proxy.newProxyInstance(AggregatedApiRegistryTest.class.getClassLoader(), new Class[]{type}, new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if ("getId".equals(method.getName()) || "toString".equals(method.getName())) {
+          return id;
+        }
+        else if ("compareTo".equals(method.getName())) {
+          //syntaxes with the same id from different providers are kept apart.
+          int comparison = id.compareTo(((Syntax) args[0]).getId());
+          return comparison != 0 ? comparison : Integer.valueOf(System.identityHashCode(proxy)).compareTo(System.identityHashCode(args[0]));
+        }
+        else if ("equals".equals(method.getName())) {
+          return proxy == args[0];
+        }
+        else if ("hashCode".equals(method.getName())) {
+          return System.identityHashCode(proxy);
+        }
+        throw new UnsupportedOperationException(method.getName());
+      }
+    });
+  }
+
+  private static class CountingRegistry implements ApiRegistry {
+
+    private final List<ServiceApi> serviceApis = new ArrayList<ServiceApi>();
+    private final List<ResourceApi> resourceApis = new ArrayList<ResourceApi>();
+    private final List<Syntax> syntaxes = new ArrayList<Syntax>();
+    private int calls = 0;
+
+    @Override
+    public List<ServiceApi> getServiceApis(ApiRegistrationContext context) {
+      this.calls++;
+      return new ArrayList<ServiceApi>(this.serviceApis);
+    }
+
+    @Override
+    public List<ResourceApi> getResourceApis(ApiRegistrationContext context) {
+      this.calls++;
+      return new ArrayList<ResourceApi>(this.resourceApis);
+    }
+
+    @Override
+    public Set<Syntax> getSyntaxes(ApiRegistrationContext context) {
+      this.calls++;
+      return new TreeSet<Syntax>(this.syntaxes);
+    }
+
+    @Override
+    public InterfaceDescriptionFile getSwaggerUI(ApiRegistrationContext context) {
+      this.calls++;
+      return null;
+    }
+  }
+
+  private static class ProviderModule implements ApiRegistryProviderModule {
+
+    private final String name;
+    private final boolean enabled;
+    private final CountingRegistry registry = new CountingRegistry();
+
+    private ProviderModule(String name, boolean enabled, String... syntaxIds) {
+      this.name = name;
+      this.enabled = enabled;
+      this.registry.serviceApis.add(stub(ServiceApi.class, name + " services"));
+      this.registry.resourceApis.add(stub(ResourceApi.class, name + " resources"));
+      this.registry.resourceApis.add(stub(ResourceApi.class, name + " more resources"));
+      for (String syntaxId : syntaxIds) {
+        this.registry.syntaxes.add(stub(Syntax.class, syntaxId));
+      }
+    }
+
+    @Override
+    public ApiRegistry getApiRegistry() {
+      return this.registry;
+    }
+
+    @Override
+    public String getName() {
+      return this.name;
+    }
+
+    @Override
+    public List<DependencySpec> getDependencySpecifications() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return this.enabled;
+    }
+
+    @Override
+    public void init(Enunciate engine) {
+    }
+
+    @Override
+    public void init(EnunciateContext context) {
+    }
+
+    @Override
+    public void call(EnunciateContext context) {
+    }
+  }
+}
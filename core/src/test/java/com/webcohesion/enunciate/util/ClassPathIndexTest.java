@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import org.junit.Test;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class ClassPathIndexTest {
+
+  private static final Set<JavaFileObject.Kind> CLASSES = EnumSet.of(JavaFileObject.Kind.CLASS);
+  private static final Set<JavaFileObject.Kind> ALL = EnumSet.of(JavaFileObject.Kind.CLASS, JavaFileObject.Kind.SOURCE);
+
+  @Test
+  public void testMultiReleaseJar() throws Exception {
+    File jar = new File(createTempDir(), "multi-release.jar");
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().putValue("Multi-Release", "true");
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest);
+    try {
+      addEntry(out, "com/", null);
+      addEntry(out, "com/acme/", null);
+      addEntry(out, "com/acme/Widget.class", "base");
+      addEntry(out, "com/acme/Widget.java", "source");
+      addEntry(out, "com/acme/impl/WidgetImpl.class", "impl");
+      addEntry(out, "META-INF/versions/9/com/acme/Widget.class", "java 9");
+      addEntry(out, "META-INF/versions/9/module-info.class", "module");
+    }
+    finally {
+      out.close();
+    }
+
+    ClassPathIndex index = new ClassPathIndex(Arrays.asList(jar), "utf-8");
+    try {
+      List<JavaFileObject> widgets = index.list("com.acme", CLASSES, false);
+      assertEquals("only the base entry is seen by the compiler", 1, widgets.size());
+      assertEquals("base", read(widgets.get(0)));
+      assertEquals("com.acme.Widget", ((ClassPathIndex.Entry) widgets.get(0)).getBinaryName());
+      assertEquals(2, index.list("com.acme", ALL, false).size());
+      assertEquals(Arrays.asList("com.acme.Widget", "com.acme.impl.WidgetImpl"), binaryNames(index.list("", CLASSES, true)));
+      assertTrue(index.list("com", ALL, false).isEmpty());
+      assertTrue(index.list("META-INF.versions.9.com.acme", ALL, false).isEmpty());
+    }
+    finally {
+      index.close();
+    }
+  }
+
+  @Test
+  public void testDirectory() throws Exception {
+    File dir = createTempDir();
+    File jar = new File(createTempDir(), "widgets.jar");
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    try {
+      addEntry(out, "com/acme/Widget.class", "from the jar");
+    }
+    finally {
+      out.close();
+    }
+    assertTrue(new File(dir, "com/acme/empty").mkdirs());
+    write(new File(dir, "com/acme/Widget.class"), "from the directory");
+    write(new File(dir, "com/acme/Gadget.java"), "gadget");
+    write(new File(dir, "com/acme/readme.txt"), "not indexed");
+
+    ClassPathIndex index = new ClassPathIndex(Arrays.asList(dir, jar), "utf-8");
+    try {
+      List<JavaFileObject> widgets = index.list("com.acme", CLASSES, false);
+      assertEquals("in the order of the classpath", Arrays.asList("from the directory", "from the jar"), Arrays.asList(read(widgets.get(0)), read(widgets.get(1))));
+      List<JavaFileObject> sources = index.list("com.acme", EnumSet.of(JavaFileObject.Kind.SOURCE), false);
+      assertEquals(1, sources.size());
+      assertEquals("gadget", sources.get(0).getCharContent(true).toString());
+      assertEquals(new File(dir, "com/acme/Gadget.java").toURI(), sources.get(0).toUri());
+      assertTrue(index.list("com.acme.empty", ALL, false).isEmpty());
+      assertEquals(3, index.list("com", ALL, true).size());
+    }
+    finally {
+      index.close();
+    }
+  }
+
+  private static List<String> binaryNames(List<JavaFileObject> entries) {
+    List<String> names = new ArrayList<String>();
+    for (JavaFileObject entry : entries) {
+      names.add(((ClassPathIndex.Entry) entry).getBinaryName());
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  private static void addEntry(JarOutputStream out, String name, String content) throws IOException {
+    out.putNextEntry(new JarEntry(name));
+    if (content != null) {
+      out.write(content.getBytes("utf-8"));
+    }
+    out.closeEntry();
+  }
+
+  private static void write(File file, String content) throws IOException {
+    assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content.getBytes("utf-8"));
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private static String read(JavaFileObject file) throws IOException {
+    InputStream in = file.openInputStream();
+    try {
+      Scanner scanner = new Scanner(in, "utf-8").useDelimiter("\\A");
+      return scanner.hasNext() ? scanner.next() : "";
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  private static File createTempDir() throws IOException {
+    File dir = File.createTempFile(ClassPathIndexTest.class.getSimpleName(), "");
+    assertTrue(dir.delete());
+    assertTrue(dir.mkdirs());
+    dir.deleteOnExit();
+    return dir;
+  }
+}
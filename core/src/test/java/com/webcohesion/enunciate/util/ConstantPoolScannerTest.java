@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.ConstPool;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class ConstantPoolScannerTest {
+
+  private static final List<String> NAMES = Arrays.asList("java.lang.Deprecated", "org.junit.Test", "org.junit.", "org.junit.Tes", "java.util.function.", "java.lang.invoke.LambdaMetafactory", "javax.ws.rs.Path");
+
+  @Test
+  public void testDescriptorPrefix() throws Exception {
+    assertEquals("Ljavax/ws/rs/Path;", ConstantPoolScanner.descriptorPrefix("javax.ws.rs.Path"));
+    assertEquals("Lcom/fasterxml/jackson/annotation/", ConstantPoolScanner.descriptorPrefix("com.fasterxml.jackson.annotation."));
+  }
+
+  @Test
+  public void testMatches() throws Exception {
+    byte[] classFile = readClass(Constants.class);
+    assertTrue(scanner("java.lang.Deprecated").matches(classFile));
+    assertFalse(scanner("java.lang.Deprecate").matches(classFile));
+    assertFalse(scanner("javax.ws.rs.Path").matches(classFile));
+
+    classFile = readClass(ConstantPoolScannerTest.class);
+    assertTrue(scanner("org.junit.Test").matches(classFile));
+    assertTrue(scanner("org.junit.").matches(classFile));
+    assertFalse(scanner("org.junit.Tes").matches(classFile));
+  }
+
+  @Test
+  public void testTruncatedClassFileMatches() throws Exception {
+    byte[] classFile = readClass(Constants.class);
+    assertTrue("a truncated class file can't be ruled out", scanner("javax.ws.rs.Path").matches(Arrays.copyOf(classFile, classFile.length / 2)));
+  }
+
+  /**
+   * The scanner should find the same constants as a full parse of the class file, including class files with the
+   * two-entry constants (longs and doubles) and the constants of invokedynamic.
+   */
+  @Test
+  public void testSameAnswersAsParsedConstantPool() throws Exception {
+    List<byte[]> classFiles = new ArrayList<byte[]>();
+    classFiles.add(readClass(Constants.class));
+    classFiles.add(readClass(ConstantPoolScannerTest.class));
+    classFiles.add(readClass(Long.class));
+    classFiles.add(readClass(Double.class));
+    InputStream collectors = Object.class.getResourceAsStream("/java/util/stream/Collectors.class");
+    if (collectors != null) {
+      classFiles.add(readFully(collectors));
+    }
+
+    File junitJar = new File(Test.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    JarFile jar = new JarFile(junitJar);
+    try {
+      Enumeration<JarEntry> entries = jar.entries();
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+        if (entry.getName().endsWith(".class")) {
+          classFiles.add(readFully(jar.getInputStream(entry)));
+        }
+      }
+    }
+    finally {
+      jar.close();
+    }
+
+    for (String name : NAMES) {
+      String prefix = ConstantPoolScanner.descriptorPrefix(name);
+      ConstantPoolScanner scanner = new ConstantPoolScanner(Arrays.asList(prefix));
+      for (byte[] classFile : classFiles) {
+        ConstPool constants = new ClassFile(new DataInputStream(new ByteArrayInputStream(classFile))).getConstPool();
+        assertEquals(prefix + " in " + constants.getClassName(), hasConstant(constants, prefix), scanner.matches(classFile));
+      }
+    }
+  }
+
+  private static boolean hasConstant(ConstPool constants, String prefix) {
+    for (int i = 1; i < constants.getSize(); i++) {
+      if (constants.getTag(i) == ConstPool.CONST_Utf8 && constants.getUtf8Info(i).startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ConstantPoolScanner scanner(String name) {
+    return new ConstantPoolScanner(Arrays.asList(ConstantPoolScanner.descriptorPrefix(name)));
+  }
+
+  private static byte[] readClass(Class<?> clazz) throws IOException {
+    return readFully(clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class"));
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8 * 1024];
+      int len;
+      while ((len = in.read(buffer)) > 0) {
+        out.write(buffer, 0, len);
+      }
+      return out.toByteArray();
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  @Deprecated
+  public static class Constants {
+    public static final long LONG = 1234567890123L;
+    public static final double DOUBLE = 3.14159;
+  }
+}
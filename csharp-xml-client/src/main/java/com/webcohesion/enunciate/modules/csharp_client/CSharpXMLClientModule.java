@@ -17,6 +17,7 @@ package com.webcohesion.enunciate.modules.csharp_client;
 
 import com.webcohesion.enunciate.EnunciateContext;
 import com.webcohesion.enunciate.EnunciateException;
+import com.webcohesion.enunciate.EnunciateMetrics;
 import com.webcohesion.enunciate.api.DefaultRegistrationContext;
 import com.webcohesion.enunciate.api.resources.MediaTypeDescriptor;
 import com.webcohesion.enunciate.api.resources.Method;
@@ -49,18 +50,12 @@ import com.webcohesion.enunciate.modules.jaxws.model.WebParam;
 import com.webcohesion.enunciate.util.freemarker.ClientPackageForMethod;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import java.io.*;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 
@@ -71,6 +66,8 @@ public class CSharpXMLClientModule extends BasicGeneratingModule implements ApiF
 
   private static final String LIRBARY_DESCRIPTION_PROPERTY = "com.webcohesion.enunciate.modules.csharp_client.CSharpXMLClientModule#LIRBARY_DESCRIPTION_PROPERTY";
 
+  private final CSharpXMLClientObjectWrapper objectWrapper = new CSharpXMLClientObjectWrapper();
+
   JaxbModule jaxbModule;
   JaxwsModule jaxwsModule;
   JaxrsModule jaxrsModule;
@@ -143,7 +140,14 @@ public class CSharpXMLClientModule extends BasicGeneratingModule implements ApiF
 
     Map<String, String> packageToNamespaceConversions = buildPackageToNamespaceConversions();
     File srcDir = generateSources(packageToNamespaceConversions);
-    File compileDir = compileSources(srcDir);
+    File compileDir;
+    EnunciateMetrics.Phase compilePhase = this.enunciate.getMetrics().start(getName() + " compile");
+    try {
+      compileDir = compileSources(srcDir);
+    }
+    finally {
+      compilePhase.stop();
+    }
     packageArtifacts(srcDir, compileDir);
   }
 
@@ -367,7 +371,7 @@ public class CSharpXMLClientModule extends BasicGeneratingModule implements ApiF
     compileDir.mkdirs();
 
     if (!isDisableCompile()) {
-      if (!isUpToDateWithSources(compileDir)) {
+      if (!isUpToDateWithSources(compileDir) && !isUpToDateWithFiles(compileDir, srcDir)) {
         String compileExectuable = getCompileExecutable();
         if (compileExectuable == null) {
           String osName = System.getProperty("os.name");
@@ -495,7 +499,7 @@ public class CSharpXMLClientModule extends BasicGeneratingModule implements ApiF
     File packageDir = getPackageDir();
     packageDir.mkdirs();
 
-    if (!isUpToDateWithSources(packageDir)) {
+    if (!isUpToDateWithSources(packageDir) && !isUpToDateWithFiles(packageDir, srcDir, compileDir)) {
       try {
         //we want to zip up the source file, too, so we'll just copy it to the compile dir.
         enunciate.copyDir(srcDir, compileDir);
@@ -588,33 +592,7 @@ public class CSharpXMLClientModule extends BasicGeneratingModule implements ApiF
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new CSharpXMLClientObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return this.enunciate.getTemplateEngine().processTemplate(templateURL, model, this.objectWrapper);
   }
 
   /**
@@ -18,9 +18,12 @@ package com.webcohesion.enunciate.modules.docs;
 import com.webcohesion.enunciate.EnunciateContext;
 import com.webcohesion.enunciate.EnunciateException;
 import com.webcohesion.enunciate.api.*;
+import com.webcohesion.enunciate.api.datatype.DataType;
 import com.webcohesion.enunciate.api.datatype.Namespace;
 import com.webcohesion.enunciate.api.datatype.Syntax;
 import com.webcohesion.enunciate.api.resources.ResourceApi;
+import com.webcohesion.enunciate.api.resources.ResourceGroup;
+import com.webcohesion.enunciate.api.services.Service;
 import com.webcohesion.enunciate.api.services.ServiceApi;
 import com.webcohesion.enunciate.api.services.ServiceGroup;
 import com.webcohesion.enunciate.artifacts.Artifact;
@@ -29,12 +32,7 @@ import com.webcohesion.enunciate.artifacts.ClientLibraryJavaArtifact;
 import com.webcohesion.enunciate.artifacts.FileArtifact;
 import com.webcohesion.enunciate.module.*;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
 import java.io.*;
@@ -46,6 +44,20 @@ import java.util.*;
 
 public class DocsModule extends BasicGeneratingModule implements ApiRegistryAwareModule, DocumentationProviderModule {
 
+  private static final Writer DISCARDED_OUTPUT = new Writer() {
+    @Override
+    public void write(char[] chars, int offset, int length) {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+  };
+
   private File defaultDocsDir;
   private String defaultDocsSubdir;
   private ApiRegistry apiRegistry;
@@ -314,7 +326,8 @@ public class DocsModule extends BasicGeneratingModule implements ApiRegistryAwar
         }
         model.put("serviceApis", serviceApis);
 
-        model.put("downloads", copyDocumentationArtifacts(documentationArtifacts, docsDir));
+        List<Download> downloads = copyDocumentationArtifacts(documentationArtifacts, docsDir);
+        model.put("downloads", downloads);
 
         model.put("indexPageName", getIndexPageName());
 
@@ -324,7 +337,15 @@ public class DocsModule extends BasicGeneratingModule implements ApiRegistryAwar
 
         model.put("disableResourceLinks", isDisableResourceLinks());
 
-        processTemplate(getDocsTemplateURL(), model);
+        URL templateURL = getDocsTemplateURL();
+        URL defaultTemplateURL = DocsModule.class.getResource("docs.fmt");
+        if (defaultTemplateURL != null && templateURL.toExternalForm().equals(defaultTemplateURL.toExternalForm())) {
+          //the default template can render each page on its own.
+          processPages(templateURL, model, resourceApis, serviceApis, syntaxes, downloads);
+        }
+        else {
+          processTemplate(templateURL, model);
+        }
       }
       else {
         info("Skipping documentation source generation as everything appears up-to-date...");
@@ -352,32 +373,72 @@ public class DocsModule extends BasicGeneratingModule implements ApiRegistryAwar
    */
   public void processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
+    //the pages are written by the file directive; anything written outside of it is just template whitespace.
+    this.enunciate.getTemplateEngine().processTemplate(templateURL, model, null, DISCARDED_OUTPUT);
+  }
+
+  /**
+   * Processes each page of the documentation as a separate render of the specified template. The pages are rendered
+   * one at a time: the model wraps the javac elements, which can't be read from more than one thread.
+   *
+   * @param templateURL  The template URL.
+   * @param model        The root model.
+   * @param resourceApis The resource APIs.
+   * @param serviceApis  The service APIs.
+   * @param syntaxes     The syntaxes.
+   * @param downloads    The downloads.
+   */
+  protected void processPages(URL templateURL, Map<String, Object> model, List<ResourceApi> resourceApis, List<ServiceApi> serviceApis, Set<Syntax> syntaxes, List<Download> downloads) throws IOException, TemplateException {
+    debug("Processing the pages of template %s.", templateURL);
+    processPage(templateURL, model, "index", null);
+    processPage(templateURL, model, "data", null);
+    if (!downloads.isEmpty()) {
+      processPage(templateURL, model, "downloads", null);
+    }
 
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
+    if (!resourceApis.isEmpty()) {
+      processPage(templateURL, model, "resources", null);
+      for (ResourceApi resourceApi : resourceApis) {
+        for (ResourceGroup resourceGroup : resourceApi.getResourceGroups()) {
+          processPage(templateURL, model, "resourceGroup", resourceGroup);
         }
-        catch (MalformedURLException e) {
-          return null;
+      }
+    }
+
+    if (!serviceApis.isEmpty()) {
+      processPage(templateURL, model, "services", null);
+      for (ServiceApi serviceApi : serviceApis) {
+        for (ServiceGroup serviceGroup : serviceApi.getServiceGroups()) {
+          for (Service service : serviceGroup.getServices()) {
+            processPage(templateURL, model, "service", service);
+          }
         }
       }
-    });
+    }
 
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
+    for (Syntax syntax : syntaxes) {
+      processPage(templateURL, model, "syntax", syntax);
+      for (Namespace namespace : syntax.getNamespaces()) {
+        for (DataType dataType : namespace.getTypes()) {
+          processPage(templateURL, model, "dataType", dataType);
+        }
       }
-    });
+    }
+  }
 
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setURLEscapingCharset("UTF-8");
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    debug("Freemarker processing output:\n%s", unhandledOutput);
+  private void processPage(URL templateURL, Map<String, Object> model, String kind, Object item) throws IOException, TemplateException {
+    Map<String, Object> page = new HashMap<String, Object>();
+    page.put("kind", kind);
+    if (item != null) {
+      page.put("item", item);
+    }
+    model.put("page", page);
+    try {
+      processTemplate(templateURL, model);
+    }
+    finally {
+      model.remove("page");
+    }
   }
 
   protected String buildBase(File outputDir) throws IOException {
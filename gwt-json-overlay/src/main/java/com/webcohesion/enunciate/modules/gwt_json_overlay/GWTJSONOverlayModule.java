@@ -36,23 +36,18 @@ import com.webcohesion.enunciate.modules.jackson1.Jackson1Module;
 import com.webcohesion.enunciate.modules.jackson1.api.impl.SyntaxImpl;
 import com.webcohesion.enunciate.modules.jackson1.model.util.Jackson1CodeErrors;
 import com.webcohesion.enunciate.modules.jaxrs.JaxrsModule;
-import com.webcohesion.enunciate.util.AntPatternMatcher;
+import com.webcohesion.enunciate.modules.jaxrs.model.RootResource;
 import com.webcohesion.enunciate.util.freemarker.ClientPackageForMethod;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
+import com.webcohesion.enunciate.util.freemarker.TemplateRenderBatch;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 
@@ -63,6 +58,8 @@ public class GWTJSONOverlayModule extends BasicGeneratingModule implements ApiFe
 
   private static final String LIRBARY_DESCRIPTION_PROPERTY = "com.webcohesion.enunciate.modules.java_xml_client.EnunciateJavaJSONClientModule#LIRBARY_DESCRIPTION_PROPERTY";
 
+  private final GWTJSONOverlayObjectWrapper objectWrapper = new GWTJSONOverlayObjectWrapper();
+
   JacksonModule jacksonModule;
   Jackson1Module jackson1Module;
   JaxrsModule jaxrsModule;
@@ -180,20 +177,18 @@ public class GWTJSONOverlayModule extends BasicGeneratingModule implements ApiFe
 
     model.put("isFacetExcluded", new IsFacetExcludedMethod(facetFilter));
 
-    AntPatternMatcher matcher = new AntPatternMatcher();
-    matcher.setPathSeparator(".");
-
     boolean upToDate = isUpToDateWithSources(sourceDir);
     if (!upToDate) {
       try {
         debug("Generating the GWT JSON Overlay...");
 
+        TemplateRenderBatch renders = this.enunciate.createTemplateRenderBatch(this.objectWrapper);
         if (jacksonContext != null) {
           for (TypeDefinition typeDefinition : jacksonContext.getTypeDefinitions()) {
             if (!typeDefinition.isSimple() && facetFilter.accept(typeDefinition)) {
               model.put("type", typeDefinition);
               URL template = typeDefinition.isEnum() ? getTemplateURL("gwt-enum-type.fmt") : getTemplateURL("gwt-type.fmt");
-              processTemplate(template, model);
+              renders.add(template, model);
             }
           }
         }
@@ -203,10 +198,12 @@ public class GWTJSONOverlayModule extends BasicGeneratingModule implements ApiFe
             if (!typeDefinition.isSimple() && facetFilter.accept(typeDefinition)) {
               model.put("type", typeDefinition);
               URL template = typeDefinition.isEnum() ? getTemplateURL("gwt-enum-type.fmt") : getTemplateURL("gwt-type.fmt");
-              processTemplate(template, model);
+              renders.add(template, model);
             }
           }
         }
+
+        renders.process();
       }
       catch (IOException e) {
         throw new EnunciateException(e);
@@ -236,33 +233,7 @@ public class GWTJSONOverlayModule extends BasicGeneratingModule implements ApiFe
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new GWTJSONOverlayObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return this.enunciate.getTemplateEngine().processTemplate(templateURL, model, this.objectWrapper);
   }
 
   protected File packageArtifacts(File sourceDir) {
@@ -272,7 +243,7 @@ public class GWTJSONOverlayModule extends BasicGeneratingModule implements ApiFe
     try {
       String jarName = getJarName();
       File jarFile = new File(packageDir, jarName);
-      if (!isUpToDateWithSources(jarFile)) {
+      if (!isUpToDateWithSources(jarFile) && !isUpToDateWithFiles(jarFile, sourceDir)) {
         boolean anyFiles = this.enunciate.zip(jarFile, sourceDir);
         if (!anyFiles) {
           jarFile = null;
@@ -436,6 +407,42 @@ public class GWTJSONOverlayModule extends BasicGeneratingModule implements ApiFe
     return Collections.emptyList();
   }
 
+  @Override
+  protected Collection<? extends Element> getSourceElements() {
+    //the client is only generated from the data types, so a change to a resource (that isn't also a data type) doesn't change it.
+    Set<String> resources = new HashSet<String>();
+    if (this.jaxrsModule != null && this.jaxrsModule.getJaxrsContext() != null) {
+      for (RootResource rootResource : this.jaxrsModule.getJaxrsContext().getRootResources()) {
+        resources.add(rootResource.getQualifiedName().toString());
+      }
+    }
+    resources.removeAll(getGeneratedTypeNames());
+
+    List<Element> sourceElements = new ArrayList<Element>();
+    for (Element apiElement : super.getSourceElements()) {
+      if (!(apiElement instanceof TypeElement) || !resources.contains(((TypeElement) apiElement).getQualifiedName().toString())) {
+        sourceElements.add(apiElement);
+      }
+    }
+    return sourceElements;
+  }
+
+  @Override
+  protected Collection<String> getGeneratedTypeNames() {
+    Set<String> typeNames = new TreeSet<String>();
+    if (this.jacksonModule != null && this.jacksonModule.getJacksonContext() != null) {
+      for (TypeDefinition typeDefinition : this.jacksonModule.getJacksonContext().getTypeDefinitions()) {
+        typeNames.add(typeDefinition.getQualifiedName().toString());
+      }
+    }
+    if (this.jackson1Module != null && this.jackson1Module.getJacksonContext() != null) {
+      for (com.webcohesion.enunciate.modules.jackson1.model.TypeDefinition typeDefinition : this.jackson1Module.getJacksonContext().getTypeDefinitions()) {
+        typeNames.add(typeDefinition.getQualifiedName().toString());
+      }
+    }
+    return typeNames;
+  }
+
   public Set<String> getFacetIncludes() {
     List<Object> includes = this.config.getList("facets.include[@name]");
     Set<String> facetIncludes = new TreeSet<String>();
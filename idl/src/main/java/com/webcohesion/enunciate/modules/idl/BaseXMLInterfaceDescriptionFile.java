@@ -18,17 +18,17 @@ package com.webcohesion.enunciate.modules.idl;
 import com.webcohesion.enunciate.api.InterfaceDescriptionFile;
 import com.webcohesion.enunciate.facets.FacetFilter;
 import com.webcohesion.enunciate.modules.jaxb.util.PrefixMethod;
+import com.webcohesion.enunciate.util.FileUtils;
+import com.webcohesion.enunciate.util.freemarker.FreemarkerTemplateEngine;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 
-import java.io.*;
-import java.net.MalformedURLException;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,12 +40,16 @@ public abstract class BaseXMLInterfaceDescriptionFile implements InterfaceDescri
   protected final FacetFilter facetFilter;
   protected final Map<String, String> namespacePrefixes;
   protected final String filename;
+  protected final FreemarkerTemplateEngine templateEngine;
+  protected final IDLObjectWrapper objectWrapper;
   private String contents;
 
-  public BaseXMLInterfaceDescriptionFile(String filename, Map<String, String> namespacePrefixes, FacetFilter facetFilter) {
+  public BaseXMLInterfaceDescriptionFile(String filename, Map<String, String> namespacePrefixes, FacetFilter facetFilter, FreemarkerTemplateEngine templateEngine, IDLObjectWrapper objectWrapper) {
     this.namespacePrefixes = namespacePrefixes;
     this.facetFilter = facetFilter;
     this.filename = filename;
+    this.templateEngine = templateEngine;
+    this.objectWrapper = objectWrapper;
   }
 
   @Override
@@ -59,10 +63,11 @@ public abstract class BaseXMLInterfaceDescriptionFile implements InterfaceDescri
 
   @Override
   public void writeTo(File directory) throws IOException {
-    FileWriter writer = new FileWriter(new File(directory, this.filename));
+    StringWriter writer = new StringWriter();
     writeTo(writer);
-    writer.flush();
     writer.close();
+    //only rewrite the file if it changed so whatever's packaged from it can be considered up-to-date.
+    FileUtils.writeIfChanged(new File(directory, this.filename), writer.toString().getBytes(Charset.defaultCharset().name()));
   }
 
   protected void writeTo(Writer writer) throws IOException {
@@ -92,39 +97,14 @@ public abstract class BaseXMLInterfaceDescriptionFile implements InterfaceDescri
    * @param model       The root model.
    */
   protected String processTemplate(URL templateURL, Map<String, Object> model) throws IOException {
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new IDLObjectWrapper(this.namespacePrefixes));
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter output = new StringWriter();
-
+    String idl;
     try {
-      template.process(model, output);
+      idl = this.templateEngine.processTemplate(templateURL, model, this.objectWrapper);
     }
     catch (TemplateException e) {
       throw new RuntimeException(e);
     }
 
-    String idl = output.toString();
     this.contents = idl;
     return idl;
   }
@@ -152,6 +152,9 @@ public class IDLModule extends BasicGeneratingModule implements ApiFeatureProvid
     facetExcludes.addAll(getFacetExcludes());
     FacetFilter facetFilter = new FacetFilter(facetIncludes, facetExcludes);
 
+    //one wrapper for all the files: they share the namespace prefixes, and the template engine keeps a configuration per wrapper.
+    IDLObjectWrapper objectWrapper = new IDLObjectWrapper(ns2prefix);
+
     Map<String, SchemaConfig> schemaConfigs = getSchemaConfigs();
     for (SchemaInfo schemaInfo : ns2schema.values()) {
       String defaultFilename = ns2prefix.get(schemaInfo.getNamespace()) + ".xsd";
@@ -166,11 +169,11 @@ public class IDLModule extends BasicGeneratingModule implements ApiFeatureProvid
         schemaInfo.setFilename(explicitConfig.getFilename() != null ? explicitConfig.getFilename() : defaultFilename);
         schemaInfo.setExplicitLocation(explicitConfig.getLocation());
         schemaInfo.setJaxbBindingVersion(explicitConfig.getJaxbBindingVersion());
-        schemaInfo.setSchemaFile(new JaxbSchemaFile(this.jaxbModule.getJaxbContext(), schemaInfo, facetFilter, ns2prefix));
+        schemaInfo.setSchemaFile(new JaxbSchemaFile(this.jaxbModule.getJaxbContext(), schemaInfo, facetFilter, ns2prefix, this.enunciate.getTemplateEngine(), objectWrapper));
       }
       else {
         schemaInfo.setFilename(defaultFilename);
-        schemaInfo.setSchemaFile(new JaxbSchemaFile(this.jaxbModule.getJaxbContext(), schemaInfo, facetFilter, ns2prefix));
+        schemaInfo.setSchemaFile(new JaxbSchemaFile(this.jaxbModule.getJaxbContext(), schemaInfo, facetFilter, ns2prefix, this.enunciate.getTemplateEngine(), objectWrapper));
       }
     }
 
@@ -188,16 +191,16 @@ public class IDLModule extends BasicGeneratingModule implements ApiFeatureProvid
       else if (explicitConfig != null) {
         wsdlInfo.setFilename(explicitConfig.getFilename() != null ? explicitConfig.getFilename() : defaultFilename);
         wsdlInfo.setInlineSchema(explicitConfig.isInlineSchema());
-        wsdlInfo.setWsdlFile(new JaxwsWsdlFile(wsdlInfo, this.jaxbModule.getJaxbContext(), baseUri, ns2prefix, facetFilter));
+        wsdlInfo.setWsdlFile(new JaxwsWsdlFile(wsdlInfo, this.jaxbModule.getJaxbContext(), baseUri, ns2prefix, facetFilter, this.enunciate.getTemplateEngine(), objectWrapper));
       }
       else {
         wsdlInfo.setFilename(defaultFilename);
-        wsdlInfo.setWsdlFile(new JaxwsWsdlFile(wsdlInfo, this.jaxbModule.getJaxbContext(), baseUri, ns2prefix, facetFilter));
+        wsdlInfo.setWsdlFile(new JaxwsWsdlFile(wsdlInfo, this.jaxbModule.getJaxbContext(), baseUri, ns2prefix, facetFilter, this.enunciate.getTemplateEngine(), objectWrapper));
       }
     }
 
     if (this.jaxrsModule != null && this.jaxbModule != null && !isDisableWadl()) {
-      this.jaxrsModule.getJaxrsContext().setWadlFile(new JaxrsWadlFile(this.jaxrsModule.getJaxrsContext(), new ArrayList<SchemaInfo>(ns2schema.values()), getWadlStylesheetUri(), baseUri, ns2prefix, facetFilter));
+      this.jaxrsModule.getJaxrsContext().setWadlFile(new JaxrsWadlFile(this.jaxrsModule.getJaxrsContext(), new ArrayList<SchemaInfo>(ns2schema.values()), getWadlStylesheetUri(), baseUri, ns2prefix, facetFilter, this.enunciate.getTemplateEngine(), objectWrapper));
     }
   }
 
@@ -19,6 +19,7 @@ import com.webcohesion.enunciate.api.DefaultRegistrationContext;
 import com.webcohesion.enunciate.facets.FacetFilter;
 import com.webcohesion.enunciate.modules.jaxb.model.SchemaInfo;
 import com.webcohesion.enunciate.modules.jaxrs.EnunciateJaxrsContext;
+import com.webcohesion.enunciate.util.freemarker.FreemarkerTemplateEngine;
 
 import java.net.URL;
 import java.util.List;
@@ -34,8 +35,8 @@ public class JaxrsWadlFile extends BaseXMLInterfaceDescriptionFile {
   private final String stylesheetUri;
   private final String baseUri;
 
-  public JaxrsWadlFile(EnunciateJaxrsContext jaxrsContext, List<SchemaInfo> schemas, String stylesheetUri, String baseUri, Map<String, String> namespacePrefixes, FacetFilter facetFilter) {
-    super("application.wadl", namespacePrefixes, facetFilter);
+  public JaxrsWadlFile(EnunciateJaxrsContext jaxrsContext, List<SchemaInfo> schemas, String stylesheetUri, String baseUri, Map<String, String> namespacePrefixes, FacetFilter facetFilter, FreemarkerTemplateEngine templateEngine, IDLObjectWrapper objectWrapper) {
+    super("application.wadl", namespacePrefixes, facetFilter, templateEngine, objectWrapper);
     this.jaxrsContext = jaxrsContext;
     this.schemas = schemas;
     this.stylesheetUri = stylesheetUri;
@@ -128,6 +128,9 @@ public class TestEnunciateIDLModule extends TestCase {
     assertTrue(fullWsdlInfo.getWsdlFile() instanceof JaxwsWsdlFile);
     JaxwsWsdlFile fullWsdl = (JaxwsWsdlFile) fullWsdlInfo.getWsdlFile();
     assertEquals("full.wsdl", fullWsdl.filename);
+    for (SchemaInfo schemaInfo : idlModule.jaxbModule.getJaxbContext().getSchemas().values()) {
+      assertSame("the files should share one object wrapper (and so one template configuration)", fullWsdl.objectWrapper, ((JaxbSchemaFile) schemaInfo.getSchemaFile()).objectWrapper);
+    }
     final StringWriter output = new StringWriter();
     fullWsdl.writeTo(output);
     output.flush();
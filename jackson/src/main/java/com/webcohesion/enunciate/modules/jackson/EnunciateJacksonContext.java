@@ -19,6 +19,8 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.*;
 import com.webcohesion.enunciate.EnunciateContext;
 import com.webcohesion.enunciate.EnunciateException;
@@ -37,6 +39,7 @@ import com.webcohesion.enunciate.modules.jackson.model.util.JacksonUtil;
 import com.webcohesion.enunciate.modules.jackson.model.util.MapType;
 import com.webcohesion.enunciate.util.IgnoreUtils;
 import com.webcohesion.enunciate.util.OneTimeLogMessage;
+import com.webcohesion.enunciate.util.SyntheticTypes;
 
 import javax.activation.DataHandler;
 import javax.lang.model.element.Element;
@@ -51,6 +54,8 @@ import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -67,14 +72,34 @@ public class EnunciateJacksonContext extends EnunciateModuleContext {
   private final Map<String, String> mixins;
   private final boolean disableExamples;
   private final boolean wrapRootValue;
+  private final int exampleDepth;
+  private final ConcurrentMap<String, String> exampleBodies = new ConcurrentHashMap<String, String>();
+  private ObjectMapper exampleMapper;
+  private final SyntheticTypes syntheticTypes = new SyntheticTypes() {
+    @Override
+    protected DecoratedTypeMirror createSyntheticType(DecoratedTypeMirror type) {
+      if (type instanceof DeclaredType && !type.isCollection() && MapType.findMapType(type, EnunciateJacksonContext.this) == null) {
+        if (!((DeclaredType) type).getTypeArguments().isEmpty()) {
+          //if type arguments apply, create a new "synthetic" declared type that captures the type arguments.
+          return new ParameterizedJacksonDeclaredType((DeclaredType) type, getContext().getProcessingEnvironment());
+        }
+        else if (type.isInterface()) {
+          //if it's an interface, create a "synthetic" type that pretends like it's an abstract class.
+          return new InterfaceJacksonDeclaredType((DeclaredType) type, getContext().getProcessingEnvironment());
+        }
+      }
+      return type;
+    }
+  };
   private final AccessorVisibilityChecker defaultVisibility;
 
-  public EnunciateJacksonContext(EnunciateContext context, boolean honorJaxb, KnownJsonType dateType, boolean collapseTypeHierarchy, Map<String, String> mixins, AccessorVisibilityChecker visibility, boolean disableExamples, boolean wrapRootValue) {
+  public EnunciateJacksonContext(EnunciateContext context, boolean honorJaxb, KnownJsonType dateType, boolean collapseTypeHierarchy, Map<String, String> mixins, AccessorVisibilityChecker visibility, boolean disableExamples, int exampleDepth, boolean wrapRootValue) {
     super(context);
     this.dateType = dateType;
     this.mixins = mixins;
     this.defaultVisibility = visibility;
     this.disableExamples = disableExamples;
+    this.exampleDepth = exampleDepth;
     this.knownTypes = loadKnownTypes();
     this.typeDefinitions = new HashMap<String, TypeDefinition>();
     this.honorJaxb = honorJaxb;
@@ -107,19 +132,32 @@ public class EnunciateJacksonContext extends EnunciateModuleContext {
     return wrapRootValue;
   }
 
-  public DecoratedTypeMirror resolveSyntheticType(DecoratedTypeMirror type) {
-    if (type instanceof DeclaredType && !type.isCollection() && MapType.findMapType(type, this) == null) {
-      if (!((DeclaredType) type).getTypeArguments().isEmpty()) {
-        //if type arguments apply, create a new "synthetic" declared type that captures the type arguments.
-        type = new ParameterizedJacksonDeclaredType((DeclaredType) type, getContext().getProcessingEnvironment());
-      }
-      else if (type.isInterface()) {
-        //if it's an interface, create a "synthetic" type that pretends like it's an abstract class.
-        type = new InterfaceJacksonDeclaredType((DeclaredType) type, getContext().getProcessingEnvironment());
-      }
+  /**
+   * @return How many levels of nested types an example is to include.
+   */
+  public int getExampleDepth() {
+    return exampleDepth;
+  }
+
+  /**
+   * @return The rendered example bodies, by type and container chain.
+   */
+  public ConcurrentMap<String, String> getExampleBodies() {
+    return exampleBodies;
+  }
+
+  /**
+   * @return The mapper with which to write the examples.
+   */
+  public ObjectMapper getExampleMapper() {
+    if (this.exampleMapper == null) {
+      this.exampleMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
     }
+    return this.exampleMapper;
+  }
 
-    return type;
+  public DecoratedTypeMirror resolveSyntheticType(DecoratedTypeMirror type) {
+    return this.syntheticTypes.resolve(type);
   }
 
   public JsonType getKnownType(Element declaration) {
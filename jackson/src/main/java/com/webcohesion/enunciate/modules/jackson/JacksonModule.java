@@ -43,11 +43,12 @@ import java.util.*;
  * @author Ryan Heaton
  */
 @SuppressWarnings ( "unchecked" )
-public class JacksonModule extends BasicProviderModule implements TypeDetectingModule, MediaTypeDefinitionModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
+public class JacksonModule extends BasicProviderModule implements AnnotationDetectingModule, MediaTypeDefinitionModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
 
   private DataTypeDetectionStrategy defaultDataTypeDetectionStrategy;
-  private boolean jacksonDetected = false;
-  private boolean jaxbSupportDetected = false;
+  //types may be detected concurrently; the flags are only ever set.
+  private volatile boolean jacksonDetected = false;
+  private volatile boolean jaxbSupportDetected = false;
   private EnunciateJacksonContext jacksonContext;
 
   @Override
@@ -86,6 +87,10 @@ public class JacksonModule extends BasicProviderModule implements TypeDetectingM
     return this.config.getBoolean("[@disableExamples]", false);
   }
 
+  public int getExampleDepth() {
+    return this.config.getInt("[@exampleDepth]", 2);
+  }
+
   public EnunciateJacksonContext getJacksonContext() {
     return jacksonContext;
   }
@@ -110,7 +115,7 @@ public class JacksonModule extends BasicProviderModule implements TypeDetectingM
       }
     }
 
-    this.jacksonContext = new EnunciateJacksonContext(context, isHonorJaxbAnnotations(), getDateFormat(), isCollapseTypeHierarchy(), getMixins(), getDefaultVisibility(), isDisableExamples(), isWrapRootValue());
+    this.jacksonContext = new EnunciateJacksonContext(context, isHonorJaxbAnnotations(), getDateFormat(), isCollapseTypeHierarchy(), getMixins(), getDefaultVisibility(), isDisableExamples(), getExampleDepth(), isWrapRootValue());
     DataTypeDetectionStrategy detectionStrategy = getDataTypeDetectionStrategy();
     switch (detectionStrategy) {
       case aggressive:
@@ -265,11 +270,20 @@ public class JacksonModule extends BasicProviderModule implements TypeDetectingM
     return declaration.getKind() == ElementKind.CLASS && ((DecoratedTypeMirror) declaration.asType()).isInstanceOf(Throwable.class);
   }
 
+  @Override
+  public Set<String> getDetectedAnnotations() {
+    return new HashSet<String>(Arrays.asList(JsonSerialize.class.getName(), JsonFormat.class.getPackage().getName() + "."));
+  }
+
   @Override
   public boolean typeDetected(Object type, MetadataAdapter metadata) {
     String classname = metadata.getClassName(type);
-    this.jacksonDetected |= ObjectMapper.class.getName().equals(classname);
-    this.jaxbSupportDetected |= "com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector".equals(classname);
+    if (ObjectMapper.class.getName().equals(classname)) {
+      this.jacksonDetected = true;
+    }
+    if ("com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector".equals(classname)) {
+      this.jaxbSupportDetected = true;
+    }
 
     if (classname.startsWith("com.fasterxml.jackson")) {
       //don't accept jackson system specific types
@@ -18,8 +18,6 @@ package com.webcohesion.enunciate.modules.jackson.api.impl;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -39,6 +37,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -59,6 +58,31 @@ public class DataTypeExampleImpl extends ExampleImpl {
 
   @Override
   public String getBody() {
+    //the same examples are asked for by many pages of many modules; build each one once.
+    String key = this.type.getQualifiedName() + String.valueOf(this.containers);
+    ConcurrentMap<String, String> bodies = this.type.getContext().getExampleBodies();
+    String body = bodies.get(key);
+    if (body == null) {
+      body = buildBody();
+      String existing = bodies.putIfAbsent(key, body);
+      body = existing == null ? body : existing;
+    }
+    return body;
+  }
+
+  private String buildBody() {
+    try {
+      return this.type.getContext().getExampleMapper().writeValueAsString(buildNode());
+    }
+    catch (JsonProcessingException e) {
+      throw new EnunciateException(e);
+    }
+  }
+
+  /**
+   * @return A new tree of the example.
+   */
+  JsonNode buildNode() {
     ObjectNode node = JsonNodeFactory.instance.objectNode();
 
     Context context = new Context();
@@ -89,18 +113,12 @@ public class DataTypeExampleImpl extends ExampleImpl {
       }
     }
 
-    ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-    try {
-      return mapper.writeValueAsString(outer);
-    }
-    catch (JsonProcessingException e) {
-      throw new EnunciateException(e);
-    }
+    return outer;
   }
 
   private void build(ObjectNode node, ObjectTypeDefinition type, Context context) {
-    if (context.stack.size() > 2) {
-      //don't go deeper than 2 for fear of the OOM (see https://github.com/stoicflame/enunciate/issues/139).
+    if (context.stack.size() > type.getContext().getExampleDepth()) {
+      //don't go deeper than the configured depth (2 by default) for fear of the OOM (see https://github.com/stoicflame/enunciate/issues/139).
       return;
     }
 
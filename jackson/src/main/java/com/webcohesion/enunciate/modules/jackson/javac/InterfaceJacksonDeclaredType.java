@@ -15,7 +15,7 @@ public class InterfaceJacksonDeclaredType extends DecoratedDeclaredType {
 
   public InterfaceJacksonDeclaredType(DeclaredType root, DecoratedProcessingEnvironment env) {
     super(root, env);
-    this.element = new InterfaceJacksonTypeElement(root, env);
+    this.element = new InterfaceJacksonTypeElement(root, env, this);
   }
 
   @Override
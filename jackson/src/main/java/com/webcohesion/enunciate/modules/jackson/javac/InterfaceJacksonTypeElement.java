@@ -11,6 +11,7 @@ import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
@@ -23,9 +24,17 @@ public class InterfaceJacksonTypeElement implements TypeElementAdaptor {
   private final DeclaredType root;
   private final TypeElement element;
   private final DecoratedProcessingEnvironment env;
+  private final InterfaceJacksonDeclaredType type;
+  private volatile List<? extends Element> allMembers;
+  private volatile List<? extends Element> enclosedElements;
 
   public InterfaceJacksonTypeElement(DeclaredType root, DecoratedProcessingEnvironment env) {
+    this(root, env, null);
+  }
+
+  InterfaceJacksonTypeElement(DeclaredType root, DecoratedProcessingEnvironment env, InterfaceJacksonDeclaredType type) {
     this.root = root;
+    this.type = type;
     this.env = env;
     this.element = (TypeElement) root.asElement();
   }
@@ -47,7 +56,13 @@ public class InterfaceJacksonTypeElement implements TypeElementAdaptor {
 
   @Override
   public List<? extends Element> getAllMembers() {
-    return decorate(this.env.getElementUtils().getAllMembers(element));
+    //the decorated members are stateless, so they're built once and shared.
+    List<? extends Element> allMembers = this.allMembers;
+    if (allMembers == null) {
+      allMembers = decorate(this.env.getElementUtils().getAllMembers(element));
+      this.allMembers = allMembers;
+    }
+    return allMembers;
   }
 
   protected List<? extends Element> decorate(List<? extends Element> elements) {
@@ -57,7 +72,7 @@ public class InterfaceJacksonTypeElement implements TypeElementAdaptor {
         members.add(new InterfaceExecutable((ExecutableElement) member));
       }
     }
-    return members;
+    return Collections.unmodifiableList(members);
   }
 
   @Override
@@ -92,7 +107,12 @@ public class InterfaceJacksonTypeElement implements TypeElementAdaptor {
 
   @Override
   public List<? extends Element> getEnclosedElements() {
-    return decorate(this.element.getEnclosedElements());
+    List<? extends Element> enclosedElements = this.enclosedElements;
+    if (enclosedElements == null) {
+      enclosedElements = decorate(this.element.getEnclosedElements());
+      this.enclosedElements = enclosedElements;
+    }
+    return enclosedElements;
   }
 
   @Override
@@ -132,7 +152,7 @@ public class InterfaceJacksonTypeElement implements TypeElementAdaptor {
 
   @Override
   public TypeMirror asType() {
-    return new InterfaceJacksonDeclaredType(this.root, this.env);
+    return this.type != null ? this.type : new InterfaceJacksonDeclaredType(this.root, this.env);
   }
 
   @Override
@@ -24,7 +24,7 @@ public class ParameterizedJacksonDeclaredType extends DecoratedDeclaredType {
     super(root, env);
     this.root = root;
     this.env = env;
-    this.element = new ParameterizedJacksonTypeElement(this.root, this.env);
+    this.element = new ParameterizedJacksonTypeElement(this.root, this.env, this);
   }
 
   @Override
@@ -28,9 +28,18 @@ public class ParameterizedJacksonTypeElement implements TypeElementAdaptor {
   private final Name fqn;
   private final Name simpleName;
   private final TypeVariableContext variableContext;
+  private final ParameterizedJacksonDeclaredType type;
+  private volatile List<? extends Element> allMembers;
+  private volatile List<? extends Element> enclosedElements;
+  private volatile TypeMirror superclass;
 
   public ParameterizedJacksonTypeElement(DeclaredType root, DecoratedProcessingEnvironment env) {
+    this(root, env, null);
+  }
+
+  ParameterizedJacksonTypeElement(DeclaredType root, DecoratedProcessingEnvironment env, ParameterizedJacksonDeclaredType type) {
     this.root = root;
+    this.type = type;
     this.env = env;
     this.element = (TypeElement) root.asElement();
 
@@ -69,7 +78,13 @@ public class ParameterizedJacksonTypeElement implements TypeElementAdaptor {
 
   @Override
   public List<? extends Element> getAllMembers() {
-    return decorate(env.getElementUtils().getAllMembers(element));
+    //the decorated members are stateless, so they're built once and shared.
+    List<? extends Element> allMembers = this.allMembers;
+    if (allMembers == null) {
+      allMembers = decorate(this.env.getElementUtils().getAllMembers(element));
+      this.allMembers = allMembers;
+    }
+    return allMembers;
   }
 
   protected List<? extends Element> decorate(List<? extends Element> elements) {
@@ -85,7 +100,7 @@ public class ParameterizedJacksonTypeElement implements TypeElementAdaptor {
         members.add(member);
       }
     }
-    return members;
+    return Collections.unmodifiableList(members);
   }
 
   @Override
@@ -120,7 +135,12 @@ public class ParameterizedJacksonTypeElement implements TypeElementAdaptor {
 
   @Override
   public List<? extends Element> getEnclosedElements() {
-    return decorate(this.element.getEnclosedElements());
+    List<? extends Element> enclosedElements = this.enclosedElements;
+    if (enclosedElements == null) {
+      enclosedElements = decorate(this.element.getEnclosedElements());
+      this.enclosedElements = enclosedElements;
+    }
+    return enclosedElements;
   }
 
   @Override
@@ -140,9 +160,13 @@ public class ParameterizedJacksonTypeElement implements TypeElementAdaptor {
 
   @Override
   public TypeMirror getSuperclass() {
-    TypeMirror superclass = this.element.getSuperclass();
-    if (superclass instanceof DeclaredType) {
-      return new ParameterizedJacksonDeclaredType((DeclaredType) superclass, env);
+    TypeMirror superclass = this.superclass;
+    if (superclass == null) {
+      superclass = this.element.getSuperclass();
+      if (superclass instanceof DeclaredType) {
+        superclass = new ParameterizedJacksonDeclaredType((DeclaredType) superclass, env);
+      }
+      this.superclass = superclass;
     }
     return superclass;
   }
@@ -164,7 +188,7 @@ public class ParameterizedJacksonTypeElement implements TypeElementAdaptor {
 
   @Override
   public TypeMirror asType() {
-    return new ParameterizedJacksonDeclaredType(this.root, this.env);
+    return this.type != null ? this.type : new ParameterizedJacksonDeclaredType(this.root, this.env);
   }
 
   @Override
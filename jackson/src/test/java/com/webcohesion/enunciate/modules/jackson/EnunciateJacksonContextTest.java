@@ -0,0 +1,115 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.jackson;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.javac.decorations.type.DecoratedTypeMirror;
+import com.webcohesion.enunciate.modules.jackson.javac.ParameterizedJacksonDeclaredType;
+import com.webcohesion.enunciate.modules.jackson.model.Member;
+import com.webcohesion.enunciate.modules.jackson.model.TypeDefinition;
+import com.webcohesion.enunciate.util.SyntheticTypes;
+import org.junit.Test;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.type.DeclaredType;
+import java.io.File;
+import java.io.StringReader;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class EnunciateJacksonContextTest {
+
+  private static final String SAMPLES = "com.webcohesion.enunciate.examples.jackson.synthetic.";
+
+  @Test
+  public void testSyntheticTypesAreInternedBySignature() throws Exception {
+    EnunciateJacksonContext context = runJackson();
+    Map<String, TypeDefinition> typeDefinitions = new TreeMap<String, TypeDefinition>();
+    for (TypeDefinition typeDefinition : context.getTypeDefinitions()) {
+      typeDefinitions.put(typeDefinition.getQualifiedName().toString(), typeDefinition);
+    }
+    assertEquals("one type definition for each signature", new TreeSet<String>(Arrays.asList(SAMPLES + "PageOfPet", SAMPLES + "PageOfString", SAMPLES + "Pet", SAMPLES + "Shelter")), typeDefinitions.keySet());
+
+    Map<String, Member> members = members(typeDefinitions.get(SAMPLES + "Shelter"));
+    DecoratedTypeMirror pets = members.get("pets").getAccessorType();
+    DecoratedTypeMirror adoptable = members.get("adoptable").getAccessorType();
+    DecoratedTypeMirror names = members.get("names").getAccessorType();
+    assertTrue(SyntheticTypes.isInternable((DecoratedTypeMirror) members.get("pets").asType()));
+    assertTrue(pets instanceof ParameterizedJacksonDeclaredType);
+    assertSame(pets, adoptable);
+    assertSame(((DeclaredType) pets).asElement().getEnclosedElements(), ((DeclaredType) adoptable).asElement().getEnclosedElements());
+    assertNotSame(pets, names);
+
+    //the interned type has the same members as one built fresh for the same signature.
+    DeclaredType fresh = new ParameterizedJacksonDeclaredType((DeclaredType) members.get("adoptable").asType(), context.getContext().getProcessingEnvironment());
+    assertEquals(signatures(fresh.asElement().getEnclosedElements()), signatures(((DeclaredType) pets).asElement().getEnclosedElements()));
+    assertEquals(signatures(fresh.asElement().getEnclosedElements()), signatures(((DeclaredType) adoptable).asElement().getEnclosedElements()));
+
+    assertEquals("java.util.List<" + SAMPLES + "Pet>", members(typeDefinitions.get(SAMPLES + "PageOfPet")).get("items").asType().toString());
+    assertEquals("java.util.List<java.lang.String>", members(typeDefinitions.get(SAMPLES + "PageOfString")).get("items").asType().toString());
+  }
+
+  private static Map<String, Member> members(TypeDefinition typeDefinition) {
+    Map<String, Member> members = new HashMap<String, Member>();
+    for (Member member : typeDefinition.getMembers()) {
+      members.put(member.getName(), member);
+    }
+    return members;
+  }
+
+  private static List<String> signatures(List<? extends Element> elements) {
+    List<String> signatures = new ArrayList<String>();
+    for (Element element : elements) {
+      signatures.add(element.getKind() + " " + element.getSimpleName() + " " + element.asType());
+    }
+    return signatures;
+  }
+
+  private static EnunciateJacksonContext runJackson() throws Exception {
+    Enunciate enunciate = new Enunciate();
+    enunciate.loadConfiguration(new StringReader("<enunciate><modules><jackson datatype-detection=\"aggressive\"/></modules></enunciate>"));
+    enunciate.setBuildDir(createTempDir());
+    enunciate.setClasspath(testClasspath());
+    enunciate.addSourceDir(new File("src/test/samples/com/webcohesion/enunciate/examples/jackson/synthetic"));
+    JacksonModule module = new JacksonModule();
+    enunciate.addModule(module);
+    enunciate.run();
+    assertNotNull(module.getJacksonContext());
+    return module.getJacksonContext();
+  }
+
+  private static List<File> testClasspath() {
+    List<File> classpath = new ArrayList<File>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        classpath.add(new File(entry));
+      }
+    }
+    return classpath;
+  }
+
+  private static File createTempDir() throws Exception {
+    File tempDir = File.createTempFile("enunciate", "");
+    tempDir.delete();
+    tempDir.mkdirs();
+    tempDir.deleteOnExit();
+    return tempDir;
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.jackson.api.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.api.datatype.DataTypeReference.ContainerType;
+import com.webcohesion.enunciate.modules.jackson.EnunciateJacksonContext;
+import com.webcohesion.enunciate.modules.jackson.JacksonModule;
+import com.webcohesion.enunciate.modules.jackson.model.ObjectTypeDefinition;
+import com.webcohesion.enunciate.modules.jackson.model.TypeDefinition;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class DataTypeExampleImplTest {
+
+  private static final List<List<ContainerType>> CONTAINERS = Arrays.asList(null, Arrays.asList(ContainerType.list), Arrays.asList(ContainerType.map), Arrays.asList(ContainerType.list, ContainerType.map));
+
+  @Test
+  public void testCachedBodiesAreTheFreshlyBuiltBodies() throws Exception {
+    EnunciateJacksonContext context = runJackson("<jackson datatype-detection=\"aggressive\"/>");
+    ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    List<String> types = new ArrayList<String>();
+    for (TypeDefinition type : context.getTypeDefinitions()) {
+      if (type instanceof ObjectTypeDefinition) {
+        types.add(type.getSimpleName().toString());
+        for (List<ContainerType> containers : CONTAINERS) {
+          String expected = mapper.writeValueAsString(new DataTypeExampleImpl((ObjectTypeDefinition) type, containers).buildNode());
+          String body = new DataTypeExampleImpl((ObjectTypeDefinition) type, containers).getBody();
+          assertEquals(expected, body);
+          assertSame("the body should be served from the cache", body, new DataTypeExampleImpl((ObjectTypeDefinition) type, containers).getBody());
+        }
+      }
+    }
+
+    assertEquals(5, types.size());
+    assertEquals("one body for each type and container chain", types.size() * CONTAINERS.size(), context.getExampleBodies().size());
+  }
+
+  @Test
+  public void testExampleDepth() throws Exception {
+    String shallow = petExample(runJackson("<jackson datatype-detection=\"aggressive\"/>"));
+    assertTrue(shallow, shallow.contains("\"street\""));
+    assertFalse("deeper than the default depth: " + shallow, shallow.contains("\"code\""));
+    assertEquals(shallow, petExample(runJackson("<jackson datatype-detection=\"aggressive\" exampleDepth=\"2\"/>")));
+
+    String deep = petExample(runJackson("<jackson datatype-detection=\"aggressive\" exampleDepth=\"3\"/>"));
+    assertTrue(deep, deep.contains("\"code\""));
+  }
+
+  private static String petExample(EnunciateJacksonContext context) {
+    for (TypeDefinition type : context.getTypeDefinitions()) {
+      if ("Pet".equals(type.getSimpleName().toString())) {
+        return new DataTypeExampleImpl((ObjectTypeDefinition) type).getBody();
+      }
+    }
+    throw new AssertionError("no pet");
+  }
+
+  private static EnunciateJacksonContext runJackson(String config) throws Exception {
+    Enunciate enunciate = new Enunciate();
+    enunciate.loadConfiguration(new StringReader("<enunciate><modules>" + config + "</modules></enunciate>"));
+    enunciate.setBuildDir(createTempDir());
+    enunciate.setClasspath(testClasspath());
+    enunciate.addSourceDir(new File("src/test/samples/com/webcohesion/enunciate/examples/jackson/examples"));
+    JacksonModule module = new JacksonModule();
+    enunciate.addModule(module);
+    enunciate.run();
+    assertNotNull(module.getJacksonContext());
+    return module.getJacksonContext();
+  }
+
+  private static List<File> testClasspath() {
+    List<File> classpath = new ArrayList<File>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        classpath.add(new File(entry));
+      }
+    }
+    return classpath;
+  }
+
+  private static File createTempDir() throws Exception {
+    File tempDir = File.createTempFile("enunciate", "");
+    tempDir.delete();
+    tempDir.mkdirs();
+    tempDir.deleteOnExit();
+    return tempDir;
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.examples.jackson.examples;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * The owner of a pet.
+ */
+@JsonSerialize
+public class Owner {
+
+  private String name;
+  private Address address;
+  private Pet favoritePet;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public Address getAddress() {
+    return address;
+  }
+
+  public void setAddress(Address address) {
+    this.address = address;
+  }
+
+  public Pet getFavoritePet() {
+    return favoritePet;
+  }
+
+  public void setFavoritePet(Pet favoritePet) {
+    this.favoritePet = favoritePet;
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.examples.jackson.examples;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pet.
+ */
+@JsonSerialize
+public class Pet {
+
+  private String name;
+  private int age;
+  private Owner owner;
+  private List<Toy> toys;
+  private Map<String, Toy> toysByRoom;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public int getAge() {
+    return age;
+  }
+
+  public void setAge(int age) {
+    this.age = age;
+  }
+
+  public Owner getOwner() {
+    return owner;
+  }
+
+  public void setOwner(Owner owner) {
+    this.owner = owner;
+  }
+
+  public List<Toy> getToys() {
+    return toys;
+  }
+
+  public void setToys(List<Toy> toys) {
+    this.toys = toys;
+  }
+
+  public Map<String, Toy> getToysByRoom() {
+    return toysByRoom;
+  }
+
+  public void setToysByRoom(Map<String, Toy> toysByRoom) {
+    this.toysByRoom = toysByRoom;
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.examples.jackson.synthetic;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A shelter, with pages of the same type in more than one place.
+ */
+@JsonSerialize
+public class Shelter {
+
+  private Page<Pet> pets;
+  private Page<Pet> adoptable;
+  private Page<String> names;
+
+  public Page<Pet> getPets() {
+    return pets;
+  }
+
+  public void setPets(Page<Pet> pets) {
+    this.pets = pets;
+  }
+
+  public Page<Pet> getAdoptable() {
+    return adoptable;
+  }
+
+  public void setAdoptable(Page<Pet> adoptable) {
+    this.adoptable = adoptable;
+  }
+
+  public Page<String> getNames() {
+    return names;
+  }
+
+  public void setNames(Page<String> names) {
+    this.names = names;
+  }
+}
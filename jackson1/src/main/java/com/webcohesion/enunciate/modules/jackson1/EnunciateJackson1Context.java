@@ -32,9 +32,12 @@ import com.webcohesion.enunciate.modules.jackson1.model.util.JacksonUtil;
 import com.webcohesion.enunciate.modules.jackson1.model.util.MapType;
 import com.webcohesion.enunciate.util.IgnoreUtils;
 import com.webcohesion.enunciate.util.OneTimeLogMessage;
+import com.webcohesion.enunciate.util.SyntheticTypes;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.annotate.JsonIgnore;
 import org.codehaus.jackson.annotate.JsonSubTypes;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.SerializationConfig;
 import org.codehaus.jackson.node.*;
 
 import javax.activation.DataHandler;
@@ -50,6 +53,8 @@ import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -67,14 +72,34 @@ public class EnunciateJackson1Context extends EnunciateModuleContext {
   private final AccessorVisibilityChecker defaultVisibility;
   private final boolean disableExamples;
   private final boolean wrapRootValue;
+  private final int exampleDepth;
+  private final ConcurrentMap<String, String> exampleBodies = new ConcurrentHashMap<String, String>();
+  private ObjectMapper exampleMapper;
+  private final SyntheticTypes syntheticTypes = new SyntheticTypes() {
+    @Override
+    protected DecoratedTypeMirror createSyntheticType(DecoratedTypeMirror type) {
+      if (type instanceof DeclaredType && !type.isCollection() && MapType.findMapType(type, EnunciateJackson1Context.this) == null) {
+        if (!((DeclaredType) type).getTypeArguments().isEmpty()) {
+          //if type arguments apply, create a new "synthetic" declared type that captures the type arguments.
+          return new ParameterizedJackson1DeclaredType((DeclaredType) type, getContext().getProcessingEnvironment());
+        }
+        else if (type.isInterface()) {
+          //if it's an interface, create a "synthetic" type that pretends like it's an abstract class.
+          return new InterfaceJackson1DeclaredType((DeclaredType) type, getContext().getProcessingEnvironment());
+        }
+      }
+      return type;
+    }
+  };
 
-  public EnunciateJackson1Context(EnunciateContext context, boolean honorJaxb, KnownJsonType dateType, boolean collapseTypeHierarchy, Map<String, String> mixins, AccessorVisibilityChecker visibility, boolean disableExamples, boolean wrapRootValue) {
+  public EnunciateJackson1Context(EnunciateContext context, boolean honorJaxb, KnownJsonType dateType, boolean collapseTypeHierarchy, Map<String, String> mixins, AccessorVisibilityChecker visibility, boolean disableExamples, int exampleDepth, boolean wrapRootValue) {
     super(context);
     this.dateType = dateType;
     this.mixins = mixins;
     this.defaultVisibility = visibility;
     this.collapseTypeHierarchy = collapseTypeHierarchy;
     this.disableExamples = disableExamples;
+    this.exampleDepth = exampleDepth;
     this.knownTypes = loadKnownTypes();
     this.typeDefinitions = new HashMap<String, TypeDefinition>();
     this.typeDefinitionsBySlug = new HashMap<String, TypeDefinition>();
@@ -102,19 +127,32 @@ public class EnunciateJackson1Context extends EnunciateModuleContext {
     return wrapRootValue;
   }
 
-  public DecoratedTypeMirror resolveSyntheticType(DecoratedTypeMirror type) {
-    if (type instanceof DeclaredType && !type.isCollection() && MapType.findMapType(type, this) == null) {
-      if (!((DeclaredType) type).getTypeArguments().isEmpty()) {
-        //if type arguments apply, create a new "synthetic" declared type that captures the type arguments.
-        type = new ParameterizedJackson1DeclaredType((DeclaredType) type, getContext().getProcessingEnvironment());
-      }
-      else if (type.isInterface()) {
-        //if it's an interface, create a "synthetic" type that pretends like it's an abstract class.
-        type = new InterfaceJackson1DeclaredType((DeclaredType) type, getContext().getProcessingEnvironment());
-      }
+  /**
+   * @return How many levels of nested types an example is to include.
+   */
+  public int getExampleDepth() {
+    return exampleDepth;
+  }
+
+  /**
+   * @return The rendered example bodies, by type and container chain.
+   */
+  public ConcurrentMap<String, String> getExampleBodies() {
+    return exampleBodies;
+  }
+
+  /**
+   * @return The mapper with which to write the examples.
+   */
+  public ObjectMapper getExampleMapper() {
+    if (this.exampleMapper == null) {
+      this.exampleMapper = new ObjectMapper().enable(SerializationConfig.Feature.INDENT_OUTPUT);
     }
+    return this.exampleMapper;
+  }
 
-    return type;
+  public DecoratedTypeMirror resolveSyntheticType(DecoratedTypeMirror type) {
+    return this.syntheticTypes.resolve(type);
   }
 
   public JsonType getKnownType(Element declaration) {
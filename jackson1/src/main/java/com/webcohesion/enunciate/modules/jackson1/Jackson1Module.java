@@ -44,11 +44,12 @@ import java.util.*;
  * @author Ryan Heaton
  */
 @SuppressWarnings ( "unchecked" )
-public class Jackson1Module extends BasicProviderModule implements TypeDetectingModule, MediaTypeDefinitionModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
+public class Jackson1Module extends BasicProviderModule implements AnnotationDetectingModule, MediaTypeDefinitionModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
 
   private DataTypeDetectionStrategy defaultDataTypeDetectionStrategy;
-  private boolean jacksonDetected = false;
-  private boolean jaxbSupportDetected = false;
+  //types may be detected concurrently; the flags are only ever set.
+  private volatile boolean jacksonDetected = false;
+  private volatile boolean jaxbSupportDetected = false;
   private EnunciateJackson1Context jacksonContext;
   private ApiRegistry apiRegistry;
 
@@ -78,6 +79,10 @@ public class Jackson1Module extends BasicProviderModule implements TypeDetecting
     return this.config.getBoolean("[@disableExamples]", false);
   }
 
+  public int getExampleDepth() {
+    return this.config.getInt("[@exampleDepth]", 2);
+  }
+
   @Override
   public ApiRegistry getApiRegistry() {
     return new Jackson1ApiRegistry(this.jacksonContext);
@@ -89,7 +94,7 @@ public class Jackson1Module extends BasicProviderModule implements TypeDetecting
 
   @Override
   public void call(EnunciateContext context) {
-    this.jacksonContext = new EnunciateJackson1Context(context, isHonorJaxbAnnotations(), getDateFormat(), isCollapseTypeHierarchy(), getMixins(), getDefaultVisibility(), isDisableExamples(), isWrapRootValue());
+    this.jacksonContext = new EnunciateJackson1Context(context, isHonorJaxbAnnotations(), getDateFormat(), isCollapseTypeHierarchy(), getMixins(), getDefaultVisibility(), isDisableExamples(), getExampleDepth(), isWrapRootValue());
     DataTypeDetectionStrategy detectionStrategy = getDataTypeDetectionStrategy();
     switch (detectionStrategy) {
       case aggressive:
@@ -250,11 +255,20 @@ public class Jackson1Module extends BasicProviderModule implements TypeDetecting
     return declaration.getKind() == ElementKind.CLASS && ((DecoratedTypeMirror) declaration.asType()).isInstanceOf(Throwable.class);
   }
 
+  @Override
+  public Set<String> getDetectedAnnotations() {
+    return new HashSet<String>(Arrays.asList(JsonSerialize.class.getName()));
+  }
+
   @Override
   public boolean typeDetected(Object type, MetadataAdapter metadata) {
     String classname = metadata.getClassName(type);
-    this.jacksonDetected |= ObjectMapper.class.getName().equals(classname);
-    this.jaxbSupportDetected |= "org.codehaus.jackson.xc.JaxbAnnotationIntrospector".equals(classname);
+    if (ObjectMapper.class.getName().equals(classname)) {
+      this.jacksonDetected = true;
+    }
+    if ("org.codehaus.jackson.xc.JaxbAnnotationIntrospector".equals(classname)) {
+      this.jaxbSupportDetected = true;
+    }
 
     if (classname.startsWith("org.codehaus.jackson")) {
       //don't accept jackson system specific types
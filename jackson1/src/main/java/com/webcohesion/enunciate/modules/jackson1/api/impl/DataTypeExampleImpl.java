@@ -27,8 +27,6 @@ import com.webcohesion.enunciate.util.TypeHintUtils;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.JsonProcessingException;
 import org.codehaus.jackson.annotate.JsonTypeInfo;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.map.SerializationConfig;
 import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.JsonNodeFactory;
 import org.codehaus.jackson.node.ObjectNode;
@@ -40,6 +38,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -60,6 +59,19 @@ public class DataTypeExampleImpl extends ExampleImpl {
 
   @Override
   public String getBody() {
+    //the same examples are asked for by many pages of many modules; build each one once.
+    String key = this.type.getQualifiedName() + String.valueOf(this.containers);
+    ConcurrentMap<String, String> bodies = this.type.getContext().getExampleBodies();
+    String body = bodies.get(key);
+    if (body == null) {
+      body = buildBody();
+      String existing = bodies.putIfAbsent(key, body);
+      body = existing == null ? body : existing;
+    }
+    return body;
+  }
+
+  private String buildBody() {
     ObjectNode node = JsonNodeFactory.instance.objectNode();
 
     Context context = new Context();
@@ -90,9 +102,8 @@ public class DataTypeExampleImpl extends ExampleImpl {
       }
     }
 
-    ObjectMapper mapper = new ObjectMapper().enable(SerializationConfig.Feature.INDENT_OUTPUT);
     try {
-      return mapper.writeValueAsString(outer);
+      return this.type.getContext().getExampleMapper().writeValueAsString(outer);
     }
     catch (JsonProcessingException e) {
       throw new EnunciateException(e);
@@ -103,8 +114,8 @@ public class DataTypeExampleImpl extends ExampleImpl {
   }
 
   private void build(ObjectNode node, ObjectTypeDefinition type, Context context) {
-    if (context.stack.size() > 2) {
-      //don't go deeper than 2 for fear of the OOM (see https://github.com/stoicflame/enunciate/issues/139).
+    if (context.stack.size() > type.getContext().getExampleDepth()) {
+      //don't go deeper than the configured depth (2 by default) for fear of the OOM (see https://github.com/stoicflame/enunciate/issues/139).
       return;
     }
 
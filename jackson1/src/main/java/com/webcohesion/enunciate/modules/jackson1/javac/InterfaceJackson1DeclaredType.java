@@ -15,7 +15,7 @@ public class InterfaceJackson1DeclaredType extends DecoratedDeclaredType {
 
   public InterfaceJackson1DeclaredType(DeclaredType root, DecoratedProcessingEnvironment env) {
     super(root, env);
-    this.element = new InterfaceJackson1TypeElement(root, env);
+    this.element = new InterfaceJackson1TypeElement(root, env, this);
   }
 
   @Override
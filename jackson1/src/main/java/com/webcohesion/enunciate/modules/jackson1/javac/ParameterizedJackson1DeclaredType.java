@@ -24,7 +24,7 @@ public class ParameterizedJackson1DeclaredType extends DecoratedDeclaredType {
     super(root, env);
     this.root = root;
     this.env = env;
-    this.element = new ParameterizedJackson1TypeElement(this.root, this.env);
+    this.element = new ParameterizedJackson1TypeElement(this.root, this.env, this);
   }
 
   @Override
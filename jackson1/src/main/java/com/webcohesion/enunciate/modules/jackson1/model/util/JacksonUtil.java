@@ -59,6 +59,10 @@ public class JacksonUtil {
         DecoratedTypeMirror componentType = typeArgs.get(0);
         base = (DecoratedDeclaredType) env.getTypeUtils().getDeclaredType((TypeElement) base.asElement(), componentType);
       }
+      else {
+        //a raw collection normalizes to the raw collection type (not the generic declaration, which would leak its type parameter).
+        base = typeMirror.isList() ? TypeMirrorUtils.listTypeErasure(env) : TypeMirrorUtils.collectionTypeErasure(env);
+      }
     }
 
     return base;
@@ -15,10 +15,10 @@
  */
 package com.webcohesion.enunciate.modules.java_json_client;
 
-import com.sun.tools.javac.api.JavacTool;
 import com.webcohesion.enunciate.Enunciate;
 import com.webcohesion.enunciate.EnunciateContext;
 import com.webcohesion.enunciate.EnunciateException;
+import com.webcohesion.enunciate.EnunciateMetrics;
 import com.webcohesion.enunciate.api.DefaultRegistrationContext;
 import com.webcohesion.enunciate.api.resources.MediaTypeDescriptor;
 import com.webcohesion.enunciate.api.resources.Method;
@@ -40,26 +40,24 @@ import com.webcohesion.enunciate.modules.jackson1.Jackson1Module;
 import com.webcohesion.enunciate.modules.jackson1.api.impl.SyntaxImpl;
 import com.webcohesion.enunciate.modules.jackson1.model.util.Jackson1CodeErrors;
 import com.webcohesion.enunciate.modules.jaxrs.JaxrsModule;
-import com.webcohesion.enunciate.util.AntPatternMatcher;
+import com.webcohesion.enunciate.modules.jaxrs.model.RootResource;
+import com.webcohesion.enunciate.util.AntPatternSet;
+import com.webcohesion.enunciate.util.GeneratedSource;
 import com.webcohesion.enunciate.util.freemarker.AnnotationValueMethod;
 import com.webcohesion.enunciate.util.freemarker.ClientPackageForMethod;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
+import com.webcohesion.enunciate.util.freemarker.TemplateRenderBatch;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
-import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import java.io.*;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Ryan Heaton
@@ -68,6 +66,9 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
 
   private static final String LIRBARY_DESCRIPTION_PROPERTY = "com.webcohesion.enunciate.modules.java_xml_client.EnunciateJavaJSONClientModule#LIRBARY_DESCRIPTION_PROPERTY";
 
+  private final JavaJSONClientObjectWrapper objectWrapper = new JavaJSONClientObjectWrapper();
+  private final Map<File, String> generatedSources = new ConcurrentHashMap<File, String>();
+
   JacksonModule jacksonModule;
   Jackson1Module jackson1Module;
   JaxrsModule jaxrsModule;
@@ -126,9 +127,16 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
     detectAccessorNamingErrors();
 
     File sourceDir = generateClientSources();
-    File compileDir = compileClientSources(sourceDir);
+    SortedMap<String, byte[]> classes;
+    EnunciateMetrics.Phase compilePhase = this.enunciate.getMetrics().start(getName() + " compile");
+    try {
+      classes = compileClientSources(sourceDir);
+    }
+    finally {
+      compilePhase.stop();
+    }
 
-    packageArtifacts(sourceDir, compileDir);
+    packageArtifacts(sourceDir, classes);
   }
 
   protected void detectAccessorNamingErrors() {
@@ -164,6 +172,7 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
   protected File generateClientSources() {
     File sourceDir = getSourceDir();
     sourceDir.mkdirs();
+    this.generatedSources.clear();
 
     Map<String, Object> model = new HashMap<String, Object>();
 
@@ -175,7 +184,7 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
     model.put("packageFor", new ClientPackageForMethod(conversions, this.context));
     model.put("classnameFor", classnameFor);
     model.put("simpleNameFor", new SimpleNameForMethod(classnameFor, jsonContext));
-    model.put("file", new FileDirective(sourceDir, this.enunciate.getLogger()));
+    model.put("file", new FileDirective(sourceDir, this.enunciate.getLogger(), this.generatedSources));
     model.put("generatedCodeLicense", this.enunciate.getConfiguration().readGeneratedCodeLicenseFile());
     model.put("annotationValue", new AnnotationValueMethod());
 
@@ -187,24 +196,24 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
 
     model.put("isFacetExcluded", new IsFacetExcludedMethod(facetFilter));
 
-    AntPatternMatcher matcher = new AntPatternMatcher();
-    matcher.setPathSeparator(".");
+    AntPatternSet serverSideTypes = new AntPatternSet(getServerSideTypesToUse());
 
     boolean upToDate = isUpToDateWithSources(sourceDir);
     if (!upToDate) {
       try {
         debug("Generating the Java client classes...");
 
+        TemplateRenderBatch renders = this.enunciate.createTemplateRenderBatch(this.objectWrapper);
         if (jacksonContext != null) {
           for (TypeDefinition typeDefinition : jacksonContext.getTypeDefinitions()) {
             if (facetFilter.accept(typeDefinition)) {
-              if (useServerSide(typeDefinition, matcher)) {
+              if (useServerSide(typeDefinition, serverSideTypes)) {
                 copyServerSideType(sourceDir, typeDefinition);
               }
               else {
                 model.put("type", typeDefinition);
                 URL template = typeDefinition.isEnum() ? getTemplateURL("client-enum-type.fmt") : typeDefinition.isSimple() ? getTemplateURL("client-simple-type.fmt") : getTemplateURL("client-complex-type.fmt");
-                processTemplate(template, model);
+                renders.add(template, model);
               }
             }
           }
@@ -213,17 +222,19 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
         if (jackson1Context != null) {
           for (com.webcohesion.enunciate.modules.jackson1.model.TypeDefinition typeDefinition : jackson1Context.getTypeDefinitions()) {
             if (facetFilter.accept(typeDefinition)) {
-              if (useServerSide(typeDefinition, matcher)) {
+              if (useServerSide(typeDefinition, serverSideTypes)) {
                 copyServerSideType(sourceDir, typeDefinition);
               }
               else {
                 model.put("type", typeDefinition);
                 URL template = typeDefinition.isEnum() ? getTemplateURL("client-enum-type.fmt") : typeDefinition.isSimple() ? getTemplateURL("client-simple-type.fmt") : getTemplateURL("client-complex-type.fmt");
-                processTemplate(template, model);
+                renders.add(template, model);
               }
             }
           }
         }
+
+        renders.process();
       }
       catch (IOException e) {
         throw new EnunciateException(e);
@@ -264,33 +275,7 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new JavaJSONClientObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return this.enunciate.getTemplateEngine().processTemplate(templateURL, model, this.objectWrapper);
   }
 
   protected File getServerSideDestFile(File sourceDir, JavaFileObject sourceFile, TypeElement declaration) {
@@ -309,20 +294,12 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
   /**
    * Whether to use the server-side declaration for this declaration.
    *
-   * @param declaration The declaration.
-   * @param matcher     The matcher.
+   * @param declaration     The declaration.
+   * @param serverSideTypes The patterns of the server-side types to use.
    * @return Whether to use the server-side declaration for this declaration.
    */
-  protected boolean useServerSide(TypeElement declaration, AntPatternMatcher matcher) {
-    boolean useServerSide = false;
-
-    for (String pattern : getServerSideTypesToUse()) {
-      if (matcher.match(pattern, declaration.getQualifiedName().toString())) {
-        useServerSide = true;
-        break;
-      }
-    }
-    return useServerSide;
+  protected boolean useServerSide(TypeElement declaration, AntPatternSet serverSideTypes) {
+    return serverSideTypes.matches(declaration.getQualifiedName().toString());
   }
 
   /**
@@ -338,34 +315,46 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
     return pckg + "." + simpleName;
   }
 
-  protected File compileClientSources(File sourceDir) {
-    File compileDir = getCompileDir();
-    compileDir.mkdirs();
-
-    //Compile the java files.
-    if (!isDisableCompile()) {
-      if (!isUpToDateWithSources(compileDir)) {
-        List<File> sources = findJavaFiles(sourceDir);
-        if (sources != null && !sources.isEmpty()) {
-          String classpath = this.enunciate.writeClasspath(enunciate.getClasspath());
-          JavaCompiler compiler = JavacTool.create();
-          List<String> options = Arrays.asList("-source", getJavacSource(), "-target", getJavacTarget(), "-encoding", "UTF-8", "-cp", classpath, "-d", compileDir.getAbsolutePath(), "-nowarn");
-          JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, options, null, compiler.getStandardFileManager(null, null, null).getJavaFileObjectsFromFiles(sources));
-          if (!task.call()) {
-            throw new EnunciateException("Compile failed of Java JSON client-side classes.");
-          }
-        }
-        else {
-          debug("No Java JSON client classes to compile.");
-        }
-      }
-      else {
-        info("Skipping compilation of Java JSON client classes as everything appears up-to-date...");
-      }
+  /**
+   * Compile the client sources in memory, unless the client jar is up-to-date. The sources that were generated in this
+   * run are compiled from memory and the class files are kept in memory for packaging.
+   *
+   * @param sourceDir The source directory.
+   * @return The class files, by path, or null if the client jar isn't to be (re)built.
+   */
+  protected SortedMap<String, byte[]> compileClientSources(File sourceDir) {
+    if (isDisableCompile()) {
+      return null;
+    }
+
+    File clientJarFile = new File(getPackageDir(), getJarName());
+    if (isUpToDateWithSources(clientJarFile) || isUpToDateWithFiles(clientJarFile, sourceDir)) {
+      info("Skipping compilation of Java JSON client classes as everything appears up-to-date...");
+      return null;
     }
 
-    return compileDir;
+    List<File> sourceFiles = findJavaFiles(sourceDir);
+    if (sourceFiles.isEmpty()) {
+      debug("No Java JSON client classes to compile.");
+      return new TreeMap<String, byte[]>();
+    }
 
+    try {
+      List<JavaFileObject> sources = new ArrayList<JavaFileObject>(sourceFiles.size());
+      for (File sourceFile : sourceFiles) {
+        String content = this.generatedSources.get(sourceFile);
+        sources.add(content != null ? new GeneratedSource(sourceFile, content) : new Enunciate.URLFileObject(sourceFile.toURI().toURL(), "utf-8"));
+      }
+
+      SortedMap<String, byte[]> classes = this.enunciate.compile(sources, Arrays.asList("-source", getJavacSource(), "-target", getJavacTarget(), "-encoding", "UTF-8", "-nowarn"));
+      if (classes == null) {
+        throw new EnunciateException("Compile failed of Java JSON client-side classes.");
+      }
+      return classes;
+    }
+    catch (IOException e) {
+      throw new EnunciateException(e);
+    }
   }
 
   private List<File> findJavaFiles(File sourceDir) {
@@ -379,15 +368,11 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
     return javaFiles;
   }
 
-  protected File getCompileDir() {
-    return new File(new File(this.enunciate.getBuildDir(), getName()), "classes");
-  }
-
   protected File getResourcesDir() {
     return new File(new File(this.enunciate.getBuildDir(), getName()), "resources");
   }
 
-  protected File packageArtifacts(File sourceDir, File compileDir) {
+  protected File packageArtifacts(File sourceDir, SortedMap<String, byte[]> classes) {
     File packageDir = getPackageDir();
     packageDir.mkdirs();
 
@@ -397,15 +382,15 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
       File clientJarFile = null;
       if (!isDisableCompile()) {
         clientJarFile = new File(packageDir, jarName);
-        if (!isUpToDateWithSources(clientJarFile)) {
+        if (classes != null) {
           if (isBundleSourcesWithClasses()) {
-            boolean anyFiles = this.enunciate.zip(clientJarFile, sourceDir, compileDir);
+            boolean anyFiles = this.enunciate.zip(clientJarFile, classes, sourceDir);
             if (!anyFiles) {
               clientJarFile = null;
             }
           }
           else {
-            boolean anyFiles = this.enunciate.zip(clientJarFile, compileDir);
+            boolean anyFiles = this.enunciate.zip(clientJarFile, classes);
             if (!anyFiles) {
               clientJarFile = null;
             }
@@ -419,7 +404,7 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
       File clientSourcesJarFile = null;
       if (!isBundleSourcesWithClasses()) {
         clientSourcesJarFile = new File(packageDir, jarName.replaceFirst("\\.jar", "-json-sources.jar"));
-        if (!isUpToDateWithSources(clientSourcesJarFile)) {
+        if (!isUpToDateWithSources(clientSourcesJarFile) && !isUpToDateWithFiles(clientSourcesJarFile, sourceDir)) {
           boolean anyFiles = this.enunciate.zip(clientSourcesJarFile, sourceDir);
           if (!anyFiles) {
             clientSourcesJarFile = null;
@@ -466,6 +451,42 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
     return packageDir;
   }
 
+  @Override
+  protected Collection<? extends Element> getSourceElements() {
+    //the client is only generated from the data types, so a change to a resource (that isn't also a data type) doesn't change it.
+    Set<String> resources = new HashSet<String>();
+    if (this.jaxrsModule != null && this.jaxrsModule.getJaxrsContext() != null) {
+      for (RootResource rootResource : this.jaxrsModule.getJaxrsContext().getRootResources()) {
+        resources.add(rootResource.getQualifiedName().toString());
+      }
+    }
+    resources.removeAll(getGeneratedTypeNames());
+
+    List<Element> sourceElements = new ArrayList<Element>();
+    for (Element apiElement : super.getSourceElements()) {
+      if (!(apiElement instanceof TypeElement) || !resources.contains(((TypeElement) apiElement).getQualifiedName().toString())) {
+        sourceElements.add(apiElement);
+      }
+    }
+    return sourceElements;
+  }
+
+  @Override
+  protected Collection<String> getGeneratedTypeNames() {
+    Set<String> typeNames = new TreeSet<String>();
+    if (this.jacksonModule != null && this.jacksonModule.getJacksonContext() != null) {
+      for (TypeDefinition typeDefinition : this.jacksonModule.getJacksonContext().getTypeDefinitions()) {
+        typeNames.add(typeDefinition.getQualifiedName().toString());
+      }
+    }
+    if (this.jackson1Module != null && this.jackson1Module.getJacksonContext() != null) {
+      for (com.webcohesion.enunciate.modules.jackson1.model.TypeDefinition typeDefinition : this.jackson1Module.getJacksonContext().getTypeDefinitions()) {
+        typeNames.add(typeDefinition.getQualifiedName().toString());
+      }
+    }
+    return typeNames;
+  }
+
   protected File getPackageDir() {
     return new File(new File(this.enunciate.getBuildDir(), getName()), "build");
   }
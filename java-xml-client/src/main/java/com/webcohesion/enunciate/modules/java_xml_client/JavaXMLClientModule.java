@@ -15,10 +15,10 @@
  */
 package com.webcohesion.enunciate.modules.java_xml_client;
 
-import com.sun.tools.javac.api.JavacTool;
 import com.webcohesion.enunciate.Enunciate;
 import com.webcohesion.enunciate.EnunciateContext;
 import com.webcohesion.enunciate.EnunciateException;
+import com.webcohesion.enunciate.EnunciateMetrics;
 import com.webcohesion.enunciate.api.DefaultRegistrationContext;
 import com.webcohesion.enunciate.api.resources.MediaTypeDescriptor;
 import com.webcohesion.enunciate.api.resources.Method;
@@ -31,6 +31,7 @@ import com.webcohesion.enunciate.facets.FacetFilter;
 import com.webcohesion.enunciate.javac.decorations.SourcePosition;
 import com.webcohesion.enunciate.metadata.DocumentationExample;
 import com.webcohesion.enunciate.module.*;
+import com.webcohesion.enunciate.modules.idl.IDLModule;
 import com.webcohesion.enunciate.modules.jaxb.EnunciateJaxbContext;
 import com.webcohesion.enunciate.modules.jaxb.JaxbModule;
 import com.webcohesion.enunciate.modules.jaxb.api.impl.SyntaxImpl;
@@ -43,24 +44,19 @@ import com.webcohesion.enunciate.modules.jaxrs.JaxrsModule;
 import com.webcohesion.enunciate.modules.jaxws.JaxwsModule;
 import com.webcohesion.enunciate.modules.jaxws.WsdlInfo;
 import com.webcohesion.enunciate.modules.jaxws.model.*;
-import com.webcohesion.enunciate.util.AntPatternMatcher;
+import com.webcohesion.enunciate.util.AntPatternSet;
+import com.webcohesion.enunciate.util.GeneratedSource;
 import com.webcohesion.enunciate.util.freemarker.*;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
-import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import java.io.*;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Ryan Heaton
@@ -69,6 +65,9 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
 
   private static final String LIRBARY_DESCRIPTION_PROPERTY = "com.webcohesion.enunciate.modules.java_xml_client.EnunciateJavaXMLClientModule#LIRBARY_DESCRIPTION_PROPERTY";
 
+  private final JavaXMLClientObjectWrapper objectWrapper = new JavaXMLClientObjectWrapper();
+  private final Map<File, String> generatedSources = new ConcurrentHashMap<File, String>();
+
   JaxbModule jaxbModule;
   JaxwsModule jaxwsModule;
   JaxrsModule jaxrsModule;
@@ -98,6 +97,10 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
           jaxrsModule = (JaxrsModule) module;
           return true;
         }
+        else if (module instanceof IDLModule) {
+          //the idl module assigns the schema and wsdl files that the generated client references.
+          return true;
+        }
 
         return module instanceof ApiRegistryProviderModule;
       }
@@ -109,7 +112,7 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
 
       @Override
       public String toString() {
-        return "optional jaxb, optional jaxws, optional jaxrs";
+        return "optional jaxb, optional jaxws, optional jaxrs, optional idl";
       }
     });
   }
@@ -136,15 +139,23 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
     }
 
     File sourceDir = generateClientSources();
-    File compileDir = compileClientSources(sourceDir);
     File resourcesDir = copyResources();
+    SortedMap<String, byte[]> classes;
+    EnunciateMetrics.Phase compilePhase = this.enunciate.getMetrics().start(getName() + " compile");
+    try {
+      classes = compileClientSources(sourceDir, resourcesDir);
+    }
+    finally {
+      compilePhase.stop();
+    }
 
-    packageArtifacts(sourceDir, resourcesDir, compileDir);
+    packageArtifacts(sourceDir, resourcesDir, classes);
   }
 
   protected File generateClientSources() {
     File sourceDir = getSourceDir();
     sourceDir.mkdirs();
+    this.generatedSources.clear();
 
     Map<String, Object> model = new HashMap<String, Object>();
 
@@ -154,7 +165,7 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
     model.put("packageFor", new ClientPackageForMethod(conversions, this.context));
     model.put("classnameFor", classnameFor);
     model.put("simpleNameFor", new SimpleNameForMethod(classnameFor));
-    model.put("file", new FileDirective(sourceDir, this.enunciate.getLogger()));
+    model.put("file", new FileDirective(sourceDir, this.enunciate.getLogger(), this.generatedSources));
     model.put("generatedCodeLicense", this.enunciate.getConfiguration().readGeneratedCodeLicenseFile());
     model.put("annotationValue", new AnnotationValueMethod());
 
@@ -171,9 +182,9 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
       try {
         debug("Generating the Java client classes...");
 
+        TemplateRenderBatch renders = this.enunciate.createTemplateRenderBatch(this.objectWrapper);
         HashMap<String, WebFault> allFaults = new HashMap<String, WebFault>();
-        AntPatternMatcher matcher = new AntPatternMatcher();
-        matcher.setPathSeparator(".");
+        AntPatternSet serverSideTypes = new AntPatternSet(getServerSideTypesToUse());
 
         if (this.jaxwsModule != null) {
           Set<String> seeAlsos = new TreeSet<String>();
@@ -187,12 +198,12 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
                     for (WebMessage webMessage : webMethod.getMessages()) {
                       if (webMessage instanceof RequestWrapper) {
                         model.put("message", webMessage);
-                        processTemplate(getTemplateURL("client-request-bean.fmt"), model);
+                        renders.add(getTemplateURL("client-request-bean.fmt"), model);
                         seeAlsos.add(getBeanName(classnameFor, ((RequestWrapper) webMessage).getRequestBeanName()));
                       }
                       else if (webMessage instanceof ResponseWrapper) {
                         model.put("message", webMessage);
-                        processTemplate(getTemplateURL("client-response-bean.fmt"), model);
+                        renders.add(getTemplateURL("client-response-bean.fmt"), model);
                         seeAlsos.add(getBeanName(classnameFor, ((ResponseWrapper) webMessage).getResponseBeanName()));
                       }
                       else if (webMessage instanceof WebFault) {
@@ -214,7 +225,7 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
 
             if (implicit) {
               model.put("fault", webFault);
-              processTemplate(getTemplateURL("client-fault-bean.fmt"), model);
+              renders.add(getTemplateURL("client-fault-bean.fmt"), model);
             }
           }
 
@@ -230,14 +241,14 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
                 model.put("endpointInterface", ei);
                 model.put("wsdlFileName", wsdlInfo.getFilename());
 
-                processTemplate(getTemplateURL("client-endpoint-interface.fmt"), model);
-                processTemplate(getTemplateURL("client-soap-endpoint-impl.fmt"), model);
+                renders.add(getTemplateURL("client-endpoint-interface.fmt"), model);
+                renders.add(getTemplateURL("client-soap-endpoint-impl.fmt"), model);
               }
             }
           }
 
           for (WebFault webFault : allFaults.values()) {
-            if (useServerSide(webFault, matcher)) {
+            if (useServerSide(webFault, serverSideTypes)) {
               copyServerSideType(sourceDir, webFault);
             }
             else {
@@ -250,7 +261,7 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
               }
 
               model.put("fault", webFault);
-              processTemplate(getTemplateURL("client-web-fault.fmt"), model);
+              renders.add(getTemplateURL("client-web-fault.fmt"), model);
             }
           }
         }
@@ -258,23 +269,26 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
         for (SchemaInfo schemaInfo : this.jaxbModule.getJaxbContext().getSchemas().values()) {
           for (TypeDefinition typeDefinition : schemaInfo.getTypeDefinitions()) {
             if (facetFilter.accept(typeDefinition)) {
-              if (useServerSide(typeDefinition, matcher)) {
+              if (useServerSide(typeDefinition, serverSideTypes)) {
                 copyServerSideType(sourceDir, typeDefinition);
               }
               else {
                 model.put("rootEl", this.jaxbModule.getJaxbContext().findElementDeclaration(typeDefinition));
                 model.put("type", typeDefinition);
                 URL template = typeDefinition.isEnum() ? typeDefinition instanceof QNameEnumTypeDefinition ? getTemplateURL("client-qname-enum-type.fmt") : getTemplateURL("client-enum-type.fmt") : typeDefinition.isSimple() ? getTemplateURL("client-simple-type.fmt") : getTemplateURL("client-complex-type.fmt");
-                processTemplate(template, model);
+                renders.add(template, model);
               }
             }
           }
 
           for (Registry registry : schemaInfo.getRegistries()) {
             model.put("registry", registry);
-            processTemplate(getTemplateURL("client-registry.fmt"), model);
+            renders.add(getTemplateURL("client-registry.fmt"), model);
           }
         }
+
+        debug("Rendering %s Java client source files...", renders.size());
+        renders.process();
       }
       catch (IOException e) {
         throw new EnunciateException(e);
@@ -315,33 +329,7 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new JavaXMLClientObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return this.enunciate.getTemplateEngine().processTemplate(templateURL, model, this.objectWrapper);
   }
 
   protected File getServerSideDestFile(File sourceDir, JavaFileObject sourceFile, TypeElement declaration) {
@@ -360,20 +348,12 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
   /**
    * Whether to use the server-side declaration for this declaration.
    *
-   * @param declaration The declaration.
-   * @param matcher     The matcher.
+   * @param declaration     The declaration.
+   * @param serverSideTypes The patterns of the server-side types to use.
    * @return Whether to use the server-side declaration for this declaration.
    */
-  protected boolean useServerSide(TypeElement declaration, AntPatternMatcher matcher) {
-    boolean useServerSide = false;
-
-    for (String pattern : getServerSideTypesToUse()) {
-      if (matcher.match(pattern, declaration.getQualifiedName().toString())) {
-        useServerSide = true;
-        break;
-      }
-    }
-    return useServerSide;
+  protected boolean useServerSide(TypeElement declaration, AntPatternSet serverSideTypes) {
+    return serverSideTypes.matches(declaration.getQualifiedName().toString());
   }
 
   /**
@@ -389,34 +369,47 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
     return pckg + "." + simpleName;
   }
 
-  protected File compileClientSources(File sourceDir) {
-    File compileDir = getCompileDir();
-    compileDir.mkdirs();
-
-    //Compile the java files.
-    if (!isDisableCompile()) {
-      if (!isUpToDateWithSources(compileDir)) {
-        List<File> sources = findJavaFiles(sourceDir);
-        if (sources != null && !sources.isEmpty()) {
-          String classpath = this.enunciate.writeClasspath(enunciate.getClasspath());
-          JavaCompiler compiler = JavacTool.create();
-          List<String> options = Arrays.asList("-source", getJavacSource(), "-target", getJavacTarget(), "-encoding", "UTF-8", "-cp", classpath, "-d", compileDir.getAbsolutePath(), "-nowarn");
-          JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, options, null, compiler.getStandardFileManager(null, null, null).getJavaFileObjectsFromFiles(sources));
-          if (!task.call()) {
-            throw new EnunciateException("Compile failed of Java client-side classes.");
-          }
-        }
-        else {
-          debug("No Java XML client classes to compile.");
-        }
-      }
-      else {
-        info("Skipping compilation of Java client classes as everything appears up-to-date...");
-      }
+  /**
+   * Compile the client sources in memory, unless the client jar is up-to-date. The sources that were generated in this
+   * run are compiled from memory and the class files are kept in memory for packaging.
+   *
+   * @param sourceDir    The source directory.
+   * @param resourcesDir The resources directory.
+   * @return The class files, by path, or null if the client jar isn't to be (re)built.
+   */
+  protected SortedMap<String, byte[]> compileClientSources(File sourceDir, File resourcesDir) {
+    if (isDisableCompile()) {
+      return null;
+    }
+
+    File clientJarFile = new File(getPackageDir(), getJarName());
+    if (isUpToDateWithSources(clientJarFile) || isUpToDateWithFiles(clientJarFile, sourceDir, resourcesDir)) {
+      info("Skipping compilation of Java client classes as everything appears up-to-date...");
+      return null;
+    }
+
+    List<File> sourceFiles = findJavaFiles(sourceDir);
+    if (sourceFiles.isEmpty()) {
+      debug("No Java XML client classes to compile.");
+      return new TreeMap<String, byte[]>();
     }
 
-    return compileDir;
+    try {
+      List<JavaFileObject> sources = new ArrayList<JavaFileObject>(sourceFiles.size());
+      for (File sourceFile : sourceFiles) {
+        String content = this.generatedSources.get(sourceFile);
+        sources.add(content != null ? new GeneratedSource(sourceFile, content) : new Enunciate.URLFileObject(sourceFile.toURI().toURL(), "utf-8"));
+      }
 
+      SortedMap<String, byte[]> classes = this.enunciate.compile(sources, Arrays.asList("-source", getJavacSource(), "-target", getJavacTarget(), "-encoding", "UTF-8", "-nowarn"));
+      if (classes == null) {
+        throw new EnunciateException("Compile failed of Java client-side classes.");
+      }
+      return classes;
+    }
+    catch (IOException e) {
+      throw new EnunciateException(e);
+    }
   }
 
   private List<File> findJavaFiles(File sourceDir) {
@@ -430,10 +423,6 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
     return javaFiles;
   }
 
-  protected File getCompileDir() {
-    return new File(new File(this.enunciate.getBuildDir(), getName()), "classes");
-  }
-
   protected File copyResources() {
     File resourcesDir = getResourcesDir();
     resourcesDir.mkdirs();
@@ -465,7 +454,7 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
     return new File(new File(this.enunciate.getBuildDir(), getName()), "resources");
   }
 
-  protected File packageArtifacts(File sourceDir, File resourcesDir, File compileDir) {
+  protected File packageArtifacts(File sourceDir, File resourcesDir, SortedMap<String, byte[]> classes) {
     File packageDir = getPackageDir();
     packageDir.mkdirs();
 
@@ -475,15 +464,15 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
       File clientJarFile = null;
       if (!isDisableCompile()) {
         clientJarFile = new File(packageDir, jarName);
-        if (!isUpToDateWithSources(clientJarFile)) {
+        if (classes != null) {
           if (isBundleSourcesWithClasses()) {
-            boolean anyFiles = this.enunciate.zip(clientJarFile, sourceDir, resourcesDir, compileDir);
+            boolean anyFiles = this.enunciate.zip(clientJarFile, classes, sourceDir, resourcesDir);
             if (!anyFiles) {
               clientJarFile = null;
             }
           }
           else {
-            boolean anyFiles = this.enunciate.zip(clientJarFile, resourcesDir, compileDir);
+            boolean anyFiles = this.enunciate.zip(clientJarFile, classes, resourcesDir);
             if (!anyFiles) {
               clientJarFile = null;
             }
@@ -497,7 +486,7 @@ public class JavaXMLClientModule extends BasicGeneratingModule implements ApiFea
       File clientSourcesJarFile = null;
       if (!isBundleSourcesWithClasses()) {
         clientSourcesJarFile = new File(packageDir, jarName.replaceFirst("\\.jar", "-xml-sources.jar"));
-        if (!isUpToDateWithSources(clientSourcesJarFile)) {
+        if (!isUpToDateWithSources(clientSourcesJarFile) && !isUpToDateWithFiles(clientSourcesJarFile, sourceDir, resourcesDir)) {
           boolean anyFiles = this.enunciate.zip(clientSourcesJarFile, sourceDir, resourcesDir);
           if (!anyFiles) {
             clientSourcesJarFile = null;
@@ -21,6 +21,7 @@ import com.sun.source.util.TreePath;
 import com.sun.source.util.Trees;
 import com.webcohesion.enunciate.javac.decorations.adaptors.ElementAdaptor;
 import com.webcohesion.enunciate.javac.decorations.element.DecoratedElement;
+import com.webcohesion.enunciate.javac.decorations.type.TypeRelationships;
 
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
@@ -33,6 +34,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Ryan Heaton
@@ -45,6 +48,10 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
   private final List<ElementDecoration> elementDecorations;
   private final List<TypeMirrorDecoration> typeMirrorDecorations;
   private final List<AnnotationMirrorDecoration> annotationMirrorDecorations;
+  private final ConcurrentMap<IdentityKey, Element> decoratedElements = new ConcurrentHashMap<IdentityKey, Element>();
+  private final AtomicLong decorationCacheHits = new AtomicLong();
+  private final AtomicLong decorationCacheMisses = new AtomicLong();
+  private final TypeRelationships typeRelationships;
 
   public DecoratedProcessingEnvironment(ProcessingEnvironment delegate, List<ElementDecoration> elementDecorations, List<TypeMirrorDecoration> typeMirrorDecorations, List<AnnotationMirrorDecoration> annotationMirrorDecorations) {
     this.elementDecorations = elementDecorations;
@@ -55,6 +62,7 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
     }
     this.delegate = delegate;
     this.trees = Trees.instance(delegate);
+    this.typeRelationships = new TypeRelationships(delegate.getTypeUtils(), this, TypeRelationships.DEFAULT_CAPACITY);
   }
 
   @Override
@@ -123,6 +131,63 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
     }
   }
 
+  /**
+   * Look up the decorated element for the specified (undecorated) element.
+   *
+   * @param element The element.
+   * @return The decorated element, or null if the element hasn't been decorated yet.
+   */
+  public Element getDecoratedElement(Element element) {
+    Element decorated = this.decoratedElements.get(new IdentityKey(element));
+    if (decorated == null) {
+      this.decorationCacheMisses.incrementAndGet();
+    }
+    else {
+      this.decorationCacheHits.incrementAndGet();
+    }
+    return decorated;
+  }
+
+  /**
+   * Cache the decorated element for the specified (undecorated) element.
+   *
+   * @param element The element.
+   * @param decorated The decorated element.
+   * @return The decorated element that's cached, which is a different instance if another thread cached it first.
+   */
+  public Element cacheDecoratedElement(Element element, Element decorated) {
+    Element existing = this.decoratedElements.putIfAbsent(new IdentityKey(element), decorated);
+    return existing == null ? decorated : existing;
+  }
+
+  /**
+   * Clear the cache of decorated elements, e.g. because the element decorations have changed.
+   */
+  public void clearDecorationCache() {
+    this.decoratedElements.clear();
+  }
+
+  /**
+   * @return The number of element decorations that were served from the cache.
+   */
+  public long getDecorationCacheHits() {
+    return this.decorationCacheHits.get();
+  }
+
+  /**
+   * @return The number of element decorations that weren't served from the cache.
+   */
+  public long getDecorationCacheMisses() {
+    return this.decorationCacheMisses.get();
+  }
+
+  /**
+   * @return The (cached) relationships between types.
+   */
+  public TypeRelationships getTypeRelationships() {
+    return typeRelationships;
+  }
+
   public List<ElementDecoration> getElementDecorations() {
     return elementDecorations;
   }
@@ -134,4 +199,25 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
   public List<AnnotationMirrorDecoration> getAnnotationMirrorDecorations() {
     return annotationMirrorDecorations;
   }
+
+  /**
+   * Elements are cached by identity: javac symbols are canonical, but (e.g.) element adaptors may define equality more loosely.
+   */
+  private static final class IdentityKey {
+    private final Element element;
+
+    private IdentityKey(Element element) {
+      this.element = element;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IdentityKey && ((IdentityKey) o).element == this.element;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.element);
+    }
+  }
 }
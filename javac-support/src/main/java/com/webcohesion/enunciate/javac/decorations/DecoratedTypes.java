@@ -152,7 +152,7 @@ public class DecoratedTypes implements Types {
       t2 = ((DecoratedTypeMirror) t2).getDelegate();
     }
 
-    return delegate.isSubtype(t1, t2);
+    return this.env.getTypeRelationships().isSubtype(t1, t2);
   }
 
   public TypeElement boxedClass(PrimitiveType p) {
@@ -204,7 +204,7 @@ public class DecoratedTypes implements Types {
       t2 = ((DecoratedTypeMirror) t2).getDelegate();
     }
 
-    return delegate.isAssignable(t1, t2);
+    return this.env.getTypeRelationships().isAssignable(t1, t2);
   }
 
   public List<? extends TypeMirror> directSupertypes(TypeMirror t) {
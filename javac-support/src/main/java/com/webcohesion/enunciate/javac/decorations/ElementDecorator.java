@@ -53,8 +53,14 @@ public class ElementDecorator<E extends Element> extends SimpleElementVisitor6<E
       return element;
     }
 
-    ElementDecorator<E> decorator = new ElementDecorator<E>(env);
-    return element.accept(decorator, null);
+    //each element is decorated only once per environment so that the decorations (and the lazily-loaded state
+    //of the decorated element) aren't recomputed every time the element is visited.
+    E decorated = (E) env.getDecoratedElement(element);
+    if (decorated == null) {
+      ElementDecorator<E> decorator = new ElementDecorator<E>(env);
+      decorated = (E) env.cacheDecoratedElement(element, element.accept(decorator, null));
+    }
+    return decorated;
   }
 
   /**
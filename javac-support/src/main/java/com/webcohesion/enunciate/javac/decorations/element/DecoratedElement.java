@@ -31,18 +31,20 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @SuppressWarnings("unchecked")
 public class DecoratedElement<E extends Element> implements Element {
 
   protected final E delegate;
   protected final DecoratedProcessingEnvironment env;
-  private final HashMap<JavaDocTagHandler, JavaDoc> javaDocs = new HashMap<JavaDocTagHandler, JavaDoc>();
+  private final ConcurrentMap<JavaDocTagHandler, JavaDoc> javaDocs = new ConcurrentHashMap<JavaDocTagHandler, JavaDoc>();
   private TypeMirror type;
   private Element enclosingElement;
   private List<? extends Element> enclosedElements;
   private List<AnnotationMirror> annotationMirrors;
-  private Map<String, AnnotationMirror> annotations = null;
+  private volatile Map<String, AnnotationMirror> annotations = null;
 
   public DecoratedElement(E delegate, DecoratedProcessingEnvironment env) {
     this.delegate = delegate;
@@ -231,13 +233,15 @@ public class DecoratedElement<E extends Element> implements Element {
    */
   public Map<String, AnnotationMirror> getAnnotations() {
     if (this.annotations == null) {
-      this.annotations = new HashMap<String, AnnotationMirror>();
+      //decorated elements are shared, so the map is only published once it's complete.
+      Map<String, AnnotationMirror> annotations = new HashMap<String, AnnotationMirror>();
       for (AnnotationMirror annotationMirror : getAnnotationMirrors()) {
         DeclaredType annotationType = annotationMirror.getAnnotationType();
         if ((annotationType != null) && (annotationType.asElement() instanceof TypeElement)) {
           annotations.put(((TypeElement)annotationType.asElement()).getQualifiedName().toString(), annotationMirror);
         }
       }
+      this.annotations = annotations;
     }
 
     return this.annotations;
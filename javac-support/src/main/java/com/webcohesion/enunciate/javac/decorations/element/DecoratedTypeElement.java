@@ -28,6 +28,8 @@ import java.lang.annotation.Inherited;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A decorated type declaration provides:
@@ -41,7 +43,7 @@ import java.util.List;
 public class DecoratedTypeElement extends DecoratedElement<TypeElement> implements TypeElement {
 
   private PackageElement pckg;
-  private List<PropertyElement> properties;
+  private final ConcurrentMap<Class<?>, List<PropertyElement>> properties = new ConcurrentHashMap<Class<?>, List<PropertyElement>>();
   private TypeMirror superclass;
   private List<? extends TypeMirror> interfaces;
   private List<ExecutableElement> methods;
@@ -125,11 +127,14 @@ public class DecoratedTypeElement extends DecoratedElement<TypeElement> implemen
   }
 
   public List<PropertyElement> getProperties(PropertySpec spec) {
-    if (this.properties == null) {
-      this.properties = loadProperties(spec);
+    //decorated elements are shared, so the properties are cached by the kind of spec that was used to load them.
+    List<PropertyElement> properties = this.properties.get(spec.getClass());
+    if (properties == null) {
+      properties = loadProperties(spec);
+      this.properties.put(spec.getClass(), properties);
     }
 
-    return this.properties;
+    return properties;
   }
 
   public List<VariableElement> enumValues() {
@@ -70,11 +70,11 @@ public class DecoratedTypeMirror<T extends TypeMirror> implements TypeMirror {
   }
 
   public boolean isInstanceOf(Class<?> clazz) {
-    return isInstanceOf(TypeMirrorUtils.mirrorOf(clazz, this.env));
+    return isInstanceOf(this.env.getTypeRelationships().mirrorOf(clazz));
   }
 
   public boolean isInstanceOf(String typeName) {
-    return isInstanceOf(TypeMirrorUtils.mirrorOf(typeName, this.env));
+    return isInstanceOf(this.env.getTypeRelationships().mirrorOf(typeName));
   }
 
   public boolean isInstanceOf(Element type) {
@@ -87,7 +87,7 @@ public class DecoratedTypeMirror<T extends TypeMirror> implements TypeMirror {
       getKind() != TypeKind.PACKAGE &&
       candidate.getKind() != TypeKind.EXECUTABLE &&
       candidate.getKind() != TypeKind.PACKAGE &&
-      this.env.getTypeUtils().isAssignable(this.delegate, candidate);
+      this.env.getTypeRelationships().isAssignable(this.delegate, candidate);
   }
 
   public boolean isAnnotation() {
@@ -80,7 +80,7 @@ public class TypeMirrorUtils {
     DecoratedDeclaredType collectionType = (DecoratedDeclaredType) env.getProperty(COLLECTION_TYPE_ERASURE_PROPERTY);
     if (collectionType == null) {
       collectionType = (DecoratedDeclaredType) env.getTypeUtils().erasure(collectionType(env));
-      env.setProperty(COLLECTION_TYPE_PROPERTY, collectionType);
+      env.setProperty(COLLECTION_TYPE_ERASURE_PROPERTY, collectionType);
     }
     return collectionType;
   }
@@ -98,7 +98,7 @@ public class TypeMirrorUtils {
     DecoratedDeclaredType listType = (DecoratedDeclaredType) env.getProperty(LIST_TYPE_ERASURE_PROPERTY);
     if (listType == null) {
       listType = (DecoratedDeclaredType) env.getTypeUtils().erasure(listType(env));
-      env.setProperty(LIST_TYPE_PROPERTY, listType);
+      env.setProperty(LIST_TYPE_ERASURE_PROPERTY, listType);
     }
     return listType;
   }
@@ -0,0 +1,292 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.javac.decorations.type;
+
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.*;
+import javax.lang.model.util.Types;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers (and remembers) questions about the relationships between types, e.g. whether one type is assignable to
+ * another. The same questions get asked over and over again (e.g. whether every accessor of every type is a collection),
+ * so the answers are cached for types that are fully identified by their elements: primitives, non-generic or raw
+ * declared types, generic declarations (e.g. <code>java.util.List&lt;E&gt;</code>) and arrays of these. Other types are
+ * always passed through to the underlying type utilities.
+ *
+ * @author Ryan Heaton
+ */
+public class TypeRelationships {
+
+  public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+  private static final Object UNKNOWN_MIRROR = new Object();
+
+  private final Types types;
+  private final DecoratedProcessingEnvironment env;
+  private final int capacity;
+  private final ConcurrentMap<Class<?>, DecoratedTypeMirror> mirrorsByClass = new ConcurrentHashMap<Class<?>, DecoratedTypeMirror>();
+  private final ConcurrentMap<String, Object> mirrorsByName = new ConcurrentHashMap<String, Object>();
+  private final ConcurrentMap<RelationKey, Boolean> relations = new ConcurrentHashMap<RelationKey, Boolean>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param types    The (undecorated) type utilities.
+   * @param env      The processing environment.
+   * @param capacity The maximum number of answers to remember.
+   */
+  public TypeRelationships(Types types, DecoratedProcessingEnvironment env, int capacity) {
+    this.types = types;
+    this.env = env;
+    this.capacity = capacity;
+  }
+
+  /**
+   * The (interned) mirror of the specified class.
+   *
+   * @param clazz The class.
+   * @return The mirror.
+   */
+  public DecoratedTypeMirror mirrorOf(Class<?> clazz) {
+    DecoratedTypeMirror mirror = this.mirrorsByClass.get(clazz);
+    if (mirror == null) {
+      mirror = TypeMirrorUtils.mirrorOf(clazz, this.env);
+      this.mirrorsByClass.put(clazz, mirror);
+    }
+    return mirror;
+  }
+
+  /**
+   * The (interned) mirror of the specified type name.
+   *
+   * @param typeName The type name.
+   * @return The mirror, or null if the name doesn't resolve to a type.
+   */
+  public DecoratedTypeMirror mirrorOf(String typeName) {
+    Object mirror = this.mirrorsByName.get(typeName);
+    if (mirror == null) {
+      mirror = TypeMirrorUtils.mirrorOf(typeName, this.env);
+      this.mirrorsByName.put(typeName, mirror == null ? UNKNOWN_MIRROR : mirror);
+    }
+    return mirror == UNKNOWN_MIRROR ? null : (DecoratedTypeMirror) mirror;
+  }
+
+  /**
+   * Whether <code>t1</code> is assignable to <code>t2</code>.
+   *
+   * @see Types#isAssignable(TypeMirror, TypeMirror)
+   */
+  public boolean isAssignable(TypeMirror t1, TypeMirror t2) {
+    t1 = undecorate(t1);
+    t2 = undecorate(t2);
+    RelationKey key = RelationKey.of(false, t1, t2);
+    if (key == null) {
+      return this.types.isAssignable(t1, t2);
+    }
+
+    Boolean answer = this.relations.get(key);
+    if (answer == null) {
+      this.misses.incrementAndGet();
+      answer = this.types.isAssignable(t1, t2);
+      remember(key, answer);
+    }
+    else {
+      this.hits.incrementAndGet();
+    }
+    return answer;
+  }
+
+  /**
+   * Whether <code>t1</code> is a subtype of <code>t2</code>.
+   *
+   * @see Types#isSubtype(TypeMirror, TypeMirror)
+   */
+  public boolean isSubtype(TypeMirror t1, TypeMirror t2) {
+    t1 = undecorate(t1);
+    t2 = undecorate(t2);
+    RelationKey key = RelationKey.of(true, t1, t2);
+    if (key == null) {
+      return this.types.isSubtype(t1, t2);
+    }
+
+    Boolean answer = this.relations.get(key);
+    if (answer == null) {
+      this.misses.incrementAndGet();
+      answer = this.types.isSubtype(t1, t2);
+      remember(key, answer);
+    }
+    else {
+      this.hits.incrementAndGet();
+    }
+    return answer;
+  }
+
+  private void remember(RelationKey key, Boolean answer) {
+    if (this.relations.size() >= this.capacity) {
+      //crude, but the working set of a build is far smaller than the capacity.
+      this.relations.clear();
+    }
+    this.relations.put(key, answer);
+  }
+
+  /**
+   * @return The number of questions that were answered from the cache.
+   */
+  public long getHits() {
+    return this.hits.get();
+  }
+
+  /**
+   * @return The number of (cacheable) questions that had to be passed through to the type utilities.
+   */
+  public long getMisses() {
+    return this.misses.get();
+  }
+
+  private static TypeMirror undecorate(TypeMirror t) {
+    while (t instanceof DecoratedTypeMirror) {
+      t = ((DecoratedTypeMirror) t).getDelegate();
+    }
+    return t;
+  }
+
+  /**
+   * The key identifying a type, or null if the type can't be identified by its element.
+   *
+   * @param t The (undecorated) type.
+   * @return The key.
+   */
+  static Object keyOf(TypeMirror t) {
+    TypeKind kind = t.getKind();
+    if (kind.isPrimitive()) {
+      return kind;
+    }
+    else if (kind == TypeKind.ARRAY) {
+      Object componentKey = keyOf(((ArrayType) t).getComponentType());
+      return componentKey == null ? null : new TypeKey(componentKey, TypeKey.ARRAY);
+    }
+    else if (kind == TypeKind.DECLARED) {
+      DeclaredType declaredType = (DeclaredType) t;
+      if (declaredType.getEnclosingType().getKind() != TypeKind.NONE) {
+        //inner class of a (possibly parameterized) type.
+        return null;
+      }
+
+      Element element = declaredType.asElement();
+      List<? extends TypeMirror> typeArgs = declaredType.getTypeArguments();
+      if (typeArgs.isEmpty()) {
+        return new TypeKey(element, TypeKey.PLAIN);
+      }
+
+      List<? extends Element> typeParameters = ((TypeElement) element).getTypeParameters();
+      if (typeArgs.size() != typeParameters.size()) {
+        return null;
+      }
+
+      for (int i = 0; i < typeArgs.size(); i++) {
+        TypeMirror typeArg = typeArgs.get(i);
+        if (typeArg.getKind() != TypeKind.TYPEVAR || ((TypeVariable) typeArg).asElement() != typeParameters.get(i)) {
+          return null;
+        }
+      }
+      return new TypeKey(element, TypeKey.GENERIC);
+    }
+
+    return null;
+  }
+
+  private static final class TypeKey {
+    static final int PLAIN = 0;
+    static final int GENERIC = 1;
+    static final int ARRAY = 2;
+
+    private final Object base;
+    private final int form;
+
+    private TypeKey(Object base, int form) {
+      this.base = base;
+      this.form = form;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof TypeKey)) {
+        return false;
+      }
+
+      TypeKey other = (TypeKey) o;
+      //elements are compared by identity.
+      return this.form == other.form && (this.form == ARRAY ? this.base.equals(other.base) : this.base == other.base);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (this.form == ARRAY ? this.base.hashCode() : System.identityHashCode(this.base)) + this.form;
+    }
+  }
+
+  private static final class RelationKey {
+    private final boolean subtype;
+    private final Object t1;
+    private final Object t2;
+
+    private RelationKey(boolean subtype, Object t1, Object t2) {
+      this.subtype = subtype;
+      this.t1 = t1;
+      this.t2 = t2;
+    }
+
+    static RelationKey of(boolean subtype, TypeMirror t1, TypeMirror t2) {
+      if (t1 == null || t2 == null) {
+        return null;
+      }
+
+      Object k1 = keyOf(t1);
+      if (k1 == null) {
+        return null;
+      }
+
+      Object k2 = keyOf(t2);
+      if (k2 == null) {
+        return null;
+      }
+
+      return new RelationKey(subtype, k1, k2);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof RelationKey)) {
+        return false;
+      }
+
+      RelationKey other = (RelationKey) o;
+      return this.subtype == other.subtype && this.t1.equals(other.t1) && this.t2.equals(other.t2);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * this.t1.hashCode() + this.t2.hashCode()) + (this.subtype ? 1 : 0);
+    }
+  }
+}
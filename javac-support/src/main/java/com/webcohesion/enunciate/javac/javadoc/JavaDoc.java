@@ -26,23 +26,19 @@ import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
-import java.io.*;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static java.lang.Math.min;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
 
   public static final JavaDoc EMPTY = new JavaDoc("");
 
-  private static final Pattern INLINE_TAG_PATTERN = Pattern.compile("\\{@([^\\} ]+) ?(.*?)\\}");
-  private static final Pattern INHERITDOC_PATTERN = Pattern.compile("\\{@inheritDoc(.*?)\\}");
-  private static final char[] WHITESPACE_CHARS = new char[]{' ', '\t', '\n', 0x0B, '\f', '\r'};
+  private static final String PARSED_JAVADOCS_PROPERTY = "com.webcohesion.enunciate.javac.javadoc.JavaDoc#PARSED_JAVADOCS";
+  private static final String OVERRIDDEN_METHODS_PROPERTY = "com.webcohesion.enunciate.javac.javadoc.JavaDoc#OVERRIDDEN_METHODS";
 
   protected String value;
 
@@ -55,52 +51,12 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
   }
 
   protected void init(String docComment, JavaDocTagHandler tagHandler, DecoratedElement context, DecoratedProcessingEnvironment env) {
-    if (docComment == null) {
-      value = "";
-    }
-    else {
-      BufferedReader reader = new BufferedReader(new StringReader(docComment));
-      StringWriter currentValue = new StringWriter();
-      PrintWriter out = new PrintWriter(currentValue);
-      String currentTag = null;
-      boolean preformatting = false;
-      try {
-        String line = reader.readLine();
-        while (line != null) {
-          if (!preformatting) {
-            line = line.trim();
-          }
-          if (line.startsWith("@")) { //it's a javadoc block tag.
-
-            //push and clear our current value.
-            pushValue(currentTag, currentValue.toString());
-
-            int spaceIndex = indexOfFirstWhitespace(line);
-
-            currentTag = line.substring(1, spaceIndex);
-            String value = "";
-            if ((spaceIndex + 1) < line.length()) {
-              value = line.substring(spaceIndex + 1);
-            }
-
-            currentValue = new StringWriter();
-            out = new PrintWriter(currentValue);
-            out.println(value);
-          }
-          else {
-            out.println(line);
-          }
-          preformatting = (line.contains("<pre") || preformatting) && !line.contains("</pre");
-
-          line = reader.readLine();
-        }
-
-        //push the last value.
-        pushValue(currentTag, currentValue.toString());
-      }
-      catch (IOException e) {
-        //fall through.
-      }
+    ParsedJavaDoc parsed = parse(docComment, env);
+    this.value = parsed.getValue();
+    for (Map.Entry<String, List<String>> tag : parsed.getTags().entrySet()) {
+      JavaDocTagList tagList = new JavaDocTagList(tag.getValue().get(0));
+      tagList.addAll(tag.getValue().subList(1, tag.getValue().size()));
+      put(tag.getKey(), tagList);
     }
 
     assumeInheritedComments(context, env, tagHandler);
@@ -117,24 +73,40 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
     }
   }
 
-  public static int indexOfFirstWhitespace(String line) {
-    int result = line.length();
-    for (char ws : WHITESPACE_CHARS) {
-      int spaceIndex = line.indexOf(ws);
-      spaceIndex = spaceIndex == -1 ? result : spaceIndex;
-      result = min(spaceIndex, result);
+  /**
+   * Parse a doc comment. The same comment is parsed only once per environment, no matter how many elements (or tag
+   * handlers) it's used for.
+   *
+   * @param docComment The doc comment.
+   * @param env The environment.
+   * @return The parsed doc comment.
+   */
+  @SuppressWarnings("unchecked")
+  private static ParsedJavaDoc parse(String docComment, DecoratedProcessingEnvironment env) {
+    if (docComment == null || docComment.isEmpty() || env == null) {
+      return ParsedJavaDoc.parse(docComment);
     }
-    return result;
+
+    ConcurrentMap<String, ParsedJavaDoc> cache = (ConcurrentMap<String, ParsedJavaDoc>) env.getProperty(PARSED_JAVADOCS_PROPERTY);
+    if (cache == null) {
+      cache = new ConcurrentHashMap<String, ParsedJavaDoc>();
+      env.setProperty(PARSED_JAVADOCS_PROPERTY, cache);
+    }
+
+    ParsedJavaDoc parsed = cache.get(docComment);
+    if (parsed == null) {
+      parsed = ParsedJavaDoc.parse(docComment);
+      cache.put(docComment, parsed);
+    }
+    return parsed;
+  }
+
+  public static int indexOfFirstWhitespace(String line) {
+    return ParsedJavaDoc.indexOfWhitespace(line, 0, line.length());
   }
 
   public static int indexOfWhitespaceFrom(String line, int from) {
-    int result = line.length();
-    for (char ws : WHITESPACE_CHARS) {
-      int spaceIndex = line.indexOf(ws, from);
-      spaceIndex = spaceIndex == -1 ? result : spaceIndex;
-      result = min(spaceIndex, result);
-    }
-    return result;
+    return ParsedJavaDoc.indexOfWhitespace(line, Math.max(from, 0), line.length());
   }
 
   /**
@@ -148,22 +120,54 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
    */
   private String resolveJavaDocSemantics(String section, String value, JavaDocTagHandler handler, DecoratedElement context) {
     //first pass through the inline tags...
-    StringBuilder builder = new StringBuilder();
+    int tagStart = value.indexOf("{@");
+    if (tagStart < 0) {
+      return handler.onBlockTag(section, value, context);
+    }
 
-    Matcher matcher = INLINE_TAG_PATTERN.matcher(value);
+    StringBuilder builder = new StringBuilder(value.length());
     int lastStart = 0;
-    while (matcher.find()) {
-      builder.append(value.substring(lastStart, matcher.start()));
-      String replacement = handler.onInlineTag(matcher.group(1), matcher.group(2), context);
+    while (tagStart >= 0) {
+      //the tag name runs up to a space or a '}'.
+      int nameEnd = tagStart + 2;
+      while (nameEnd < value.length() && value.charAt(nameEnd) != '}' && value.charAt(nameEnd) != ' ') {
+        nameEnd++;
+      }
+
+      int tagEnd = -1;
+      int bodyStart = nameEnd < value.length() && value.charAt(nameEnd) == ' ' ? nameEnd + 1 : nameEnd;
+      if (nameEnd > tagStart + 2) {
+        //the body runs up to the first '}' on the same line.
+        for (int i = bodyStart; i < value.length(); i++) {
+          char ch = value.charAt(i);
+          if (ch == '}') {
+            tagEnd = i + 1;
+            break;
+          }
+          else if (isLineTerminator(ch)) {
+            break;
+          }
+        }
+      }
+
+      if (tagEnd < 0) {
+        //not an inline tag.
+        tagStart = value.indexOf("{@", tagStart + 1);
+        continue;
+      }
+
+      builder.append(value, lastStart, tagStart);
+      String replacement = handler.onInlineTag(value.substring(tagStart + 2, nameEnd), value.substring(bodyStart, tagEnd - 1), context);
       if (replacement != null) {
         builder.append(replacement);
       }
       else {
-        builder.append(value.substring(matcher.start(), matcher.end()));
+        builder.append(value, tagStart, tagEnd);
       }
-      lastStart = matcher.end();
+      lastStart = tagEnd;
+      tagStart = value.indexOf("{@", tagEnd);
     }
-    builder.append(value.substring(lastStart, value.length()));
+    builder.append(value, lastStart, value.length());
 
     return handler.onBlockTag(section, builder.toString(), context);
   }
@@ -208,6 +212,47 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
       return;
     }
 
+    OverriddenMethods overridden = findOverriddenMethods(context, env);
+    for (ExecutableElement candidate : overridden.interfaceMethods) {
+      JavaDoc inheritedDocs = ((DecoratedElement) candidate).getJavaDoc(tagHandler);
+      if (assumeInheritedExecutableComments(context, inheritedDocs)) {
+        return;
+      }
+    }
+
+    if (overridden.superclassMethod != null) {
+      JavaDoc inheritedDocs = ((DecoratedElement) overridden.superclassMethod).getJavaDoc(tagHandler);
+      assumeInheritedExecutableComments(context, inheritedDocs);
+    }
+  }
+
+  /**
+   * Find the methods (of the direct supertypes) that the specified method overrides. The override graph doesn't depend
+   * on the tag handler, so it's only computed once per method.
+   *
+   * @param context The method.
+   * @param env The environment.
+   * @return The overridden methods.
+   */
+  @SuppressWarnings("unchecked")
+  private static OverriddenMethods findOverriddenMethods(ExecutableElement context, DecoratedProcessingEnvironment env) {
+    Element key = context;
+    while (key instanceof DecoratedElement) {
+      key = ((DecoratedElement) key).getDelegate();
+    }
+
+    ConcurrentMap<Element, OverriddenMethods> cache = (ConcurrentMap<Element, OverriddenMethods>) env.getProperty(OVERRIDDEN_METHODS_PROPERTY);
+    if (cache == null) {
+      cache = new ConcurrentHashMap<Element, OverriddenMethods>();
+      env.setProperty(OVERRIDDEN_METHODS_PROPERTY, cache);
+    }
+
+    OverriddenMethods overridden = cache.get(key);
+    if (overridden != null) {
+      return overridden;
+    }
+
+    overridden = new OverriddenMethods();
     Element el = context.getEnclosingElement();
     if (el instanceof TypeElement) {
       TypeElement typeElement = (TypeElement) el;
@@ -218,10 +263,7 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
           List<ExecutableElement> methods = ElementFilter.methodsIn(superType.getEnclosedElements());
           for (ExecutableElement candidate : methods) {
             if (env.getElementUtils().overrides(context, candidate, typeElement) && candidate instanceof DecoratedElement) {
-              JavaDoc inheritedDocs = ((DecoratedElement) candidate).getJavaDoc(tagHandler);
-              if (assumeInheritedExecutableComments(context, inheritedDocs)) {
-                return;
-              }
+              overridden.interfaceMethods.add(candidate);
             }
           }
         }
@@ -234,14 +276,16 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
           List<ExecutableElement> methods = ElementFilter.methodsIn(superType.getEnclosedElements());
           for (ExecutableElement candidate : methods) {
             if (env.getElementUtils().overrides(context, candidate, typeElement) && candidate instanceof DecoratedElement) {
-              JavaDoc inheritedDocs = ((DecoratedElement) candidate).getJavaDoc(tagHandler);
-              assumeInheritedExecutableComments(context, inheritedDocs);
-              return;
+              overridden.superclassMethod = candidate;
+              break;
             }
           }
         }
       }
     }
+
+    cache.put(key, overridden);
+    return overridden;
   }
 
   private boolean assumeInheritedExecutableComments(ExecutableElement context, JavaDoc inherited) {
@@ -254,7 +298,7 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
           this.value = inheritedValue;
         }
         else {
-          this.value = INHERITDOC_PATTERN.matcher(this.value).replaceAll(inheritedValue);
+          this.value = replaceInheritDoc(this.value, inheritedValue);
         }
       }
       else {
@@ -274,7 +318,7 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
             put("return", new JavaDocTagList(inheritedValue));
           }
           else {
-            returnValue = INHERITDOC_PATTERN.matcher(returnValue).replaceAll(inheritedValue);
+            returnValue = replaceInheritDoc(returnValue, inheritedValue);
             put("return", new JavaDocTagList(returnValue));
           }
         }
@@ -319,7 +363,7 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
               pushValue("param", inheritedValue);
             }
             else {
-              paramValue = INHERITDOC_PATTERN.matcher(paramValue).replaceAll(inheritedValue);
+              paramValue = replaceInheritDoc(paramValue, inheritedValue);
               paramTags.set(paramIndex, paramValue);
             }
           }
@@ -364,14 +408,67 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
           this.value = inheritedValue;
         }
         else {
-          this.value = INHERITDOC_PATTERN.matcher(this.value).replaceAll(inheritedValue);
+          this.value = replaceInheritDoc(this.value, inheritedValue);
         }
       }
     }
   }
 
   private boolean valueInherits(String value) {
-    return value == null || value.isEmpty() || INHERITDOC_PATTERN.matcher(value).find();
+    return value == null || value.isEmpty() || indexOfInheritDoc(value, 0) >= 0;
+  }
+
+  /**
+   * Replace each <code>{@inheritDoc}</code> tag in a value with the inherited value.
+   *
+   * @param value The value.
+   * @param inheritedValue The inherited value.
+   * @return The value with the inherited value in place of the tags.
+   */
+  static String replaceInheritDoc(String value, String inheritedValue) {
+    StringBuilder builder = null;
+    int lastStart = 0;
+    int tagStart = indexOfInheritDoc(value, 0);
+    while (tagStart >= 0) {
+      int tagEnd = value.indexOf('}', tagStart) + 1;
+      if (builder == null) {
+        builder = new StringBuilder(value.length() + inheritedValue.length());
+      }
+      builder.append(value, lastStart, tagStart).append(inheritedValue);
+      lastStart = tagEnd;
+      tagStart = indexOfInheritDoc(value, tagEnd);
+    }
+
+    return builder == null ? value : builder.append(value, lastStart, value.length()).toString();
+  }
+
+  /**
+   * The index of the next <code>{@inheritDoc}</code> tag, i.e. "{@inheritDoc" followed by a '}' on the same line.
+   *
+   * @param value The value.
+   * @param from The index from which to search.
+   * @return The index of the tag, or -1 if there isn't one.
+   */
+  private static int indexOfInheritDoc(String value, int from) {
+    int tagStart = value.indexOf("{@inheritDoc", from);
+    while (tagStart >= 0) {
+      for (int i = tagStart + 12; i < value.length(); i++) {
+        char ch = value.charAt(i);
+        if (ch == '}') {
+          return tagStart;
+        }
+        else if (isLineTerminator(ch)) {
+          break;
+        }
+      }
+      tagStart = value.indexOf("{@inheritDoc", tagStart + 1);
+    }
+    return -1;
+  }
+
+  private static boolean isLineTerminator(char ch) {
+    //the line terminators that '.' doesn't match in a regular expression.
+    return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
   }
 
 
@@ -383,6 +480,14 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
     return value;
   }
 
+  /**
+   * The methods of the direct supertypes of a type that a method overrides.
+   */
+  private static class OverriddenMethods {
+    private final List<ExecutableElement> interfaceMethods = new ArrayList<ExecutableElement>(1);
+    private ExecutableElement superclassMethod;
+  }
+
   /**
    * A list of values for a javadoc tag.
    */
@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.javac.javadoc;
+
+import java.util.*;
+
+/**
+ * The raw sections of a doc comment: the main description and the values of each block tag, in order. Parsing is done
+ * in a single pass over the comment; the result is immutable so that it can be shared by every {@link JavaDoc} that's
+ * built from the same comment (e.g. one per tag handler).
+ *
+ * @author Ryan Heaton
+ */
+public final class ParsedJavaDoc {
+
+  public static final ParsedJavaDoc EMPTY = new ParsedJavaDoc("", Collections.<String, List<String>>emptyMap());
+
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  private final String value;
+  private final Map<String, List<String>> tags;
+
+  private ParsedJavaDoc(String value, Map<String, List<String>> tags) {
+    this.value = value;
+    this.tags = tags;
+  }
+
+  /**
+   * @return The main description (trimmed).
+   */
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * @return The (trimmed) values of each block tag, in the order they appear.
+   */
+  public Map<String, List<String>> getTags() {
+    return tags;
+  }
+
+  /**
+   * Parse a doc comment. Lines are trimmed, except within <code>&lt;pre&gt;</code> blocks. A line that starts with '@'
+   * starts a block tag.
+   *
+   * @param docComment The doc comment.
+   * @return The parsed doc comment.
+   */
+  public static ParsedJavaDoc parse(String docComment) {
+    if (docComment == null || docComment.isEmpty()) {
+      return EMPTY;
+    }
+
+    String value = null;
+    Map<String, List<String>> tags = new LinkedHashMap<String, List<String>>();
+    String currentTag = null;
+    StringBuilder currentValue = new StringBuilder(docComment.length());
+    boolean preformatting = false;
+
+    int length = docComment.length();
+    int lineStart = 0;
+    while (lineStart < length) {
+      //find the end of the line (\n, \r or \r\n, same as BufferedReader.readLine()).
+      int lineEnd = lineStart;
+      while (lineEnd < length && docComment.charAt(lineEnd) != '\n' && docComment.charAt(lineEnd) != '\r') {
+        lineEnd++;
+      }
+      int nextLine = lineEnd;
+      if (nextLine < length) {
+        nextLine += (docComment.charAt(nextLine) == '\r' && nextLine + 1 < length && docComment.charAt(nextLine + 1) == '\n') ? 2 : 1;
+      }
+
+      int start = lineStart;
+      int end = lineEnd;
+      if (!preformatting) {
+        while (start < end && docComment.charAt(start) <= ' ') {
+          start++;
+        }
+        while (end > start && docComment.charAt(end - 1) <= ' ') {
+          end--;
+        }
+      }
+
+      if (start < end && docComment.charAt(start) == '@') { //it's a javadoc block tag.
+        //push and clear our current value.
+        if (currentTag == null) {
+          value = currentValue.toString().trim();
+        }
+        else {
+          addTag(tags, currentTag, currentValue.toString().trim());
+        }
+
+        int spaceIndex = indexOfWhitespace(docComment, start, end);
+        currentTag = docComment.substring(start + 1, spaceIndex);
+        currentValue.setLength(0);
+        if (spaceIndex + 1 < end) {
+          currentValue.append(docComment, spaceIndex + 1, end);
+        }
+      }
+      else {
+        currentValue.append(docComment, start, end);
+      }
+      currentValue.append(LINE_SEPARATOR);
+
+      boolean opensPre = regionContains(docComment, start, end, "<pre");
+      boolean closesPre = regionContains(docComment, start, end, "</pre");
+      preformatting = (opensPre || preformatting) && !closesPre;
+
+      lineStart = nextLine;
+    }
+
+    //push the last value.
+    if (currentTag == null) {
+      value = currentValue.toString().trim();
+    }
+    else {
+      addTag(tags, currentTag, currentValue.toString().trim());
+    }
+
+    for (Map.Entry<String, List<String>> entry : tags.entrySet()) {
+      entry.setValue(Collections.unmodifiableList(entry.getValue()));
+    }
+    return new ParsedJavaDoc(value == null ? "" : value, Collections.unmodifiableMap(tags));
+  }
+
+  private static void addTag(Map<String, List<String>> tags, String tag, String value) {
+    List<String> values = tags.get(tag);
+    if (values == null) {
+      values = new ArrayList<String>(1);
+      tags.put(tag, values);
+    }
+    values.add(value);
+  }
+
+  /**
+   * The index of the first whitespace character in the specified region.
+   *
+   * @return The index of the first whitespace character, or the end of the region if there isn't any.
+   */
+  static int indexOfWhitespace(CharSequence chars, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (isWhitespace(chars.charAt(i))) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  static boolean isWhitespace(char ch) {
+    return ch == ' ' || ch == '\t' || ch == '\n' || ch == 0x0B || ch == '\f' || ch == '\r';
+  }
+
+  private static boolean regionContains(String chars, int from, int to, String token) {
+    int last = to - token.length();
+    for (int i = from; i <= last; i++) {
+      if (chars.startsWith(token, i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.javac;
+
+import com.webcohesion.enunciate.javac.decorations.AnnotationMirrorDecoration;
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+import com.webcohesion.enunciate.javac.decorations.ElementDecoration;
+import com.webcohesion.enunciate.javac.decorations.TypeMirrorDecoration;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.*;
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Runs javac in-process over some (in-memory) sources and calls back with the processing environment, so
+ * tests can work with real elements and type mirrors.
+ *
+ * @author Ryan Heaton
+ */
+public class InProcessJavac {
+
+  private final Map<String, String> sources = new LinkedHashMap<String, String>();
+
+  /**
+   * Add a source file.
+   *
+   * @param className The fully-qualified name of the (top-level) class.
+   * @param source The source.
+   * @return this
+   */
+  public InProcessJavac addSource(String className, String source) {
+    this.sources.put(className, source);
+    return this;
+  }
+
+  /**
+   * Decorate a processing environment (without any additional decorations).
+   *
+   * @param env The processing environment.
+   * @return The decorated processing environment.
+   */
+  public static DecoratedProcessingEnvironment decorate(ProcessingEnvironment env) {
+    return new DecoratedProcessingEnvironment(env, Collections.<ElementDecoration>emptyList(), Collections.<TypeMirrorDecoration>emptyList(), Collections.<AnnotationMirrorDecoration>emptyList());
+  }
+
+  /**
+   * Run javac (annotation processing only), calling back with the (undecorated) processing environment on the first round.
+   *
+   * @param callback The callback.
+   */
+  public void process(final Callback callback) throws Exception {
+    List<JavaFileObject> files = new ArrayList<JavaFileObject>();
+    for (Map.Entry<String, String> source : this.sources.entrySet()) {
+      final String content = source.getValue();
+      files.add(new SimpleJavaFileObject(URI.create("string:///" + source.getKey().replace('.', '/') + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+          return content;
+        }
+      });
+    }
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, Arrays.asList("-proc:only", "-classpath", System.getProperty("java.class.path")), null, files);
+    CallbackProcessor processor = new CallbackProcessor(callback);
+    task.setProcessors(Collections.singletonList(processor));
+    boolean success = task.call();
+    if (processor.error != null) {
+      if (processor.error instanceof Exception) {
+        throw (Exception) processor.error;
+      }
+      throw (Error) processor.error;
+    }
+
+    if (!success || !processor.processed) {
+      throw new IllegalStateException("Unable to process the sources: " + diagnostics.getDiagnostics());
+    }
+  }
+
+  /**
+   * Called back with the processing environment.
+   */
+  public interface Callback {
+
+    void process(ProcessingEnvironment env, RoundEnvironment roundEnv) throws Exception;
+  }
+
+  @SupportedAnnotationTypes("*")
+  private static class CallbackProcessor extends AbstractProcessor {
+
+    private final Callback callback;
+    private boolean processed = false;
+    private Throwable error;
+
+    private CallbackProcessor(Callback callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      if (!this.processed) {
+        this.processed = true;
+        try {
+          this.callback.process(this.processingEnv, roundEnv);
+        }
+        catch (Throwable e) {
+          this.error = e;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.javac.decorations.type;
+
+import com.webcohesion.enunciate.javac.InProcessJavac;
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+import com.webcohesion.enunciate.javac.decorations.TypeMirrorDecorator;
+import org.junit.Test;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TypeRelationshipsTest {
+
+  private static final String SAMPLE = "package sample;\n" +
+    "import java.util.*;\n" +
+    "public class Sample<T> {\n" +
+    "  public List<String> strings;\n" +
+    "  public List<? extends Number> numbers;\n" +
+    "  public ArrayList rawList;\n" +
+    "  public Map<String, List<Integer>> map;\n" +
+    "  public T t;\n" +
+    "  public List<T> ts;\n" +
+    "  public int[] ints;\n" +
+    "  public Integer[] integers;\n" +
+    "  public Number[] numberArray;\n" +
+    "  public Object[][] matrix;\n" +
+    "  public Sample<String> stringSample;\n" +
+    "  public Sample rawSample;\n" +
+    "  public Inner inner;\n" +
+    "  public Sample<String>.Inner stringInner;\n" +
+    "  public Comparable<Nested> comparable;\n" +
+    "  public class Inner {}\n" +
+    "  public static class Nested extends Sample<String> implements Comparable<Nested> {\n" +
+    "    public int compareTo(Nested o) { return 0; }\n" +
+    "  }\n" +
+    "}\n";
+
+  /**
+   * tests that the (cached) relationships are the same as the answers of the type utilities.
+   */
+  @Test
+  public void testSameAnswersAsTypeUtilities() throws Exception {
+    new InProcessJavac().addSource("sample.Sample", SAMPLE).process(new InProcessJavac.Callback() {
+      @Override
+      public void process(ProcessingEnvironment env, RoundEnvironment roundEnv) throws Exception {
+        Types types = env.getTypeUtils();
+        Elements elements = env.getElementUtils();
+        List<TypeMirror> mirrors = new ArrayList<TypeMirror>();
+        mirrors.add(types.getPrimitiveType(TypeKind.INT));
+        mirrors.add(types.getPrimitiveType(TypeKind.LONG));
+        mirrors.add(types.getPrimitiveType(TypeKind.BOOLEAN));
+        for (String className : new String[]{"java.lang.Object", "java.lang.String", "java.lang.Number", "java.lang.Integer", "java.lang.Comparable", "java.util.Collection", "java.util.List", "java.util.ArrayList", "java.util.Map", "sample.Sample", "sample.Sample.Nested", "sample.Sample.Inner"}) {
+          TypeElement element = elements.getTypeElement(className);
+          mirrors.add(element.asType()); //the generic declaration.
+          mirrors.add(types.erasure(element.asType())); //the raw type.
+          mirrors.add(types.getArrayType(types.erasure(element.asType())));
+        }
+        for (Element field : ElementFilter.fieldsIn(elements.getTypeElement("sample.Sample").getEnclosedElements())) {
+          mirrors.add(field.asType());
+        }
+
+        //a small capacity, so the answers are forgotten along the way, too.
+        DecoratedProcessingEnvironment decoratedEnv = InProcessJavac.decorate(env);
+        for (TypeRelationships relationships : new TypeRelationships[]{new TypeRelationships(types, decoratedEnv, TypeRelationships.DEFAULT_CAPACITY), new TypeRelationships(types, decoratedEnv, 16)}) {
+          for (int pass = 0; pass < 2; pass++) {
+            for (TypeMirror t1 : mirrors) {
+              for (TypeMirror t2 : mirrors) {
+                String message = t1 + " -> " + t2;
+                assertEquals(message, types.isAssignable(t1, t2), relationships.isAssignable(t1, t2));
+                assertEquals(message, types.isSubtype(t1, t2), relationships.isSubtype(t1, t2));
+              }
+            }
+          }
+          assertTrue(relationships.getHits() > 0);
+        }
+
+        //decorated types are answered the same as the types they decorate.
+        TypeRelationships relationships = decoratedEnv.getTypeRelationships();
+        for (TypeMirror t1 : mirrors) {
+          for (TypeMirror t2 : mirrors) {
+            TypeMirror decorated1 = TypeMirrorDecorator.decorate(t1, decoratedEnv);
+            TypeMirror decorated2 = TypeMirrorDecorator.decorate(t2, decoratedEnv);
+            assertEquals(t1 + " -> " + t2, types.isAssignable(t1, t2), relationships.isAssignable(decorated1, decorated2));
+            assertEquals(t1 + " -> " + t2, types.isAssignable(t1, t2), decoratedEnv.getTypeUtils().isAssignable(decorated1, decorated2));
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * tests that the erasures of the collection types are kept apart from the collection types.
+   */
+  @Test
+  public void testCollectionTypeErasures() throws Exception {
+    new InProcessJavac().addSource("sample.Sample", SAMPLE).process(new InProcessJavac.Callback() {
+      @Override
+      public void process(ProcessingEnvironment env, RoundEnvironment roundEnv) throws Exception {
+        DecoratedProcessingEnvironment decoratedEnv = InProcessJavac.decorate(env);
+        Types types = env.getTypeUtils();
+        TypeElement collection = env.getElementUtils().getTypeElement("java.util.Collection");
+        assertSame(TypeMirrorUtils.collectionTypeErasure(decoratedEnv), TypeMirrorUtils.collectionTypeErasure(decoratedEnv));
+        assertTrue(types.isSameType(types.erasure(collection.asType()), TypeMirrorUtils.collectionTypeErasure(decoratedEnv).getDelegate()));
+        assertTrue(types.isSameType(collection.asType(), TypeMirrorUtils.collectionType(decoratedEnv).getDelegate()));
+        assertFalse(TypeMirrorUtils.collectionType(decoratedEnv).getTypeArguments().isEmpty());
+
+        TypeElement list = env.getElementUtils().getTypeElement("java.util.List");
+        assertSame(TypeMirrorUtils.listTypeErasure(decoratedEnv), TypeMirrorUtils.listTypeErasure(decoratedEnv));
+        assertTrue(types.isSameType(types.erasure(list.asType()), TypeMirrorUtils.listTypeErasure(decoratedEnv).getDelegate()));
+      }
+    });
+  }
+}
@@ -0,0 +1,330 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.javac.javadoc;
+
+import com.webcohesion.enunciate.javac.InProcessJavac;
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+import com.webcohesion.enunciate.javac.decorations.element.DecoratedElement;
+import org.junit.Test;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the single-pass doc comment parsing against the line-by-line, regular expression based parsing it replaced.
+ *
+ * @author Ryan Heaton
+ */
+public class ParsedJavaDocTest {
+
+  private static final String LS = System.getProperty("line.separator");
+  private static final Pattern INLINE_TAG_PATTERN = Pattern.compile("\\{@([^\\} ]+) ?(.*?)\\}");
+  private static final Pattern INHERITDOC_PATTERN = Pattern.compile("\\{@inheritDoc(.*?)\\}");
+  private static final JavaDocTagHandler RAW = new JavaDocTagHandler() {
+    @Override
+    public String onInlineTag(String tagName, String tagText, DecoratedElement context) {
+      return null;
+    }
+
+    @Override
+    public String onBlockTag(String tagName, String value, DecoratedElement context) {
+      return value;
+    }
+  };
+  private static final String[] TOKENS = {
+    "a", "word", "x y", " ", "  ", "\t", "\n", "\n", "\r\n", "\r", "\u0085", "\u2028", "*", "$1", "\\", "{", "}", "@",
+    "@ ", "@param", "@param name", "@return", "@throws", "@since\t", "{@", "{@link", "{@link ", "{@link Foo}", "{@code a b}",
+    "{@ }", "{@}", "{@inheritDoc}", "{@inheritDoc", "{@inheritDoc x}", "<pre>", "</pre>", "<pre", "@see <pre>"
+  };
+
+  @Test
+  public void testParseMatchesLineByLineParse() throws Exception {
+    String[] comments = {
+      null,
+      "",
+      "   ",
+      "Simple.",
+      "Main\ndescription.\n\n@param a The a.\n@param b The b,\n   continued over\n   several lines.\n@return The\n  result.",
+      "@return Only a tag.",
+      "Value.\n@",
+      "Value.\n@ leading space",
+      "Value.\n@tag\ttabbed value\n@tag second value",
+      "  <pre>\n    indented\n  @notatag\n  </pre>\n  @tag value",
+      "<pre>\n  unclosed\n  @notatag",
+      "windows\r\nline\r\nendings\r\n@tag value\r\n",
+      "old\rmac\r@tag value",
+      "{@link Foo} and {@code bar\n} and {@inheritDoc}",
+    };
+    for (String comment : comments) {
+      assertParsedSame(comment);
+    }
+
+    Random random = new Random(20061);
+    for (int i = 0; i < 20000; i++) {
+      assertParsedSame(randomComment(random));
+    }
+  }
+
+  @Test
+  public void testInlineTagsMatchRegularExpression() throws Exception {
+    JavaDocTagHandler handler = new JavaDocTagHandler() {
+      @Override
+      public String onInlineTag(String tagName, String tagText, DecoratedElement context) {
+        return tagName.startsWith("code") ? null : "[" + tagName + "|" + tagText + "]";
+      }
+
+      @Override
+      public String onBlockTag(String tagName, String value, DecoratedElement context) {
+        return tagName + ":" + value;
+      }
+    };
+
+    String[] comments = {
+      "{@link Foo}",
+      "{@link Foo#bar(String, int)} and {@code a}{@linkplain   spaced  }",
+      "{@link}{@}{@ }{@link",
+      "{@link Foo\n}",
+      "{@link\nFoo}",
+      "{@link Foo\u2028}",
+      "{@{@link Foo}}",
+      "Main.\n@param a {@link A} and {@code B}\n@return {@value}",
+    };
+    for (String comment : comments) {
+      assertResolvedSame(comment, handler);
+    }
+
+    Random random = new Random(20062);
+    for (int i = 0; i < 20000; i++) {
+      assertResolvedSame(randomComment(random), handler);
+    }
+  }
+
+  @Test
+  public void testReplaceInheritDocMatchesRegularExpression() throws Exception {
+    String[] inherited = {"", "Inherited.", "costs $1", "a \\d b", "{@inheritDoc}"};
+    String[] values = {"{@inheritDoc}", "Before {@inheritDoc} after.", "{@inheritDoc}{@inheritDoc}", "{@inheritDoc with text}", "{@inheritDoc\n}", "{@inheritDoc", "no tag"};
+    for (String value : values) {
+      for (String inheritedValue : inherited) {
+        assertEquals(INHERITDOC_PATTERN.matcher(value).replaceAll(Matcher.quoteReplacement(inheritedValue)), JavaDoc.replaceInheritDoc(value, inheritedValue));
+      }
+    }
+
+    Random random = new Random(20063);
+    for (int i = 0; i < 20000; i++) {
+      String value = randomComment(random);
+      String inheritedValue = randomComment(random);
+      assertEquals(value, INHERITDOC_PATTERN.matcher(value).replaceAll(Matcher.quoteReplacement(inheritedValue)), JavaDoc.replaceInheritDoc(value, inheritedValue));
+    }
+  }
+
+  @Test
+  public void testInheritDoc() throws Exception {
+    final String animal = "package sample;\n" +
+      "public interface Animal {\n" +
+      "  /**\n" +
+      "   * Makes a {@code sound}.\n" +
+      "   *\n" +
+      "   * @param volume The volume,\n" +
+      "   *   from 0 to 11.\n" +
+      "   * @return The sound, e.g. $1 or \\d.\n" +
+      "   */\n" +
+      "  String speak(int volume);\n" +
+      "}\n";
+    final String dog = "package sample;\n" +
+      "public class Dog implements Animal {\n" +
+      "  /**\n" +
+      "   * {@inheritDoc} Loudly.\n" +
+      "   *\n" +
+      "   * @return Woof: {@inheritDoc}\n" +
+      "   */\n" +
+      "  public String speak(int volume) { return null; }\n" +
+      "}\n";
+    final String cat = "package sample;\n" +
+      "public class Cat implements Animal {\n" +
+      "  public String speak(int volume) { return null; }\n" +
+      "}\n";
+    new InProcessJavac().addSource("sample.Animal", animal).addSource("sample.Dog", dog).addSource("sample.Cat", cat).process(new InProcessJavac.Callback() {
+      @Override
+      public void process(ProcessingEnvironment env, RoundEnvironment roundEnv) throws Exception {
+        DecoratedProcessingEnvironment decoratedEnv = InProcessJavac.decorate(env);
+
+        JavaDoc dogDocs = speak(decoratedEnv, "sample.Dog").getJavaDoc(RAW);
+        assertEquals("Makes a {@code sound}. Loudly.", dogDocs.toString());
+        assertEquals(Arrays.asList("volume The volume," + LS + "from 0 to 11."), dogDocs.get("param"));
+        assertEquals(Arrays.asList("Woof: The sound, e.g. $1 or \\d."), dogDocs.get("return"));
+
+        JavaDoc catDocs = speak(decoratedEnv, "sample.Cat").getJavaDoc(RAW);
+        assertEquals("Makes a {@code sound}.", catDocs.toString());
+        assertEquals(Arrays.asList("volume The volume," + LS + "from 0 to 11."), catDocs.get("param"));
+        assertEquals(Arrays.asList("The sound, e.g. $1 or \\d."), catDocs.get("return"));
+
+        //the inline tags of the inherited comments are resolved, too.
+        JavaDoc resolved = speak(decoratedEnv, "sample.Dog").getJavaDoc();
+        assertEquals("Makes a sound. Loudly.", resolved.toString());
+      }
+    });
+  }
+
+  private static DecoratedElement speak(DecoratedProcessingEnvironment env, String className) {
+    TypeElement type = env.getElementUtils().getTypeElement(className);
+    for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      if (method.getSimpleName().contentEquals("speak")) {
+        return (DecoratedElement) method;
+      }
+    }
+    throw new IllegalStateException();
+  }
+
+  private static String randomComment(Random random) {
+    StringBuilder comment = new StringBuilder();
+    int tokens = random.nextInt(30);
+    for (int i = 0; i < tokens; i++) {
+      comment.append(TOKENS[random.nextInt(TOKENS.length)]);
+    }
+    return comment.toString();
+  }
+
+  private static void assertParsedSame(String comment) {
+    Map<String, List<String>> expectedTags = new LinkedHashMap<String, List<String>>();
+    String expectedValue = parseLineByLine(comment, expectedTags);
+    ParsedJavaDoc parsed = ParsedJavaDoc.parse(comment);
+    assertEquals(String.valueOf(comment), expectedValue, parsed.getValue());
+    assertEquals(String.valueOf(comment), expectedTags, parsed.getTags());
+  }
+
+  private static void assertResolvedSame(String comment, JavaDocTagHandler handler) {
+    Map<String, List<String>> expectedTags = new LinkedHashMap<String, List<String>>();
+    String expectedValue = resolveInlineTags(null, parseLineByLine(comment, expectedTags), handler);
+    for (Map.Entry<String, List<String>> tag : expectedTags.entrySet()) {
+      List<String> values = new ArrayList<String>();
+      for (String value : tag.getValue()) {
+        values.add(resolveInlineTags(tag.getKey(), value, handler));
+      }
+      tag.setValue(values);
+    }
+
+    JavaDoc javaDoc = new JavaDoc(comment, handler, null, null);
+    assertEquals(comment, expectedValue, javaDoc.toString());
+    assertEquals(comment, expectedTags, new HashMap<String, List<String>>(javaDoc));
+  }
+
+  /**
+   * The way doc comments were parsed before {@link ParsedJavaDoc}.
+   */
+  private static String parseLineByLine(String docComment, Map<String, List<String>> tags) {
+    if (docComment == null) {
+      return "";
+    }
+
+    String value = "";
+    BufferedReader reader = new BufferedReader(new StringReader(docComment));
+    StringWriter currentValue = new StringWriter();
+    PrintWriter out = new PrintWriter(currentValue);
+    String currentTag = null;
+    boolean preformatting = false;
+    try {
+      String line = reader.readLine();
+      while (line != null) {
+        if (!preformatting) {
+          line = line.trim();
+        }
+        if (line.startsWith("@")) {
+          if (currentTag == null) {
+            value = currentValue.toString().trim();
+          }
+          else {
+            addTag(tags, currentTag, currentValue.toString().trim());
+          }
+
+          int spaceIndex = indexOfFirstWhitespace(line);
+          currentTag = line.substring(1, spaceIndex);
+          String tagValue = "";
+          if ((spaceIndex + 1) < line.length()) {
+            tagValue = line.substring(spaceIndex + 1);
+          }
+
+          currentValue = new StringWriter();
+          out = new PrintWriter(currentValue);
+          out.println(tagValue);
+        }
+        else {
+          out.println(line);
+        }
+        preformatting = (line.contains("<pre") || preformatting) && !line.contains("</pre");
+        line = reader.readLine();
+      }
+
+      if (currentTag == null) {
+        value = currentValue.toString().trim();
+      }
+      else {
+        addTag(tags, currentTag, currentValue.toString().trim());
+      }
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return value;
+  }
+
+  private static void addTag(Map<String, List<String>> tags, String tag, String value) {
+    List<String> values = tags.get(tag);
+    if (values == null) {
+      values = new ArrayList<String>();
+      tags.put(tag, values);
+    }
+    values.add(value);
+  }
+
+  private static int indexOfFirstWhitespace(String line) {
+    int result = line.length();
+    for (char ws : new char[]{' ', '\t', '\n', 0x0B, '\f', '\r'}) {
+      int spaceIndex = line.indexOf(ws);
+      result = Math.min(spaceIndex == -1 ? result : spaceIndex, result);
+    }
+    return result;
+  }
+
+  /**
+   * The way inline tags were resolved before the hand-written scan.
+   */
+  private static String resolveInlineTags(String section, String value, JavaDocTagHandler handler) {
+    StringBuilder builder = new StringBuilder();
+    Matcher matcher = INLINE_TAG_PATTERN.matcher(value);
+    int lastStart = 0;
+    while (matcher.find()) {
+      builder.append(value.substring(lastStart, matcher.start()));
+      String replacement = handler.onInlineTag(matcher.group(1), matcher.group(2), null);
+      builder.append(replacement != null ? replacement : value.substring(matcher.start(), matcher.end()));
+      lastStart = matcher.end();
+    }
+    builder.append(value.substring(lastStart));
+    return handler.onBlockTag(section, builder.toString(), null);
+  }
+}
@@ -38,25 +38,19 @@ import com.webcohesion.enunciate.modules.jackson1.EnunciateJackson1Context;
 import com.webcohesion.enunciate.modules.jackson1.Jackson1Module;
 import com.webcohesion.enunciate.modules.jackson1.model.util.Jackson1CodeErrors;
 import com.webcohesion.enunciate.modules.jaxrs.JaxrsModule;
+import com.webcohesion.enunciate.modules.jaxrs.model.RootResource;
 import com.webcohesion.enunciate.util.freemarker.ClientPackageForMethod;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
 import com.webcohesion.enunciate.util.freemarker.SimpleNameWithParamsMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 
@@ -65,6 +59,8 @@ import java.util.*;
  */
 public class JavaScriptClientModule extends BasicGeneratingModule implements ApiFeatureProviderModule {
 
+  private final JavaScriptClientObjectWrapper objectWrapper = new JavaScriptClientObjectWrapper();
+
   JacksonModule jacksonModule;
   Jackson1Module jackson1Module;
   JaxrsModule jaxrsModule;
@@ -198,7 +194,7 @@ public class JavaScriptClientModule extends BasicGeneratingModule implements Api
 
     File bundle = new File(packageDir, getBundleFileName());
     boolean anyFiles = bundle.exists();
-    if (!isUpToDateWithSources(packageDir)) {
+    if (!isUpToDateWithSources(packageDir) && !isUpToDateWithFiles(packageDir, srcDir)) {
       try {
         anyFiles = enunciate.zip(bundle, srcDir);
       }
@@ -266,33 +262,7 @@ public class JavaScriptClientModule extends BasicGeneratingModule implements Api
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new JavaScriptClientObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return this.enunciate.getTemplateEngine().processTemplate(templateURL, model, this.objectWrapper);
   }
 
   protected String packageToNamespace(String pckg) {
@@ -446,6 +416,42 @@ public class JavaScriptClientModule extends BasicGeneratingModule implements Api
     return conversions;
   }
 
+  @Override
+  protected Collection<? extends Element> getSourceElements() {
+    //the client is only generated from the data types, so a change to a resource (that isn't also a data type) doesn't change it.
+    Set<String> resources = new HashSet<String>();
+    if (this.jaxrsModule != null && this.jaxrsModule.getJaxrsContext() != null) {
+      for (RootResource rootResource : this.jaxrsModule.getJaxrsContext().getRootResources()) {
+        resources.add(rootResource.getQualifiedName().toString());
+      }
+    }
+    resources.removeAll(getGeneratedTypeNames());
+
+    List<Element> sourceElements = new ArrayList<Element>();
+    for (Element apiElement : super.getSourceElements()) {
+      if (!(apiElement instanceof TypeElement) || !resources.contains(((TypeElement) apiElement).getQualifiedName().toString())) {
+        sourceElements.add(apiElement);
+      }
+    }
+    return sourceElements;
+  }
+
+  @Override
+  protected Collection<String> getGeneratedTypeNames() {
+    Set<String> typeNames = new TreeSet<String>();
+    if (this.jacksonModule != null && this.jacksonModule.getJacksonContext() != null) {
+      for (TypeDefinition typeDefinition : this.jacksonModule.getJacksonContext().getTypeDefinitions()) {
+        typeNames.add(typeDefinition.getQualifiedName().toString());
+      }
+    }
+    if (this.jackson1Module != null && this.jackson1Module.getJacksonContext() != null) {
+      for (com.webcohesion.enunciate.modules.jackson1.model.TypeDefinition typeDefinition : this.jackson1Module.getJacksonContext().getTypeDefinitions()) {
+        typeNames.add(typeDefinition.getQualifiedName().toString());
+      }
+    }
+    return typeNames;
+  }
+
   public Set<String> getFacetIncludes() {
     List<Object> includes = this.config.getList("facets.include[@name]");
     Set<String> facetIncludes = new TreeSet<String>();
@@ -43,8 +43,17 @@ import javax.xml.bind.JAXBElement;
 import javax.xml.bind.annotation.*;
 import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -54,6 +63,10 @@ public class EnunciateJaxbContext extends EnunciateModuleContext {
 
   private int prefixIndex = 0;
   private final boolean disableExamples;
+  private final int exampleDepth;
+  private final ConcurrentMap<String, String> exampleBodies = new ConcurrentHashMap<String, String>();
+  private DocumentBuilder exampleDocumentBuilder;
+  private Transformer exampleTransformer;
   private final String [] ignoredValidationGroups;
   private final Map<String, XmlType> knownTypes;
   private final Map<String, TypeDefinition> typeDefinitions;
@@ -63,9 +76,10 @@ public class EnunciateJaxbContext extends EnunciateModuleContext {
   private final Map<String, SchemaInfo> schemas;
   private final Map<String, Map<String, XmlSchemaType>> packageSpecifiedTypes;
 
-  public EnunciateJaxbContext(EnunciateContext context, boolean disableExamples, String [] ignoredValidationGroups) {
+  public EnunciateJaxbContext(EnunciateContext context, boolean disableExamples, int exampleDepth, String [] ignoredValidationGroups) {
     super(context);
     this.disableExamples = disableExamples;
+    this.exampleDepth = exampleDepth;
     this.ignoredValidationGroups = ignoredValidationGroups;
     this.knownTypes = loadKnownTypes();
     this.typeDefinitions = new HashMap<String, TypeDefinition>();
@@ -109,6 +123,58 @@ public class EnunciateJaxbContext extends EnunciateModuleContext {
     return disableExamples;
   }
 
+  /**
+   * @return How many levels of nested types an example is to include.
+   */
+  public int getExampleDepth() {
+    return exampleDepth;
+  }
+
+  /**
+   * @return The rendered example bodies, by type and container chain.
+   */
+  public ConcurrentMap<String, String> getExampleBodies() {
+    return exampleBodies;
+  }
+
+  /**
+   * @return The document builder with which to build the examples. It isn't thread-safe, but the examples are built on the javac thread.
+   */
+  public DocumentBuilder getExampleDocumentBuilder() {
+    if (this.exampleDocumentBuilder == null) {
+      try {
+        DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
+        builderFactory.setNamespaceAware(true);
+        this.exampleDocumentBuilder = builderFactory.newDocumentBuilder();
+      }
+      catch (ParserConfigurationException e) {
+        throw new EnunciateException(e);
+      }
+    }
+    return this.exampleDocumentBuilder;
+  }
+
+  /**
+   * @return The transformer with which to write the examples. It isn't thread-safe, but the examples are built on the javac thread.
+   */
+  public Transformer getExampleTransformer() {
+    if (this.exampleTransformer == null) {
+      try {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        transformer.setOutputProperty(OutputKeys.ENCODING, "utf-8");
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+        this.exampleTransformer = transformer;
+      }
+      catch (TransformerConfigurationException e) {
+        throw new EnunciateException(e);
+      }
+    }
+    return this.exampleTransformer;
+  }
+
   public String[] getIgnoredValidationGroups() {
     return ignoredValidationGroups;
   }
@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.jaxb;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.artifacts.BaseArtifact;
+import com.webcohesion.enunciate.modules.jaxb.model.LocalElementDeclaration;
+import com.webcohesion.enunciate.modules.jaxb.model.Registry;
+import com.webcohesion.enunciate.modules.jaxb.model.RootElementDeclaration;
+import com.webcohesion.enunciate.modules.jaxb.model.SchemaInfo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The partitioning of the JAXB context classes by schema, so that a JAXB context can be built (lazily) for each schema
+ * instead of one JAXB context for all of them.
+ * <p>
+ * Each root element and registry is mapped to the namespace of its schema. Each namespace is also mapped (by its
+ * "{namespace}" key) to the namespaces it references (types, base types, element refs, substitution groups), so the
+ * partition of a namespace can include all the namespaces that are connected to it.
+ *
+ * @author Ryan Heaton
+ */
+public class JaxbContextPartitionsArtifact extends BaseArtifact {
+
+  private final EnunciateJaxbContext jaxbContext;
+  private final Date created = new Date();
+
+  public JaxbContextPartitionsArtifact(EnunciateJaxbContext jaxbContext) {
+    super(JaxbModule.NAME, "jaxb-context-partitions.properties");
+    this.jaxbContext = jaxbContext;
+    setBelongsOnServerSideClasspath(true);
+  }
+
+  @Override
+  public String getName() {
+    return "jaxb-context-partitions.properties";
+  }
+
+  @Override
+  public String getDescription() {
+    return "A properties file that maps each of the root elements and registries that should be noticed by the jaxb context to the namespace of its schema, and each namespace to the namespaces it references.";
+  }
+
+  @Override
+  public boolean isPublic() {
+    return false;
+  }
+
+  @Override
+  public Date getCreated() {
+    return this.created;
+  }
+
+  @Override
+  public void exportTo(File fileOrDirectory, Enunciate enunciate) throws IOException {
+    Properties properties = new Properties();
+    for (SchemaInfo schemaInfo : this.jaxbContext.getSchemas().values()) {
+      String partition = schemaInfo.getNamespace() == null ? "" : schemaInfo.getNamespace();
+      for (Registry registry : schemaInfo.getRegistries()) {
+        properties.put(registry.getQualifiedName().toString(), partition);
+      }
+
+      for (RootElementDeclaration element : schemaInfo.getRootElements()) {
+        properties.put(element.getQualifiedName().toString(), partition);
+      }
+
+      Set<String> references = new TreeSet<String>(schemaInfo.getReferencedNamespaces());
+      for (LocalElementDeclaration declaration : schemaInfo.getLocalElementDeclarations()) {
+        if (declaration.getSubstitutionGroupQName() != null) {
+          String headNamespace = declaration.getSubstitutionHeadNamespace();
+          references.add(headNamespace == null ? "" : headNamespace);
+        }
+      }
+      references.remove(partition);
+
+      StringBuilder value = new StringBuilder();
+      for (String reference : references) {
+        if (value.length() > 0) {
+          value.append(' ');
+        }
+        value.append(reference);
+      }
+      properties.put("{" + partition + "}", value.toString());
+    }
+
+    FileOutputStream out = new FileOutputStream(fileOrDirectory.isDirectory() ? new File(fileOrDirectory, getName()) : fileOrDirectory);
+    properties.store(out, "JAXB context partitions, generated by Enunciate.");
+    out.flush();
+    out.close();
+  }
+
+  @Override
+  public long getSize() {
+    return -1;
+  }
+}
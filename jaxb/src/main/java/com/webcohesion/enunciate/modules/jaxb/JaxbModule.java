@@ -29,7 +29,9 @@ import javax.xml.bind.annotation.XmlRegistry;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -38,7 +40,7 @@ import java.util.Set;
  * @author Ryan Heaton
  */
 @SuppressWarnings ( "unchecked" )
-public class JaxbModule extends BasicProviderModule implements TypeDetectingModule, MediaTypeDefinitionModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
+public class JaxbModule extends BasicProviderModule implements AnnotationDetectingModule, MediaTypeDefinitionModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
 
   private DataTypeDetectionStrategy defaultDataTypeDetectionStrategy;
   private EnunciateJaxbContext jaxbContext;
@@ -72,6 +74,10 @@ public class JaxbModule extends BasicProviderModule implements TypeDetectingModu
     return this.config.getBoolean("[@disableExamples]", false);
   }
 
+  public int getExampleDepth() {
+    return this.config.getInt("[@exampleDepth]", 2);
+  }
+
   public String [] getIgnoredValidationGroups() {
     return this.config.getStringArray("[@ignoredValidationGroups]");
   }
@@ -106,7 +112,7 @@ public class JaxbModule extends BasicProviderModule implements TypeDetectingModu
 
   @Override
   public void call(EnunciateContext context) {
-    this.jaxbContext = new EnunciateJaxbContext(context, isDisableExamples(), getIgnoredValidationGroups());
+    this.jaxbContext = new EnunciateJaxbContext(context, isDisableExamples(), getExampleDepth(), getIgnoredValidationGroups());
     DataTypeDetectionStrategy detectionStrategy = getDataTypeDetectionStrategy();
     switch (detectionStrategy) {
       case aggressive:
@@ -128,6 +134,7 @@ public class JaxbModule extends BasicProviderModule implements TypeDetectingModu
     }
 
     this.enunciate.addArtifact(new JaxbContextClassListArtifact(this.jaxbContext));
+    this.enunciate.addArtifact(new JaxbContextPartitionsArtifact(this.jaxbContext));
     this.enunciate.addArtifact(new NamespacePropertiesArtifact(this.jaxbContext));
   }
 
@@ -198,6 +205,11 @@ public class JaxbModule extends BasicProviderModule implements TypeDetectingModu
     return declaration.getKind() == ElementKind.CLASS && ((DecoratedTypeMirror) declaration.asType()).isInstanceOf(Throwable.class);
   }
 
+  @Override
+  public Set<String> getDetectedAnnotations() {
+    return new HashSet<String>(Arrays.asList(XmlType.class.getName(), XmlRootElement.class.getName()));
+  }
+
   @Override
   public boolean typeDetected(Object type, MetadataAdapter metadata) {
     List<String> classAnnotations = metadata.getClassAnnotationNames(type);
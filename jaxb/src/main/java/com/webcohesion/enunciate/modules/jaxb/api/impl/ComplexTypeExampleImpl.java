@@ -34,19 +34,14 @@ import org.w3c.dom.Element;
 
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.StringWriter;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -67,11 +62,21 @@ public class ComplexTypeExampleImpl extends ExampleImpl {
 
   @Override
   public String getBody() {
+    //the same examples are asked for by many pages of many modules; build each one once.
+    String key = this.typeDefinition.getQualifiedName() + String.valueOf(this.containers);
+    ConcurrentMap<String, String> bodies = this.typeDefinition.getContext().getExampleBodies();
+    String body = bodies.get(key);
+    if (body == null) {
+      body = buildBody();
+      String existing = bodies.putIfAbsent(key, body);
+      body = existing == null ? body : existing;
+    }
+    return body;
+  }
+
+  private String buildBody() {
     try {
-      DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-      builderFactory.setNamespaceAware(true);
-      DocumentBuilder domBuilder = builderFactory.newDocumentBuilder();
-      Document document = domBuilder.newDocument();
+      Document document = this.typeDefinition.getContext().getExampleDocumentBuilder().newDocument();
 
       String rootName = Character.toLowerCase(this.typeDefinition.getSimpleName().charAt(0)) + "-----";
       String rootNamespace = this.typeDefinition.getNamespace();
@@ -96,29 +101,19 @@ public class ComplexTypeExampleImpl extends ExampleImpl {
       context.stack = new LinkedList<String>();
       build(rootElement, this.typeDefinition, document, context);
 
-      TransformerFactory transformerFactory = TransformerFactory.newInstance();
-      Transformer transformer = transformerFactory.newTransformer();
-      transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-      transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-      transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-      transformer.setOutputProperty(OutputKeys.ENCODING, "utf-8");
-      transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
       DOMSource source = new DOMSource(document);
       StringWriter value = new StringWriter();
-      transformer.transform(source, new StreamResult(value));
+      this.typeDefinition.getContext().getExampleTransformer().transform(source, new StreamResult(value));
       return value.toString();
     }
-    catch (ParserConfigurationException e) {
-      throw new EnunciateException(e);
-    }
     catch (TransformerException e) {
       throw new EnunciateException(e);
     }
   }
 
   private String build(Element rootElement, ComplexTypeDefinition type, final Document document, Context context) {
-    if (context.stack.size() > 2) {
-      //don't go deeper than 2 for fear of the OOM (see https://github.com/stoicflame/enunciate/issues/139).
+    if (context.stack.size() > type.getContext().getExampleDepth()) {
+      //don't go deeper than the configured depth (2 by default) for fear of the OOM (see https://github.com/stoicflame/enunciate/issues/139).
       return rootElement.getNamespaceURI();
     }
 
@@ -34,11 +34,17 @@ import com.webcohesion.enunciate.modules.jaxrs.model.util.JaxrsUtil;
 import com.webcohesion.enunciate.util.*;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
-import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.ws.rs.HttpMethod;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -54,6 +60,9 @@ public class EnunciateJaxrsContext extends EnunciateModuleContext {
 
   private final Map<String, String> mediaTypeIds;
   private final Set<RootResource> rootResources;
+  private final Map<String, List<RootResource>> rootResourcesByName = new HashMap<String, List<RootResource>>();
+  private final Map<String, List<RootResource>> rootResourcesBySupertype = new HashMap<String, List<RootResource>>();
+  private final ConcurrentMap<String, List<ExecutableElement>> resourceMethodElements = new ConcurrentHashMap<String, List<ExecutableElement>>();
   private final Set<TypeElement> providers;
   private final Set<String> customResourceParameterAnnotations;
   private final Set<String> systemResourceParameterAnnotations;
@@ -231,29 +240,43 @@ public class EnunciateJaxrsContext extends EnunciateModuleContext {
    * @param rootResource The root resource to add to the model.
    */
   public void add(RootResource rootResource) {
+    //registered root resources are indexed by each of their supertypes, so only the resources that are related to this one need to be compared.
+    Set<String> supertypes = new HashSet<String>();
+    collectSupertypes(rootResource, supertypes);
+
     if (rootResource.isInterface()) {
       //if the root resource is an interface, don't add it if its implementation has already been added (avoid duplication).
-      for (RootResource resource : this.rootResources) {
-        if (((DecoratedTypeMirror)(resource.asType())).isInstanceOf(rootResource)) {
-          debug("%s was identified as a JAX-RS root resource, but will be ignored because root resource %s implements it.", rootResource.getQualifiedName(), resource.getQualifiedName());
-          return;
+      List<RootResource> implementations = this.rootResourcesBySupertype.get(rootResource.getQualifiedName().toString());
+      if (implementations != null) {
+        for (RootResource resource : implementations) {
+          if (((DecoratedTypeMirror)(resource.asType())).isInstanceOf(rootResource)) {
+            debug("%s was identified as a JAX-RS root resource, but will be ignored because root resource %s implements it.", rootResource.getQualifiedName(), resource.getQualifiedName());
+            return;
+          }
         }
       }
     }
     else {
       //remove any interfaces of this root resource that have been identified as root resources (avoid duplication)
       DecoratedTypeMirror rootResourceType = (DecoratedTypeMirror) rootResource.asType();
-      Iterator<RootResource> it = this.rootResources.iterator();
-      while (it.hasNext()) {
-        RootResource resource = it.next();
-        if (rootResourceType.isInstanceOf(resource)) {
-          debug("%s was identified as a JAX-RS root resource, but will be ignored because root resource %s implements it.", resource.getQualifiedName(), rootResource.getQualifiedName());
-          it.remove();
+      for (String supertype : supertypes) {
+        List<RootResource> candidates = this.rootResourcesByName.get(supertype);
+        if (candidates != null) {
+          for (RootResource resource : new ArrayList<RootResource>(candidates)) {
+            if (rootResourceType.isInstanceOf(resource)) {
+              debug("%s was identified as a JAX-RS root resource, but will be ignored because root resource %s implements it.", resource.getQualifiedName(), rootResource.getQualifiedName());
+              removeRootResource(resource);
+            }
+          }
         }
       }
     }
 
     this.rootResources.add(rootResource);
+    index(this.rootResourcesByName, rootResource.getQualifiedName().toString(), rootResource);
+    for (String supertype : supertypes) {
+      index(this.rootResourcesBySupertype, supertype, rootResource);
+    }
     debug("Added %s as a JAX-RS root resource.", rootResource.getQualifiedName());
 
     if (getContext().getProcessingEnvironment().findSourcePosition(rootResource) == null) {
@@ -262,6 +285,95 @@ public class EnunciateJaxrsContext extends EnunciateModuleContext {
     }
   }
 
+  private void removeRootResource(RootResource rootResource) {
+    this.rootResources.remove(rootResource);
+    unindex(this.rootResourcesByName, rootResource.getQualifiedName().toString(), rootResource);
+    Set<String> supertypes = new HashSet<String>();
+    collectSupertypes(rootResource, supertypes);
+    for (String supertype : supertypes) {
+      unindex(this.rootResourcesBySupertype, supertype, rootResource);
+    }
+  }
+
+  private static void index(Map<String, List<RootResource>> index, String key, RootResource rootResource) {
+    List<RootResource> resources = index.get(key);
+    if (resources == null) {
+      resources = new ArrayList<RootResource>();
+      index.put(key, resources);
+    }
+    resources.add(rootResource);
+  }
+
+  private static void unindex(Map<String, List<RootResource>> index, String key, RootResource rootResource) {
+    List<RootResource> resources = index.get(key);
+    if (resources != null) {
+      resources.remove(rootResource);
+      if (resources.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Collect the qualified names of the specified type and all of its supertypes.
+   *
+   * @param type The type.
+   * @param supertypes The names collected so far.
+   */
+  private static void collectSupertypes(TypeElement type, Set<String> supertypes) {
+    if (type == null || !supertypes.add(type.getQualifiedName().toString())) {
+      return;
+    }
+
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass instanceof DeclaredType) {
+      collectSupertypes((TypeElement) ((DeclaredType) superclass).asElement(), supertypes);
+    }
+
+    for (TypeMirror interfaceType : type.getInterfaces()) {
+      if (interfaceType instanceof DeclaredType) {
+        collectSupertypes((TypeElement) ((DeclaredType) interfaceType).asElement(), supertypes);
+      }
+    }
+  }
+
+  /**
+   * The public, non-ignored methods declared by the specified type that are designated with an HTTP method. Shared
+   * interfaces and base classes are walked for every resource that extends them, so the methods are looked up once per type.
+   *
+   * @param type The type.
+   * @return The methods.
+   */
+  public List<ExecutableElement> getResourceMethodElements(TypeElement type) {
+    String key = type.getQualifiedName().toString();
+    List<ExecutableElement> methods = this.resourceMethodElements.get(key);
+    if (methods == null) {
+      ArrayList<ExecutableElement> designated = new ArrayList<ExecutableElement>();
+      for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+        if (IgnoreUtils.isIgnored(method)) {
+          continue;
+        }
+
+        if (method.getModifiers().contains(Modifier.PUBLIC)) {
+          for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            Element annotationElement = annotation.getAnnotationType().asElement();
+            if (annotationElement != null) {
+              if (annotationElement.getAnnotation(HttpMethod.class) != null) {
+                designated.add(method);
+                break;
+              }
+            }
+          }
+        }
+      }
+
+      methods = Collections.unmodifiableList(designated);
+      List<ExecutableElement> existing = this.resourceMethodElements.putIfAbsent(key, methods);
+      methods = existing == null ? methods : existing;
+    }
+    return methods;
+  }
+
   /**
    * Add a JAX-RS provider to the model.
    *
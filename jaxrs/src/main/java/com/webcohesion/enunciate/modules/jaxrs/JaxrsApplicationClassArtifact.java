@@ -0,0 +1,205 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.jaxrs;
+
+import com.sun.tools.javac.api.JavacTool;
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.EnunciateException;
+import com.webcohesion.enunciate.artifacts.BaseArtifact;
+import com.webcohesion.enunciate.modules.jaxrs.model.RootResource;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * A generated (and compiled) JAX-RS application class that registers the root resources and providers of the project
+ * directly, so that no class lists need to be read and no classes need to be loaded reflectively when the application
+ * starts up.
+ *
+ * @author Ryan Heaton
+ */
+public class JaxrsApplicationClassArtifact extends BaseArtifact {
+
+  private static final String JAXB_CONTEXT_RESOLVER_CLASSNAME = "com.webcohesion.enunciate.rt.EnunciateJaxbContextResolver";
+
+  private final String className;
+  private final String source;
+  private final String javacSource;
+  private final String javacTarget;
+  private final Date created = new Date();
+
+  public JaxrsApplicationClassArtifact(EnunciateJaxrsContext jaxrsContext, String className, String javacSource, String javacTarget) {
+    super(JaxrsModule.NAME, "jaxrs-application-class");
+    this.className = className;
+    this.source = generateSource(jaxrsContext, className);
+    this.javacSource = javacSource;
+    this.javacTarget = javacTarget;
+    setBelongsOnServerSideClasspath(true);
+  }
+
+  @Override
+  public String getName() {
+    return this.className;
+  }
+
+  @Override
+  public String getDescription() {
+    return "A generated JAX-RS application class that registers all the JAX-RS root resources and providers in the current project.";
+  }
+
+  @Override
+  public boolean isPublic() {
+    return false;
+  }
+
+  @Override
+  public Date getCreated() {
+    return this.created;
+  }
+
+  /**
+   * The source of the application class.
+   *
+   * @return The source of the application class.
+   */
+  public String getSource() {
+    return source;
+  }
+
+  @Override
+  public void exportTo(File fileOrDirectory, Enunciate enunciate) throws IOException {
+    if (!fileOrDirectory.exists()) {
+      fileOrDirectory.mkdirs();
+    }
+    else if (!fileOrDirectory.isDirectory()) {
+      throw new EnunciateException(String.format("Unable to export the JAX-RS application class %s to %s: not a directory.", this.className, fileOrDirectory));
+    }
+
+    List<String> options = Arrays.asList("-source", this.javacSource, "-target", this.javacTarget, "-encoding", "UTF-8", "-cp", enunciate.writeClasspath(enunciate.getClasspath()), "-d", fileOrDirectory.getAbsolutePath(), "-nowarn");
+    JavaFileObject sourceFile = new SimpleJavaFileObject(java.net.URI.create("string:///" + this.className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return source;
+      }
+    };
+
+    JavaCompiler compiler = JavacTool.create();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    StringWriter output = new StringWriter();
+    JavaCompiler.CompilationTask task = compiler.getTask(output, null, diagnostics, options, null, Collections.singletonList(sourceFile));
+    if (!task.call()) {
+      for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+        enunciate.getLogger().warn("[javac] %s", diagnostic);
+      }
+      throw new EnunciateException(String.format("Compile failed of the JAX-RS application class %s.", this.className));
+    }
+
+    enunciate.getLogger().debug("Exported JAX-RS application class %s to %s.", this.className, fileOrDirectory);
+  }
+
+  @Override
+  public long getSize() {
+    return -1;
+  }
+
+  protected static String generateSource(EnunciateJaxrsContext jaxrsContext, String className) {
+    Elements elementUtils = jaxrsContext.getContext().getProcessingEnvironment().getElementUtils();
+    Set<String> registered = new HashSet<String>();
+    List<String> registrations = new ArrayList<String>();
+    for (RootResource resource : jaxrsContext.getRootResources()) {
+      if (registered.add(resource.getQualifiedName().toString())) {
+        registrations.add(toRegistration(resource, elementUtils));
+      }
+    }
+
+    for (TypeElement provider : jaxrsContext.getProviders()) {
+      String name = provider.getQualifiedName().toString();
+      //the jaxb context resolver is loaded as a singleton, in case we don't have jaxb-impl on the classpath.
+      if (!JAXB_CONTEXT_RESOLVER_CLASSNAME.equals(name) && registered.add(name)) {
+        registrations.add(toRegistration(provider, elementUtils));
+      }
+    }
+
+    int packageSeparator = className.lastIndexOf('.');
+    String packageName = packageSeparator < 0 ? null : className.substring(0, packageSeparator);
+    String simpleName = className.substring(packageSeparator + 1);
+
+    StringBuilder source = new StringBuilder();
+    if (packageName != null) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source.append("/**\n * Generated by Enunciate.\n */\n");
+    source.append("public class ").append(simpleName).append(" extends javax.ws.rs.core.Application {\n\n");
+    source.append("  @Override\n");
+    source.append("  public java.util.Set<Class<?>> getClasses() {\n");
+    source.append("    java.util.Set<Class<?>> classes = new java.util.HashSet<Class<?>>();\n");
+    for (String registration : registrations) {
+      source.append("    ").append(registration).append('\n');
+    }
+    source.append("    return classes;\n");
+    source.append("  }\n\n");
+    source.append("  @Override\n");
+    source.append("  public java.util.Set<Object> getSingletons() {\n");
+    source.append("    java.util.Set<Object> singletons = new java.util.HashSet<Object>();\n");
+    source.append("    try {\n");
+    source.append("      singletons.add(Thread.currentThread().getContextClassLoader().loadClass(\"").append(JAXB_CONTEXT_RESOLVER_CLASSNAME).append("\").newInstance());\n");
+    source.append("    }\n");
+    source.append("    catch (Throwable e) {\n");
+    source.append("      java.util.logging.Logger.getLogger(").append(simpleName).append(".class.getName()).info(\"").append(JAXB_CONTEXT_RESOLVER_CLASSNAME).append(" cannot be instantiated (\" + e.getMessage() + \").\");\n");
+    source.append("    }\n");
+    source.append("    return singletons;\n");
+    source.append("  }\n\n");
+    source.append("  private static void add(java.util.Set<Class<?>> classes, String className) {\n");
+    source.append("    try {\n");
+    source.append("      classes.add(Thread.currentThread().getContextClassLoader().loadClass(className));\n");
+    source.append("    }\n");
+    source.append("    catch (Throwable e) {\n");
+    source.append("      java.util.logging.Logger.getLogger(").append(simpleName).append(".class.getName()).warning(\"Unable to load JAX-RS class \" + className + \" (\" + e.getMessage() + \")\");\n");
+    source.append("    }\n");
+    source.append("  }\n");
+    source.append("}\n");
+    return source.toString();
+  }
+
+  private static String toRegistration(TypeElement type, Elements elementUtils) {
+    if (isAccessible(type)) {
+      return "classes.add(" + type.getQualifiedName() + ".class);";
+    }
+    else {
+      //not accessible to the generated class; fall back to loading it by name.
+      return "add(classes, \"" + elementUtils.getBinaryName(type) + "\");";
+    }
+  }
+
+  private static boolean isAccessible(TypeElement type) {
+    Element element = type;
+    while (element != null && (element.getKind().isClass() || element.getKind().isInterface())) {
+      if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+        return false;
+      }
+      element = element.getEnclosingElement();
+    }
+    return element == null || element.getKind() == ElementKind.PACKAGE;
+  }
+}
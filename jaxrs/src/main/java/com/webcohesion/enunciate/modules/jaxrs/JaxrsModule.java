@@ -39,11 +39,12 @@ import static com.webcohesion.enunciate.util.IgnoreUtils.isIgnored;
  * @author Ryan Heaton
  */
 @SuppressWarnings ( "unchecked" )
-public class JaxrsModule extends BasicProviderModule implements TypeDetectingModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
+public class JaxrsModule extends BasicProviderModule implements AnnotationDetectingModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
 
   private DataTypeDetectionStrategy defaultDataTypeDetectionStrategy;
   private final List<MediaTypeDefinitionModule> mediaTypeModules = new ArrayList<MediaTypeDefinitionModule>();
   private EnunciateJaxrsContext jaxrsContext;
+  private JaxrsApiRegistry apiRegistry;
   static final String NAME = "jaxrs";
   private PathSortStrategy defaultSortStrategy = PathSortStrategy.breadth_first;
 
@@ -111,12 +112,16 @@ public class JaxrsModule extends BasicProviderModule implements TypeDetectingMod
 
   @Override
   public ApiRegistry getApiRegistry() {
-    return new JaxrsApiRegistry(this.jaxrsContext);
+    if (this.apiRegistry == null) {
+      this.apiRegistry = new JaxrsApiRegistry(this.jaxrsContext);
+    }
+    return this.apiRegistry;
   }
 
   @Override
   public void call(EnunciateContext context) {
     jaxrsContext = new EnunciateJaxrsContext(context, isDisableExamples());
+    apiRegistry = new JaxrsApiRegistry(jaxrsContext);
 
     DataTypeDetectionStrategy detectionStrategy = getDataTypeDetectionStrategy();
     String relativeContextPath = "";
@@ -182,6 +187,20 @@ public class JaxrsModule extends BasicProviderModule implements TypeDetectingMod
     if (this.jaxrsContext.getProviders().size() > 0) {
       this.enunciate.addArtifact(new JaxrsProviderClassListArtifact(this.jaxrsContext));
     }
+
+    String applicationClass = getGeneratedApplicationClass();
+    if (applicationClass != null) {
+      this.enunciate.addArtifact(new JaxrsApplicationClassArtifact(this.jaxrsContext, applicationClass, this.config.getString("application[@javac-source]", "1.6"), this.config.getString("application[@javac-target]", "1.6")));
+    }
+  }
+
+  /**
+   * The fully-qualified name of the JAX-RS application class to generate, or null if no application class is to be generated.
+   *
+   * @return The name of the application class to generate.
+   */
+  public String getGeneratedApplicationClass() {
+    return this.config.getString("application[@generated-class]", null);
   }
 
   public static String sanitizeContextPath(String relativeContextPath) {
@@ -291,6 +310,11 @@ public class JaxrsModule extends BasicProviderModule implements TypeDetectingMod
     }
   }
 
+  @Override
+  public Set<String> getDetectedAnnotations() {
+    return new HashSet<String>(Arrays.asList(Path.class.getName(), Provider.class.getName(), ApplicationPath.class.getName()));
+  }
+
   @Override
   public boolean typeDetected(Object type, MetadataAdapter metadata) {
     String classname = metadata.getClassName(type);
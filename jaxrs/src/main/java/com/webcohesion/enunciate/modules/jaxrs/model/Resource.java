@@ -22,7 +22,6 @@ import com.webcohesion.enunciate.javac.decorations.element.PropertyElement;
 import com.webcohesion.enunciate.javac.decorations.type.TypeVariableContext;
 import com.webcohesion.enunciate.modules.jaxrs.EnunciateJaxrsContext;
 import com.webcohesion.enunciate.modules.jaxrs.model.util.JaxrsUtil;
-import com.webcohesion.enunciate.util.IgnoreUtils;
 
 import javax.annotation.security.RolesAllowed;
 import javax.lang.model.element.*;
@@ -158,22 +157,8 @@ public abstract class Resource extends DecoratedTypeElement implements HasFacets
     }
 
     ArrayList<ResourceMethod> resourceMethods = new ArrayList<ResourceMethod>();
-    for (ExecutableElement method : ElementFilter.methodsIn(delegate.getEnclosedElements())) {
-      if (IgnoreUtils.isIgnored(method)) {
-        continue;
-      }
-
-      if (method.getModifiers().contains(Modifier.PUBLIC)) {
-        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
-          Element annotationElement = annotation.getAnnotationType().asElement();
-          if (annotationElement != null) {
-            if (annotationElement.getAnnotation(HttpMethod.class) != null) {
-              resourceMethods.add(new ResourceMethod(method, this, variableContext, context));
-              break;
-            }
-          }
-        }
-      }
+    for (ExecutableElement method : context.getResourceMethodElements(delegate)) {
+      resourceMethods.add(new ResourceMethod(method, this, variableContext, context));
     }
 
     //some methods may be specified by a superclass and/or implemented interface.  But the annotations on the current class take precedence.
@@ -0,0 +1,174 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.jaxrs;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.EnunciateContext;
+import com.webcohesion.enunciate.javac.decorations.type.DecoratedTypeMirror;
+import com.webcohesion.enunciate.module.BasicEnunicateModule;
+import com.webcohesion.enunciate.module.DependencySpec;
+import com.webcohesion.enunciate.module.EnunciateModule;
+import com.webcohesion.enunciate.modules.jaxrs.model.RootResource;
+import org.junit.Test;
+
+import javax.lang.model.element.TypeElement;
+import java.io.File;
+import java.io.StringReader;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class EnunciateJaxrsContextTest {
+
+  private static final String SAMPLES = "com.webcohesion.enunciate.examples.jaxrs.hierarchy.";
+  private static final String[] RESOURCES = {"AnimalApi", "PetApi", "PetResource", "DogResource", "OwnerApi", "VetResource", "CrudApi", "CrudResource", "ToyResource"};
+
+  @Test
+  public void testSupertypeIndexMatchesPairwiseComparison() throws Exception {
+    Enunciate enunciate = new Enunciate();
+    enunciate.loadConfiguration(new StringReader("<enunciate><modules><jaxrs/></modules></enunciate>"));
+    enunciate.setBuildDir(createTempDir());
+    enunciate.setClasspath(testClasspath());
+    enunciate.addSourceDir(new File("src/test/samples/com/webcohesion/enunciate/examples/jaxrs/hierarchy"));
+    enunciate.addModule(new JaxrsModule());
+    RootResourceOrderModule module = new RootResourceOrderModule();
+    enunciate.addModule(module);
+    enunciate.run();
+
+    assertEquals("every order should have been checked", 52, module.results.size());
+    for (Map.Entry<List<String>, List<Set<String>>> result : module.results.entrySet()) {
+      assertEquals("root resources added in order " + result.getKey(), result.getValue().get(0), result.getValue().get(1));
+    }
+
+    //implementations win over the types they implement, but a parameterized supertype isn't assignable from its declaration.
+    List<String> given = Arrays.asList(RESOURCES);
+    assertEquals(new TreeSet<String>(Arrays.asList(SAMPLES + "CrudApi", SAMPLES + "CrudResource", SAMPLES + "DogResource", SAMPLES + "OwnerApi", SAMPLES + "ToyResource", SAMPLES + "VetResource")), module.results.get(given).get(0));
+  }
+
+  /**
+   * The way root resources were reconciled before they were indexed by supertype: each one compared against all the others.
+   */
+  private static Set<String> pairwise(List<RootResource> resources) {
+    List<RootResource> rootResources = new ArrayList<RootResource>();
+    for (RootResource rootResource : resources) {
+      boolean implemented = false;
+      if (rootResource.isInterface()) {
+        for (RootResource resource : rootResources) {
+          if (((DecoratedTypeMirror) resource.asType()).isInstanceOf(rootResource)) {
+            implemented = true;
+            break;
+          }
+        }
+      }
+      else {
+        Iterator<RootResource> it = rootResources.iterator();
+        while (it.hasNext()) {
+          if (((DecoratedTypeMirror) rootResource.asType()).isInstanceOf(it.next())) {
+            it.remove();
+          }
+        }
+      }
+
+      if (!implemented) {
+        rootResources.add(rootResource);
+      }
+    }
+    return names(rootResources);
+  }
+
+  private static Set<String> names(Collection<RootResource> resources) {
+    Set<String> names = new TreeSet<String>();
+    for (RootResource resource : resources) {
+      names.add(resource.getQualifiedName().toString());
+    }
+    return names;
+  }
+
+  private static List<File> testClasspath() {
+    List<File> classpath = new ArrayList<File>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        classpath.add(new File(entry));
+      }
+    }
+    return classpath;
+  }
+
+  private static File createTempDir() throws Exception {
+    File tempDir = File.createTempFile("enunciate", "");
+    tempDir.delete();
+    tempDir.mkdirs();
+    tempDir.deleteOnExit();
+    return tempDir;
+  }
+
+  /**
+   * Adds the sample root resources to fresh contexts in different orders, once through the index and once pairwise.
+   */
+  private static class RootResourceOrderModule extends BasicEnunicateModule {
+
+    private final Map<List<String>, List<Set<String>>> results = new LinkedHashMap<List<String>, List<Set<String>>>();
+
+    @Override
+    public String getName() {
+      return "jaxrs-order";
+    }
+
+    @Override
+    public List<DependencySpec> getDependencySpecifications() {
+      return Collections.singletonList((DependencySpec) new DependencySpec() {
+        @Override
+        public boolean accept(EnunciateModule module) {
+          return module instanceof JaxrsModule;
+        }
+
+        @Override
+        public boolean isFulfilled() {
+          return true;
+        }
+      });
+    }
+
+    @Override
+    public void call(EnunciateContext context) {
+      List<List<String>> orders = new ArrayList<List<String>>();
+      List<String> order = new ArrayList<String>(Arrays.asList(RESOURCES));
+      orders.add(new ArrayList<String>(order));
+      Collections.reverse(order);
+      orders.add(new ArrayList<String>(order));
+      Random random = new Random(23);
+      for (int i = 0; i < 50; i++) {
+        Collections.shuffle(order, random);
+        orders.add(new ArrayList<String>(order));
+      }
+
+      for (List<String> names : orders) {
+        EnunciateJaxrsContext indexed = new EnunciateJaxrsContext(context, false);
+        EnunciateJaxrsContext reference = new EnunciateJaxrsContext(context, false);
+        List<RootResource> resources = new ArrayList<RootResource>();
+        for (String name : names) {
+          TypeElement element = context.getProcessingEnvironment().getElementUtils().getTypeElement(SAMPLES + name);
+          indexed.add(new RootResource(element, indexed));
+          resources.add(new RootResource(element, reference));
+        }
+        this.results.put(names, Arrays.asList(names(indexed.getRootResources()), pairwise(resources)));
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.jaxrs;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.artifacts.Artifact;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class JaxrsApplicationClassArtifactTest {
+
+  @Test
+  public void testGeneratedApplicationSource() throws Exception {
+    File buildDir = createTempDir();
+    Enunciate enunciate = new Enunciate();
+    enunciate.loadConfiguration(new StringReader("<enunciate><modules><jaxrs><application generated-class=\"com.webcohesion.enunciate.examples.jaxrs.application.GeneratedApplication\"/></jaxrs></modules></enunciate>"));
+    enunciate.setBuildDir(buildDir);
+    enunciate.setClasspath(testClasspath());
+    enunciate.addSourceDir(new File("src/test/samples/com/webcohesion/enunciate/examples/jaxrs/application"));
+    enunciate.addModule(new JaxrsModule());
+    enunciate.run();
+
+    Artifact artifact = enunciate.findArtifact("jaxrs-application-class");
+    assertTrue(artifact instanceof JaxrsApplicationClassArtifact);
+    String source = ((JaxrsApplicationClassArtifact) artifact).getSource();
+    assertTrue(source, source.startsWith("package com.webcohesion.enunciate.examples.jaxrs.application;\n"));
+    assertTrue(source, source.contains("public class GeneratedApplication extends javax.ws.rs.core.Application {"));
+
+    //accessible types are registered by class literal...
+    assertTrue(source, source.contains("classes.add(com.webcohesion.enunciate.examples.jaxrs.application.PetResource.class);"));
+    assertTrue(source, source.contains("classes.add(com.webcohesion.enunciate.examples.jaxrs.application.PetNotFoundMapper.class);"));
+
+    //...and the others are loaded by binary name.
+    assertTrue(source, source.contains("add(classes, \"com.webcohesion.enunciate.examples.jaxrs.application.OwnerResource\");"));
+
+    //the jaxb context resolver is a singleton, loaded by name.
+    assertTrue(source, source.contains("loadClass(\"com.webcohesion.enunciate.rt.EnunciateJaxbContextResolver\").newInstance()"));
+
+    //the generated source compiles (against the compiled sample classes).
+    File classes = createTempDir();
+    enunciate.setClasspath(append(testClasspath(), classes));
+    assertTrue(compileSamples(enunciate, classes));
+    artifact.exportTo(classes, enunciate);
+    assertTrue(new File(classes, "com/webcohesion/enunciate/examples/jaxrs/application/GeneratedApplication.class").exists());
+  }
+
+  private static boolean compileSamples(Enunciate enunciate, File classes) throws Exception {
+    List<String> args = new ArrayList<String>();
+    args.add("-encoding");
+    args.add("UTF-8");
+    args.add("-d");
+    args.add(classes.getAbsolutePath());
+    args.add("-cp");
+    args.add(enunciate.writeClasspath(testClasspath()));
+    for (File source : new File("src/test/samples/com/webcohesion/enunciate/examples/jaxrs/application").listFiles()) {
+      args.add(source.getAbsolutePath());
+    }
+    return javax.tools.ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(new String[args.size()])) == 0;
+  }
+
+  private static List<File> testClasspath() {
+    List<File> classpath = new ArrayList<File>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        classpath.add(new File(entry));
+      }
+    }
+    return classpath;
+  }
+
+  private static List<File> append(List<File> classpath, File entry) {
+    classpath.add(entry);
+    return classpath;
+  }
+
+  private static File createTempDir() throws Exception {
+    File tempDir = File.createTempFile("enunciate", "");
+    tempDir.delete();
+    tempDir.mkdirs();
+    tempDir.deleteOnExit();
+    return tempDir;
+  }
+}
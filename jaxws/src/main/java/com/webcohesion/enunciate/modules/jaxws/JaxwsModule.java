@@ -41,7 +41,7 @@ import java.util.*;
  * @author Ryan Heaton
  */
 @SuppressWarnings ( "unchecked" )
-public class JaxwsModule extends BasicProviderModule implements TypeDetectingModule, ApiRegistryProviderModule, ApiFeatureProviderModule, WebInfAwareModule {
+public class JaxwsModule extends BasicProviderModule implements AnnotationDetectingModule, ApiRegistryProviderModule, ApiFeatureProviderModule, WebInfAwareModule {
 
   private JaxbModule jaxbModule;
   private DataTypeDetectionStrategy defaultDataTypeDetectionStrategy;
@@ -241,6 +241,11 @@ public class JaxwsModule extends BasicProviderModule implements TypeDetectingMod
     }
   }
 
+  @Override
+  public Set<String> getDetectedAnnotations() {
+    return new HashSet<String>(Arrays.asList(WebService.class.getName()));
+  }
+
   @Override
   public boolean typeDetected(Object type, MetadataAdapter metadata) {
     String classname = metadata.getClassName(type);
@@ -45,12 +45,7 @@ import com.webcohesion.enunciate.util.freemarker.ClientPackageForMethod;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
 import com.webcohesion.enunciate.util.freemarker.SimpleNameWithParamsMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
 import javax.lang.model.element.TypeElement;
@@ -58,9 +53,6 @@ import javax.lang.model.type.DeclaredType;
 import javax.xml.bind.annotation.XmlElements;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 
@@ -69,6 +61,8 @@ import java.util.*;
  */
 public class PHPXMLClientModule extends BasicGeneratingModule implements ApiFeatureProviderModule {
 
+  private final PHPXMLClientObjectWrapper objectWrapper = new PHPXMLClientObjectWrapper();
+
   JaxbModule jaxbModule;
   JaxrsModule jaxrsModule;
 
@@ -201,7 +195,7 @@ public class PHPXMLClientModule extends BasicGeneratingModule implements ApiFeat
 
     File bundle = new File(packageDir, getBundleFileName());
     boolean anyFiles = bundle.exists();
-    if (!isUpToDateWithSources(packageDir)) {
+    if (!isUpToDateWithSources(packageDir) && !isUpToDateWithFiles(packageDir, srcDir)) {
       try {
         anyFiles = enunciate.zip(bundle, srcDir);
       }
@@ -265,33 +259,7 @@ public class PHPXMLClientModule extends BasicGeneratingModule implements ApiFeat
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new PHPXMLClientObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return this.enunciate.getTemplateEngine().processTemplate(templateURL, model, this.objectWrapper);
   }
 
   protected String packageToNamespace(String pckg) {
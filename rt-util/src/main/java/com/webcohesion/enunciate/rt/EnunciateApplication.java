@@ -20,10 +20,13 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
-import java.util.Enumeration;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
 /**
@@ -34,58 +37,155 @@ public class EnunciateApplication extends Application {
   private static Logger LOG = Logger.getLogger(EnunciateApplication.class.getName());
   private static final String JAXB_CONTEXT_RESOLVER_CLASSNAME = "com.webcohesion.enunciate.rt.EnunciateJaxbContextResolver";
 
+  private volatile Set<Class<?>> classes;
+
+  /**
+   * The resource and provider classes, read from the class lists on the classpath. Some JAX-RS implementations ask for
+   * the classes more than once, so the lists are only read (and the classes only loaded) once per application. Each call
+   * gets its own (mutable) copy of them.
+   *
+   * @return The resource and provider classes.
+   */
   @Override
   public Set<Class<?>> getClasses() {
-    Set<Class<?>> classes = new HashSet<Class<?>>();
+    Set<Class<?>> classes = this.classes;
+    if (classes == null) {
+      classes = loadClasses();
+      this.classes = classes;
+    }
+    return new HashSet<Class<?>>(classes);
+  }
+
+  protected Set<Class<?>> loadClasses() {
     ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+    List<String> resourceClasses = new ArrayList<String>();
+    List<String> providerClasses = new ArrayList<String>();
 
     try {
-      Enumeration<URL> contextClassLists = classloader.getResources("/jaxrs-resource-classes.list");
-      while (contextClassLists.hasMoreElements()) {
-        URL contextClassList = contextClassLists.nextElement();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(contextClassList.openStream(), "utf-8"));
-        String contextClass = reader.readLine();
-        while (contextClass != null) {
-          try {
-            classes.add(classloader.loadClass(contextClass));
-          }
-          catch (Throwable e) {
-            onUnknownResourceClass(contextClass, e);
-          }
-          contextClass = reader.readLine();
-        }
-      }
+      readClassList(classloader, "/jaxrs-resource-classes.list", resourceClasses);
     }
     catch (IOException e) {
       LOG.warning("Unable to read all JAX-RS resource classes (" + e.getMessage() + ")");
     }
 
     try {
-      Enumeration<URL> contextClassLists = classloader.getResources("/jaxrs-provider-classes.list");
-      while (contextClassLists.hasMoreElements()) {
-        URL contextClassList = contextClassLists.nextElement();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(contextClassList.openStream(), "utf-8"));
-        String contextClass = reader.readLine();
-        while (contextClass != null) {
-          if (!JAXB_CONTEXT_RESOLVER_CLASSNAME.equals(contextClass)) { //we'll attempt to load the jaxb context resolver as a singleton, in case we don't have jaxb-impl on the classpath.
-            try {
-              classes.add(classloader.loadClass(contextClass));
-            }
-            catch (Throwable e) {
-              onUnknownProviderClass(contextClass, e);
-            }
-          }
-          contextClass = reader.readLine();
-        }
-      }
+      readClassList(classloader, "/jaxrs-provider-classes.list", providerClasses);
     }
     catch (IOException e) {
       LOG.warning("Unable to read all JAX-RS provider classes (" + e.getMessage() + ")");
     }
 
+    //we'll attempt to load the jaxb context resolver as a singleton, in case we don't have jaxb-impl on the classpath.
+    providerClasses.removeAll(Collections.singleton(JAXB_CONTEXT_RESOLVER_CLASSNAME));
+
+    Set<Class<?>> classes = new HashSet<Class<?>>();
+    if (isLoadClassesInParallel() && resourceClasses.size() + providerClasses.size() > 1) {
+      loadClassesInParallel(classloader, resourceClasses, providerClasses, classes);
+    }
+    else {
+      for (String resourceClass : resourceClasses) {
+        try {
+          classes.add(classloader.loadClass(resourceClass));
+        }
+        catch (Throwable e) {
+          onUnknownResourceClass(resourceClass, e);
+        }
+      }
+
+      for (String providerClass : providerClasses) {
+        try {
+          classes.add(classloader.loadClass(providerClass));
+        }
+        catch (Throwable e) {
+          onUnknownProviderClass(providerClass, e);
+        }
+      }
+    }
+
     return classes;
   }
 
+  /**
+   * Whether to load the resource and provider classes in parallel (system property "enunciate.jaxrs.parallel"). Only
+   * worth it for a large number of classes and a class loader that can load classes in parallel.
+   *
+   * @return Whether to load the classes in parallel.
+   */
+  protected boolean isLoadClassesInParallel() {
+    return Boolean.getBoolean("enunciate.jaxrs.parallel");
+  }
+
+  protected void loadClassesInParallel(final ClassLoader classloader, List<String> resourceClasses, List<String> providerClasses, Set<Class<?>> classes) {
+    int threads = Math.min(Runtime.getRuntime().availableProcessors(), resourceClasses.size() + providerClasses.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "enunciate-jaxrs-class-loader");
+        thread.setDaemon(true);
+        thread.setContextClassLoader(classloader);
+        return thread;
+      }
+    });
+
+    try {
+      Map<String, Future<Class<?>>> resourceLoads = submitLoads(executor, classloader, resourceClasses);
+      Map<String, Future<Class<?>>> providerLoads = submitLoads(executor, classloader, providerClasses);
+      for (Map.Entry<String, Future<Class<?>>> load : resourceLoads.entrySet()) {
+        try {
+          classes.add(load.getValue().get());
+        }
+        catch (Throwable e) {
+          onUnknownResourceClass(load.getKey(), e instanceof ExecutionException ? e.getCause() : e);
+        }
+      }
+
+      for (Map.Entry<String, Future<Class<?>>> load : providerLoads.entrySet()) {
+        try {
+          classes.add(load.getValue().get());
+        }
+        catch (Throwable e) {
+          onUnknownProviderClass(load.getKey(), e instanceof ExecutionException ? e.getCause() : e);
+        }
+      }
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  private static Map<String, Future<Class<?>>> submitLoads(ExecutorService executor, final ClassLoader classloader, List<String> classNames) {
+    Map<String, Future<Class<?>>> loads = new LinkedHashMap<String, Future<Class<?>>>();
+    for (final String className : classNames) {
+      if (!loads.containsKey(className)) {
+        loads.put(className, executor.submit(new Callable<Class<?>>() {
+          @Override
+          public Class<?> call() throws Exception {
+            return classloader.loadClass(className);
+          }
+        }));
+      }
+    }
+    return loads;
+  }
+
+  private static void readClassList(ClassLoader classloader, String listName, List<String> classNames) throws IOException {
+    Enumeration<URL> classLists = classloader.getResources(listName);
+    while (classLists.hasMoreElements()) {
+      URL classList = classLists.nextElement();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(classList.openStream(), "utf-8"));
+      try {
+        String className = reader.readLine();
+        while (className != null) {
+          classNames.add(className);
+          className = reader.readLine();
+        }
+      }
+      finally {
+        reader.close();
+      }
+    }
+  }
+
   @Override
   public Set<Object> getSingletons() {
     ClassLoader classloader = Thread.currentThread().getContextClassLoader();
@@ -21,18 +21,24 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.List;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 /**
  * A JAX-RS context resolver for an instance of JAXBContext that attempts to use metadata exported at build-time
  * by Enunciate to provide pretty namespace prefixes and a JAXB context that is aware of all the classes annotated
  * with @XmlRootElement in the project.
+ * <p>
+ * By default, one JAXB context for all the classes is built when the resolver is constructed. In lazy mode (system
+ * property "enunciate.jaxb.lazy"), the classes are partitioned by the schema they belong to (per the
+ * jaxb-context-partitions.properties exported at build-time), together with the schemas connected to it by reference,
+ * and the JAXB context of a partition is only built the first time it's needed. Types that don't belong to any partition get a (lazily built) JAXB context for all the classes.
+ * Lazily built contexts can be warmed on a background thread (system property "enunciate.jaxb.warm").
  *
  * @author Ryan Heaton
  */
@@ -41,38 +47,273 @@ public class EnunciateJaxbContextResolver implements ContextResolver<JAXBContext
 
   private static Logger LOG = Logger.getLogger(EnunciateJaxbContextResolver.class.getName());
 
+  /**
+   * The partition of all the JAXB context classes.
+   */
+  private static final String ALL_CLASSES = "*";
+
   private final JAXBContext context;
+  private final boolean lazy;
+  private final ClassLoader classloader;
+  private final Map<String, String> partitionsByClass = new HashMap<String, String>();
+  private final Map<String, List<String>> classesByPartition = new TreeMap<String, List<String>>();
+  private final ConcurrentMap<String, ContextHolder> contexts = new ConcurrentHashMap<String, ContextHolder>();
+  private EnunciateJaxbNamespacePrefixMapper prefixMapper;
+  private boolean hasContextClassLists;
+  private boolean hasMetadata;
 
   public EnunciateJaxbContextResolver() {
-    this.context = buildJaxbContext();
+    this(Boolean.getBoolean("enunciate.jaxb.lazy"), Boolean.getBoolean("enunciate.jaxb.warm"));
+  }
+
+  /**
+   * @param lazy Whether to build the JAXB contexts lazily, by partition.
+   * @param warm Whether to warm the lazily-built JAXB contexts on a background thread.
+   */
+  public EnunciateJaxbContextResolver(boolean lazy, boolean warm) {
+    this.lazy = lazy;
+    this.classloader = Thread.currentThread().getContextClassLoader();
+    if (lazy) {
+      this.context = null;
+      loadPartitions();
+      if (warm) {
+        warm();
+      }
+    }
+    else {
+      this.context = buildJaxbContext();
+    }
   }
 
   @Override
   public JAXBContext getContext(Class<?> type) {
-    return this.context;
+    if (!this.lazy) {
+      return this.context;
+    }
+
+    String partition = type == null ? null : this.partitionsByClass.get(type.getName());
+    return getPartitionContext(partition == null ? ALL_CLASSES : partition);
+  }
+
+  /**
+   * Build the JAXB contexts of all the partitions on a background (daemon) thread.
+   */
+  protected void warm() {
+    Thread warmer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (String partition : classesByPartition.keySet()) {
+          getPartitionContext(partition);
+        }
+      }
+    }, "enunciate-jaxb-context-warmer");
+    warmer.setDaemon(true);
+    warmer.setContextClassLoader(this.classloader);
+    warmer.start();
+  }
+
+  protected JAXBContext getPartitionContext(String partition) {
+    ContextHolder holder = this.contexts.get(partition);
+    if (holder == null) {
+      ContextHolder newHolder = new ContextHolder();
+      holder = this.contexts.putIfAbsent(partition, newHolder);
+      if (holder == null) {
+        holder = newHolder;
+      }
+    }
+    return holder.get(partition);
+  }
+
+  /**
+   * Build the JAXB context for the classes of the specified partition.
+   *
+   * @param partition The partition.
+   * @return The JAXB context, or null if it couldn't be built.
+   */
+  protected JAXBContext buildPartitionContext(String partition) {
+    if (!this.hasMetadata) {
+      return null;
+    }
+
+    List<String> classNames;
+    if (ALL_CLASSES.equals(partition)) {
+      classNames = new ArrayList<String>(this.partitionsByClass.keySet());
+      Collections.sort(classNames);
+    }
+    else {
+      classNames = this.classesByPartition.get(partition);
+    }
+
+    List<Class<?>> contextClasses = loadClasses(classNames);
+    try {
+      JAXBContext jaxbContext = JAXBContext.newInstance(contextClasses.toArray(new Class[contextClasses.size()]));
+      return new EnunciateJaxbContext(jaxbContext, this.prefixMapper);
+    }
+    catch (JAXBException e) {
+      LOG.warning("Unable to construct JAXB classes for " + (ALL_CLASSES.equals(partition) ? "all namespaces" : "namespaces " + partition) + " (" + e.getMessage() + ")");
+      return null;
+    }
+  }
+
+  protected void loadPartitions() {
+    Map<String, String> namespaceGroups = new HashMap<String, String>();
+    List<String> classNames = readContextClassNames();
+    for (String className : classNames) {
+      this.partitionsByClass.put(className, null);
+    }
+
+    try {
+      Enumeration<URL> partitionsList = this.classloader.getResources("/jaxb-context-partitions.properties");
+      while (partitionsList.hasMoreElements()) {
+        Properties partitions = new Properties();
+        InputStream in = partitionsList.nextElement().openStream();
+        try {
+          partitions.load(in);
+        }
+        finally {
+          in.close();
+        }
+
+        for (String key : partitions.stringPropertyNames()) {
+          String value = partitions.getProperty(key);
+          if (key.startsWith("{") && key.endsWith("}")) {
+            //the namespaces referenced by a namespace.
+            String namespace = key.substring(1, key.length() - 1);
+            findNamespaceGroup(namespaceGroups, namespace);
+            for (String reference : value.split(" ")) {
+              if (!reference.isEmpty()) {
+                joinNamespaceGroups(namespaceGroups, namespace, reference);
+              }
+            }
+          }
+          else if (this.partitionsByClass.containsKey(key) && this.partitionsByClass.get(key) == null) {
+            this.partitionsByClass.put(key, value);
+            findNamespaceGroup(namespaceGroups, value);
+          }
+        }
+      }
+    }
+    catch (IOException e) {
+      LOG.warning("Unable to read all JAXB context partitions (" + e.getMessage() + ")");
+    }
+
+    //a JAXB context needs the classes of all the namespaces connected to its namespace (referenced types, subclasses,
+    //element refs and substitution groups), so each partition is the group of connected namespaces, named by its members.
+    Map<String, Set<String>> groupMembers = new HashMap<String, Set<String>>();
+    for (String namespace : namespaceGroups.keySet()) {
+      String group = findNamespaceGroup(namespaceGroups, namespace);
+      Set<String> members = groupMembers.get(group);
+      if (members == null) {
+        members = new TreeSet<String>();
+        groupMembers.put(group, members);
+      }
+      members.add(namespace);
+    }
+
+    Map<String, String> partitionNames = new HashMap<String, String>();
+    for (String namespace : namespaceGroups.keySet()) {
+      StringBuilder partitionName = new StringBuilder();
+      for (String member : groupMembers.get(findNamespaceGroup(namespaceGroups, namespace))) {
+        if (partitionName.length() > 0) {
+          partitionName.append(' ');
+        }
+        partitionName.append('\'').append(member).append('\'');
+      }
+      partitionNames.put(namespace, partitionName.toString());
+    }
+
+    for (Map.Entry<String, String> entry : this.partitionsByClass.entrySet()) {
+      if (entry.getValue() != null) {
+        entry.setValue(partitionNames.get(entry.getValue()));
+      }
+    }
+
+    for (Map.Entry<String, String> entry : this.partitionsByClass.entrySet()) {
+      if (entry.getValue() != null) {
+        List<String> partitionClasses = this.classesByPartition.get(entry.getValue());
+        if (partitionClasses == null) {
+          partitionClasses = new ArrayList<String>();
+          this.classesByPartition.put(entry.getValue(), partitionClasses);
+        }
+        partitionClasses.add(entry.getKey());
+      }
+    }
+
+    for (List<String> partitionClasses : this.classesByPartition.values()) {
+      Collections.sort(partitionClasses);
+    }
+
+    this.prefixMapper = loadPrefixMapper();
+    this.hasMetadata = this.hasContextClassLists || this.prefixMapper != null;
+    if (this.prefixMapper == null) {
+      this.prefixMapper = new EnunciateJaxbNamespacePrefixMapper(null, new Properties());
+    }
+  }
+
+  /**
+   * Find the group of the specified namespace (adding the namespace as its own group if it isn't known yet).
+   *
+   * @param namespaceGroups The group links of the namespaces.
+   * @param namespace The namespace.
+   * @return The namespace that identifies the group.
+   */
+  private static String findNamespaceGroup(Map<String, String> namespaceGroups, String namespace) {
+    String group = namespaceGroups.get(namespace);
+    if (group == null) {
+      namespaceGroups.put(namespace, namespace);
+      return namespace;
+    }
+    else if (!group.equals(namespace)) {
+      group = findNamespaceGroup(namespaceGroups, group);
+      namespaceGroups.put(namespace, group);
+    }
+    return group;
+  }
+
+  private static void joinNamespaceGroups(Map<String, String> namespaceGroups, String namespace1, String namespace2) {
+    String group1 = findNamespaceGroup(namespaceGroups, namespace1);
+    String group2 = findNamespaceGroup(namespaceGroups, namespace2);
+    if (!group1.equals(group2)) {
+      namespaceGroups.put(group2, group1);
+    }
   }
 
   protected JAXBContext buildJaxbContext() {
-    List<Class<?>> contextClasses = new ArrayList<Class<?>>();
-    ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+    List<Class<?>> contextClasses = loadClasses(readContextClassNames());
+    EnunciateJaxbNamespacePrefixMapper prefixMapper = loadPrefixMapper();
 
-    boolean hasContextClasses = false;
-    boolean hasNamespacePrefixes = false;
+    if (this.hasContextClassLists || prefixMapper != null) {
+      try {
+        if (prefixMapper == null) {
+          prefixMapper = new EnunciateJaxbNamespacePrefixMapper(null, new Properties());
+        }
+        JAXBContext jaxbContext = JAXBContext.newInstance(contextClasses.toArray(new Class[contextClasses.size()]));
+        return new EnunciateJaxbContext(jaxbContext, prefixMapper);
+      }
+      catch (JAXBException e) {
+        LOG.warning("Unable to construct JAXB classes (" + e.getMessage() + ")");
+      }
+    }
 
+    return null;
+  }
+
+  /**
+   * Read the names of the classes in all the jaxb-context-classes.list files on the classpath.
+   *
+   * @return The names of the JAXB context classes.
+   */
+  protected List<String> readContextClassNames() {
+    List<String> contextClasses = new ArrayList<String>();
     try {
-      Enumeration<URL> contextClassLists = classloader.getResources("/jaxb-context-classes.list");
+      Enumeration<URL> contextClassLists = this.classloader.getResources("/jaxb-context-classes.list");
       while (contextClassLists.hasMoreElements()) {
-        hasContextClasses = true;
+        this.hasContextClassLists = true;
         URL contextClassList = contextClassLists.nextElement();
         BufferedReader reader = new BufferedReader(new InputStreamReader(contextClassList.openStream(), "utf-8"));
         String contextClass = reader.readLine();
         while (contextClass != null) {
-          try {
-            contextClasses.add(classloader.loadClass(contextClass));
-          }
-          catch (Throwable e) {
-            LOG.warning("Unable to load JAXB context class " + contextClass + " (" + e.getMessage() + ")");
-          }
+          contextClasses.add(contextClass);
           contextClass = reader.readLine();
         }
       }
@@ -80,11 +321,33 @@ public class EnunciateJaxbContextResolver implements ContextResolver<JAXBContext
     catch (IOException e) {
       LOG.warning("Unable to read all JAXB context classes (" + e.getMessage() + ")");
     }
+    return contextClasses;
+  }
 
+  protected List<Class<?>> loadClasses(List<String> classNames) {
+    List<Class<?>> contextClasses = new ArrayList<Class<?>>();
+    for (String contextClass : classNames) {
+      try {
+        contextClasses.add(this.classloader.loadClass(contextClass));
+      }
+      catch (Throwable e) {
+        LOG.warning("Unable to load JAXB context class " + contextClass + " (" + e.getMessage() + ")");
+      }
+    }
+    return contextClasses;
+  }
+
+  /**
+   * Load the namespace prefix mapper from all the namespaces.properties files on the classpath.
+   *
+   * @return The namespace prefix mapper, or null if there are no namespaces.properties files on the classpath.
+   */
+  protected EnunciateJaxbNamespacePrefixMapper loadPrefixMapper() {
+    boolean hasNamespacePrefixes = false;
     Properties namespacePrefixes = new Properties();
     String defaultNs = null;
     try {
-      Enumeration<URL> namespacePropertiesList = classloader.getResources("/namespaces.properties");
+      Enumeration<URL> namespacePropertiesList = this.classloader.getResources("/namespaces.properties");
       while (namespacePropertiesList.hasMoreElements()) {
         hasNamespacePrefixes = true;
         URL namespaceProperties = namespacePropertiesList.nextElement();
@@ -101,17 +364,23 @@ public class EnunciateJaxbContextResolver implements ContextResolver<JAXBContext
       LOG.warning("Unable to read all namespace properties (" + e.getMessage() + ")");
     }
 
-    if (hasContextClasses || hasNamespacePrefixes) {
-      try {
-        EnunciateJaxbNamespacePrefixMapper prefixMapper = new EnunciateJaxbNamespacePrefixMapper(defaultNs, namespacePrefixes);
-        JAXBContext jaxbContext = JAXBContext.newInstance(contextClasses.toArray(new Class[contextClasses.size()]));
-        return new EnunciateJaxbContext(jaxbContext, prefixMapper);
-      }
-      catch (JAXBException e) {
-        LOG.warning("Unable to construct JAXB classes (" + e.getMessage() + ")");
+    return hasNamespacePrefixes ? new EnunciateJaxbNamespacePrefixMapper(defaultNs, namespacePrefixes) : null;
+  }
+
+  /**
+   * Holds the (lazily built) JAXB context of a partition.
+   */
+  private class ContextHolder {
+
+    private boolean built = false;
+    private JAXBContext context;
+
+    synchronized JAXBContext get(String partition) {
+      if (!this.built) {
+        this.context = buildPartitionContext(partition);
+        this.built = true;
       }
+      return this.context;
     }
-
-    return null;
   }
 }
@@ -17,97 +17,266 @@ package com.webcohesion.enunciate.rt;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
 import javax.xml.stream.*;
 import javax.xml.stream.events.*;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.Writer;
+import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
 
 /**
+ * Filter for serving the IDL documents (WSDL, WADL, schemas) with the base address that was assumed at build time
+ * replaced with the real base address of the request. The rewritten documents are cached per (path, base address) in a
+ * bounded LRU cache (filter init parameter "cache-size", default 64; 0 to disable) and are served with strong ETags
+ * and a Last-Modified header so that clients can revalidate with conditional requests. Unless the "gzip" init parameter
+ * is "false", a gzipped variant is served to clients that accept it.
+ *
  * @author Ryan Heaton
  */
 public class IDLFilter implements Filter {
 
+  private static final int DEFAULT_CACHE_SIZE = 64;
+
   private ServletContext servletContext = null;
   private XMLInputFactory inputFactory;
   private XMLOutputFactory outputFactory;
+  private Map<String, IDLDocument> cache;
+  private boolean gzip = true;
 
   public void init(FilterConfig filterConfig) throws ServletException {
     this.inputFactory = XMLInputFactory.newInstance();
     this.outputFactory = XMLOutputFactory.newInstance();
 
     this.servletContext = filterConfig.getServletContext();
+
+    int cacheSize = DEFAULT_CACHE_SIZE;
+    String cacheSizeParam = filterConfig.getInitParameter("cache-size");
+    if (cacheSizeParam != null) {
+      try {
+        cacheSize = Integer.parseInt(cacheSizeParam.trim());
+      }
+      catch (NumberFormatException e) {
+        throw new ServletException("Invalid cache-size: " + cacheSizeParam);
+      }
+    }
+
+    final int maxEntries = cacheSize;
+    this.cache = maxEntries <= 0 ? null : Collections.synchronizedMap(new LinkedHashMap<String, IDLDocument>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, IDLDocument> eldest) {
+        return size() > maxEntries;
+      }
+    });
+
+    this.gzip = !"false".equalsIgnoreCase(filterConfig.getInitParameter("gzip"));
   }
 
   public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain) throws IOException, ServletException {
     HttpServletRequest request = (HttpServletRequest) servletRequest;
     RequestURIParts parts = parseParts(request);
     if (parts != null) {
-      String realBaseAddress = parts.getBaseAddress();
-      String idlPath = parts.getFilePath();
+      IDLDocument document = findDocument(parts.getFilePath(), parts.getBaseAddress());
+      if (document != null) {
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        boolean gzipped = this.gzip && acceptsGzip(request);
+        String etag = gzipped ? document.getGzipETag() : document.getETag();
+        response.setContentType("text/xml");
+        response.setCharacterEncoding("utf-8");
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", document.getLastModified());
+        if (this.gzip) {
+          response.setHeader("Vary", "Accept-Encoding");
+        }
+
+        if (isNotModified(request, etag, document.getLastModified())) {
+          response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+          return;
+        }
+
+        if (gzipped) {
+          byte[] content = document.getGzipContent();
+          response.setHeader("Content-Encoding", "gzip");
+          response.setContentLength(content.length);
+          OutputStream out = response.getOutputStream();
+          out.write(content);
+          out.flush();
+        }
+        else {
+          Writer out = response.getWriter();
+          out.write(document.getContent());
+          out.flush();
+        }
+        return;
+      }
+    }
+
+    chain.doFilter(servletRequest, servletResponse);
+  }
+
+  /**
+   * Find the IDL document at the specified path, rewritten for the specified base address.
+   *
+   * @param idlPath         The path to the IDL document.
+   * @param realBaseAddress The real base address.
+   * @return The document, or null if there's no document at the specified path.
+   */
+  protected IDLDocument findDocument(String idlPath, String realBaseAddress) throws ServletException, IOException {
+    String key = idlPath + '|' + realBaseAddress;
+    IDLDocument document = this.cache == null ? null : this.cache.get(key);
+    if (document == null) {
       InputStream idl = this.servletContext.getResourceAsStream(idlPath);
-      if (idl != null) {
-        servletResponse.setContentType("text/xml");
-        String assumedBaseAddress = this.servletContext.getInitParameter("assumed-base-uri");
-        try {
-          XMLEventReader eventReader = this.inputFactory.createXMLEventReader(idl);
-          XMLEventWriter eventWriter = this.outputFactory.createXMLEventWriter(servletResponse.getWriter());
-          while (eventReader.hasNext()) {
-            XMLEvent event = eventReader.nextEvent();
-            if (event.isProcessingInstruction()) {
-              String target = ((ProcessingInstruction) event).getTarget();
-              if ("enunciate-assumed-base-uri".equals(target)) {
-                assumedBaseAddress = ((ProcessingInstruction) event).getData();
-                if (assumedBaseAddress.endsWith("/")) {
-                  assumedBaseAddress = assumedBaseAddress.substring(0, assumedBaseAddress.length() - 1);
-                }
-              }
-              continue;
-            }
-            else if (event.getEventType() == XMLStreamConstants.CDATA || event.getEventType() == XMLStreamConstants.CHARACTERS) {
-              String data = ((Characters) event).getData();
-              if (assumedBaseAddress != null && data.contains(assumedBaseAddress)) {
-                data = data.replace(assumedBaseAddress, realBaseAddress);
-                event = new DelegatingCharacters(((Characters) event), data);
-              }
-            }
-            else if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-              List<Attribute> attributes = new ArrayList<Attribute>();
-              Iterator attributesIt = ((StartElement) event).getAttributes();
-              while (attributesIt.hasNext()) {
-                Attribute attribute = (Attribute) attributesIt.next();
-                String value = attribute.getValue();
-                if (assumedBaseAddress != null && value.contains(assumedBaseAddress)) {
-                  value = value.replace(assumedBaseAddress, realBaseAddress);
-                  attribute = new DelegatingAttribute(attribute, value);
-                  event = new DelegatingStartElement(((StartElement) event), attributes);
-                }
-                attributes.add(attribute);
-              }
-            }
+      if (idl == null) {
+        return null;
+      }
+
+      String content;
+      try {
+        content = rewrite(idl, realBaseAddress);
+      }
+      catch (XMLStreamException e) {
+        throw new ServletException(e);
+      }
+      finally {
+        idl.close();
+      }
 
-            eventWriter.add(event);
+      document = new IDLDocument(content, findLastModified(idlPath));
+      if (this.cache != null) {
+        this.cache.put(key, document);
+      }
+    }
+    return document;
+  }
+
+  /**
+   * Rewrite the specified IDL, replacing the assumed base address with the real base address.
+   *
+   * @param idl             The IDL.
+   * @param realBaseAddress The real base address.
+   * @return The rewritten IDL.
+   */
+  protected String rewrite(InputStream idl, String realBaseAddress) throws XMLStreamException {
+    String assumedBaseAddress = this.servletContext.getInitParameter("assumed-base-uri");
+    StringWriter rewritten = new StringWriter();
+    XMLEventReader eventReader = this.inputFactory.createXMLEventReader(idl);
+    XMLEventWriter eventWriter = this.outputFactory.createXMLEventWriter(rewritten);
+    while (eventReader.hasNext()) {
+      XMLEvent event = eventReader.nextEvent();
+      if (event.isProcessingInstruction()) {
+        String target = ((ProcessingInstruction) event).getTarget();
+        if ("enunciate-assumed-base-uri".equals(target)) {
+          assumedBaseAddress = ((ProcessingInstruction) event).getData();
+          if (assumedBaseAddress.endsWith("/")) {
+            assumedBaseAddress = assumedBaseAddress.substring(0, assumedBaseAddress.length() - 1);
+          }
+        }
+        continue;
+      }
+      else if (event.getEventType() == XMLStreamConstants.CDATA || event.getEventType() == XMLStreamConstants.CHARACTERS) {
+        String data = ((Characters) event).getData();
+        if (assumedBaseAddress != null && data.contains(assumedBaseAddress)) {
+          data = data.replace(assumedBaseAddress, realBaseAddress);
+          event = new DelegatingCharacters(((Characters) event), data);
+        }
+      }
+      else if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
+        List<Attribute> attributes = new ArrayList<Attribute>();
+        Iterator attributesIt = ((StartElement) event).getAttributes();
+        while (attributesIt.hasNext()) {
+          Attribute attribute = (Attribute) attributesIt.next();
+          String value = attribute.getValue();
+          if (assumedBaseAddress != null && value.contains(assumedBaseAddress)) {
+            value = value.replace(assumedBaseAddress, realBaseAddress);
+            attribute = new DelegatingAttribute(attribute, value);
+            event = new DelegatingStartElement(((StartElement) event), attributes);
           }
+          attributes.add(attribute);
+        }
+      }
 
-          eventReader.close();
-          eventWriter.flush();
-          eventWriter.close();
-          return;
+      eventWriter.add(event);
+    }
+
+    eventReader.close();
+    eventWriter.flush();
+    eventWriter.close();
+    return rewritten.toString();
+  }
+
+  /**
+   * The last-modified time of the IDL document at the specified path, rounded down to the second.
+   *
+   * @param idlPath The path.
+   * @return The last-modified time.
+   */
+  protected long findLastModified(String idlPath) {
+    long lastModified = -1;
+    try {
+      URL resource = this.servletContext.getResource(idlPath);
+      if (resource != null) {
+        URLConnection connection = resource.openConnection();
+        lastModified = connection.getLastModified();
+        connection.getInputStream().close();
+      }
+    }
+    catch (IOException e) {
+      //fall through...
+    }
+
+    if (lastModified <= 0) {
+      lastModified = System.currentTimeMillis();
+    }
+
+    return lastModified / 1000 * 1000;
+  }
+
+  protected boolean acceptsGzip(HttpServletRequest request) {
+    String acceptEncoding = request.getHeader("Accept-Encoding");
+    if (acceptEncoding != null) {
+      for (String coding : acceptEncoding.split(",")) {
+        String[] params = coding.trim().split(";");
+        if ("gzip".equalsIgnoreCase(params[0].trim())) {
+          for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=") && param.substring(2).trim().matches("0(\\.0*)?")) {
+              return false;
+            }
+          }
+          return true;
         }
-        catch (XMLStreamException e) {
-          throw new ServletException(e);
+      }
+    }
+    return false;
+  }
+
+  protected boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String candidate : ifNoneMatch.split(",")) {
+        candidate = candidate.trim();
+        if ("*".equals(candidate) || etag.equals(candidate)) {
+          return true;
         }
       }
+      return false;
     }
 
-    chain.doFilter(servletRequest, servletResponse);
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader("If-Modified-Since");
+    }
+    catch (IllegalArgumentException e) {
+      return false;
+    }
+    return ifModifiedSince > 0 && lastModified <= ifModifiedSince;
   }
 
   protected RequestURIParts parseParts(HttpServletRequest request) {
@@ -139,6 +308,78 @@ public class IDLFilter implements Filter {
   public void destroy() {
   }
 
+  /**
+   * A rewritten IDL document.
+   */
+  public static class IDLDocument {
+
+    private final String content;
+    private final long lastModified;
+    private final String etag;
+    private volatile byte[] gzipContent;
+
+    public IDLDocument(String content, long lastModified) {
+      this.content = content;
+      this.lastModified = lastModified;
+      this.etag = '"' + hash(encode(content)) + '"';
+    }
+
+    public String getContent() {
+      return content;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public String getETag() {
+      return etag;
+    }
+
+    public String getGzipETag() {
+      return this.etag.substring(0, this.etag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * @return The gzipped content, compressed the first time it's needed.
+     */
+    public byte[] getGzipContent() throws IOException {
+      byte[] gzipContent = this.gzipContent;
+      if (gzipContent == null) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes);
+        out.write(encode(this.content));
+        out.close();
+        gzipContent = bytes.toByteArray();
+        this.gzipContent = gzipContent;
+      }
+      return gzipContent;
+    }
+
+    private static byte[] encode(String content) {
+      try {
+        return content.getBytes("utf-8");
+      }
+      catch (UnsupportedEncodingException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static String hash(byte[] bytes) {
+      try {
+        byte[] hash = MessageDigest.getInstance("SHA-1").digest(bytes);
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+          hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+      }
+      catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
   public static class RequestURIParts {
 
     private final String baseAddress;
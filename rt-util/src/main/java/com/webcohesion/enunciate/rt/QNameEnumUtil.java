@@ -24,6 +24,7 @@ import javax.xml.namespace.QName;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -42,7 +43,8 @@ public class QNameEnumUtil {
   private static final AtomicBoolean WRITE_RELATIVE_URIS = new AtomicBoolean(false);
   private static final QName UNKNOWN_QNAME_ENUM = new QName("enunciate:qname-enum", "UNKNOWN");
   private static final QName EXCLUDED_QNAME_ENUM = new QName("enunciate:qname-enum", "EXCLUDED");
-  private static final Map<Class<? extends Enum>, Map<? extends Enum, QName>> QNAME_CACHE = new ConcurrentHashMap<Class<? extends Enum>, Map<? extends Enum, QName>>();
+  private static final Map<Class<?>, QNameEnumDescriptor> DESCRIPTORS = new ConcurrentHashMap<Class<?>, QNameEnumDescriptor>();
+  private static final Map<String, URI> BASE_URIS = new ConcurrentHashMap<String, URI>();
 
   /**
    * Set the default base uri for resolving qname URIs.
@@ -94,32 +96,13 @@ public class QNameEnumUtil {
       return null;
     }
 
-    if (!clazz.isEnum()) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", clazz.getName()));
-    }
-
-    Map<? extends Enum, QName> qNameMap = QNAME_CACHE.get(clazz);
-    if (qNameMap == null) {
-      qNameMap = createQNameMap(clazz);
-      QNAME_CACHE.put(clazz, qNameMap);
-    }
-
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo.base() != XmlQNameEnum.BaseType.QNAME) {
+    QNameEnumDescriptor descriptor = getDescriptor(clazz);
+    if (descriptor.base != XmlQNameEnum.BaseType.QNAME) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted from a URI (not QName).");
     }
 
-    Q defaultValue = null;
-    for (Map.Entry<? extends Enum, QName> qNameEntry : qNameMap.entrySet()) {
-      if (qNameEntry.getValue().equals(qname)) {
-        return (Q) qNameEntry.getKey();
-      }
-      else if (defaultValue == null && UNKNOWN_QNAME_ENUM.equals(qNameEntry.getValue())) {
-        defaultValue = (Q) qNameEntry.getKey();
-      }
-    }
-
-    return defaultValue;
+    Enum value = descriptor.enumsByQName.get(qname);
+    return (Q) (value == null ? descriptor.unknownValue : value);
   }
 
   /**
@@ -136,23 +119,13 @@ public class QNameEnumUtil {
       return null;
     }
 
-    if (!e.getDeclaringClass().isEnum()) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", e.getDeclaringClass().getName()));
-    }
-    Class<Enum> clazz = e.getDeclaringClass();
-
-    Map<? extends Enum, QName> qNameMap = QNAME_CACHE.get(clazz);
-    if (qNameMap == null) {
-      qNameMap = createQNameMap(clazz);
-      QNAME_CACHE.put(clazz, qNameMap);
-    }
-
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo.base() != XmlQNameEnum.BaseType.QNAME) {
+    Class<?> clazz = e.getDeclaringClass();
+    QNameEnumDescriptor descriptor = getDescriptor(clazz);
+    if (descriptor.base != XmlQNameEnum.BaseType.QNAME) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted from a URI (not QName).");
     }
 
-    QName result = qNameMap.get(e);
+    QName result = descriptor.qNames.get(e);
     if (result == null) {
       throw new IllegalStateException("Unable to find " + e.getDeclaringClass().getName() + "." + e + " as a QName enum value.");
     }
@@ -195,37 +168,17 @@ public class QNameEnumUtil {
       return null;
     }
 
-    if (defaultBaseUri != null) {
-      uriValue = URI.create(defaultBaseUri).resolve(uriValue).toString();
+    if (defaultBaseUri != null && !isAbsolute(uriValue)) {
+      uriValue = getBaseUri(defaultBaseUri).resolve(uriValue).toString();
     }
 
-    if (!clazz.isEnum()) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", clazz.getName()));
-    }
-
-    Map<? extends Enum, QName> qNameMap = QNAME_CACHE.get(clazz);
-    if (qNameMap == null) {
-      qNameMap = createQNameMap(clazz);
-      QNAME_CACHE.put(clazz, qNameMap);
-    }
-
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo.base() != XmlQNameEnum.BaseType.URI) {
+    QNameEnumDescriptor descriptor = getDescriptor(clazz);
+    if (descriptor.base != XmlQNameEnum.BaseType.URI) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted to a QName (not URI).");
     }
 
-    Q defaultValue = null;
-    for (Map.Entry<? extends Enum, QName> qNameEntry : qNameMap.entrySet()) {
-      String uri = qNameEntry.getValue().getNamespaceURI() + qNameEntry.getValue().getLocalPart();
-      if (uri.equals(uriValue)) {
-        return (Q) qNameEntry.getKey();
-      }
-      else if (defaultValue == null && UNKNOWN_QNAME_ENUM.equals(qNameEntry.getValue())) {
-        defaultValue = (Q) qNameEntry.getKey();
-      }
-    }
-
-    return defaultValue;
+    Enum value = descriptor.enumsByURI.get(uriValue);
+    return (Q) (value == null ? descriptor.unknownValue : value);
   }
 
   /**
@@ -256,23 +209,13 @@ public class QNameEnumUtil {
       return null;
     }
 
-    if (!e.getDeclaringClass().isEnum()) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", e.getDeclaringClass().getName()));
-    }
-    Class<? extends Enum<?>> clazz = e.getDeclaringClass();
-
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo.base() != XmlQNameEnum.BaseType.URI) {
+    Class<?> clazz = e.getDeclaringClass();
+    QNameEnumDescriptor descriptor = getDescriptor(clazz);
+    if (descriptor.base != XmlQNameEnum.BaseType.URI) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted to a QName (not URI).");
     }
 
-    Map<? extends Enum, QName> qNameMap = QNAME_CACHE.get(clazz);
-    if (qNameMap == null) {
-      qNameMap = createQNameMap((Class<? extends Enum>) clazz);
-      QNAME_CACHE.put(clazz, qNameMap);
-    }
-
-    QName result = qNameMap.get(e);
+    QName result = descriptor.qNames.get(e);
     if (result == null) {
       throw new IllegalStateException("Unable to find " + e.getDeclaringClass().getName() + "." + e + " as a QName enum value.");
     }
@@ -290,7 +233,48 @@ public class QNameEnumUtil {
     }
   }
 
-  private static <Q extends Enum<Q>> Map<? extends Enum, QName> createQNameMap(Class<Q> clazz) {
+  private static QNameEnumDescriptor getDescriptor(Class<?> clazz) {
+    QNameEnumDescriptor descriptor = DESCRIPTORS.get(clazz);
+    if (descriptor == null) {
+      if (!clazz.isEnum()) {
+        throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", clazz.getName()));
+      }
+
+      descriptor = new QNameEnumDescriptor(clazz.getAnnotation(XmlQNameEnum.class), createQNameMap((Class) clazz));
+      DESCRIPTORS.put(clazz, descriptor);
+    }
+    return descriptor;
+  }
+
+  private static URI getBaseUri(String baseUri) {
+    URI uri = BASE_URIS.get(baseUri);
+    if (uri == null) {
+      uri = URI.create(baseUri);
+      BASE_URIS.put(baseUri, uri);
+    }
+    return uri;
+  }
+
+  /**
+   * Whether the specified URI is absolute (i.e. starts with a scheme), in which case it resolves to itself against any base.
+   *
+   * @param uri The uri.
+   * @return Whether the uri is absolute.
+   */
+  private static boolean isAbsolute(String uri) {
+    for (int i = 0; i < uri.length(); i++) {
+      char ch = uri.charAt(i);
+      if (ch == ':') {
+        return i > 0;
+      }
+      else if (!((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (i > 0 && ((ch >= '0' && ch <= '9') || ch == '+' || ch == '-' || ch == '.')))) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private static <Q extends Enum<Q>> Map<Q, QName> createQNameMap(Class<Q> clazz) {
     EnumMap<Q, QName> enumQNameEnumMap = new EnumMap<Q, QName>(clazz);
 
     XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
@@ -341,4 +325,41 @@ public class QNameEnumUtil {
     return enumQNameEnumMap;
   }
 
+  /**
+   * The (precomputed) conversion tables of a QName enum.
+   */
+  private static final class QNameEnumDescriptor {
+
+    private final XmlQNameEnum.BaseType base;
+    private final Map<? extends Enum, QName> qNames;
+    private final Map<QName, Enum> enumsByQName;
+    private final Map<String, Enum> enumsByURI;
+    private final Enum unknownValue;
+
+    private QNameEnumDescriptor(XmlQNameEnum enumInfo, Map<? extends Enum, QName> qNames) {
+      this.base = enumInfo.base();
+      this.qNames = qNames;
+      this.enumsByQName = new HashMap<QName, Enum>();
+      this.enumsByURI = new HashMap<String, Enum>();
+      Enum unknownValue = null;
+      for (Map.Entry<? extends Enum, QName> qNameEntry : qNames.entrySet()) {
+        //first one (by ordinal) wins.
+        QName qname = qNameEntry.getValue();
+        if (!this.enumsByQName.containsKey(qname)) {
+          this.enumsByQName.put(qname, qNameEntry.getKey());
+        }
+
+        String uri = qname.getNamespaceURI() + qname.getLocalPart();
+        if (!this.enumsByURI.containsKey(uri)) {
+          this.enumsByURI.put(uri, qNameEntry.getKey());
+        }
+
+        if (unknownValue == null && UNKNOWN_QNAME_ENUM.equals(qname)) {
+          unknownValue = qNameEntry.getKey();
+        }
+      }
+      this.unknownValue = unknownValue;
+    }
+  }
+
 }
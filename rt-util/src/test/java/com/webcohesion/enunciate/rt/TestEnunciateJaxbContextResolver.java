@@ -0,0 +1,122 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.rt;
+
+import junit.framework.TestCase;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.annotation.XmlElementRef;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestEnunciateJaxbContextResolver extends TestCase {
+
+  /**
+   * tests that a lazy partition includes the namespaces connected to its namespace.
+   */
+  public void testLazyPartitionsIncludeConnectedNamespaces() throws Exception {
+    Thread thread = Thread.currentThread();
+    ClassLoader original = thread.getContextClassLoader();
+    thread.setContextClassLoader(new PartitionsClassLoader(getClass().getClassLoader()));
+    try {
+      EnunciateJaxbContextResolver resolver = new EnunciateJaxbContextResolver(true, false);
+
+      //the dogs namespace references the zoo namespace (by base type), so they're in the same partition...
+      JAXBContext zooContext = resolver.getContext(Zoo.class);
+      assertNotNull(zooContext);
+      assertSame(zooContext, resolver.getContext(Animal.class));
+      assertSame(zooContext, resolver.getContext(Dog.class));
+
+      //...so the zoo context knows the dog element that substitutes for an animal.
+      Object zoo = zooContext.createUnmarshaller().unmarshal(new StringReader("<zoo xmlns=\"urn:zoo\"><animal/><dog xmlns=\"urn:dogs\"/></zoo>"));
+      assertTrue(zoo instanceof Zoo);
+      assertEquals(2, ((Zoo) zoo).animals.size());
+      assertEquals(Animal.class, ((Zoo) zoo).animals.get(0).getClass());
+      assertEquals(Dog.class, ((Zoo) zoo).animals.get(1).getClass());
+
+      //unconnected namespaces are partitioned separately.
+      JAXBContext rockContext = resolver.getContext(Rock.class);
+      assertNotNull(rockContext);
+      assertNotSame(zooContext, rockContext);
+      assertTrue(zooContext.createUnmarshaller().unmarshal(new StringReader("<dog xmlns=\"urn:dogs\"/>")) instanceof Dog);
+      assertTrue(rockContext.createUnmarshaller().unmarshal(new StringReader("<rock xmlns=\"urn:geology\"/>")) instanceof Rock);
+      try {
+        rockContext.createUnmarshaller().unmarshal(new StringReader("<dog xmlns=\"urn:dogs\"/>"));
+        fail();
+      }
+      catch (UnmarshalException e) {
+        //fall through.
+      }
+
+      //classes outside the partitions get a context for all the classes.
+      JAXBContext allContext = resolver.getContext(String.class);
+      assertNotNull(allContext);
+      assertNotSame(zooContext, allContext);
+      assertNotSame(rockContext, allContext);
+    }
+    finally {
+      thread.setContextClassLoader(original);
+    }
+  }
+
+  /**
+   * Serves the test metadata as the metadata exported at build-time.
+   */
+  private static class PartitionsClassLoader extends ClassLoader {
+
+    private PartitionsClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+      return getParent().getResources("com/webcohesion/enunciate/rt/partitions/" + (name.startsWith("/") ? name.substring(1) : name));
+    }
+  }
+
+  @XmlRootElement (name = "zoo", namespace = "urn:zoo")
+  @XmlType (namespace = "urn:zoo")
+  public static class Zoo {
+
+    @XmlElementRef
+    public List<Animal> animals = new ArrayList<Animal>();
+  }
+
+  @XmlRootElement (name = "animal", namespace = "urn:zoo")
+  @XmlType (namespace = "urn:zoo")
+  public static class Animal {
+  }
+
+  @XmlRootElement (name = "dog", namespace = "urn:dogs")
+  @XmlType (namespace = "urn:dogs")
+  public static class Dog extends Animal {
+  }
+
+  @XmlRootElement (name = "rock", namespace = "urn:geology")
+  @XmlType (namespace = "urn:geology")
+  public static class Rock {
+  }
+}
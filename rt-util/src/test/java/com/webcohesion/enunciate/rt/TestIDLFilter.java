@@ -20,13 +20,16 @@ import junit.framework.TestCase;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.util.zip.GZIPInputStream;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.reset;
-import static org.mockito.Mockito.when;
+import org.mockito.ArgumentCaptor;
+
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
 
 /**
  * @author Ryan Heaton
@@ -69,4 +72,81 @@ public class TestIDLFilter extends TestCase {
     assertFalse(actual.contains("http://localhost:8080/base"));
   }
 
+  /**
+   * tests caching, conditional requests and gzip.
+   */
+  public void testCaching() throws Exception {
+    ServletContext context = mock(ServletContext.class);
+    FilterConfig filterConfig = mock(FilterConfig.class);
+    when(filterConfig.getServletContext()).thenReturn(context);
+    FilterChain chain = mock(FilterChain.class);
+    IDLFilter filter = new IDLFilter();
+    filter.init(filterConfig);
+
+    when(context.getResourceAsStream("/something/test.wsdl")).thenReturn(getClass().getResourceAsStream("test.wsdl"), (InputStream) null);
+    HttpServletRequest req = mock(HttpServletRequest.class);
+    when(req.getRequestURL()).thenReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    when(req.getContextPath()).thenReturn("/mycontext");
+    HttpServletResponse res = mock(HttpServletResponse.class);
+    StringWriter writer = new StringWriter();
+    when(res.getWriter()).thenReturn(new PrintWriter(writer));
+    filter.doFilter(req, res, chain);
+    String expected = writer.toString();
+    assertTrue(expected.contains("http://myhost.com/mycontext"));
+    ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+    verify(res).setHeader(eq("ETag"), etag.capture());
+
+    //served from the cache (the resource isn't available anymore).
+    res = mock(HttpServletResponse.class);
+    writer = new StringWriter();
+    when(res.getWriter()).thenReturn(new PrintWriter(writer));
+    filter.doFilter(req, res, chain);
+    assertEquals(expected, writer.toString());
+
+    //conditional request.
+    req = mock(HttpServletRequest.class);
+    when(req.getRequestURL()).thenReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    when(req.getContextPath()).thenReturn("/mycontext");
+    when(req.getHeader("If-None-Match")).thenReturn(etag.getValue());
+    res = mock(HttpServletResponse.class);
+    filter.doFilter(req, res, chain);
+    verify(res).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    verify(res, never()).getWriter();
+
+    //gzip.
+    req = mock(HttpServletRequest.class);
+    when(req.getRequestURL()).thenReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    when(req.getContextPath()).thenReturn("/mycontext");
+    when(req.getHeader("Accept-Encoding")).thenReturn("deflate, gzip");
+    res = mock(HttpServletResponse.class);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    when(res.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        bytes.write(b);
+      }
+    });
+    filter.doFilter(req, res, chain);
+    verify(res).setHeader("Content-Encoding", "gzip");
+    Reader unzipped = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())), "utf-8");
+    StringWriter content = new StringWriter();
+    int ch;
+    while ((ch = unzipped.read()) >= 0) {
+      content.write(ch);
+    }
+    assertEquals(expected, content.toString());
+
+    //a different base address is rewritten separately.
+    when(context.getResourceAsStream("/something/test.wsdl")).thenReturn(getClass().getResourceAsStream("test.wsdl"));
+    req = mock(HttpServletRequest.class);
+    when(req.getRequestURL()).thenReturn(new StringBuffer("http://otherhost.com/mycontext/something/test.wsdl"));
+    when(req.getContextPath()).thenReturn("/mycontext");
+    res = mock(HttpServletResponse.class);
+    writer = new StringWriter();
+    when(res.getWriter()).thenReturn(new PrintWriter(writer));
+    filter.doFilter(req, res, chain);
+    assertTrue(writer.toString().contains("http://otherhost.com/mycontext"));
+    verifyZeroInteractions(chain);
+  }
+
 }
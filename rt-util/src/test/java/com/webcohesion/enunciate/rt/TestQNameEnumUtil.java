@@ -15,17 +15,26 @@
  */
 package com.webcohesion.enunciate.rt;
 
+import com.webcohesion.enunciate.metadata.qname.XmlQNameEnum;
+import com.webcohesion.enunciate.metadata.qname.XmlQNameEnumValue;
+import com.webcohesion.enunciate.metadata.qname.XmlUnknownQNameEnumValue;
 import junit.framework.TestCase;
 
 import javax.xml.namespace.QName;
 import java.lang.annotation.RetentionPolicy;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author Ryan Heaton
  */
 public class TestQNameEnumUtil extends TestCase {
 
+  private static final QName UNKNOWN = new QName("enunciate:qname-enum", "UNKNOWN");
+  private static final QName EXCLUDED = new QName("enunciate:qname-enum", "EXCLUDED");
+
   /**
    * tests to/from qname enum.
    */
@@ -103,4 +112,111 @@ public class TestQNameEnumUtil extends TestCase {
     catch (IllegalArgumentException e) {}
   }
 
+
+  /**
+   * tests that the conversion tables resolve the same enums as a scan of the enum values.
+   */
+  public void testMatchesScanOfValues() throws Exception {
+    List<QName> qnames = new ArrayList<QName>();
+    for (Class<? extends Enum> clazz : Arrays.<Class<? extends Enum>>asList(SpecialQNameEnum.class, AnotherSpecialQNameEnum.class)) {
+      for (Enum e : clazz.getEnumConstants()) {
+        qnames.add(new QName("urn:special", e.name()));
+        qnames.add(new QName("urn:definite", e.name()));
+        qnames.add(new QName("urn:enunciate", e.name()));
+      }
+    }
+    qnames.add(new QName("urn:definite", "unique"));
+    qnames.add(new QName("", "best"));
+    qnames.add(new QName("enunciate:qname-enum", "UNKNOWN"));
+    qnames.add(new QName("enunciate:qname-enum", "EXCLUDED"));
+    for (QName qname : qnames) {
+      assertSame(qname.toString(), scanQNames(qname, SpecialQNameEnum.class), QNameEnumUtil.fromQName(qname, SpecialQNameEnum.class));
+      assertSame(qname.toString(), scanQNames(qname, AnotherSpecialQNameEnum.class), QNameEnumUtil.fromQName(qname, AnotherSpecialQNameEnum.class));
+    }
+
+    List<String> uris = Arrays.asList("urn:special#appropriate", "urn:special#best", "urn:definite#unique", "urn:definite#chief",
+                                      "urn:definite#certain", "http://domain.com/definite/sure/cool", "cool", "chief", "#chief",
+                                      "../sure/cool", "sure/cool", "urn:ambiguous#bc", "urn:ambiguous#third", "third", "bc", "",
+                                      "enunciate:qname-enumUNKNOWN", "enunciate:qname-enumEXCLUDED");
+    List<String> baseUris = Arrays.asList(null, "urn:special#", "urn:ambiguous#", "http://domain.com/definite/sure/", "http://domain.com/definite/");
+    for (String baseUri : baseUris) {
+      for (String uri : uris) {
+        String message = uri + " against " + baseUri;
+        assertSame(message, scanURIs(uri, SpecialURIEnum.class, baseUri), QNameEnumUtil.fromURI(uri, SpecialURIEnum.class, baseUri));
+        assertSame(message, scanURIs(uri, AmbiguousURIEnum.class, baseUri), QNameEnumUtil.fromURI(uri, AmbiguousURIEnum.class, baseUri));
+      }
+    }
+
+    //where values resolve to the same URI, the first (by ordinal) wins.
+    assertEquals(AmbiguousURIEnum.first, QNameEnumUtil.fromURI("urn:ambiguous#bc", AmbiguousURIEnum.class));
+    assertEquals(AmbiguousURIEnum.unknown, QNameEnumUtil.fromURI("urn:ambiguous#unknown", AmbiguousURIEnum.class));
+    assertEquals(AmbiguousURIEnum.third, QNameEnumUtil.fromURI("urn:ambiguous#third", AmbiguousURIEnum.class, "http://domain.com/definite/"));
+  }
+
+  /**
+   * Resolves a QName enum by scanning the enum values in order, the way the values were resolved before the conversion tables.
+   */
+  private static <Q extends Enum<Q>> Q scanQNames(QName qname, Class<Q> clazz) {
+    Q unknown = null;
+    for (Q e : clazz.getEnumConstants()) {
+      QName value = qnameOf(e);
+      if (value.equals(qname)) {
+        return e;
+      }
+      else if (unknown == null && UNKNOWN.equals(value)) {
+        unknown = e;
+      }
+    }
+    return unknown;
+  }
+
+  /**
+   * Resolves a URI enum by scanning the enum values in order, the way the values were resolved before the conversion tables.
+   */
+  private static <Q extends Enum<Q>> Q scanURIs(String uri, Class<Q> clazz, String baseUri) {
+    if (baseUri != null) {
+      uri = URI.create(baseUri).resolve(uri).toString();
+    }
+
+    Q unknown = null;
+    for (Q e : clazz.getEnumConstants()) {
+      QName value = qnameOf(e);
+      if ((value.getNamespaceURI() + value.getLocalPart()).equals(uri)) {
+        return e;
+      }
+      else if (unknown == null && UNKNOWN.equals(value)) {
+        unknown = e;
+      }
+    }
+    return unknown;
+  }
+
+  /**
+   * The QName of an enum value, including the (matchable) placeholders for the unknown and excluded values.
+   */
+  private static QName qnameOf(Enum<?> e) {
+    try {
+      if (e.getDeclaringClass().getField(e.name()).getAnnotation(XmlUnknownQNameEnumValue.class) != null) {
+        return UNKNOWN;
+      }
+
+      XmlQNameEnum.BaseType base = e.getDeclaringClass().getAnnotation(XmlQNameEnum.class).base();
+      if (base == XmlQNameEnum.BaseType.QNAME) {
+        return QNameEnumUtil.toQName(e);
+      }
+      else {
+        String uri = QNameEnumUtil.toURI(e, null);
+        XmlQNameEnumValue valueInfo = e.getDeclaringClass().getField(e.name()).getAnnotation(XmlQNameEnumValue.class);
+        String localPart = valueInfo == null || "##default".equals(valueInfo.localPart()) ? e.name() : valueInfo.localPart();
+        return new QName(uri.substring(0, uri.length() - localPart.length()), localPart);
+      }
+    }
+    catch (IllegalArgumentException ex) {
+      return EXCLUDED;
+    }
+    catch (NoSuchFieldException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
 }
@@ -35,6 +35,7 @@ import com.webcohesion.enunciate.Enunciate;
 import com.webcohesion.enunciate.EnunciateConfiguration;
 import com.webcohesion.enunciate.EnunciateException;
 import com.webcohesion.enunciate.EnunciateLogger;
+import com.webcohesion.enunciate.EnunciateSession;
 import com.webcohesion.enunciate.module.EnunciateModule;
 import com.webcohesion.enunciate.module.ProjectExtensionModule;
 
@@ -208,6 +209,28 @@ public class ConfigMojo extends AbstractMojo {
   @Parameter ( name = "sources" )
   protected String[] sources;
 
+  /**
+   * The number of extra threads to use for I/O such as scanning the classpath and compressing archives. By default (0),
+   * everything is done on the build thread. The modules themselves always run one at a time on the build thread.
+   */
+  @Parameter ( defaultValue = "0", property = "enunciate.threads" )
+  protected int threads = 0;
+
+  /**
+   * The directory in which to cache what's found by scanning the jars on the classpath, so that unchanged jars don't need
+   * to be scanned again by the next build. The directory may be shared by the projects of a multi-module build. By default,
+   * nothing is cached.
+   */
+  @Parameter ( property = "enunciate.scanCacheDirectory" )
+  protected File scanCacheDirectory = null;
+
+  /**
+   * Whether to keep Enunciate warm for the next build in the same JVM (e.g. when running in a Maven daemon): the parsed
+   * templates and the results of scanning the classpath jars are kept in memory and reused.
+   */
+  @Parameter ( defaultValue = "false", property = "enunciate.warmSession" )
+  protected boolean warmSession = false;
+
   public void execute() throws MojoExecutionException {
     if (skipEnunciate) {
       getLog().info("[ENUNCIATE] Skipping enunciate per configuration.");
@@ -222,6 +245,17 @@ public class ConfigMojo extends AbstractMojo {
     //set the build dir.
     enunciate.setBuildDir(this.buildDir);
 
+    //set the number of threads.
+    enunciate.setExtraThreadCount(this.threads);
+
+    //set the scan cache.
+    enunciate.setScanCacheDir(this.scanCacheDirectory);
+
+    //keep warm, if requested.
+    if (this.warmSession) {
+      enunciate.setSession(EnunciateSession.getShared());
+    }
+
     //load the config.
     EnunciateConfiguration config = enunciate.getConfiguration();
     File configFile = this.configFile;
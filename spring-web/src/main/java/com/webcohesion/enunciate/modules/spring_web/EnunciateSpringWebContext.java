@@ -27,15 +27,22 @@ import com.webcohesion.enunciate.modules.spring_web.api.impl.AnnotationBasedReso
 import com.webcohesion.enunciate.modules.spring_web.api.impl.PathBasedResourceGroupImpl;
 import com.webcohesion.enunciate.modules.spring_web.api.impl.ResourceClassResourceGroupImpl;
 import com.webcohesion.enunciate.modules.spring_web.api.impl.ResourceImpl;
-import com.webcohesion.enunciate.modules.spring_web.model.RequestMapping;
-import com.webcohesion.enunciate.modules.spring_web.model.SpringController;
-import com.webcohesion.enunciate.modules.spring_web.model.SpringControllerAdvice;
+import com.webcohesion.enunciate.modules.spring_web.model.*;
 import com.webcohesion.enunciate.util.PathSortStrategy;
 import com.webcohesion.enunciate.util.ResourceComparator;
 import com.webcohesion.enunciate.util.ResourceGroupComparator;
 import com.webcohesion.enunciate.util.SortedList;
 
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -51,6 +58,12 @@ public class EnunciateSpringWebContext extends EnunciateModuleContext {
 
   private final Set<SpringController> controllers;
   private final Set<SpringControllerAdvice> advice;
+  private final List<SpringControllerAdvice> globalAdvice = new ArrayList<SpringControllerAdvice>();
+  private final Map<String, List<SpringControllerAdvice>> adviceByPackage = new HashMap<String, List<SpringControllerAdvice>>();
+  private final Map<String, List<SpringControllerAdvice>> adviceByClass = new HashMap<String, List<SpringControllerAdvice>>();
+  private final Map<String, List<SpringControllerAdvice>> adviceByAnnotation = new HashMap<String, List<SpringControllerAdvice>>();
+  private final ConcurrentMap<String, RequestMethod[]> composedRequestMethods = new ConcurrentHashMap<String, RequestMethod[]>();
+  private final Set<String> uncomposedAnnotations = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
   private String relativeContextPath = "";
   private GroupingStrategy groupingStrategy = GroupingStrategy.resource_class;
   private InterfaceDescriptionFile wadlFile = null;
@@ -83,9 +96,116 @@ public class EnunciateSpringWebContext extends EnunciateModuleContext {
 
   public void add(SpringControllerAdvice advice) {
     this.advice.add(advice);
+    for (AdviceScope scope : advice.getScope()) {
+      if (scope instanceof PackageAdviceScope) {
+        for (String pckg : ((PackageAdviceScope) scope).getPackages()) {
+          index(this.adviceByPackage, pckg, advice);
+        }
+      }
+      else if (scope instanceof ClassAdviceScope) {
+        for (String clazz : ((ClassAdviceScope) scope).getClasses()) {
+          index(this.adviceByClass, clazz, advice);
+        }
+      }
+      else if (scope instanceof AnnotationAdviceScope) {
+        for (String annotation : ((AnnotationAdviceScope) scope).getAnnotations()) {
+          index(this.adviceByAnnotation, annotation, advice);
+        }
+      }
+      else {
+        this.globalAdvice.add(advice);
+      }
+    }
     debug("Added %s as Spring controller advice.", advice.getQualifiedName());
   }
 
+  private static void index(Map<String, List<SpringControllerAdvice>> index, String key, SpringControllerAdvice advice) {
+    List<SpringControllerAdvice> entries = index.get(key);
+    if (entries == null) {
+      entries = new ArrayList<SpringControllerAdvice>();
+      index.put(key, entries);
+    }
+    entries.add(advice);
+  }
+
+  /**
+   * Find the controller advice that may apply to the specified element, looked up by the scopes under which the advice
+   * was added (every controller is advice for its own methods, so there's a lot of it).
+   *
+   * @param el The element.
+   * @return The advice, in the same order as {@link #getAdvice()}.
+   */
+  public Set<SpringControllerAdvice> findAdvice(Element el) {
+    Set<SpringControllerAdvice> advice = new TreeSet<SpringControllerAdvice>(new TypeElementComparator());
+    advice.addAll(this.globalAdvice);
+
+    Element type = el;
+    while (type != null && !(type instanceof TypeElement)) {
+      type = type.getEnclosingElement();
+    }
+
+    if (type != null) {
+      addAll(advice, this.adviceByClass.get(((TypeElement) type).getQualifiedName().toString()));
+
+      List<? extends AnnotationMirror> annotationMirrors = type.getAnnotationMirrors();
+      if (annotationMirrors != null) {
+        for (AnnotationMirror annotationMirror : annotationMirrors) {
+          DeclaredType annotationType = annotationMirror.getAnnotationType();
+          if (annotationType != null) {
+            Element annotationElement = annotationType.asElement();
+            if (annotationElement instanceof TypeElement) {
+              addAll(advice, this.adviceByAnnotation.get(((TypeElement) annotationElement).getQualifiedName().toString()));
+            }
+          }
+        }
+      }
+    }
+
+    Element pckg = el;
+    while (pckg != null && !(pckg instanceof PackageElement)) {
+      pckg = pckg.getEnclosingElement();
+    }
+
+    if (pckg != null) {
+      addAll(advice, this.adviceByPackage.get(((PackageElement) pckg).getQualifiedName().toString()));
+    }
+
+    return advice;
+  }
+
+  private static void addAll(Set<SpringControllerAdvice> advice, List<SpringControllerAdvice> entries) {
+    if (entries != null) {
+      advice.addAll(entries);
+    }
+  }
+
+  /**
+   * The request methods of the {@code @RequestMapping} that the specified annotation type is annotated with, if it's a
+   * composed request mapping annotation (e.g. {@code @GetMapping}). Annotation types are resolved once.
+   *
+   * @param annotationType The annotation type.
+   * @return The request methods, or null if the annotation type isn't a composed request mapping annotation.
+   */
+  public RequestMethod[] findComposedRequestMethods(TypeElement annotationType) {
+    String key = annotationType.getQualifiedName().toString();
+    RequestMethod[] requestMethods = this.composedRequestMethods.get(key);
+    if (requestMethods == null) {
+      if (this.uncomposedAnnotations.contains(key)) {
+        return null;
+      }
+
+      org.springframework.web.bind.annotation.RequestMapping requestMapping = annotationType.getAnnotation(org.springframework.web.bind.annotation.RequestMapping.class);
+      if (requestMapping == null) {
+        this.uncomposedAnnotations.add(key);
+        return null;
+      }
+
+      requestMethods = requestMapping.method();
+      this.composedRequestMethods.put(key, requestMethods);
+    }
+    return requestMethods.clone();
+  }
+
   public boolean isIncludeResourceGroupName() {
     return this.groupingStrategy != GroupingStrategy.path;
   }
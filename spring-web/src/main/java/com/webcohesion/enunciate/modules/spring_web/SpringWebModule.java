@@ -35,7 +35,7 @@ import java.util.*;
  * @author Ryan Heaton
  */
 @SuppressWarnings ( "unchecked" )
-public class SpringWebModule extends BasicProviderModule implements TypeDetectingModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
+public class SpringWebModule extends BasicProviderModule implements AnnotationDetectingModule, ApiRegistryProviderModule, ApiFeatureProviderModule {
 
   private DataTypeDetectionStrategy defaultDataTypeDetectionStrategy;
   private final List<MediaTypeDefinitionModule> mediaTypeModules = new ArrayList<MediaTypeDefinitionModule>();
@@ -251,6 +251,11 @@ public class SpringWebModule extends BasicProviderModule implements TypeDetectin
     }
   }
 
+  @Override
+  public Set<String> getDetectedAnnotations() {
+    return new HashSet<String>(Arrays.asList(Controller.class.getName(), RestController.class.getName()));
+  }
+
   @Override
   public boolean typeDetected(Object type, MetadataAdapter metadata) {
     String classname = metadata.getClassName(type);
@@ -162,7 +162,7 @@ public class RequestMapping extends DecoratedExecutableElement implements HasFac
     ArrayList<ResponseCode> statusCodes = new ArrayList<ResponseCode>();
     ArrayList<ResponseCode> warnings = new ArrayList<ResponseCode>();
 
-    Set<SpringControllerAdvice> advice = this.context.getAdvice();
+    Set<SpringControllerAdvice> advice = this.context.findAdvice(this);
     for (SpringControllerAdvice controllerAdvice : advice) {
       List<RequestMappingAdvice> requestAdvice = controllerAdvice.findRequestMappingAdvice(this);
       for (RequestMappingAdvice mappingAdvice : requestAdvice) {
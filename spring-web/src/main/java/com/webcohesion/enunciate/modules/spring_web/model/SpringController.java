@@ -142,11 +142,12 @@ public class SpringController extends DecoratedTypeElement implements HasFacets
         continue;
       }
 
-      RequestMethod[] requestMethods = findRequestMethods(method);
-      if (requestMethods != null) {
-        String[] consumes = findConsumes(method);
-        String[] produces = findProduces(method);
-        Set<String> subpaths = findSubpaths(method);
+      MappingInfo mapping = findMappingInfo(method);
+      if (mapping != null) {
+        RequestMethod[] requestMethods = mapping.methods;
+        String[] consumes = mapping.consumes;
+        String[] produces = mapping.produces;
+        Set<String> subpaths = mapping.subpaths;
 
         if (subpaths.isEmpty()) {
           subpaths.add("");
@@ -199,81 +200,29 @@ public class SpringController extends DecoratedTypeElement implements HasFacets
     return requestMappings;
   }
 
-  private RequestMethod[] findRequestMethods(ExecutableElement method) {
-    org.springframework.web.bind.annotation.RequestMapping requestMapping = method.getAnnotation(org.springframework.web.bind.annotation.RequestMapping.class);
-    if (requestMapping != null) {
-      return requestMapping.method();
-    }
-    else {
-      List<? extends AnnotationMirror> annotations = method.getAnnotationMirrors();
-      if (annotations != null) {
-        for (AnnotationMirror annotation : annotations) {
-          DeclaredType annotationType = annotation.getAnnotationType();
-          if (annotationType != null) {
-            Element annotationElement = annotationType.asElement();
-            if (annotationElement != null) {
-              requestMapping = annotationElement.getAnnotation(org.springframework.web.bind.annotation.RequestMapping.class);
-              if (requestMapping != null) {
-                return requestMapping.method();
-              }
-            }
-          }
-        }
-      }
-    }
-    return null;
-  }
-
-  private String[] findConsumes(ExecutableElement method) {
-    org.springframework.web.bind.annotation.RequestMapping requestMapping = method.getAnnotation(org.springframework.web.bind.annotation.RequestMapping.class);
-    if (requestMapping != null) {
-      return requestMapping.consumes();
-    }
-    else {
-      List<? extends AnnotationMirror> annotations = method.getAnnotationMirrors();
-      if (annotations != null) {
-        for (AnnotationMirror annotation : annotations) {
-          DeclaredType annotationType = annotation.getAnnotationType();
-          if (annotationType != null) {
-            Element annotationElement = annotationType.asElement();
-            if (annotationElement != null) {
-              requestMapping = annotationElement.getAnnotation(org.springframework.web.bind.annotation.RequestMapping.class);
-              if (requestMapping != null) {
-                Map<? extends ExecutableElement, ? extends AnnotationValue> elementValues = annotation.getElementValues();
-                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elementValues.entrySet()) {
-                  if (entry.getKey().getSimpleName().contentEquals("consumes")) {
-                    Object value = entry.getValue().getValue();
-                    if (value instanceof List) {
-                      String[] consumes = new String[((List)value).size()];
-                      for (int i = 0; i < ((List) value).size(); i++) {
-                        AnnotationValue valueItem = (AnnotationValue) ((List) value).get(i);
-                        consumes[i] = String.valueOf(valueItem.getValue());
-                      }
-                      return consumes;
-                    }
-                  }
-                }
-              }
-            }
-          }
-        }
-      }
-    }
-    return null;
-  }
-
-  private Set<String> findSubpaths(ExecutableElement method) {
+  /**
+   * Find the request mapping of the specified method, either declared directly or by way of a composed annotation (e.g.
+   * {@code @GetMapping}). The mapping attributes are read from a single pass over the method's annotations.
+   *
+   * @param method The method.
+   * @return The mapping info, or null if the method isn't a request mapping.
+   */
+  private MappingInfo findMappingInfo(ExecutableElement method) {
     org.springframework.web.bind.annotation.RequestMapping requestMapping = method.getAnnotation(org.springframework.web.bind.annotation.RequestMapping.class);
     if (requestMapping != null) {
-      Set<String> subpaths = new TreeSet<String>();
+      MappingInfo mapping = new MappingInfo();
+      mapping.methods = requestMapping.method();
+      mapping.consumes = requestMapping.consumes();
+      mapping.produces = requestMapping.produces();
+      mapping.subpaths = new TreeSet<String>();
       try {
-        subpaths.addAll(Arrays.asList(requestMapping.path()));
+        mapping.subpaths.addAll(Arrays.asList(requestMapping.path()));
       }
       catch (IncompleteAnnotationException e) {
         //fall through; 'mappingInfo.path' was added in 4.2.
       }
-      subpaths.addAll(Arrays.asList(requestMapping.value()));
-      return subpaths;
+      mapping.subpaths.addAll(Arrays.asList(requestMapping.value()));
+      return mapping;
     }
     else {
       List<? extends AnnotationMirror> annotations = method.getAnnotationMirrors();
@@ -282,24 +231,29 @@ public class SpringController extends DecoratedTypeElement implements HasFacets
           DeclaredType annotationType = annotation.getAnnotationType();
           if (annotationType != null) {
             Element annotationElement = annotationType.asElement();
-            if (annotationElement != null) {
-              requestMapping = annotationElement.getAnnotation(org.springframework.web.bind.annotation.RequestMapping.class);
-              if (requestMapping != null) {
-                Set<String> subpaths = new TreeSet<String>();
+            if (annotationElement instanceof TypeElement) {
+              RequestMethod[] requestMethods = this.context.findComposedRequestMethods((TypeElement) annotationElement);
+              if (requestMethods != null) {
+                MappingInfo mapping = new MappingInfo();
+                mapping.methods = requestMethods;
+                mapping.subpaths = new TreeSet<String>();
                 Map<? extends ExecutableElement, ? extends AnnotationValue> elementValues = annotation.getElementValues();
                 for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elementValues.entrySet()) {
-                  if (entry.getKey().getSimpleName().contentEquals("value") || entry.getKey().getSimpleName().contentEquals("path")) {
-                    Object value = entry.getValue().getValue();
-                    if (value instanceof List) {
-                      for (int i = 0; i < ((List) value).size(); i++) {
-                        AnnotationValue valueItem = (AnnotationValue) ((List) value).get(i);
-                        subpaths.add(String.valueOf(valueItem.getValue()));
-                      }
+                  Name name = entry.getKey().getSimpleName();
+                  Object value = entry.getValue().getValue();
+                  if (value instanceof List) {
+                    if (name.contentEquals("consumes")) {
+                      mapping.consumes = toStrings((List) value);
+                    }
+                    else if (name.contentEquals("produces")) {
+                      mapping.produces = toStrings((List) value);
+                    }
+                    else if (name.contentEquals("value") || name.contentEquals("path")) {
+                      mapping.subpaths.addAll(Arrays.asList(toStrings((List) value)));
                     }
                   }
                 }
-
-                return subpaths;
+                return mapping;
               }
             }
           }
@@ -309,42 +263,23 @@ public class SpringController extends DecoratedTypeElement implements HasFacets
     return null;
   }
 
-  private String[] findProduces(ExecutableElement method) {
-    org.springframework.web.bind.annotation.RequestMapping requestMapping = method.getAnnotation(org.springframework.web.bind.annotation.RequestMapping.class);
-    if (requestMapping != null) {
-      return requestMapping.produces();
+  private static String[] toStrings(List values) {
+    String[] strings = new String[values.size()];
+    for (int i = 0; i < values.size(); i++) {
+      AnnotationValue valueItem = (AnnotationValue) values.get(i);
+      strings[i] = String.valueOf(valueItem.getValue());
     }
-    else {
-      List<? extends AnnotationMirror> annotations = method.getAnnotationMirrors();
-      if (annotations != null) {
-        for (AnnotationMirror annotation : annotations) {
-          DeclaredType annotationType = annotation.getAnnotationType();
-          if (annotationType != null) {
-            Element annotationElement = annotationType.asElement();
-            if (annotationElement != null) {
-              requestMapping = annotationElement.getAnnotation(org.springframework.web.bind.annotation.RequestMapping.class);
-              if (requestMapping != null) {
-                Map<? extends ExecutableElement, ? extends AnnotationValue> elementValues = annotation.getElementValues();
-                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elementValues.entrySet()) {
-                  if (entry.getKey().getSimpleName().contentEquals("produces")) {
-                    Object value = entry.getValue().getValue();
-                    if (value instanceof List) {
-                      String[] produces = new String[((List)value).size()];
-                      for (int i = 0; i < ((List) value).size(); i++) {
-                        AnnotationValue valueItem = (AnnotationValue) ((List) value).get(i);
-                        produces[i] = String.valueOf(valueItem.getValue());
-                      }
-                      return produces;
-                    }
-                  }
-                }
-              }
-            }
-          }
-        }
-      }
-    }
-    return null;
+    return strings;
+  }
+
+  /**
+   * The attributes of a request mapping.
+   */
+  private static class MappingInfo {
+    RequestMethod[] methods;
+    String[] consumes;
+    String[] produces;
+    Set<String> subpaths;
   }
 
   /**
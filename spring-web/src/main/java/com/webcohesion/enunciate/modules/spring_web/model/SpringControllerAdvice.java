@@ -36,10 +36,12 @@ import java.util.*;
 public class SpringControllerAdvice extends DecoratedTypeElement {
 
   private final EnunciateSpringWebContext context;
+  private final List<AdviceScope> scope;
 
   public SpringControllerAdvice(TypeElement delegate, EnunciateSpringWebContext context) {
     super(delegate, context.getContext().getProcessingEnvironment());
     this.context = context;
+    this.scope = Collections.unmodifiableList(loadScope());
   }
 
   /**
@@ -66,7 +68,16 @@ public class SpringControllerAdvice extends DecoratedTypeElement {
     return context;
   }
 
-  public List<RequestMappingAdvice> findRequestMappingAdvice(RequestMapping requestMapping) {
+  /**
+   * The scope of this advice.
+   *
+   * @return The scope of this advice.
+   */
+  public List<AdviceScope> getScope() {
+    return scope;
+  }
+
+  protected List<AdviceScope> loadScope() {
     List<AdviceScope> scope = new ArrayList<AdviceScope>();
     ControllerAdvice adviceInfo = getAnnotation(ControllerAdvice.class);
     if (adviceInfo != null) {
@@ -147,7 +158,11 @@ public class SpringControllerAdvice extends DecoratedTypeElement {
       scope.add(new ClassAdviceScope(new TreeSet<String>(Collections.singletonList(getQualifiedName().toString()))));
     }
 
-    return findRequestMappingAdvice(requestMapping, this, scope, new TypeVariableContext());
+    return scope;
+  }
+
+  public List<RequestMappingAdvice> findRequestMappingAdvice(RequestMapping requestMapping) {
+    return findRequestMappingAdvice(requestMapping, this, this.scope, new TypeVariableContext());
   }
 
   protected List<RequestMappingAdvice> findRequestMappingAdvice(RequestMapping requestMapping, TypeElement controllerAdvice, List<AdviceScope> scope, TypeVariableContext variableContext) {
@@ -155,21 +170,24 @@ public class SpringControllerAdvice extends DecoratedTypeElement {
       return Collections.emptyList();
     }
 
-    ArrayList<RequestMappingAdvice> advice = new ArrayList<RequestMappingAdvice>();
-    for (ExecutableElement method : ElementFilter.methodsIn(controllerAdvice.getEnclosedElements())) {
-      boolean applies = false;
-      for (AdviceScope adviceScope : scope) {
-        if (adviceScope.applies(requestMapping)) {
-          applies = true;
-          break;
-        }
+    boolean applies = false;
+    for (AdviceScope adviceScope : scope) {
+      if (adviceScope.applies(requestMapping)) {
+        applies = true;
+        break;
       }
+    }
 
-      if (applies) {
-        org.springframework.web.bind.annotation.ModelAttribute modelAttribute = method.getAnnotation(org.springframework.web.bind.annotation.ModelAttribute.class);
-        if (modelAttribute != null) {
-          advice.add(new RequestMappingAdvice(requestMapping, modelAttribute, method, this, variableContext, this.context));
-        }
+    if (!applies) {
+      //the scope is the same for every method, so none of the advice applies.
+      return Collections.emptyList();
+    }
+
+    ArrayList<RequestMappingAdvice> advice = new ArrayList<RequestMappingAdvice>();
+    for (ExecutableElement method : ElementFilter.methodsIn(controllerAdvice.getEnclosedElements())) {
+      org.springframework.web.bind.annotation.ModelAttribute modelAttribute = method.getAnnotation(org.springframework.web.bind.annotation.ModelAttribute.class);
+      if (modelAttribute != null) {
+        advice.add(new RequestMappingAdvice(requestMapping, modelAttribute, method, this, variableContext, this.context));
       }
     }
 
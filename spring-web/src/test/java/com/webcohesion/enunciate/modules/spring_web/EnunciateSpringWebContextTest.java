@@ -0,0 +1,169 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.spring_web;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.modules.spring_web.model.AdviceScope;
+import com.webcohesion.enunciate.modules.spring_web.model.RequestMapping;
+import com.webcohesion.enunciate.modules.spring_web.model.SpringController;
+import com.webcohesion.enunciate.modules.spring_web.model.SpringControllerAdvice;
+import org.junit.Test;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import java.io.File;
+import java.io.StringReader;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class EnunciateSpringWebContextTest {
+
+  private static final String SAMPLES = "com.webcohesion.enunciate.examples.spring_web.advice.";
+
+  @Test
+  public void testAdviceIsFoundByScope() throws Exception {
+    EnunciateSpringWebContext context = runSpringWeb();
+    Map<String, List<String>> adviceByController = new TreeMap<String, List<String>>();
+    for (SpringController controller : context.getControllers()) {
+      for (RequestMapping requestMapping : controller.getRequestMappings()) {
+        //every advice whose scope applies, the way the advice was found before it was indexed.
+        List<String> expected = new ArrayList<String>();
+        for (SpringControllerAdvice advice : context.getAdvice()) {
+          for (AdviceScope scope : advice.getScope()) {
+            if (scope.applies(requestMapping)) {
+              expected.add(advice.getQualifiedName().toString());
+              break;
+            }
+          }
+        }
+
+        List<String> found = names(context.findAdvice(requestMapping));
+        assertEquals(requestMapping.getFullpath(), expected, found);
+        adviceByController.put(controller.getSimpleName().toString(), found);
+      }
+    }
+
+    assertEquals(3, adviceByController.size());
+    assertEquals(Arrays.asList(SAMPLES + "ClassAdvice", SAMPLES + "GlobalAdvice", SAMPLES + "PetController"), adviceByController.get("PetController"));
+    assertEquals(Arrays.asList(SAMPLES + "AnnotationAdvice", SAMPLES + "GlobalAdvice", SAMPLES + "PackageAdvice", SAMPLES + "scoped.OwnerController"), adviceByController.get("OwnerController"));
+    assertEquals(Arrays.asList(SAMPLES + "GlobalAdvice", SAMPLES + "PackageAdvice", SAMPLES + "scoped.VetController"), adviceByController.get("VetController"));
+  }
+
+  @Test
+  public void testComposedRequestMapping() throws Exception {
+    EnunciateSpringWebContext context = runSpringWeb();
+    Map<String, RequestMapping> mappings = new HashMap<String, RequestMapping>();
+    for (SpringController controller : context.getControllers()) {
+      if ("PetController".contentEquals(controller.getSimpleName())) {
+        for (RequestMapping requestMapping : controller.getRequestMappings()) {
+          mappings.put(requestMapping.getSimpleName().toString(), requestMapping);
+        }
+      }
+    }
+    assertEquals(3, mappings.size());
+
+    RequestMapping getPet = mappings.get("getPet");
+    assertEquals(Collections.singleton("GET"), getPet.getHttpMethods());
+    assertEquals("/pets/{id}", getPet.getFullpath());
+    assertEquals(Collections.singleton("application/json"), getPet.getConsumesMediaTypes());
+    assertEquals(new TreeSet<String>(Arrays.asList("application/xml", "text/plain")), getPet.getProducesMediaTypes());
+
+    //a composed mapping that doesn't say what it consumes or produces gets the same defaults as a plain one.
+    RequestMapping getNames = mappings.get("getNames");
+    RequestMapping deletePet = mappings.get("deletePet");
+    assertEquals(Collections.singleton("GET"), getNames.getHttpMethods());
+    assertEquals("/pets/names", getNames.getFullpath());
+    assertEquals(Collections.singleton("DELETE"), deletePet.getHttpMethods());
+    assertEquals(deletePet.getConsumesMediaTypes(), getNames.getConsumesMediaTypes());
+    assertEquals(deletePet.getProducesMediaTypes(), getNames.getProducesMediaTypes());
+  }
+
+  @Test
+  public void testComposedRequestMethodsAreResolvedOnce() throws Exception {
+    EnunciateSpringWebContext context = runSpringWeb();
+    Map<String, TypeElement> annotations = new HashMap<String, TypeElement>();
+    for (SpringController controller : context.getControllers()) {
+      annotations.putAll(annotationTypes(controller));
+      for (RequestMapping requestMapping : controller.getRequestMappings()) {
+        annotations.putAll(annotationTypes(requestMapping));
+      }
+    }
+
+    TypeElement getResource = annotations.get(SAMPLES + "GetResource");
+    RequestMethod[] requestMethods = context.findComposedRequestMethods(getResource);
+    assertArrayEquals(new RequestMethod[]{RequestMethod.GET}, requestMethods);
+    requestMethods[0] = RequestMethod.POST;
+    assertArrayEquals("the cached request methods shouldn't be exposed", new RequestMethod[]{RequestMethod.GET}, context.findComposedRequestMethods(getResource));
+
+    TypeElement audited = annotations.get(SAMPLES + "Audited");
+    assertNull(context.findComposedRequestMethods(audited));
+    assertNull(context.findComposedRequestMethods(audited));
+  }
+
+  private static Map<String, TypeElement> annotationTypes(Element element) {
+    Map<String, TypeElement> annotationTypes = new HashMap<String, TypeElement>();
+    for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+      annotationTypes.put(annotationType.getQualifiedName().toString(), annotationType);
+    }
+    return annotationTypes;
+  }
+
+  private static List<String> names(Collection<SpringControllerAdvice> advice) {
+    List<String> names = new ArrayList<String>();
+    for (SpringControllerAdvice controllerAdvice : advice) {
+      names.add(controllerAdvice.getQualifiedName().toString());
+    }
+    return names;
+  }
+
+  private static EnunciateSpringWebContext runSpringWeb() throws Exception {
+    Enunciate enunciate = new Enunciate();
+    enunciate.loadConfiguration(new StringReader("<enunciate><modules><spring-web/></modules></enunciate>"));
+    enunciate.setBuildDir(createTempDir());
+    enunciate.setClasspath(testClasspath());
+    enunciate.addSourceDir(new File("src/test/samples/com/webcohesion/enunciate/examples/spring_web/advice"));
+    SpringWebModule module = new SpringWebModule();
+    enunciate.addModule(module);
+    enunciate.run();
+    assertNotNull(module.getSpringWebContext());
+    return module.getSpringWebContext();
+  }
+
+  private static List<File> testClasspath() {
+    List<File> classpath = new ArrayList<File>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        classpath.add(new File(entry));
+      }
+    }
+    return classpath;
+  }
+
+  private static File createTempDir() throws Exception {
+    File tempDir = File.createTempFile("enunciate", "");
+    tempDir.delete();
+    tempDir.mkdirs();
+    tempDir.deleteOnExit();
+    return tempDir;
+  }
+}